@@ -19,6 +19,7 @@
 
 package org.apache.samza.checkpoint;
 
+import java.util.Map;
 import org.apache.samza.container.TaskName;
 
 /**
@@ -49,6 +50,16 @@ public interface CheckpointManager {
    */
   void writeCheckpoint(TaskName taskName, Checkpoint checkpoint);
 
+  /**
+   * Writes the checkpoints of several tasks that commit together. Implementations may write them in a single batch,
+   * e.g. with one flush, instead of writing each of them separately. By default, each checkpoint is written with
+   * {@link #writeCheckpoint(TaskName, Checkpoint)}.
+   * @param checkpoints the checkpoints to write, keyed by the taskName they are for.
+   */
+  default void writeCheckpoints(Map<TaskName, Checkpoint> checkpoints) {
+    checkpoints.forEach(this::writeCheckpoint);
+  }
+
   /**
    * Returns the last recorded checkpoint for a specified taskName.
    * @param taskName Specific Samza taskName for which to get the last checkpoint of.
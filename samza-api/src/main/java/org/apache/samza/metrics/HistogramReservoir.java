@@ -0,0 +1,267 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.samza.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.apache.samza.util.Clock;
+
+/**
+ * An implemented {@link Reservoir} that counts values in a fixed number of log-linear buckets
+ * instead of storing every value.
+ *
+ * <p>Values below {@link #SUB_BUCKET_COUNT} get a bucket each. Larger values are bucketed by their
+ * highest {@link #PRECISION_BITS} bits, so a bucket is never wider than 1/16th of the values in it,
+ * and percentiles are accurate to within that. Negative values are counted as 0.
+ *
+ * <p>The window is split into a fixed number of intervals, each with its own buckets. An interval's
+ * buckets are reset when the clock moves into it again, and a snapshot merges the intervals that
+ * fall in the window. Updates don't allocate or lock, except for the update that resets an interval.
+ */
+public class HistogramReservoir implements Reservoir {
+
+  /**
+   * default window size
+   */
+  private static final long DEFAULT_WINDOW_SIZE_MS = 300000;
+
+  /**
+   * default number of intervals the window is split into
+   */
+  private static final int DEFAULT_NUM_INTERVALS = 5;
+
+  /**
+   * Number of significant bits used to bucket a value
+   */
+  static final int PRECISION_BITS = 5;
+
+  /**
+   * Values below this get a bucket each. Each larger power of two is split into half as many buckets.
+   */
+  static final int SUB_BUCKET_COUNT = 1 << PRECISION_BITS;
+
+  private static final int HALF_SUB_BUCKET_COUNT = SUB_BUCKET_COUNT / 2;
+
+  /**
+   * Number of buckets needed to cover all non-negative longs
+   */
+  static final int NUM_BUCKETS = SUB_BUCKET_COUNT + (Long.SIZE - 1 - PRECISION_BITS) * HALF_SUB_BUCKET_COUNT;
+
+  private final long intervalMs;
+  private final Interval[] intervals;
+  private final Clock clock;
+
+  /**
+   * Default constructor using default window size
+   */
+  public HistogramReservoir() {
+    this(DEFAULT_WINDOW_SIZE_MS, DEFAULT_NUM_INTERVALS, new Clock() {
+      public long currentTimeMillis() {
+        return System.currentTimeMillis();
+      }
+    });
+  }
+
+  /**
+   * Construct the HistogramReservoir with window size
+   *
+   * @param windowMs the size of the window. unit is millisecond.
+   * @param numIntervals the number of intervals the window is split into. Values age out of the
+   *                     window one interval at a time.
+   * @param clock the clock to calculate time
+   */
+  public HistogramReservoir(long windowMs, int numIntervals, Clock clock) {
+    if (numIntervals < 1 || windowMs < numIntervals) {
+      throw new IllegalArgumentException(
+          String.format("Can't split a window of %d ms into %d intervals.", windowMs, numIntervals));
+    }
+    this.intervalMs = windowMs / numIntervals;
+    this.intervals = new Interval[numIntervals];
+    for (int i = 0; i < numIntervals; i++) {
+      this.intervals[i] = new Interval();
+    }
+    this.clock = clock;
+  }
+
+  @Override
+  public int size() {
+    long epoch = currentEpoch();
+    long count = 0;
+    for (Interval interval : intervals) {
+      if (inWindow(interval, epoch)) {
+        count += interval.count.get();
+      }
+    }
+    return (int) Math.min(count, Integer.MAX_VALUE);
+  }
+
+  @Override
+  public void update(long value) {
+    long epoch = currentEpoch();
+    Interval interval = intervals[(int) (epoch % intervals.length)];
+    if (interval.epoch != epoch) {
+      interval.reset(epoch);
+    }
+    interval.update(Math.max(value, 0));
+  }
+
+  @Override
+  public Snapshot getSnapshot() {
+    long epoch = currentEpoch();
+    long[] bucketCounts = new long[NUM_BUCKETS];
+    long min = Long.MAX_VALUE;
+    long max = Long.MIN_VALUE;
+    double sum = 0;
+    long count = 0;
+
+    for (Interval interval : intervals) {
+      if (inWindow(interval, epoch) && interval.count.get() > 0) {
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+          bucketCounts[i] += interval.buckets.get(i);
+        }
+        min = Math.min(min, interval.min.get());
+        max = Math.max(max, interval.max.get());
+        sum += interval.sum.get();
+        count += interval.count.get();
+      }
+    }
+
+    return new HistogramSnapshot(bucketCounts, min, max, sum, (int) Math.min(count, Integer.MAX_VALUE));
+  }
+
+  /**
+   * Get the bucket a non-negative value is counted in.
+   */
+  static int bucketIndex(long value) {
+    if (value < SUB_BUCKET_COUNT) {
+      return (int) value;
+    }
+    int shift = Long.SIZE - Long.numberOfLeadingZeros(value) - PRECISION_BITS;
+    int subBucket = (int) (value >>> shift) - HALF_SUB_BUCKET_COUNT;
+    return SUB_BUCKET_COUNT + (shift - 1) * HALF_SUB_BUCKET_COUNT + subBucket;
+  }
+
+  /**
+   * Get the smallest value counted in a bucket.
+   */
+  static long bucketLowerBound(int index) {
+    if (index < SUB_BUCKET_COUNT) {
+      return index;
+    }
+    int shift = (index - SUB_BUCKET_COUNT) / HALF_SUB_BUCKET_COUNT + 1;
+    long subBucket = (index - SUB_BUCKET_COUNT) % HALF_SUB_BUCKET_COUNT + HALF_SUB_BUCKET_COUNT;
+    return subBucket << shift;
+  }
+
+  /**
+   * Get the largest value counted in a bucket.
+   */
+  static long bucketUpperBound(int index) {
+    return index == NUM_BUCKETS - 1 ? Long.MAX_VALUE : bucketLowerBound(index + 1) - 1;
+  }
+
+  private long currentEpoch() {
+    return clock.currentTimeMillis() / intervalMs;
+  }
+
+  private boolean inWindow(Interval interval, long epoch) {
+    return interval.epoch > epoch - intervals.length && interval.epoch <= epoch;
+  }
+
+  /**
+   * The buckets of values updated in one interval of the window.
+   */
+  private static class Interval {
+    private final AtomicLongArray buckets = new AtomicLongArray(NUM_BUCKETS);
+    private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong max = new AtomicLong(Long.MIN_VALUE);
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong count = new AtomicLong();
+
+    /**
+     * The interval of the window this is counting values for, i.e. the time divided by the interval size.
+     */
+    private volatile long epoch = Long.MIN_VALUE;
+
+    private synchronized void reset(long newEpoch) {
+      if (epoch != newEpoch) {
+        // An update racing with the reset may be counted in the new interval instead of an expired one
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+          buckets.set(i, 0);
+        }
+        min.set(Long.MAX_VALUE);
+        max.set(Long.MIN_VALUE);
+        sum.set(0);
+        count.set(0);
+        epoch = newEpoch;
+      }
+    }
+
+    private void update(long value) {
+      buckets.incrementAndGet(bucketIndex(value));
+      sum.addAndGet(value);
+      count.incrementAndGet();
+
+      long currentMin = min.get();
+      while (value < currentMin && !min.compareAndSet(currentMin, value)) {
+        currentMin = min.get();
+      }
+      long currentMax = max.get();
+      while (value > currentMax && !max.compareAndSet(currentMax, value)) {
+        currentMax = max.get();
+      }
+    }
+  }
+
+  /**
+   * A {@link Snapshot} of the bucket counts of a {@link HistogramReservoir}. Percentiles are
+   * calculated from the buckets, and individual values are not available.
+   */
+  private static class HistogramSnapshot extends Snapshot {
+    private final long[] bucketCounts;
+
+    private HistogramSnapshot(long[] bucketCounts, long min, long max, double sum, int size) {
+      super(min, max, sum, size);
+      this.bucketCounts = bucketCounts;
+    }
+
+    @Override
+    public long getPercentile(double percentile) {
+      checkPercentile(percentile);
+      if (getSize() == 0) {
+        return 0;
+      }
+
+      long rank = Math.max((long) Math.ceil(percentile / 100 * getSize()), 1);
+      long seen = 0;
+      for (int i = 0; i < bucketCounts.length; i++) {
+        seen += bucketCounts[i];
+        if (seen >= rank) {
+          long lower = bucketLowerBound(i);
+          long upper = bucketUpperBound(i);
+          long midpoint = lower + (upper - lower) / 2;
+          return Math.min(Math.max(midpoint, getMin()), getMax());
+        }
+      }
+      return getMax();
+    }
+  }
+}
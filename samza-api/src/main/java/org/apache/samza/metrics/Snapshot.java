@@ -20,6 +20,7 @@
 package org.apache.samza.metrics;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 
 /**
@@ -31,6 +32,7 @@ public class Snapshot {
   private final long max;
   private final double sum;
   private final int size;
+  private long[] sortedValues;
 
   Snapshot(Collection<Long> values) {
     this.values = new ArrayList<>(values.size());
@@ -64,6 +66,17 @@ public class Snapshot {
     }
   }
 
+  /**
+   * Construct a snapshot of a reservoir that doesn't keep individual values
+   */
+  Snapshot(long min, long max, double sum, int size) {
+    this.values = new ArrayList<>();
+    this.sum = sum;
+    this.size = size;
+    this.max = size == 0 ? 0 : max;
+    this.min = size == 0 ? 0 : min;
+  }
+
   /**
    * Get the maximum value in the collection
    *
@@ -110,7 +123,34 @@ public class Snapshot {
   }
 
   /**
-   * Return the entire list of values
+   * Get the value at the given percentile of the collection, i.e. the smallest value that is
+   * greater than or equal to the given percent of the values
+   *
+   * @param percentile the percentile, between 0 and 100
+   * @return value at the percentile, or 0 if the collection is empty
+   */
+  public long getPercentile(double percentile) {
+    checkPercentile(percentile);
+    if (size == 0) {
+      return 0;
+    }
+
+    synchronized (this) {
+      if (sortedValues == null) {
+        sortedValues = new long[size];
+        for (int i = 0; i < size; i++) {
+          sortedValues[i] = values.get(i);
+        }
+        Arrays.sort(sortedValues);
+      }
+    }
+    int rank = (int) Math.ceil(percentile / 100 * size);
+    return sortedValues[Math.max(rank, 1) - 1];
+  }
+
+  /**
+   * Return the entire list of values. Snapshots of reservoirs that don't keep individual values,
+   * e.g. {@link HistogramReservoir}, return an empty list.
    *
    * @return the list of values
    */
@@ -118,4 +158,10 @@ public class Snapshot {
   public ArrayList<Long> getValues() {
     return (ArrayList<Long>) values.clone();
   }
+
+  static void checkPercentile(double percentile) {
+    if (percentile < 0 || percentile > 100 || Double.isNaN(percentile)) {
+      throw new IllegalArgumentException(percentile + " is not a percentile between 0 and 100.");
+    }
+  }
 }
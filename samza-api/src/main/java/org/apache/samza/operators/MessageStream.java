@@ -155,6 +155,42 @@ public interface MessageStream<M> {
       Serde<K> keySerde, Serde<M> messageSerde, Serde<OM> otherMessageSerde,
       Duration ttl, String id);
 
+  /**
+   * Joins this {@link MessageStream} with another {@link MessageStream} using the provided
+   * pairwise {@link JoinFunction}, matching each message with all messages for its key in the other stream.
+   * <p>
+   * Unlike {@link #join(MessageStream, JoinFunction, Serde, Serde, Serde, Duration, String)}, which only retains the
+   * latest message for a key, all messages in each stream are retained for the provided {@code ttl}, and a message
+   * is joined with every message for its key in the other stream that's within the {@code ttl}. Join results are
+   * emitted in the order in which the messages in the other stream were received.
+   * <p>
+   * Expired messages are removed from the state of the join when the task's window is triggered, so
+   * {@code task.window.ms} should be configured to keep the state within the {@code ttl}.
+   * <p>
+   * Both inputs being joined must have the same number of partitions, and should be partitioned by the join key.
+   * <p>
+   * The {@code id} must be unique for each operator in this application. It is used as part of the unique ID
+   * for any state stores and streams created by this operator (the full ID also contains the job name, job id and
+   * operator type). If the application logic is changed, this ID must be reused in the new operator to retain
+   * state from the previous version, and changed for the new operator to discard the state from the previous version.
+   *
+   * @param otherStream the other {@link MessageStream} to be joined with
+   * @param joinFn the function to join messages from this and the other {@link MessageStream}
+   * @param keySerde the serde for the join key
+   * @param messageSerde the serde for messages in this stream
+   * @param otherMessageSerde the serde for messages in the other stream
+   * @param ttl the ttl for messages in each stream
+   * @param id the unique id of this operator in this application
+   * @param <K> the type of join key
+   * @param <OM> the type of messages in the other stream
+   * @param <JM> the type of messages resulting from the {@code joinFn}
+   * @return the joined {@link MessageStream}
+   */
+  <K, OM, JM> MessageStream<JM> joinAll(MessageStream<OM> otherStream,
+      JoinFunction<? extends K, ? super M, ? super OM, ? extends JM> joinFn,
+      Serde<K> keySerde, Serde<M> messageSerde, Serde<OM> otherMessageSerde,
+      Duration ttl, String id);
+
   /**
    * Joins this {@link MessageStream} with another {@link Table} using the provided
    * pairwise {@link StreamTableJoinFunction}.
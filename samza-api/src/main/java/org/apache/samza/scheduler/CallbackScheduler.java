@@ -41,4 +41,14 @@ public interface CallbackScheduler {
    * @param <K> type of the key
    */
   <K> void deleteCallback(K key);
+
+  /**
+   * Reschedule the callbacks that were scheduled before the task was restarted, and have not been fired or deleted.
+   * Callbacks are only persisted across restarts if {@code task.timer.store} is set to a store with a changelog.
+   * This is typically called once from the task's init, with a callback that handles all keys.
+   * @param callback callback to run for each restored key
+   * @param <K> type of the keys
+   * @return number of restored callbacks
+   */
+  <K> int restoreCallbacks(ScheduledCallback<K> callback);
 }
@@ -61,6 +61,14 @@ import java.util.concurrent.atomic.AtomicLong;
  * </p>
  * The BlockingEnvelopeMap is backed by a concurrent map, which allows concurrent
  * put or putAll calls to be thread safe without external synchronization.
+ *
+ * <p>
+ * By default, each SystemStreamPartition is buffered in the queue returned by
+ * {@link #newBlockingQueue()}. If a maximum number of buffered messages is
+ * given to the constructor, each SystemStreamPartition is buffered in a
+ * {@link BoundedEnvelopeQueue} instead, which blocks put and putAll once
+ * the maximum number of messages or bytes is buffered.
+ * </p>
  */
 public abstract class BlockingEnvelopeMap implements SystemConsumer {
   private final BlockingEnvelopeMapMetrics metrics;
@@ -68,6 +76,8 @@ public abstract class BlockingEnvelopeMap implements SystemConsumer {
   private final ConcurrentHashMap<SystemStreamPartition, AtomicLong> bufferedMessagesSize;  // size in bytes per SystemStreamPartition
   private final Map<SystemStreamPartition, Boolean> noMoreMessage;
   private final Clock clock;
+  private final int maxBufferedMessages;
+  private final long maxBufferedBytes;
 
   public BlockingEnvelopeMap() {
     this(new NoOpMetricsRegistry());
@@ -86,12 +96,28 @@ public abstract class BlockingEnvelopeMap implements SystemConsumer {
   }
 
   public BlockingEnvelopeMap(MetricsRegistry metricsRegistry, Clock clock, String metricsGroupName) {
+    this(metricsRegistry, clock, metricsGroupName, -1, -1L);
+  }
+
+  /**
+   * @param metricsRegistry the registry for the metrics of the buffers
+   * @param clock the clock used to time blocking polls
+   * @param metricsGroupName the group of the metrics, or null to use the class name
+   * @param maxBufferedMessages the maximum number of messages buffered per SystemStreamPartition in a
+   *                            {@link BoundedEnvelopeQueue}, or a non-positive value to use {@link #newBlockingQueue()}
+   * @param maxBufferedBytes the maximum size of the messages buffered per SystemStreamPartition in a
+   *                         {@link BoundedEnvelopeQueue}, or a non-positive value for no limit
+   */
+  public BlockingEnvelopeMap(MetricsRegistry metricsRegistry, Clock clock, String metricsGroupName,
+      int maxBufferedMessages, long maxBufferedBytes) {
     metricsGroupName = (metricsGroupName == null) ? this.getClass().getName() : metricsGroupName;
     this.metrics = new BlockingEnvelopeMapMetrics(metricsGroupName, metricsRegistry);
     this.bufferedMessages = new ConcurrentHashMap<SystemStreamPartition, BlockingQueue<IncomingMessageEnvelope>>();
     this.noMoreMessage = new ConcurrentHashMap<SystemStreamPartition, Boolean>();
     this.clock = clock;
     this.bufferedMessagesSize = new ConcurrentHashMap<SystemStreamPartition, AtomicLong>();
+    this.maxBufferedMessages = maxBufferedMessages;
+    this.maxBufferedBytes = maxBufferedBytes > 0 ? maxBufferedBytes : Long.MAX_VALUE;
   }
 
   /**
@@ -99,8 +125,12 @@ public abstract class BlockingEnvelopeMap implements SystemConsumer {
    */
   public void register(SystemStreamPartition systemStreamPartition, String offset) {
     metrics.initMetrics(systemStreamPartition);
-    bufferedMessages.putIfAbsent(systemStreamPartition, newBlockingQueue());
-    bufferedMessagesSize.putIfAbsent(systemStreamPartition, new AtomicLong(0));
+    if (maxBufferedMessages > 0) {
+      bufferedMessages.putIfAbsent(systemStreamPartition, new BoundedEnvelopeQueue(maxBufferedMessages, maxBufferedBytes));
+    } else {
+      bufferedMessages.putIfAbsent(systemStreamPartition, newBlockingQueue());
+      bufferedMessagesSize.putIfAbsent(systemStreamPartition, new AtomicLong(0));
+    }
   }
 
   protected BlockingQueue<IncomingMessageEnvelope> newBlockingQueue() {
@@ -151,7 +181,9 @@ public abstract class BlockingEnvelopeMap implements SystemConsumer {
 
       if (outgoingList.size() > 0) {
         messagesToReturn.put(systemStreamPartition, outgoingList);
-        subtractSizeOnQDrain(systemStreamPartition, outgoingList);
+        if (!(queue instanceof BoundedEnvelopeQueue)) {
+          subtractSizeOnQDrain(systemStreamPartition, outgoingList);
+        }
       }
     }
 
@@ -176,8 +208,11 @@ public abstract class BlockingEnvelopeMap implements SystemConsumer {
    * @throws InterruptedException from underlying concurrent collection
    */
   protected void put(SystemStreamPartition systemStreamPartition, IncomingMessageEnvelope envelope) throws InterruptedException {
-    bufferedMessages.get(systemStreamPartition).put(envelope);
-    bufferedMessagesSize.get(systemStreamPartition).addAndGet(envelope.getSize());
+    BlockingQueue<IncomingMessageEnvelope> queue = bufferedMessages.get(systemStreamPartition);
+    queue.put(envelope);
+    if (!(queue instanceof BoundedEnvelopeQueue)) {
+      bufferedMessagesSize.get(systemStreamPartition).addAndGet(envelope.getSize());
+    }
   }
 
   /**
@@ -197,6 +232,9 @@ public abstract class BlockingEnvelopeMap implements SystemConsumer {
 
     for (IncomingMessageEnvelope envelope : envelopes) {
       queue.put(envelope);
+      if (!(queue instanceof BoundedEnvelopeQueue)) {
+        bufferedMessagesSize.get(systemStreamPartition).addAndGet(envelope.getSize());
+      }
     }
   }
 
@@ -211,6 +249,11 @@ public abstract class BlockingEnvelopeMap implements SystemConsumer {
   }
 
   public long getMessagesSizeInQueue(SystemStreamPartition systemStreamPartition) {
+    BlockingQueue<IncomingMessageEnvelope> queue = bufferedMessages.get(systemStreamPartition);
+    if (queue instanceof BoundedEnvelopeQueue) {
+      return ((BoundedEnvelopeQueue) queue).getSizeInBytes();
+    }
+
     AtomicLong sizeInBytes = bufferedMessagesSize.get(systemStreamPartition);
 
     if (sizeInBytes == null) {
@@ -306,6 +349,11 @@ public abstract class BlockingEnvelopeMap implements SystemConsumer {
 
     @Override
     public Long getValue() {
+      Queue<IncomingMessageEnvelope> envelopes = bufferedMessages.get(systemStreamPartition);
+      if (envelopes instanceof BoundedEnvelopeQueue) {
+        return ((BoundedEnvelopeQueue) envelopes).getSizeInBytes();
+      }
+
       AtomicLong sizeInBytes = bufferedMessagesSize.get(systemStreamPartition);
 
       if (sizeInBytes == null) {
@@ -0,0 +1,292 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.samza.util;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.samza.system.IncomingMessageEnvelope;
+
+/**
+ * A {@link BlockingQueue} of {@link IncomingMessageEnvelope}s backed by a ring buffer, bounded by both the number of
+ * envelopes and their total size in bytes, as given by {@link IncomingMessageEnvelope#getSize()}.
+ *
+ * <p>Unlike a {@link java.util.concurrent.LinkedBlockingQueue}, adding an envelope doesn't allocate a node. The ring
+ * buffer starts small and grows up to the maximum number of envelopes, so idle partitions don't hold large arrays.
+ * The size in bytes is tracked by the queue, so it's updated with the envelopes under the same lock.
+ *
+ * <p>An envelope larger than the maximum size in bytes is still accepted when the queue is empty, so that it
+ * can't block its partition forever. Null envelopes are not allowed. The iterator is a snapshot of the queue, and
+ * doesn't support removal.
+ */
+public class BoundedEnvelopeQueue extends AbstractQueue<IncomingMessageEnvelope>
+    implements BlockingQueue<IncomingMessageEnvelope> {
+  private static final int INITIAL_CAPACITY = 16;
+
+  private final int maxMessages;
+  private final long maxBytes;
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition notEmpty = lock.newCondition();
+  private final Condition notFull = lock.newCondition();
+
+  private IncomingMessageEnvelope[] items;
+  private int takeIndex;
+  private int count;
+  private long bytes;
+
+  /**
+   * @param maxMessages the maximum number of envelopes in the queue
+   * @param maxBytes the maximum total size of the envelopes in the queue, in bytes
+   */
+  public BoundedEnvelopeQueue(int maxMessages, long maxBytes) {
+    if (maxMessages < 1 || maxBytes < 1) {
+      throw new IllegalArgumentException(
+          String.format("Can't bound a queue to %d messages and %d bytes.", maxMessages, maxBytes));
+    }
+    this.maxMessages = maxMessages;
+    this.maxBytes = maxBytes;
+    this.items = new IncomingMessageEnvelope[Math.min(maxMessages, INITIAL_CAPACITY)];
+  }
+
+  /**
+   * @return the total size of the envelopes in the queue, in bytes
+   */
+  public long getSizeInBytes() {
+    lock.lock();
+    try {
+      return bytes;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public boolean offer(IncomingMessageEnvelope envelope) {
+    checkNotNull(envelope);
+    lock.lock();
+    try {
+      if (!canAdd(envelope)) {
+        return false;
+      }
+      enqueue(envelope);
+      return true;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public boolean offer(IncomingMessageEnvelope envelope, long timeout, TimeUnit unit) throws InterruptedException {
+    checkNotNull(envelope);
+    long nanos = unit.toNanos(timeout);
+    lock.lockInterruptibly();
+    try {
+      while (!canAdd(envelope)) {
+        if (nanos <= 0) {
+          return false;
+        }
+        nanos = notFull.awaitNanos(nanos);
+      }
+      enqueue(envelope);
+      return true;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void put(IncomingMessageEnvelope envelope) throws InterruptedException {
+    checkNotNull(envelope);
+    lock.lockInterruptibly();
+    try {
+      while (!canAdd(envelope)) {
+        notFull.await();
+      }
+      enqueue(envelope);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public IncomingMessageEnvelope poll() {
+    lock.lock();
+    try {
+      return count == 0 ? null : dequeue();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public IncomingMessageEnvelope poll(long timeout, TimeUnit unit) throws InterruptedException {
+    long nanos = unit.toNanos(timeout);
+    lock.lockInterruptibly();
+    try {
+      while (count == 0) {
+        if (nanos <= 0) {
+          return null;
+        }
+        nanos = notEmpty.awaitNanos(nanos);
+      }
+      return dequeue();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public IncomingMessageEnvelope take() throws InterruptedException {
+    lock.lockInterruptibly();
+    try {
+      while (count == 0) {
+        notEmpty.await();
+      }
+      return dequeue();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public IncomingMessageEnvelope peek() {
+    lock.lock();
+    try {
+      return count == 0 ? null : items[takeIndex];
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public int size() {
+    lock.lock();
+    try {
+      return count;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public int remainingCapacity() {
+    lock.lock();
+    try {
+      return maxMessages - count;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public int drainTo(Collection<? super IncomingMessageEnvelope> c) {
+    return drainTo(c, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Moves up to {@code maxElements} envelopes to {@code c} while holding the lock once, and wakes up any producers
+   * waiting for space.
+   */
+  @Override
+  public int drainTo(Collection<? super IncomingMessageEnvelope> c, int maxElements) {
+    if (c == this) {
+      throw new IllegalArgumentException("Can't drain a queue to itself.");
+    }
+    lock.lock();
+    try {
+      int n = Math.min(maxElements, count);
+      for (int i = 0; i < n; i++) {
+        IncomingMessageEnvelope envelope = items[takeIndex];
+        items[takeIndex] = null;
+        takeIndex = (takeIndex + 1) % items.length;
+        bytes -= envelope.getSize();
+        c.add(envelope);
+      }
+      count -= n;
+      if (n > 0) {
+        notFull.signalAll();
+      }
+      return n;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public Iterator<IncomingMessageEnvelope> iterator() {
+    lock.lock();
+    try {
+      List<IncomingMessageEnvelope> snapshot = new ArrayList<>(count);
+      for (int i = 0; i < count; i++) {
+        snapshot.add(items[(takeIndex + i) % items.length]);
+      }
+      return Collections.unmodifiableList(snapshot).iterator();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private boolean canAdd(IncomingMessageEnvelope envelope) {
+    return count == 0 || (count < maxMessages && bytes + envelope.getSize() <= maxBytes);
+  }
+
+  private void enqueue(IncomingMessageEnvelope envelope) {
+    if (count == items.length) {
+      grow();
+    }
+    items[(takeIndex + count) % items.length] = envelope;
+    count++;
+    bytes += envelope.getSize();
+    notEmpty.signal();
+  }
+
+  private IncomingMessageEnvelope dequeue() {
+    IncomingMessageEnvelope envelope = items[takeIndex];
+    items[takeIndex] = null;
+    takeIndex = (takeIndex + 1) % items.length;
+    count--;
+    bytes -= envelope.getSize();
+    notFull.signalAll();
+    return envelope;
+  }
+
+  private void grow() {
+    IncomingMessageEnvelope[] grown = new IncomingMessageEnvelope[(int) Math.min((long) items.length * 2, maxMessages)];
+    for (int i = 0; i < count; i++) {
+      grown[i] = items[(takeIndex + i) % items.length];
+    }
+    items = grown;
+    takeIndex = 0;
+  }
+
+  private static void checkNotNull(IncomingMessageEnvelope envelope) {
+    if (envelope == null) {
+      throw new NullPointerException("Null envelopes are not allowed.");
+    }
+  }
+}
@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.samza.metrics;
+
+import static org.mockito.Mockito.*;
+import static org.junit.Assert.*;
+
+import org.apache.samza.util.Clock;
+import org.junit.Test;
+
+public class TestHistogramReservoir {
+
+  private final Clock clock = mock(Clock.class);
+
+  @Test
+  public void testBuckets() {
+    assertEquals(0, HistogramReservoir.bucketIndex(0));
+    assertEquals(HistogramReservoir.NUM_BUCKETS - 1, HistogramReservoir.bucketIndex(Long.MAX_VALUE));
+
+    long[] values = {1, 31, 32, 33, 63, 64, 1000, 123456789, 1L << 40, Long.MAX_VALUE};
+    for (long value : values) {
+      int index = HistogramReservoir.bucketIndex(value);
+      long lower = HistogramReservoir.bucketLowerBound(index);
+      long upper = HistogramReservoir.bucketUpperBound(index);
+      assertTrue(lower <= value && value <= upper);
+      assertTrue((upper - lower) * 16 <= lower);
+      assertEquals(index, HistogramReservoir.bucketIndex(lower));
+      assertEquals(index, HistogramReservoir.bucketIndex(upper));
+    }
+  }
+
+  @Test
+  public void testUpdateSizeSnapshot() {
+    HistogramReservoir reservoir = new HistogramReservoir(300, 3, clock);
+
+    when(clock.currentTimeMillis()).thenReturn(0L);
+    for (long i = 1; i <= 1000; i++) {
+      reservoir.update(i);
+    }
+    assertEquals(1000, reservoir.size());
+
+    Snapshot snapshot = reservoir.getSnapshot();
+    assertEquals(1000, snapshot.getSize());
+    assertEquals(1, snapshot.getMin());
+    assertEquals(1000, snapshot.getMax());
+    assertEquals(500500, snapshot.getSum(), 0);
+    assertEquals(500.5, snapshot.getAverage(), 0);
+    assertTrue(snapshot.getValues().isEmpty());
+
+    assertEquals(1, snapshot.getPercentile(0));
+    assertEquals(10, snapshot.getPercentile(1));
+    assertEquals(500, snapshot.getPercentile(50), 500 / 16);
+    assertEquals(990, snapshot.getPercentile(99), 990 / 16);
+    assertEquals(1000, snapshot.getPercentile(100));
+  }
+
+  @Test
+  public void testRemoveExpiredValues() {
+    HistogramReservoir reservoir = new HistogramReservoir(300, 3, clock);
+
+    when(clock.currentTimeMillis()).thenReturn(0L);
+    reservoir.update(1L);
+
+    when(clock.currentTimeMillis()).thenReturn(100L);
+    reservoir.update(2L);
+
+    when(clock.currentTimeMillis()).thenReturn(299L);
+    reservoir.update(3L);
+    assertEquals(3, reservoir.size());
+
+    // The first interval has expired
+    when(clock.currentTimeMillis()).thenReturn(300L);
+    Snapshot snapshot = reservoir.getSnapshot();
+    assertEquals(2, snapshot.getSize());
+    assertEquals(2, snapshot.getMin());
+
+    // The first interval is reused
+    reservoir.update(4L);
+    snapshot = reservoir.getSnapshot();
+    assertEquals(3, snapshot.getSize());
+    assertEquals(2, snapshot.getMin());
+    assertEquals(4, snapshot.getMax());
+    assertEquals(9, snapshot.getSum(), 0);
+
+    when(clock.currentTimeMillis()).thenReturn(1000L);
+    snapshot = reservoir.getSnapshot();
+    assertEquals(0, snapshot.getSize());
+    assertEquals(0, snapshot.getMin());
+    assertEquals(0, snapshot.getMax());
+    assertEquals(0, snapshot.getPercentile(99));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidPercentile() {
+    new HistogramReservoir(300, 3, clock).getSnapshot().getPercentile(101);
+  }
+}
@@ -44,4 +44,22 @@ public class TestSnapshot {
     assertEquals(0, emptySnapshot.getSum(), 0);
     assertEquals(0, emptySnapshot.getSize());
   }
+
+  @Test
+  public void testGetPercentile() {
+    Snapshot snapshot = new Snapshot(Arrays.asList(5L, 3L, 1L, 4L, 2L));
+    assertEquals(1, snapshot.getPercentile(0));
+    assertEquals(1, snapshot.getPercentile(20));
+    assertEquals(3, snapshot.getPercentile(50));
+    assertEquals(5, snapshot.getPercentile(99));
+    assertEquals(5, snapshot.getPercentile(100));
+    assertEquals(Arrays.asList(5L, 3L, 1L, 4L, 2L), snapshot.getValues());
+
+    assertEquals(0, new Snapshot(new ArrayList<>()).getPercentile(50));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidPercentile() {
+    new Snapshot(Arrays.asList(1L)).getPercentile(-1);
+  }
 }
@@ -182,6 +182,42 @@ public class TestBlockingEnvelopeMap {
     assertFalse(t.isAlive());
   }
 
+  @Test
+  public void testBoundedBuffers() throws InterruptedException {
+    final BlockingEnvelopeMap map = new MockBlockingEnvelopeMap(2, 150);
+    map.register(SSP, "0");
+    map.put(SSP, ENVELOPE_WITH_SIZE);
+    assertEquals(100, map.getMessagesSizeInQueue(SSP));
+
+    // The second envelope would exceed the bytes bound, so it waits for the first one to be polled
+    final CountDownLatch putDone = new CountDownLatch(1);
+    Thread t = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          map.put(SSP, ENVELOPE_WITH_SIZE);
+          putDone.countDown();
+        } catch (InterruptedException e) {
+          throw new RuntimeException(e);
+        }
+      }
+    });
+    t.setDaemon(true);
+    t.start();
+    assertFalse(putDone.await(100, TimeUnit.MILLISECONDS));
+    assertEquals(1, map.getNumMessagesInQueue(SSP));
+
+    Map<SystemStreamPartition, List<IncomingMessageEnvelope>> envelopes = map.poll(FETCH, 0);
+    assertEquals(1, envelopes.get(SSP).size());
+    assertTrue(putDone.await(60, TimeUnit.SECONDS));
+    assertEquals(1, map.getNumMessagesInQueue(SSP));
+    assertEquals(100, map.getMessagesSizeInQueue(SSP));
+
+    envelopes = map.poll(FETCH, 0);
+    assertEquals(1, envelopes.get(SSP).size());
+    assertEquals(0, map.getMessagesSizeInQueue(SSP));
+  }
+
   public class MockQueue extends LinkedBlockingQueue<IncomingMessageEnvelope> {
     private static final long serialVersionUID = 1L;
     private final CountDownLatch pollTimeoutBarrier;
@@ -217,6 +253,11 @@ public class TestBlockingEnvelopeMap {
       injectedQueue = new MockQueue();
     }
 
+    public MockBlockingEnvelopeMap(int maxBufferedMessages, long maxBufferedBytes) {
+      super(new NoOpMetricsRegistry(), CLOCK, null, maxBufferedMessages, maxBufferedBytes);
+      injectedQueue = null;
+    }
+
     public MockBlockingEnvelopeMap(BlockingQueue<IncomingMessageEnvelope> injectedQueue) {
       this(injectedQueue, CLOCK);
     }
@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.samza.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.samza.Partition;
+import org.apache.samza.system.IncomingMessageEnvelope;
+import org.apache.samza.system.SystemStreamPartition;
+import org.junit.Test;
+
+public class TestBoundedEnvelopeQueue {
+  private static final SystemStreamPartition SSP = new SystemStreamPartition("test", "test", new Partition(0));
+
+  private static IncomingMessageEnvelope envelope(String offset, int size) {
+    return new IncomingMessageEnvelope(SSP, offset, null, null, size);
+  }
+
+  @Test
+  public void testBoundedByMessages() throws InterruptedException {
+    BoundedEnvelopeQueue queue = new BoundedEnvelopeQueue(40, Long.MAX_VALUE);
+    List<IncomingMessageEnvelope> envelopes = new ArrayList<>();
+
+    // Wrap around the ring buffer a few times while it grows
+    for (int round = 0; round < 3; round++) {
+      for (int i = queue.size(); i < 40; i++) {
+        IncomingMessageEnvelope envelope = envelope(round + "-" + i, 1);
+        envelopes.add(envelope);
+        assertTrue(queue.offer(envelope));
+      }
+      assertFalse(queue.offer(envelope("full", 1)));
+      assertFalse(queue.offer(envelope("full", 1), 10, TimeUnit.MILLISECONDS));
+      assertEquals(0, queue.remainingCapacity());
+
+      for (int i = 0; i < 25; i++) {
+        assertSame(envelopes.remove(0), queue.poll());
+      }
+    }
+
+    List<IncomingMessageEnvelope> drained = new ArrayList<>();
+    assertEquals(5, queue.drainTo(drained, 5));
+    assertEquals(envelopes.subList(0, 5), drained);
+    assertEquals(envelopes.subList(5, envelopes.size()), new ArrayList<>(queue));
+    assertEquals(envelopes.size() - 5, queue.drainTo(drained));
+    assertEquals(envelopes, drained);
+    assertNull(queue.poll());
+    assertNull(queue.poll(10, TimeUnit.MILLISECONDS));
+  }
+
+  @Test
+  public void testBoundedByBytes() {
+    BoundedEnvelopeQueue queue = new BoundedEnvelopeQueue(10, 100);
+
+    assertTrue(queue.offer(envelope("0", 60)));
+    assertFalse(queue.offer(envelope("1", 60)));
+    assertTrue(queue.offer(envelope("2", 40)));
+    assertEquals(100, queue.getSizeInBytes());
+
+    queue.poll();
+    assertEquals(40, queue.getSizeInBytes());
+    queue.drainTo(new ArrayList<>());
+    assertEquals(0, queue.getSizeInBytes());
+
+    // An envelope larger than the bound is accepted when the queue is empty
+    assertTrue(queue.offer(envelope("3", 500)));
+    assertFalse(queue.offer(envelope("4", 1)));
+    assertEquals(500, queue.getSizeInBytes());
+  }
+
+  @Test
+  public void testPutBlocksUntilDrained() throws InterruptedException {
+    final BoundedEnvelopeQueue queue = new BoundedEnvelopeQueue(1, Long.MAX_VALUE);
+    queue.put(envelope("0", 1));
+
+    Thread t = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          queue.put(envelope("1", 1));
+        } catch (InterruptedException e) {
+          throw new RuntimeException(e);
+        }
+      }
+    });
+    t.setDaemon(true);
+    t.start();
+    t.join(100);
+    assertTrue(t.isAlive());
+
+    assertEquals("0", queue.take().getOffset());
+    t.join(60000);
+    assertFalse(t.isAlive());
+    assertEquals("1", queue.take().getOffset());
+  }
+}
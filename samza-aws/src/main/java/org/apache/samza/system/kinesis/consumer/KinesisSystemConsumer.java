@@ -34,6 +34,7 @@ import java.util.concurrent.ThreadFactory;
 import org.apache.commons.lang.Validate;
 import org.apache.samza.SamzaException;
 import org.apache.samza.checkpoint.CheckpointListener;
+import org.apache.samza.config.JavaSystemConfig;
 import org.apache.samza.config.JobConfig;
 import org.apache.samza.metrics.MetricsRegistry;
 import org.apache.samza.system.IncomingMessageEnvelope;
@@ -107,7 +108,9 @@ public class KinesisSystemConsumer extends BlockingEnvelopeMap implements Checkp
   private volatile Exception callbackException;
 
   public KinesisSystemConsumer(String systemName, KinesisConfig kConfig, MetricsRegistry registry) {
-    super(registry, System::currentTimeMillis, null);
+    super(registry, System::currentTimeMillis, null,
+        new JavaSystemConfig(kConfig).getConsumerBufferMaxMessages(systemName),
+        new JavaSystemConfig(kConfig).getConsumerBufferMaxBytes(systemName));
     this.system = systemName;
     this.kConfig = kConfig;
     this.metrics = new KinesisSystemConsumerMetrics(registry);
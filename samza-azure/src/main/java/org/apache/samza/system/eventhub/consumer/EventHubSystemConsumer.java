@@ -45,6 +45,7 @@ import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.Validate;
 import org.apache.samza.SamzaException;
+import org.apache.samza.config.JavaSystemConfig;
 import org.apache.samza.metrics.Counter;
 import org.apache.samza.metrics.MetricsRegistry;
 import org.apache.samza.metrics.SlidingTimeWindowReservoir;
@@ -165,7 +166,8 @@ public class EventHubSystemConsumer extends BlockingEnvelopeMap {
   EventHubSystemConsumer(EventHubConfig config, String systemName,
       EventHubClientManagerFactory eventHubClientManagerFactory, Map<String, Interceptor> interceptors,
       MetricsRegistry registry, Clock clock) {
-    super(registry, clock);
+    super(registry, clock, null, new JavaSystemConfig(config).getConsumerBufferMaxMessages(systemName),
+        new JavaSystemConfig(config).getConsumerBufferMaxBytes(systemName));
 
     this.config = config;
     this.clock = clock;
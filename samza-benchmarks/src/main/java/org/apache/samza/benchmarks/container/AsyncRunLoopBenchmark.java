@@ -0,0 +1,228 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.samza.benchmarks.container;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.apache.samza.Partition;
+import org.apache.samza.checkpoint.OffsetManager;
+import org.apache.samza.checkpoint.OffsetManagerMetrics;
+import org.apache.samza.config.MapConfig;
+import org.apache.samza.container.SamzaContainerMetrics;
+import org.apache.samza.container.TaskInstance;
+import org.apache.samza.container.TaskInstanceExceptionHandler;
+import org.apache.samza.container.TaskInstanceMetrics;
+import org.apache.samza.container.TaskName;
+import org.apache.samza.context.ContainerContextImpl;
+import org.apache.samza.context.JobContextImpl;
+import org.apache.samza.job.model.ContainerModel;
+import org.apache.samza.job.model.TaskModel;
+import org.apache.samza.metrics.MetricsRegistryMap;
+import org.apache.samza.system.IncomingMessageEnvelope;
+import org.apache.samza.system.SystemAdmins;
+import org.apache.samza.system.SystemConsumers;
+import org.apache.samza.system.SystemConsumersMetrics;
+import org.apache.samza.system.SystemStreamPartition;
+import org.apache.samza.system.chooser.RoundRobinChooser;
+import org.apache.samza.system.chooser.RoundRobinChooserMetrics;
+import org.apache.samza.serializers.SerdeManager;
+import org.apache.samza.task.AsyncRunLoop;
+import org.apache.samza.task.AsyncStreamTask;
+import org.apache.samza.task.AsyncStreamTaskAdapter;
+import org.apache.samza.task.StreamTask;
+import org.apache.samza.task.TaskInstanceCollector;
+import org.apache.samza.util.ScalaJavaUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import scala.Option;
+import scala.collection.JavaConverters;
+
+
+/**
+ * Measures the cost of dispatching a message through the {@link AsyncRunLoop} to a task that completes it right away,
+ * i.e. the per message overhead of the run loop, the {@link TaskInstance} and the task callbacks.
+ *
+ * The messages are replayed from memory by a {@link SystemConsumers} that skips the chooser and the system consumers,
+ * which are measured by {@link org.apache.samza.benchmarks.system.SystemConsumersBenchmark}. Each invocation runs the loop until every partition reaches
+ * its end of stream.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AsyncRunLoopBenchmark {
+  private static final int MESSAGES_PER_INVOCATION = 100000;
+
+  @Param({"1", "8"})
+  public int numTasks;
+
+  /**
+   * async: an {@link AsyncStreamTask} that completes its callback in processAsync
+   * sync: a {@link StreamTask} run on a thread pool of 4 threads, as with job.container.thread.pool.size=4
+   */
+  @Param({"async", "sync"})
+  public String taskType;
+
+  private ExecutorService threadPool;
+  private Map<TaskName, TaskInstance> taskInstances;
+  private ReplayingSystemConsumers consumers;
+  private SamzaContainerMetrics containerMetrics;
+  private AsyncRunLoop runLoop;
+
+  @Setup(Level.Trial)
+  public void setupTrial() {
+    threadPool = "sync".equals(taskType) ? Executors.newFixedThreadPool(4) : null;
+    containerMetrics = new SamzaContainerMetrics("container", new MetricsRegistryMap());
+
+    List<SystemStreamPartition> ssps = new ArrayList<>();
+    Map<TaskName, TaskModel> taskModels = new HashMap<>();
+    for (int i = 0; i < numTasks; i++) {
+      Partition partition = new Partition(i);
+      SystemStreamPartition ssp = new SystemStreamPartition("system", "stream", partition);
+      ssps.add(ssp);
+      TaskName taskName = new TaskName("Partition " + i);
+      taskModels.put(taskName, new TaskModel(taskName, Collections.singleton(ssp), partition));
+    }
+
+    MapConfig config = new MapConfig(Collections.singletonMap("job.name", "benchmark"));
+    JobContextImpl jobContext = JobContextImpl.fromConfigWithDefaults(config);
+    ContainerContextImpl containerContext =
+        new ContainerContextImpl(new ContainerModel("0", taskModels), containerMetrics.registry());
+    OffsetManager offsetManager = new OffsetManager(ScalaJavaUtil.toScalaMap(new HashMap<>()), null,
+        SystemAdmins.empty(), ScalaJavaUtil.toScalaMap(new HashMap<>()), new OffsetManagerMetrics(new MetricsRegistryMap()));
+
+    consumers = new ReplayingSystemConsumers(ssps, MESSAGES_PER_INVOCATION);
+    taskInstances = new HashMap<>();
+    for (TaskModel taskModel : taskModels.values()) {
+      AsyncStreamTask task = "sync".equals(taskType)
+          ? new AsyncStreamTaskAdapter((StreamTask) (envelope, collector, coordinator) -> { }, threadPool)
+          : (AsyncStreamTask) (envelope, collector, coordinator, callback) -> callback.complete();
+      TaskInstanceMetrics metrics = new TaskInstanceMetrics(taskModel.getTaskName().getTaskName(), new MetricsRegistryMap());
+      TaskInstance taskInstance = new TaskInstance(task,
+          taskModel,
+          metrics,
+          null,
+          consumers,
+          new TaskInstanceCollector(null, metrics),
+          offsetManager,
+          null,
+          null,
+          ScalaJavaUtil.toScalaMap(new HashMap<>()),
+          JavaConverters.asScalaSetConverter(taskModel.getSystemStreamPartitions()).asScala().toSet(),
+          new TaskInstanceExceptionHandler(metrics, new scala.collection.immutable.HashSet<>()),
+          null,
+          null,
+          null,
+          new scala.collection.immutable.HashSet<>(),
+          null,
+          null,
+          jobContext,
+          containerContext,
+          Option.empty(),
+          Option.empty());
+      taskInstances.put(taskModel.getTaskName(), taskInstance);
+    }
+  }
+
+  @Setup(Level.Invocation)
+  public void setupInvocation() {
+    consumers.reset();
+    runLoop = new AsyncRunLoop(taskInstances, threadPool, consumers, 1, -1, -1, 0, 0, 10, containerMetrics,
+        System::nanoTime, false);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    if (threadPool != null) {
+      threadPool.shutdownNow();
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(MESSAGES_PER_INVOCATION)
+  public void dispatch() {
+    runLoop.run();
+  }
+
+  /**
+   * Replays the same messages, round robin across the partitions, followed by an end of stream for each partition.
+   */
+  private static class ReplayingSystemConsumers extends SystemConsumers {
+    private final IncomingMessageEnvelope[] envelopes;
+    private int next = 0;
+
+    private ReplayingSystemConsumers(List<SystemStreamPartition> ssps, int numMessages) {
+      super(new RoundRobinChooser(new RoundRobinChooserMetrics(new MetricsRegistryMap())), ScalaJavaUtil.toScalaMap(new HashMap<>()), new SerdeManager(
+              ScalaJavaUtil.toScalaMap(new HashMap<>()), ScalaJavaUtil.toScalaMap(new HashMap<>()),
+              ScalaJavaUtil.toScalaMap(new HashMap<>()), ScalaJavaUtil.toScalaMap(new HashMap<>()),
+              ScalaJavaUtil.toScalaMap(new HashMap<>()), new scala.collection.immutable.HashSet<>(),
+              ScalaJavaUtil.toScalaMap(new HashMap<>()), ScalaJavaUtil.toScalaMap(new HashMap<>())),
+          new SystemConsumersMetrics(new MetricsRegistryMap()), SystemConsumers.DEFAULT_NO_NEW_MESSAGES_TIMEOUT(),
+          SystemConsumers.DEFAULT_DROP_SERIALIZATION_ERROR(), SystemConsumers.DEFAULT_POLL_INTERVAL_MS(),
+          ScalaJavaUtil.toScalaFunction(() -> (Object) System.nanoTime()),
+          SystemConsumers.DEFAULT_DESERIALIZATION_THREADS(), SystemConsumers.DEFAULT_DESERIALIZATION_BATCH_SIZE());
+      this.envelopes = new IncomingMessageEnvelope[numMessages + ssps.size()];
+      for (int i = 0; i < numMessages; i++) {
+        envelopes[i] = new IncomingMessageEnvelope(ssps.get(i % ssps.size()), String.valueOf(i), "key", "value");
+      }
+      for (int i = 0; i < ssps.size(); i++) {
+        envelopes[numMessages + i] = IncomingMessageEnvelope.buildEndOfStreamEnvelope(ssps.get(i));
+      }
+    }
+
+    private void reset() {
+      next = 0;
+    }
+
+    @Override
+    public IncomingMessageEnvelope choose(boolean updateChooser) {
+      return next < envelopes.length ? envelopes[next++] : null;
+    }
+
+    @Override
+    public void tryUpdate(SystemStreamPartition ssp) {
+    }
+
+    @Override
+    public boolean isEndOfStream(SystemStreamPartition ssp) {
+      return false;
+    }
+  }
+}
@@ -0,0 +1,130 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.samza.benchmarks.metrics;
+
+import java.util.concurrent.TimeUnit;
+import org.apache.samza.metrics.Counter;
+import org.apache.samza.metrics.HistogramReservoir;
+import org.apache.samza.metrics.SlidingTimeWindowReservoir;
+import org.apache.samza.metrics.Snapshot;
+import org.apache.samza.metrics.Timer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Measures the cost of the metrics updated on the hot path of the run loop, i.e. {@link Counter#inc()} and
+ * {@link Timer#update(long)}, with one thread and with several threads sharing the metric. Also measures a timer
+ * snapshot while it's being updated, which is what a metrics reporter does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetricsBenchmark {
+
+  /**
+   * sliding-time-window: {@link SlidingTimeWindowReservoir}, which keeps every value in the window
+   * histogram: {@link HistogramReservoir}, which counts values in buckets
+   */
+  @Param({"sliding-time-window", "histogram"})
+  public String reservoirType;
+
+  private Counter counter;
+  private Timer timer;
+
+  @Setup
+  public void setup() {
+    counter = new Counter("counter");
+    switch (reservoirType) {
+      case "sliding-time-window":
+        timer = new Timer("timer", new SlidingTimeWindowReservoir());
+        break;
+      case "histogram":
+        timer = new Timer("timer", new HistogramReservoir());
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown reservoir type " + reservoirType);
+    }
+  }
+
+  /**
+   * A value for a timer update, varying so that updates land in different buckets.
+   */
+  @State(Scope.Thread)
+  public static class Duration {
+    private long next = 0;
+
+    private long next() {
+      next = (next + 7919) % 1000000;
+      return next;
+    }
+  }
+
+  @Benchmark
+  public void counterInc() {
+    counter.inc();
+  }
+
+  @Benchmark
+  @Threads(4)
+  public void counterIncContended() {
+    counter.inc();
+  }
+
+  @Benchmark
+  public void timerUpdate(Duration duration) {
+    timer.update(duration.next());
+  }
+
+  @Benchmark
+  @Threads(4)
+  public void timerUpdateContended(Duration duration) {
+    timer.update(duration.next());
+  }
+
+  @Benchmark
+  @Group("timerSnapshot")
+  @GroupThreads(3)
+  public void timerSnapshotUpdate(Duration duration) {
+    timer.update(duration.next());
+  }
+
+  @Benchmark
+  @Group("timerSnapshot")
+  @GroupThreads(1)
+  public Snapshot timerSnapshotRead() {
+    return timer.getSnapshot();
+  }
+}
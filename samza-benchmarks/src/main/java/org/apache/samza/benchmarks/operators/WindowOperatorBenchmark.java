@@ -0,0 +1,197 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.samza.benchmarks.operators;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.apache.samza.Partition;
+import org.apache.samza.application.StreamApplication;
+import org.apache.samza.application.descriptors.StreamApplicationDescriptorImpl;
+import org.apache.samza.config.MapConfig;
+import org.apache.samza.container.TaskName;
+import org.apache.samza.context.ContainerContextImpl;
+import org.apache.samza.context.ContextImpl;
+import org.apache.samza.context.JobContextImpl;
+import org.apache.samza.context.TaskContextImpl;
+import org.apache.samza.job.model.ContainerModel;
+import org.apache.samza.job.model.TaskModel;
+import org.apache.samza.metrics.MetricsRegistryMap;
+import org.apache.samza.operators.KV;
+import org.apache.samza.operators.MessageStream;
+import org.apache.samza.operators.impl.store.TimeSeriesKeySerde;
+import org.apache.samza.operators.windows.Windows;
+import org.apache.samza.serializers.IntegerSerde;
+import org.apache.samza.serializers.KVSerde;
+import org.apache.samza.serializers.Serde;
+import org.apache.samza.storage.kv.KeyValueStore;
+import org.apache.samza.storage.kv.inmemory.InMemoryKeyValueStorageEngineFactory;
+import org.apache.samza.system.IncomingMessageEnvelope;
+import org.apache.samza.system.SystemStreamPartition;
+import org.apache.samza.system.descriptors.GenericInputDescriptor;
+import org.apache.samza.system.descriptors.GenericSystemDescriptor;
+import org.apache.samza.task.MessageCollector;
+import org.apache.samza.task.StreamOperatorTask;
+import org.apache.samza.task.TaskCoordinator;
+import org.apache.samza.util.Clock;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Measures a keyed tumbling window in a {@link StreamOperatorTask}, i.e. the {@link
+ * org.apache.samza.operators.impl.WindowOperatorImpl} with its time series store and triggers.
+ *
+ * Each message advances the clock by 1 ms, and the task is windowed every 100 messages, so the 1 second windows
+ * fire in the measured path. Messages are keyed by one of 1,000 keys. The window store is an in-memory store without
+ * an object cache, so that the benchmark measures the operator and its time series store rather than the cache.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WindowOperatorBenchmark {
+  private static final int NUM_KEYS = 1000;
+  private static final int MESSAGES_PER_WINDOW_CALL = 100;
+  private static final SystemStreamPartition SSP = new SystemStreamPartition("kafka", "integers", new Partition(0));
+
+  /**
+   * aggregate: a window that sums the values of each key
+   * collect: a window that collects the messages of each key
+   */
+  @Param({"aggregate", "collect"})
+  public String windowType;
+
+  private final MessageCollector collector = envelope -> { };
+  private final TaskCoordinator coordinator = new NoOpTaskCoordinator();
+  private final ManualClock clock = new ManualClock();
+  private StreamOperatorTask task;
+  private KeyValueStore<?, ?> store;
+  private IncomingMessageEnvelope[] envelopes;
+  private int next = 0;
+
+  @Setup
+  @SuppressWarnings("unchecked")
+  public void setup() throws Exception {
+    Map<String, String> configMap = new HashMap<>();
+    configMap.put("job.name", "benchmark");
+    configMap.put("job.id", "1");
+    configMap.put("job.default.system", "kafka");
+    String storeName = "benchmark-1-window-w1";
+    configMap.put("stores." + storeName + ".factory", InMemoryKeyValueStorageEngineFactory.class.getName());
+    configMap.put("stores." + storeName + ".object.cache.size", "0");
+    MapConfig config = new MapConfig(configMap);
+
+    KVSerde<Integer, Integer> kvSerde = KVSerde.of(new IntegerSerde(), new IntegerSerde());
+    StreamApplication app = appDesc -> {
+      GenericSystemDescriptor sd = new GenericSystemDescriptor("kafka", "mockFactoryClass");
+      GenericInputDescriptor<KV<Integer, Integer>> inputDescriptor = sd.getInputDescriptor("integers", kvSerde);
+      MessageStream<KV<Integer, Integer>> input = appDesc.getInputStream(inputDescriptor);
+      if ("aggregate".equals(windowType)) {
+        input.window(Windows.keyedTumblingWindow(KV::getKey, Duration.ofSeconds(1), () -> 0,
+            (message, sum) -> sum + message.getValue(), new IntegerSerde(), new IntegerSerde()), "w1")
+            .sink((pane, messageCollector, taskCoordinator) -> { });
+      } else {
+        input.window(Windows.keyedTumblingWindow(KV::getKey, Duration.ofSeconds(1), new IntegerSerde(), kvSerde), "w1")
+            .sink((pane, messageCollector, taskCoordinator) -> { });
+      }
+    };
+    StreamApplicationDescriptorImpl appDesc = new StreamApplicationDescriptorImpl(app, config);
+
+    TaskName taskName = new TaskName("Partition 0");
+    TaskModel taskModel = new TaskModel(taskName, Collections.singleton(SSP), new Partition(0));
+    MetricsRegistryMap registry = new MetricsRegistryMap();
+    JobContextImpl jobContext = JobContextImpl.fromConfigWithDefaults(config);
+    ContainerContextImpl containerContext =
+        new ContainerContextImpl(new ContainerModel("0", Collections.singletonMap(taskName, taskModel)), registry);
+    Serde valueSerde = "aggregate".equals(windowType) ? new IntegerSerde() : kvSerde;
+    store = (KeyValueStore<?, ?>) new InMemoryKeyValueStorageEngineFactory<>().getStorageEngine(storeName,
+        new File(System.getProperty("java.io.tmpdir")), (Serde) new TimeSeriesKeySerde<>(new IntegerSerde()), valueSerde,
+        null, registry, null, jobContext, containerContext);
+    TaskContextImpl taskContext = new TaskContextImpl(taskModel, registry,
+        name -> storeName.equals(name) ? store : null, null, null, null, null, null);
+
+    task = new StreamOperatorTask(appDesc.getOperatorSpecGraph(), clock);
+    task.init(new ContextImpl(jobContext, containerContext, taskContext, Optional.empty(), Optional.empty()));
+
+    Random random = new Random(42);
+    envelopes = new IncomingMessageEnvelope[NUM_KEYS * 10];
+    for (int i = 0; i < envelopes.length; i++) {
+      int key = random.nextInt(NUM_KEYS);
+      envelopes[i] = new IncomingMessageEnvelope(SSP, String.valueOf(i), key, i);
+    }
+  }
+
+  @TearDown
+  public void tearDown() throws Exception {
+    task.close();
+    store.close();
+  }
+
+  @Benchmark
+  public void process() {
+    task.process(envelopes[next % envelopes.length], collector, coordinator);
+    next++;
+    clock.advance(1);
+    if (next % MESSAGES_PER_WINDOW_CALL == 0) {
+      task.window(collector, coordinator);
+    }
+  }
+
+  private static class ManualClock implements Clock {
+    private long timeMs = 0;
+
+    @Override
+    public long currentTimeMillis() {
+      return timeMs;
+    }
+
+    private void advance(long ms) {
+      timeMs += ms;
+    }
+  }
+
+  private static class NoOpTaskCoordinator implements TaskCoordinator {
+    @Override
+    public void commit(RequestScope requestScope) {
+    }
+
+    @Override
+    public void shutdown(RequestScope requestScope) {
+    }
+  }
+}
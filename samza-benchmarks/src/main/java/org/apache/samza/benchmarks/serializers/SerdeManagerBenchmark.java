@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.samza.benchmarks.serializers;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.apache.samza.Partition;
+import org.apache.samza.serializers.IntermediateMessageSerde;
+import org.apache.samza.serializers.JsonSerdeV2;
+import org.apache.samza.serializers.Serde;
+import org.apache.samza.serializers.SerdeManager;
+import org.apache.samza.serializers.StringSerde;
+import org.apache.samza.system.IncomingMessageEnvelope;
+import org.apache.samza.system.OutgoingMessageEnvelope;
+import org.apache.samza.system.SystemStream;
+import org.apache.samza.system.SystemStreamPartition;
+import org.apache.samza.util.ScalaJavaUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Measures serializing outgoing and deserializing incoming envelopes with the {@link SerdeManager}, with the serdes
+ * configured for the stream. Keys are always strings.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerdeManagerBenchmark {
+  private static final SystemStream SYSTEM_STREAM = new SystemStream("system", "stream");
+  private static final SystemStreamPartition SSP = new SystemStreamPartition(SYSTEM_STREAM, new Partition(0));
+
+  /**
+   * string: a {@link StringSerde} message
+   * json: a {@link JsonSerdeV2} map message
+   * intermediate: a {@link JsonSerdeV2} map message on an intermediate stream, wrapped by an
+   * {@link IntermediateMessageSerde}
+   */
+  @Param({"string", "json", "intermediate"})
+  public String messageType;
+
+  private SerdeManager serdeManager;
+  private OutgoingMessageEnvelope outgoingEnvelope;
+  private IncomingMessageEnvelope incomingEnvelope;
+
+  @Setup
+  @SuppressWarnings("unchecked")
+  public void setup() {
+    Map<String, Object> mapMessage = new HashMap<>();
+    mapMessage.put("memberId", 1234567890L);
+    mapMessage.put("pageKey", "profile-view");
+    mapMessage.put("timestamp", 1546300800000L);
+    mapMessage.put("referrer", "https://www.example.com/search?q=samza");
+
+    Map<SystemStream, Serde<Object>> keySerdes = new HashMap<>();
+    keySerdes.put(SYSTEM_STREAM, (Serde) new StringSerde());
+    Map<SystemStream, Serde<Object>> messageSerdes = new HashMap<>();
+    Map<SystemStream, Serde<Object>> intermediateSerdes = new HashMap<>();
+    Object message;
+    switch (messageType) {
+      case "string":
+        messageSerdes.put(SYSTEM_STREAM, (Serde) new StringSerde());
+        message = mapMessage.toString();
+        break;
+      case "json":
+        messageSerdes.put(SYSTEM_STREAM, (Serde) new JsonSerdeV2<>());
+        message = mapMessage;
+        break;
+      case "intermediate":
+        messageSerdes.put(SYSTEM_STREAM, (Serde) new IntermediateMessageSerde(new JsonSerdeV2<>()));
+        intermediateSerdes.put(SYSTEM_STREAM, (Serde) new IntermediateMessageSerde(new JsonSerdeV2<>()));
+        message = mapMessage;
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown message type " + messageType);
+    }
+
+    serdeManager = new SerdeManager(
+        ScalaJavaUtil.toScalaMap(new HashMap<>()),
+        ScalaJavaUtil.toScalaMap(new HashMap<>()),
+        ScalaJavaUtil.toScalaMap(new HashMap<>()),
+        ScalaJavaUtil.toScalaMap(keySerdes),
+        ScalaJavaUtil.toScalaMap(messageSerdes),
+        new scala.collection.immutable.HashSet<>(),
+        ScalaJavaUtil.toScalaMap(new HashMap<>()),
+        ScalaJavaUtil.toScalaMap(intermediateSerdes));
+
+    outgoingEnvelope = new OutgoingMessageEnvelope(SYSTEM_STREAM, "key-1234567890", message);
+    OutgoingMessageEnvelope serialized = serdeManager.toBytes(outgoingEnvelope);
+    incomingEnvelope = new IncomingMessageEnvelope(SSP, "0", serialized.getKey(), serialized.getMessage());
+  }
+
+  @Benchmark
+  public OutgoingMessageEnvelope toBytes() {
+    return serdeManager.toBytes(outgoingEnvelope);
+  }
+
+  @Benchmark
+  public IncomingMessageEnvelope fromBytes() {
+    return serdeManager.fromBytes(incomingEnvelope);
+  }
+}
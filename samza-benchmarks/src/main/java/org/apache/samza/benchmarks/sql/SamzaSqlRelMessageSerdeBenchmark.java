@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.samza.benchmarks.sql;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.apache.calcite.jdbc.JavaTypeFactoryImpl;
+import org.apache.calcite.rel.type.RelDataType;
+import org.apache.calcite.rel.type.RelDataTypeFactory;
+import org.apache.calcite.sql.type.SqlTypeName;
+import org.apache.samza.serializers.Serde;
+import org.apache.samza.sql.SamzaSqlRelRecord;
+import org.apache.samza.sql.data.SamzaSqlRelMessage;
+import org.apache.samza.sql.serializers.SamzaSqlRelMessageBinarySerdeFactory.SamzaSqlRelMessageBinarySerde;
+import org.apache.samza.sql.serializers.SamzaSqlRelMessageSerdeFactory.SamzaSqlRelMessageSerde;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Compares the JSON and binary serdes for {@link SamzaSqlRelMessage}s, which are used for the stores and
+ * intermediate streams of SQL joins and windows. The message has a key, a few primitive fields, a map and
+ * a nested record.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SamzaSqlRelMessageSerdeBenchmark {
+
+  /**
+   * json: {@link SamzaSqlRelMessageSerde}
+   * binary: {@link SamzaSqlRelMessageBinarySerde} without a row type, which serializes the field names
+   * binary-row-type: {@link SamzaSqlRelMessageBinarySerde} with the row type of the message
+   */
+  @Param({"json", "binary", "binary-row-type"})
+  public String serdeType;
+
+  private Serde<SamzaSqlRelMessage> serde;
+  private SamzaSqlRelMessage message;
+  private byte[] bytes;
+
+  @Setup
+  public void setup() {
+    RelDataTypeFactory typeFactory = new JavaTypeFactoryImpl();
+    RelDataType rowType = typeFactory.builder()
+        .add(SamzaSqlRelMessage.KEY_NAME, SqlTypeName.ANY)
+        .add("id", SqlTypeName.INTEGER)
+        .add("memberId", SqlTypeName.BIGINT)
+        .add("name", SqlTypeName.VARCHAR)
+        .add("title", SqlTypeName.VARCHAR)
+        .add("score", SqlTypeName.DOUBLE)
+        .add("active", SqlTypeName.BOOLEAN)
+        .add("attributes", typeFactory.createMapType(typeFactory.createSqlType(SqlTypeName.VARCHAR),
+            typeFactory.createSqlType(SqlTypeName.VARCHAR)))
+        .add("address", SqlTypeName.ANY)
+        .build();
+
+    switch (serdeType) {
+      case "json":
+        serde = new SamzaSqlRelMessageSerde();
+        break;
+      case "binary":
+        serde = new SamzaSqlRelMessageBinarySerde();
+        break;
+      case "binary-row-type":
+        serde = new SamzaSqlRelMessageBinarySerde(rowType);
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown serde type " + serdeType);
+    }
+
+    Map<String, String> attributes = new HashMap<>();
+    attributes.put("locale", "en_US");
+    attributes.put("source", "benchmark");
+    SamzaSqlRelRecord address = new SamzaSqlRelRecord(Arrays.asList("street", "city", "zip"),
+        Arrays.asList("1 Main Street", "Sunnyvale", 94085));
+    List<Object> fieldValues = new ArrayList<>(Arrays.asList(
+        "key-12345", 12345, 1234567890123L, "Jane Doe", "Software Engineer", 0.875, true, attributes, address));
+    message = new SamzaSqlRelMessage(rowType.getFieldNames(), fieldValues);
+    bytes = serde.toBytes(message);
+  }
+
+  @Benchmark
+  public byte[] toBytes() {
+    return serde.toBytes(message);
+  }
+
+  @Benchmark
+  public SamzaSqlRelMessage fromBytes() {
+    return serde.fromBytes(bytes);
+  }
+}
@@ -0,0 +1,166 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.samza.benchmarks.storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.apache.samza.Partition;
+import org.apache.samza.config.MapConfig;
+import org.apache.samza.container.TaskName;
+import org.apache.samza.context.ContainerContextImpl;
+import org.apache.samza.context.JobContextImpl;
+import org.apache.samza.job.model.ContainerModel;
+import org.apache.samza.job.model.TaskModel;
+import org.apache.samza.metrics.MetricsRegistryMap;
+import org.apache.samza.serializers.StringSerde;
+import org.apache.samza.storage.kv.BaseKeyValueStorageEngineFactory;
+import org.apache.samza.storage.kv.KeyValueIterator;
+import org.apache.samza.storage.kv.KeyValueStore;
+import org.apache.samza.storage.kv.RocksDbKeyValueStorageEngineFactory;
+import org.apache.samza.storage.kv.inmemory.InMemoryKeyValueStorageEngineFactory;
+import org.apache.samza.util.FileUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Measures the key-value store stack that tasks use, as created by the storage engine factories: the
+ * {@link org.apache.samza.storage.kv.CachedStore} (unless the object cache is disabled), the
+ * {@link org.apache.samza.storage.kv.SerializedKeyValueStore} and the RocksDB or in-memory store, without a changelog.
+ *
+ * The store is loaded with {@link #NUM_KEYS} string keys and 100 byte string values. Keys are read at random, so
+ * most reads miss the object cache, except for the hot reads of 100 keys.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KeyValueStoreBenchmark {
+  private static final String STORE_NAME = "benchmark-store";
+  private static final int NUM_KEYS = 100000;
+  private static final int NUM_HOT_KEYS = 100;
+  private static final int RANGE_SIZE = 100;
+
+  @Param({"rocksdb", "inmemory"})
+  public String storeType;
+
+  @Param({"0", "1000"})
+  public int objectCacheSize;
+
+  private File storeDir;
+  private KeyValueStore<String, String> store;
+  private String[] keys;
+  private String value;
+  private Random random;
+
+  @Setup
+  @SuppressWarnings("unchecked")
+  public void setup() throws IOException {
+    Map<String, String> config = new HashMap<>();
+    config.put("job.name", "benchmark");
+    BaseKeyValueStorageEngineFactory<String, String> factory;
+    if ("rocksdb".equals(storeType)) {
+      factory = new RocksDbKeyValueStorageEngineFactory<>();
+    } else {
+      factory = new InMemoryKeyValueStorageEngineFactory<>();
+    }
+    config.put("stores." + STORE_NAME + ".factory", factory.getClass().getName());
+    config.put("stores." + STORE_NAME + ".object.cache.size", String.valueOf(objectCacheSize));
+    config.put("stores." + STORE_NAME + ".write.batch.size", String.valueOf(Math.max(Math.min(objectCacheSize, 500), 1)));
+
+    TaskName taskName = new TaskName("Partition 0");
+    ContainerModel containerModel = new ContainerModel("0", Collections.singletonMap(taskName,
+        new TaskModel(taskName, Collections.emptySet(), new Partition(0))));
+    MetricsRegistryMap registry = new MetricsRegistryMap();
+    storeDir = Files.createTempDirectory("samza-benchmark-store").toFile();
+    store = (KeyValueStore<String, String>) factory.getStorageEngine(STORE_NAME, storeDir, new StringSerde(),
+        new StringSerde(), null, registry, null, JobContextImpl.fromConfigWithDefaults(new MapConfig(config)),
+        new ContainerContextImpl(containerModel, registry));
+
+    keys = new String[NUM_KEYS];
+    for (int i = 0; i < NUM_KEYS; i++) {
+      keys[i] = String.format("key-%08d", i);
+    }
+    char[] valueChars = new char[100];
+    Arrays.fill(valueChars, 'v');
+    value = new String(valueChars);
+    for (String key : keys) {
+      store.put(key, value);
+    }
+    store.flush();
+    random = new Random(42);
+  }
+
+  @TearDown
+  public void tearDown() {
+    store.close();
+    FileUtil.rm(storeDir);
+  }
+
+  @Benchmark
+  public String get() {
+    return store.get(keys[random.nextInt(NUM_KEYS)]);
+  }
+
+  @Benchmark
+  public String getHot() {
+    return store.get(keys[random.nextInt(NUM_HOT_KEYS)]);
+  }
+
+  @Benchmark
+  public void put() {
+    store.put(keys[random.nextInt(NUM_KEYS)], value);
+  }
+
+  @Benchmark
+  public int range() {
+    int from = random.nextInt(NUM_KEYS - RANGE_SIZE);
+    KeyValueIterator<String, String> iterator = store.range(keys[from], keys[from + RANGE_SIZE]);
+    int count = 0;
+    try {
+      while (iterator.hasNext()) {
+        iterator.next();
+        count++;
+      }
+    } finally {
+      iterator.close();
+    }
+    return count;
+  }
+}
@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.samza.benchmarks.system;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.apache.samza.Partition;
+import org.apache.samza.config.MapConfig;
+import org.apache.samza.metrics.MetricsRegistryMap;
+import org.apache.samza.serializers.SerdeManager;
+import org.apache.samza.system.IncomingMessageEnvelope;
+import org.apache.samza.system.SystemAdmins;
+import org.apache.samza.system.SystemConsumer;
+import org.apache.samza.system.SystemConsumers;
+import org.apache.samza.system.SystemConsumersMetrics;
+import org.apache.samza.system.SystemStreamPartition;
+import org.apache.samza.system.chooser.DefaultChooser;
+import org.apache.samza.system.chooser.MessageChooser;
+import org.apache.samza.system.chooser.RoundRobinChooserFactory;
+import org.apache.samza.util.ScalaJavaUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Measures choosing a message from {@link SystemConsumers} with a {@link DefaultChooser}, the way the
+ * {@link org.apache.samza.task.AsyncRunLoop} does: choose without updating the chooser, then update it with the next
+ * message of the partition once the message is processed. The system consumer always has a batch of messages ready
+ * for every partition, so polling is included but never waits.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SystemConsumersBenchmark {
+  private static final int POLL_BATCH_SIZE = 100;
+
+  @Param({"1", "64"})
+  public int numPartitions;
+
+  /**
+   * round-robin: the default {@link org.apache.samza.system.chooser.RoundRobinChooser}
+   * batching: the round robin chooser with task.consumer.batch.size=100
+   */
+  @Param({"round-robin", "batching"})
+  public String chooserType;
+
+  private SystemConsumers consumers;
+
+  @Setup
+  public void setup() {
+    Map<String, String> config = new HashMap<>();
+    if ("batching".equals(chooserType)) {
+      config.put("task.consumer.batch.size", "100");
+    }
+    MetricsRegistryMap registry = new MetricsRegistryMap();
+    MessageChooser chooser = DefaultChooser.apply(ScalaJavaUtil.toScalaMap(new HashMap<>()),
+        new RoundRobinChooserFactory(), new MapConfig(config), registry, SystemAdmins.empty());
+    Map<String, SystemConsumer> systemConsumers = new HashMap<>();
+    systemConsumers.put("system", new InfiniteSystemConsumer());
+
+    consumers = new SystemConsumers(chooser, ScalaJavaUtil.toScalaMap(systemConsumers), new SerdeManager(
+            ScalaJavaUtil.toScalaMap(new HashMap<>()), ScalaJavaUtil.toScalaMap(new HashMap<>()),
+            ScalaJavaUtil.toScalaMap(new HashMap<>()), ScalaJavaUtil.toScalaMap(new HashMap<>()),
+            ScalaJavaUtil.toScalaMap(new HashMap<>()), new scala.collection.immutable.HashSet<>(),
+            ScalaJavaUtil.toScalaMap(new HashMap<>()), ScalaJavaUtil.toScalaMap(new HashMap<>())),
+        new SystemConsumersMetrics(registry), SystemConsumers.DEFAULT_NO_NEW_MESSAGES_TIMEOUT(),
+        SystemConsumers.DEFAULT_DROP_SERIALIZATION_ERROR(), SystemConsumers.DEFAULT_POLL_INTERVAL_MS(),
+        ScalaJavaUtil.toScalaFunction(() -> (Object) System.nanoTime()),
+        SystemConsumers.DEFAULT_DESERIALIZATION_THREADS(), SystemConsumers.DEFAULT_DESERIALIZATION_BATCH_SIZE());
+    for (int i = 0; i < numPartitions; i++) {
+      consumers.register(new SystemStreamPartition("system", "stream", new Partition(i)), "0");
+    }
+    consumers.start();
+  }
+
+  @TearDown
+  public void tearDown() {
+    consumers.stop();
+  }
+
+  @Benchmark
+  public IncomingMessageEnvelope chooseAndUpdate() {
+    IncomingMessageEnvelope envelope = consumers.choose(false);
+    if (envelope != null) {
+      consumers.tryUpdate(envelope.getSystemStreamPartition());
+    }
+    return envelope;
+  }
+
+  /**
+   * Returns a batch of the same messages for every partition it's polled for.
+   */
+  private static class InfiniteSystemConsumer implements SystemConsumer {
+    private final Map<SystemStreamPartition, List<IncomingMessageEnvelope>> batches = new HashMap<>();
+
+    @Override
+    public void start() {
+    }
+
+    @Override
+    public void stop() {
+    }
+
+    @Override
+    public void register(SystemStreamPartition systemStreamPartition, String offset) {
+      List<IncomingMessageEnvelope> batch = new ArrayList<>(POLL_BATCH_SIZE);
+      for (int i = 0; i < POLL_BATCH_SIZE; i++) {
+        batch.add(new IncomingMessageEnvelope(systemStreamPartition, String.valueOf(i), "key", "value"));
+      }
+      batches.put(systemStreamPartition, batch);
+    }
+
+    @Override
+    public Map<SystemStreamPartition, List<IncomingMessageEnvelope>> poll(Set<SystemStreamPartition> systemStreamPartitions,
+        long timeout) {
+      Map<SystemStreamPartition, List<IncomingMessageEnvelope>> polled = new HashMap<>();
+      for (SystemStreamPartition ssp : systemStreamPartitions) {
+        polled.put(ssp, new ArrayList<>(batches.get(ssp)));
+      }
+      return polled;
+    }
+  }
+}
@@ -50,6 +50,7 @@ public class JavaStorageConfig extends MapConfig {
   public static final String SIDE_INPUTS = "stores.%s.side.inputs";
   public static final String SIDE_INPUTS_PROCESSOR_FACTORY = "stores.%s.side.inputs.processor.factory";
   public static final String SIDE_INPUTS_PROCESSOR_SERIALIZED_INSTANCE = "stores.%s.side.inputs.processor.serialized.instance";
+  public static final String SIDE_INPUTS_SHARED = "stores.%s.side.inputs.shared";
 
   public JavaStorageConfig(Config config) {
     super(config);
@@ -173,4 +174,15 @@ public class JavaStorageConfig extends MapConfig {
   public String getSideInputsProcessorSerializedInstance(String storeName) {
     return get(String.format(SIDE_INPUTS_PROCESSOR_SERIALIZED_INSTANCE, storeName), null);
   }
+
+  /**
+   * Gets whether the side input store {@code storeName} is shared by all tasks of a container, instead of each task
+   * having its own instance of the store.
+   *
+   * @param storeName name of the store
+   * @return true if the store is shared by the tasks of a container, false otherwise
+   */
+  public boolean isSideInputsShared(String storeName) {
+    return getBoolean(String.format(SIDE_INPUTS_SHARED, storeName), false);
+  }
 }
@@ -38,6 +38,9 @@ public class JavaSystemConfig extends MapConfig {
   public static final String SYSTEM_FACTORY_SUFFIX = ".samza.factory";
   public static final String SYSTEM_FACTORY_FORMAT = SYSTEM_PREFIX + "%s" + SYSTEM_FACTORY_SUFFIX;
   private static final String SYSTEM_DEFAULT_STREAMS_PREFIX_FORMAT = SYSTEM_PREFIX + "%s" + ".default.stream.";
+  // bounds for the buffers of consumers based on BlockingEnvelopeMap, per SystemStreamPartition
+  public static final String CONSUMER_BUFFER_MAX_MESSAGES_FORMAT = SYSTEM_PREFIX + "%s.samza.buffer.max.messages";
+  public static final String CONSUMER_BUFFER_MAX_BYTES_FORMAT = SYSTEM_PREFIX + "%s.samza.buffer.max.bytes";
   private static final String EMPTY = "";
 
   public static final String SAMZA_SYSTEM_OFFSET_UPCOMING = "upcoming";
@@ -147,4 +150,27 @@ public class JavaSystemConfig extends MapConfig {
 
     return systemOffsetDefault;
   }
+
+  /**
+   * Get the maximum number of messages a consumer based on
+   * {@link org.apache.samza.util.BlockingEnvelopeMap} buffers per SystemStreamPartition.
+   * systems.'system'.samza.buffer.max.messages is the config.
+   * @param systemName get config value for this system.
+   * @return the maximum number of messages, or -1 if the consumer's own buffers should be used.
+   */
+  public int getConsumerBufferMaxMessages(String systemName) {
+    return getInt(String.format(CONSUMER_BUFFER_MAX_MESSAGES_FORMAT, systemName), -1);
+  }
+
+  /**
+   * Get the maximum size in bytes of the messages a consumer based on
+   * {@link org.apache.samza.util.BlockingEnvelopeMap} buffers per SystemStreamPartition.
+   * systems.'system'.samza.buffer.max.bytes is the config. Only applies when
+   * systems.'system'.samza.buffer.max.messages is set.
+   * @param systemName get config value for this system.
+   * @return the maximum size in bytes, or -1 for no limit.
+   */
+  public long getConsumerBufferMaxBytes(String systemName) {
+    return getLong(String.format(CONSUMER_BUFFER_MAX_BYTES_FORMAT, systemName), -1L);
+  }
 }
@@ -22,6 +22,7 @@ package org.apache.samza.config;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 import java.util.regex.Pattern;
 
@@ -29,6 +30,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.apache.samza.Partition;
 import org.apache.samza.checkpoint.CheckpointManager;
 import org.apache.samza.checkpoint.CheckpointManagerFactory;
+import org.apache.samza.container.grouper.task.GroupByTaskLoadFactory;
 import org.apache.samza.metrics.MetricsRegistry;
 import org.apache.samza.system.SystemStream;
 import org.apache.samza.system.SystemStreamPartition;
@@ -44,6 +46,27 @@ public class TaskConfigJava extends MapConfig {
   public static final String TASK_SHUTDOWN_MS = "task.shutdown.ms";
   public static final long DEFAULT_TASK_SHUTDOWN_MS = 30000L;
 
+  // whether stream-table joins of high level applications look up tables asynchronously, in batches
+  public static final String ASYNC_TABLE_JOIN = "task.table.join.async";
+  public static final String ASYNC_TABLE_JOIN_BATCH_SIZE = "task.table.join.batch.size";
+  public static final int DEFAULT_ASYNC_TABLE_JOIN_BATCH_SIZE = 100;
+  public static final String ASYNC_TABLE_JOIN_MAX_BATCHES_IN_FLIGHT = "task.table.join.max.batches.in.flight";
+  public static final int DEFAULT_ASYNC_TABLE_JOIN_MAX_BATCHES_IN_FLIGHT = 4;
+
+  // the tick of the timer wheel that holds the timers of each task, or 0 to schedule each timer on an executor
+  public static final String TIMER_WHEEL_TICK_MS = "task.timer.wheel.tick.ms";
+  // the store in which the timers of each task are persisted, if any
+  public static final String TIMER_STORE = "task.timer.store";
+
+  // whether time since last message triggers of windows keep a single callback per trigger key
+  public static final String WINDOW_TRIGGER_COALESCING = "task.window.trigger.coalescing";
+
+  // whether containers persist the load of their tasks when they shut down
+  public static final String TASK_LOAD_PERSIST_ENABLED = "task.load.persist.enabled";
+  // how much more load than the average a container may keep when tasks stay on their previous containers
+  public static final String TASK_LOAD_BALANCE_TOLERANCE = "task.load.balance.tolerance";
+  public static final double DEFAULT_TASK_LOAD_BALANCE_TOLERANCE = 0.1;
+
   // broadcast streams consumed by all tasks. e.g. kafka.foo#1
   public static final String BROADCAST_INPUT_STREAMS = "task.broadcast.inputs";
   private static final String BROADCAST_STREAM_PATTERN = "^[\\d]+$";
@@ -176,4 +199,97 @@ public class TaskConfigJava extends MapConfig {
       return DEFAULT_TASK_SHUTDOWN_MS;
     }
   }
+
+  /**
+   * Whether stream-table joins look up tables asynchronously, in batches.
+   *
+   * @return true if the tasks of high level applications should be asynchronous and batch table lookups
+   */
+  public boolean isAsyncTableJoinEnabled() {
+    return getBoolean(ASYNC_TABLE_JOIN, false);
+  }
+
+  /**
+   * The maximum number of keys looked up in one batch by an asynchronous stream-table join.
+   *
+   * @return the batch size, defaulting to {@value #DEFAULT_ASYNC_TABLE_JOIN_BATCH_SIZE}
+   */
+  public int getAsyncTableJoinBatchSize() {
+    int batchSize = getInt(ASYNC_TABLE_JOIN_BATCH_SIZE, DEFAULT_ASYNC_TABLE_JOIN_BATCH_SIZE);
+    if (batchSize < 1) {
+      throw new ConfigException(String.format("%s must be positive, but was %d.", ASYNC_TABLE_JOIN_BATCH_SIZE, batchSize));
+    }
+    return batchSize;
+  }
+
+  /**
+   * The maximum number of batches of lookups an asynchronous stream-table join has in flight.
+   *
+   * @return the number of batches, defaulting to {@value #DEFAULT_ASYNC_TABLE_JOIN_MAX_BATCHES_IN_FLIGHT}
+   */
+  public int getAsyncTableJoinMaxBatchesInFlight() {
+    int maxBatches = getInt(ASYNC_TABLE_JOIN_MAX_BATCHES_IN_FLIGHT, DEFAULT_ASYNC_TABLE_JOIN_MAX_BATCHES_IN_FLIGHT);
+    if (maxBatches < 1) {
+      throw new ConfigException(
+          String.format("%s must be positive, but was %d.", ASYNC_TABLE_JOIN_MAX_BATCHES_IN_FLIGHT, maxBatches));
+    }
+    return maxBatches;
+  }
+
+  /**
+   * The time span of a bucket in the lowest level of the timer wheel of each task.
+   *
+   * @return the tick in ms, or 0 if the timers of a task are scheduled on an executor instead of a timer wheel
+   */
+  public long getTimerWheelTickMs() {
+    long tickMs = getLong(TIMER_WHEEL_TICK_MS, 0L);
+    if (tickMs < 0) {
+      throw new ConfigException(String.format("%s can't be negative, but was %d.", TIMER_WHEEL_TICK_MS, tickMs));
+    }
+    return tickMs;
+  }
+
+  /**
+   * The name of the store in which the timers of each task are persisted.
+   *
+   * @return the store name, if configured
+   */
+  public Optional<String> getTimerStore() {
+    return Optional.ofNullable(get(TIMER_STORE));
+  }
+
+  /**
+   * Whether time since last message triggers of windows push back their pending callback when a message arrives,
+   * instead of cancelling it and scheduling a new one.
+   *
+   * @return true if window trigger callbacks are coalesced, defaulting to false
+   */
+  public boolean isWindowTriggerCoalescingEnabled() {
+    return getBoolean(WINDOW_TRIGGER_COALESCING, false);
+  }
+
+  /**
+   * Whether containers persist the load of their tasks in the metadata store when they shut down, for
+   * {@link org.apache.samza.container.grouper.task.GroupByTaskLoad} to balance the tasks.
+   *
+   * @return true if task loads are persisted, defaulting to true if the task name grouper is
+   *         {@link org.apache.samza.container.grouper.task.GroupByTaskLoadFactory}
+   */
+  public boolean isTaskLoadPersistEnabled() {
+    return getBoolean(TASK_LOAD_PERSIST_ENABLED,
+        GroupByTaskLoadFactory.class.getName().equals(get(TaskConfig.GROUPER_FACTORY())));
+  }
+
+  /**
+   * The fraction of the average container load that a container may exceed it by when keeping its previous tasks.
+   *
+   * @return the tolerance, defaulting to {@link #DEFAULT_TASK_LOAD_BALANCE_TOLERANCE}
+   */
+  public double getTaskLoadBalanceTolerance() {
+    double tolerance = getDouble(TASK_LOAD_BALANCE_TOLERANCE, DEFAULT_TASK_LOAD_BALANCE_TOLERANCE);
+    if (tolerance < 0) {
+      throw new ConfigException(String.format("%s can't be negative, but was %s.", TASK_LOAD_BALANCE_TOLERANCE, tolerance));
+    }
+    return tolerance;
+  }
 }
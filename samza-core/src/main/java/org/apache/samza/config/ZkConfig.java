@@ -25,10 +25,18 @@ public class ZkConfig extends MapConfig {
   public static final String ZK_SESSION_TIMEOUT_MS = "job.coordinator.zk.session.timeout.ms";
   public static final String ZK_CONNECTION_TIMEOUT_MS = "job.coordinator.zk.connection.timeout.ms";
   public static final String ZK_CONSENSUS_TIMEOUT_MS = "job.coordinator.zk.consensus.timeout.ms";
+  // If true, JobModels are published gzipped, split into chunks and as deltas of the previous JobModel
+  public static final String ZK_JOB_MODEL_COMPRESSION_ENABLED = "job.coordinator.zk.job.model.compression.enabled";
+  public static final String ZK_JOB_MODEL_CHUNK_BYTES = "job.coordinator.zk.job.model.chunk.bytes";
+  public static final String ZK_JOB_MODEL_MAX_DELTAS = "job.coordinator.zk.job.model.max.deltas";
+  // If true, tasks stay on their processors when the processors change, and unaffected processors keep running
+  public static final String ZK_INCREMENTAL_REBALANCE_ENABLED = "job.coordinator.zk.incremental.rebalance.enabled";
 
   public static final int DEFAULT_CONNECTION_TIMEOUT_MS = 60000;
   public static final int DEFAULT_SESSION_TIMEOUT_MS = 30000;
   public static final int DEFAULT_CONSENSUS_TIMEOUT_MS = 40000;
+  public static final int DEFAULT_JOB_MODEL_CHUNK_BYTES = 512 * 1024;
+  public static final int DEFAULT_JOB_MODEL_MAX_DELTAS = 5;
 
   public ZkConfig(Config config) {
     super(config);
@@ -52,4 +60,28 @@ public class ZkConfig extends MapConfig {
   public int getZkBarrierTimeoutMs() {
     return getInt(ZK_CONSENSUS_TIMEOUT_MS, DEFAULT_CONSENSUS_TIMEOUT_MS);
   }
+
+  public boolean isJobModelCompressionEnabled() {
+    return getBoolean(ZK_JOB_MODEL_COMPRESSION_ENABLED, false);
+  }
+
+  public int getJobModelChunkBytes() {
+    int chunkBytes = getInt(ZK_JOB_MODEL_CHUNK_BYTES, DEFAULT_JOB_MODEL_CHUNK_BYTES);
+    if (chunkBytes <= 0) {
+      throw new ConfigException(ZK_JOB_MODEL_CHUNK_BYTES + " must be positive, but was " + chunkBytes);
+    }
+    return chunkBytes;
+  }
+
+  public boolean isIncrementalRebalanceEnabled() {
+    return getBoolean(ZK_INCREMENTAL_REBALANCE_ENABLED, false);
+  }
+
+  public int getJobModelMaxDeltas() {
+    int maxDeltas = getInt(ZK_JOB_MODEL_MAX_DELTAS, DEFAULT_JOB_MODEL_MAX_DELTAS);
+    if (maxDeltas < 0) {
+      throw new ConfigException(ZK_JOB_MODEL_MAX_DELTAS + " can't be negative, but was " + maxDeltas);
+    }
+    return maxDeltas;
+  }
 }
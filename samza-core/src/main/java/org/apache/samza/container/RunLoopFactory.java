@@ -55,6 +55,10 @@ public class RunLoopFactory {
 
     log.info("Got commit milliseconds: {}.", taskCommitMs);
 
+    boolean isBatchCommitEnabled = config.getBatchCommit();
+
+    log.info("Got batchCommitEnabled: {}.", isBatchCommitEnabled);
+
     int asyncTaskCount = taskInstances.values().count(new AbstractFunction1<TaskInstance, Object>() {
       @Override
       public Boolean apply(TaskInstance t) {
@@ -77,7 +81,8 @@ public class RunLoopFactory {
         maxThrottlingDelayMs,
         taskWindowMs,
         taskCommitMs,
-        toScalaFunction(() -> clock.nanoTime()));
+        toScalaFunction(() -> clock.nanoTime()),
+        isBatchCommitEnabled);
     } else {
       Integer taskMaxConcurrency = config.getMaxConcurrency();
 
@@ -109,7 +114,8 @@ public class RunLoopFactory {
         maxIdleMs,
         containerMetrics,
         clock,
-        isAsyncCommitEnabled);
+        isAsyncCommitEnabled,
+        isBatchCommitEnabled);
     }
   }
 
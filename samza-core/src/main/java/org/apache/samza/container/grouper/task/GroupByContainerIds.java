@@ -69,17 +69,7 @@ public class GroupByContainerIds implements TaskNameGrouper {
       throw new IllegalArgumentException("cannot group an empty set. containersIds=" + Arrays
           .toString(containersIds.toArray()));
 
-    if (containersIds.size() > tasks.size()) {
-      LOG.warn("Number of containers: {} is greater than number of tasks: {}.",  containersIds.size(), tasks.size());
-      /**
-       * Choose lexicographically least `x` containerIds(where x = tasks.size()).
-       */
-      containersIds = containersIds.stream()
-                                   .sorted()
-                                   .limit(tasks.size())
-                                   .collect(Collectors.toList());
-      LOG.info("Generating containerModel with containers: {}.", containersIds);
-    }
+    containersIds = limitContainers(tasks, containersIds);
 
     int containerCount = containersIds.size();
 
@@ -105,4 +95,92 @@ public class GroupByContainerIds implements TaskNameGrouper {
 
     return Collections.unmodifiableSet(containerModels);
   }
+
+  /**
+   * Groups the tasks so that the number of tasks in each container differs by at most one, while keeping as many
+   * tasks as possible in the containers they were previously in. Only the tasks of removed containers, new tasks,
+   * and the tasks that containers have more of than their share, are moved. They're moved to the containers with
+   * the fewest tasks, so containers that already have their share keep the same tasks.
+   */
+  @Override
+  public Set<ContainerModel> group(Set<TaskModel> tasks, List<String> containersIds,
+      Map<TaskName, String> previousContainerIds) {
+    if (previousContainerIds == null || previousContainerIds.isEmpty() || containersIds == null) {
+      return group(tasks, containersIds);
+    }
+
+    if (containersIds.isEmpty())
+      throw new IllegalArgumentException("Must have at least one container");
+
+    if (tasks.isEmpty())
+      throw new IllegalArgumentException("cannot group an empty set. containersIds=" + Arrays
+          .toString(containersIds.toArray()));
+
+    List<String> sortedContainerIds = new ArrayList<>(limitContainers(tasks, containersIds));
+    Collections.sort(sortedContainerIds);
+    int minTasksPerContainer = tasks.size() / sortedContainerIds.size();
+    int numLargerContainers = tasks.size() % sortedContainerIds.size();
+
+    // Keep the tasks of each container that still exists, sorted by taskName
+    Map<String, List<TaskModel>> keptTasks = new HashMap<>();
+    sortedContainerIds.forEach(containerId -> keptTasks.put(containerId, new ArrayList<>()));
+    List<TaskModel> movedTasks = new ArrayList<>();
+    List<TaskModel> sortedTasks = new ArrayList<>(tasks);
+    Collections.sort(sortedTasks);
+    for (TaskModel task : sortedTasks) {
+      List<TaskModel> containerTasks = keptTasks.get(previousContainerIds.get(task.getTaskName()));
+      if (containerTasks != null) {
+        containerTasks.add(task);
+      } else {
+        movedTasks.add(task);
+      }
+    }
+
+    // Only numLargerContainers containers can keep one task more than the others. Prefer the ones with the most tasks.
+    List<String> containersBySize = new ArrayList<>(sortedContainerIds);
+    containersBySize.sort((c1, c2) -> keptTasks.get(c2).size() - keptTasks.get(c1).size());
+    for (int i = 0; i < containersBySize.size(); i++) {
+      List<TaskModel> containerTasks = keptTasks.get(containersBySize.get(i));
+      int maxTasks = i < numLargerContainers ? minTasksPerContainer + 1 : minTasksPerContainer;
+      while (containerTasks.size() > maxTasks) {
+        movedTasks.add(containerTasks.remove(containerTasks.size() - 1));
+      }
+    }
+
+    // Move the remaining tasks to the containers with the fewest tasks
+    Collections.sort(movedTasks);
+    for (TaskModel task : movedTasks) {
+      String leastLoadedContainerId = sortedContainerIds.get(0);
+      for (String containerId : sortedContainerIds) {
+        if (keptTasks.get(containerId).size() < keptTasks.get(leastLoadedContainerId).size()) {
+          leastLoadedContainerId = containerId;
+        }
+      }
+      keptTasks.get(leastLoadedContainerId).add(task);
+    }
+    LOG.info("Moved {} of {} tasks to a different container.", movedTasks.size(), tasks.size());
+
+    Set<ContainerModel> containerModels = new HashSet<>();
+    for (String containerId : sortedContainerIds) {
+      Map<TaskName, TaskModel> containerTasks = new HashMap<>();
+      keptTasks.get(containerId).forEach(task -> containerTasks.put(task.getTaskName(), task));
+      containerModels.add(new ContainerModel(containerId, containerTasks));
+    }
+    return Collections.unmodifiableSet(containerModels);
+  }
+
+  private static List<String> limitContainers(Set<TaskModel> tasks, List<String> containersIds) {
+    if (containersIds.size() > tasks.size()) {
+      LOG.warn("Number of containers: {} is greater than number of tasks: {}.",  containersIds.size(), tasks.size());
+      /**
+       * Choose lexicographically least `x` containerIds(where x = tasks.size()).
+       */
+      containersIds = containersIds.stream()
+                                   .sorted()
+                                   .limit(tasks.size())
+                                   .collect(Collectors.toList());
+      LOG.info("Generating containerModel with containers: {}.", containersIds);
+    }
+    return containersIds;
+  }
 }
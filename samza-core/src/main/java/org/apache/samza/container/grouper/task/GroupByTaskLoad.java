@@ -0,0 +1,299 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.samza.container.grouper.task;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.samza.config.Config;
+import org.apache.samza.config.JobConfig;
+import org.apache.samza.config.TaskConfigJava;
+import org.apache.samza.container.LocalityManager;
+import org.apache.samza.container.TaskName;
+import org.apache.samza.job.model.ContainerModel;
+import org.apache.samza.job.model.TaskModel;
+import org.apache.samza.metrics.MetricsRegistryMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Groups the tasks into the configured number of containers, balancing the load of the tasks across the containers
+ * instead of their number.
+ *
+ * The load of each task is read from the {@link TaskLoad}s persisted by {@link TaskLoadManager}. Each of the message
+ * rate, byte rate, store size and processing time of a task is taken as a fraction of the total of the job, and the
+ * load of the task is the average of those fractions. Tasks without a persisted load, e.g. new tasks, are assumed to
+ * have the average load. If no loads are persisted, all tasks have the same load and they're balanced by their number.
+ *
+ * When balancing, tasks stay on the container they were previously assigned to by {@link TaskAssignmentManager} as
+ * long as the load of the container stays within {@link TaskConfigJava#getTaskLoadBalanceTolerance()} of the average.
+ * The remaining tasks are assigned from the heaviest to the lightest to the least loaded container.
+ *
+ * The loads and assignments are read from the coordinator stream, so this grouper is meant for cluster-based jobs.
+ */
+public class GroupByTaskLoad implements BalancingTaskNameGrouper {
+  private static final Logger LOG = LoggerFactory.getLogger(GroupByTaskLoad.class);
+  // message rate, byte rate, store size and processing time
+  private static final int NUM_SIGNALS = 4;
+
+  private final int containerCount;
+  private final double tolerance;
+  private final Config config;
+
+  public GroupByTaskLoad(Config config) {
+    this.containerCount = new JobConfig(config).getContainerCount();
+    this.tolerance = new TaskConfigJava(config).getTaskLoadBalanceTolerance();
+    this.config = config;
+    if (containerCount <= 0) throw new IllegalArgumentException("Must have at least one container");
+  }
+
+  @Override
+  public Set<ContainerModel> group(Set<TaskModel> tasks) {
+    validateTasks(tasks);
+    return group(tasks, readTaskLoads(), Collections.emptyMap());
+  }
+
+  @Override
+  public Set<ContainerModel> balance(Set<TaskModel> tasks, LocalityManager localityManager) {
+    validateTasks(tasks);
+
+    if (localityManager == null) {
+      LOG.info("Locality manager is null. Cannot read or write task assignments. Invoking grouper.");
+      return group(tasks);
+    }
+
+    TaskAssignmentManager taskAssignmentManager = new TaskAssignmentManager(config, new MetricsRegistryMap());
+    taskAssignmentManager.init();
+    try {
+      Map<String, String> previousContainerIds = taskAssignmentManager.readTaskAssignment();
+      Set<ContainerModel> models = group(tasks, readTaskLoads(), previousContainerIds);
+
+      // Save the results, and delete the assignments of tasks that no longer exist
+      Set<String> taskNames = new HashSet<>();
+      for (ContainerModel container : models) {
+        for (TaskName taskName : container.getTasks().keySet()) {
+          taskAssignmentManager.writeTaskContainerMapping(taskName.getTaskName(), container.getId());
+          taskNames.add(taskName.getTaskName());
+        }
+      }
+      Set<String> removedTaskNames = new HashSet<>(previousContainerIds.keySet());
+      removedTaskNames.removeAll(taskNames);
+      taskAssignmentManager.deleteTaskContainerMappings(removedTaskNames);
+      return models;
+    } finally {
+      taskAssignmentManager.close();
+    }
+  }
+
+  /**
+   * Groups the tasks by their loads, keeping them on their previous containers where possible.
+   *
+   * @param tasks                the tasks to group.
+   * @param taskLoads            the persisted loads of the tasks, by task name.
+   * @param previousContainerIds the previous container of the tasks, by task name.
+   * @return                     the grouped tasks in the form of ContainerModels
+   */
+  Set<ContainerModel> group(Set<TaskModel> tasks, Map<String, TaskLoad> taskLoads,
+      Map<String, String> previousContainerIds) {
+    Map<TaskName, Double> loads = getRelativeLoads(tasks, taskLoads);
+
+    // Heaviest tasks first, by taskName for equal loads
+    List<TaskModel> sortedTasks = new ArrayList<>(tasks);
+    sortedTasks.sort((task1, task2) -> {
+        int byLoad = Double.compare(loads.get(task2.getTaskName()), loads.get(task1.getTaskName()));
+        return byLoad != 0 ? byLoad : task1.compareTo(task2);
+      });
+
+    double totalLoad = loads.values().stream().mapToDouble(Double::doubleValue).sum();
+    double maxContainerLoad = totalLoad / containerCount * (1 + tolerance);
+
+    List<TaskGroup> containers = new ArrayList<>(containerCount);
+    Map<String, TaskGroup> containersById = new HashMap<>();
+    for (int i = 0; i < containerCount; i++) {
+      TaskGroup container = new TaskGroup(String.valueOf(i));
+      containers.add(container);
+      containersById.put(container.containerId, container);
+    }
+
+    // Keep tasks on their previous containers while the containers stay within the tolerance
+    List<TaskModel> tasksToAssign = new ArrayList<>();
+    for (TaskModel task : sortedTasks) {
+      TaskGroup container = containersById.get(previousContainerIds.get(task.getTaskName().getTaskName()));
+      double load = loads.get(task.getTaskName());
+      if (container != null && (container.tasks.isEmpty() || container.load + load <= maxContainerLoad)) {
+        container.add(task, load);
+      } else {
+        tasksToAssign.add(task);
+      }
+    }
+
+    // Assign the remaining tasks, heaviest first, to the least loaded container
+    Comparator<TaskGroup> byLoad = (container1, container2) -> {
+        int compared = Double.compare(container1.load, container2.load);
+        return compared != 0 ? compared : Integer.compare(container1.tasks.size(), container2.tasks.size());
+      };
+    for (TaskModel task : tasksToAssign) {
+      Collections.min(containers, byLoad).add(task, loads.get(task.getTaskName()));
+    }
+
+    // Make sure that no container is left without a task
+    for (TaskGroup container : containers) {
+      if (container.tasks.isEmpty()) {
+        TaskGroup largest = Collections.max(containers,
+            (container1, container2) -> Integer.compare(container1.tasks.size(), container2.tasks.size()));
+        TaskModel task = largest.removeLightest(loads);
+        container.add(task, loads.get(task.getTaskName()));
+      }
+    }
+
+    Set<ContainerModel> containerModels = new HashSet<>();
+    int movedTasks = 0;
+    for (TaskGroup container : containers) {
+      containerModels.add(new ContainerModel(container.containerId, container.tasks));
+      for (TaskName taskName : container.tasks.keySet()) {
+        if (!container.containerId.equals(previousContainerIds.get(taskName.getTaskName()))) {
+          movedTasks++;
+        }
+      }
+    }
+    LOG.info("Assigned {} of {} tasks to a different container. Container loads: {}",
+        movedTasks, tasks.size(), containers);
+    return Collections.unmodifiableSet(containerModels);
+  }
+
+  /**
+   * Calculates the load of each task relative to the others, as the average fraction of the total of each signal.
+   */
+  private static Map<TaskName, Double> getRelativeLoads(Set<TaskModel> tasks, Map<String, TaskLoad> taskLoads) {
+    Map<TaskName, TaskLoad> knownLoads = new HashMap<>();
+    for (TaskModel task : tasks) {
+      TaskLoad load = taskLoads.get(task.getTaskName().getTaskName());
+      if (load != null) {
+        knownLoads.put(task.getTaskName(), load);
+      }
+    }
+
+    Map<TaskName, Double> loads = new HashMap<>();
+    knownLoads.keySet().forEach(taskName -> loads.put(taskName, 0.0));
+    int usedSignals = 0;
+    for (int signal = 0; signal < NUM_SIGNALS; signal++) {
+      double total = 0;
+      for (TaskLoad load : knownLoads.values()) {
+        total += getSignal(load, signal);
+      }
+      if (total > 0) {
+        usedSignals++;
+        for (Map.Entry<TaskName, TaskLoad> entry : knownLoads.entrySet()) {
+          loads.put(entry.getKey(), loads.get(entry.getKey()) + getSignal(entry.getValue(), signal) / total);
+        }
+      }
+    }
+
+    double defaultLoad;
+    if (usedSignals == 0) {
+      // Without any load, balance the tasks by their number
+      loads.replaceAll((taskName, load) -> 1.0);
+      defaultLoad = 1.0;
+    } else {
+      final int signalCount = usedSignals;
+      loads.replaceAll((taskName, load) -> load / signalCount);
+      defaultLoad = 1.0 / knownLoads.size();
+    }
+    for (TaskModel task : tasks) {
+      loads.putIfAbsent(task.getTaskName(), defaultLoad);
+    }
+    return loads;
+  }
+
+  private static double getSignal(TaskLoad load, int signal) {
+    switch (signal) {
+      case 0: return load.getMessageRate();
+      case 1: return load.getByteRate();
+      case 2: return load.getStoreSizeBytes();
+      default: return load.getProcessingTimeRatio();
+    }
+  }
+
+  private Map<String, TaskLoad> readTaskLoads() {
+    TaskLoadManager taskLoadManager = new TaskLoadManager(config, new MetricsRegistryMap());
+    taskLoadManager.init();
+    try {
+      return taskLoadManager.readTaskLoads();
+    } finally {
+      taskLoadManager.close();
+    }
+  }
+
+  /**
+   * Verifies the input tasks argument and throws {@link IllegalArgumentException} if it is invalid.
+   *
+   * @param tasks the tasks to validate.
+   */
+  private void validateTasks(Set<TaskModel> tasks) {
+    if (tasks.size() <= 0)
+      throw new IllegalArgumentException("No tasks found. Likely due to no input partitions. Can't run a job with no tasks.");
+
+    if (tasks.size() < containerCount)
+      throw new IllegalArgumentException(String.format(
+          "Your container count (%s) is larger than your task count (%s). Can't have containers with nothing to do, so aborting.",
+          containerCount,
+          tasks.size()));
+  }
+
+  /**
+   * A mutable group of tasks and their total load, for a container id.
+   */
+  private static class TaskGroup {
+    private final String containerId;
+    private final Map<TaskName, TaskModel> tasks = new HashMap<>();
+    private double load = 0;
+
+    private TaskGroup(String containerId) {
+      this.containerId = containerId;
+    }
+
+    private void add(TaskModel task, double taskLoad) {
+      tasks.put(task.getTaskName(), task);
+      load += taskLoad;
+    }
+
+    private TaskModel removeLightest(Map<TaskName, Double> loads) {
+      TaskModel lightest = Collections.min(tasks.values(), (task1, task2) -> {
+          int byLoad = Double.compare(loads.get(task1.getTaskName()), loads.get(task2.getTaskName()));
+          return byLoad != 0 ? byLoad : task1.compareTo(task2);
+        });
+      tasks.remove(lightest.getTaskName());
+      load -= loads.get(lightest.getTaskName());
+      return lightest;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%s=%.3f", containerId, load);
+    }
+  }
+}
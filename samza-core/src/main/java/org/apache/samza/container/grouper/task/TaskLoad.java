@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.samza.container.grouper.task;
+
+import java.util.Objects;
+import org.apache.samza.SamzaException;
+
+
+/**
+ * The load of a task, as measured by the container that last ran it. Rates are averaged over the time the container
+ * ran the task.
+ *
+ * Loads are persisted by {@link TaskLoadManager} and used by {@link GroupByTaskLoad} to balance tasks across
+ * containers.
+ */
+public class TaskLoad {
+  private static final String SEPARATOR = ",";
+
+  private final double messageRate;
+  private final double byteRate;
+  private final long storeSizeBytes;
+  private final double processingTimeRatio;
+
+  /**
+   * @param messageRate         the number of messages processed per second
+   * @param byteRate            the number of message bytes processed per second
+   * @param storeSizeBytes      the size of the persisted stores of the task on disk
+   * @param processingTimeRatio the fraction of time spent processing messages of the task, which may be more than 1
+   *                            when messages are processed concurrently
+   */
+  public TaskLoad(double messageRate, double byteRate, long storeSizeBytes, double processingTimeRatio) {
+    this.messageRate = messageRate;
+    this.byteRate = byteRate;
+    this.storeSizeBytes = storeSizeBytes;
+    this.processingTimeRatio = processingTimeRatio;
+  }
+
+  public double getMessageRate() {
+    return messageRate;
+  }
+
+  public double getByteRate() {
+    return byteRate;
+  }
+
+  public long getStoreSizeBytes() {
+    return storeSizeBytes;
+  }
+
+  public double getProcessingTimeRatio() {
+    return processingTimeRatio;
+  }
+
+  /**
+   * Encodes the load as a string, to be persisted in the metadata store.
+   *
+   * @return the encoded load
+   */
+  public String encode() {
+    return messageRate + SEPARATOR + byteRate + SEPARATOR + storeSizeBytes + SEPARATOR + processingTimeRatio;
+  }
+
+  /**
+   * Decodes a load encoded by {@link #encode()}.
+   *
+   * @param encoded the encoded load
+   * @return the load
+   * @throws SamzaException if the load can't be decoded
+   */
+  public static TaskLoad decode(String encoded) {
+    String[] values = encoded.split(SEPARATOR);
+    if (values.length != 4) {
+      throw new SamzaException("Invalid task load: " + encoded);
+    }
+    try {
+      return new TaskLoad(Double.parseDouble(values[0]), Double.parseDouble(values[1]), Long.parseLong(values[2]),
+          Double.parseDouble(values[3]));
+    } catch (NumberFormatException e) {
+      throw new SamzaException("Invalid task load: " + encoded, e);
+    }
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    TaskLoad that = (TaskLoad) o;
+    return Double.compare(that.messageRate, messageRate) == 0
+        && Double.compare(that.byteRate, byteRate) == 0
+        && storeSizeBytes == that.storeSizeBytes
+        && Double.compare(that.processingTimeRatio, processingTimeRatio) == 0;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(messageRate, byteRate, storeSizeBytes, processingTimeRatio);
+  }
+
+  @Override
+  public String toString() {
+    return String.format("TaskLoad [messageRate=%s, byteRate=%s, storeSizeBytes=%d, processingTimeRatio=%s]",
+        messageRate, byteRate, storeSizeBytes, processingTimeRatio);
+  }
+}
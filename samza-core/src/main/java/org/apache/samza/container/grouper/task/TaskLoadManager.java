@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.samza.container.grouper.task;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.samza.SamzaException;
+import org.apache.samza.config.Config;
+import org.apache.samza.config.JobConfig;
+import org.apache.samza.coordinator.stream.CoordinatorStreamKeySerde;
+import org.apache.samza.coordinator.stream.CoordinatorStreamValueSerde;
+import org.apache.samza.coordinator.stream.messages.SetTaskLoad;
+import org.apache.samza.metadatastore.MetadataStore;
+import org.apache.samza.metadatastore.MetadataStoreFactory;
+import org.apache.samza.metrics.MetricsRegistry;
+import org.apache.samza.serializers.Serde;
+import org.apache.samza.util.Util;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Task load manager is used to persist and read the {@link TaskLoad} of each task
+ * from the coordinator stream.
+ */
+public class TaskLoadManager {
+  private static final Logger LOG = LoggerFactory.getLogger(TaskLoadManager.class);
+
+  private final Serde<String> valueSerde;
+  private final MetadataStore metadataStore;
+
+  /**
+   * Builds the TaskLoadManager based upon {@link Config} and {@link MetricsRegistry}.
+   * Uses {@link CoordinatorStreamKeySerde} and {@link CoordinatorStreamValueSerde} to
+   * serialize messages before reading/writing into coordinator stream.
+   *
+   * @param config the configuration required for setting up metadata store.
+   * @param metricsRegistry the registry for reporting metrics.
+   */
+  public TaskLoadManager(Config config, MetricsRegistry metricsRegistry) {
+    this(config, metricsRegistry, new CoordinatorStreamValueSerde(SetTaskLoad.TYPE));
+  }
+
+  /**
+   * Builds the TaskLoadManager based upon {@link Config} and {@link MetricsRegistry}.
+   *
+   * @param config the configuration required for setting up metadata store.
+   * @param metricsRegistry the registry for reporting metrics.
+   * @param valueSerde the value serializer.
+   */
+  public TaskLoadManager(Config config, MetricsRegistry metricsRegistry, Serde<String> valueSerde) {
+    this.valueSerde = valueSerde;
+    MetadataStoreFactory metadataStoreFactory = Util.getObj(new JobConfig(config).getMetadataStoreFactory(), MetadataStoreFactory.class);
+    this.metadataStore = metadataStoreFactory.getMetadataStore(SetTaskLoad.TYPE, config, metricsRegistry);
+  }
+
+  public void init() {
+    this.metadataStore.init();
+  }
+
+  /**
+   * Reads the load of each task from {@link MetadataStore}. Loads that can't be decoded are skipped.
+   *
+   * @return the map of taskName: load
+   */
+  public Map<String, TaskLoad> readTaskLoads() {
+    Map<String, TaskLoad> taskLoads = new HashMap<>();
+    metadataStore.all().forEach((taskName, valueBytes) -> {
+        String load = valueSerde.fromBytes(valueBytes);
+        if (load != null) {
+          try {
+            taskLoads.put(taskName, TaskLoad.decode(load));
+          } catch (SamzaException e) {
+            LOG.warn("Ignoring the load of task {}.", taskName, e);
+          }
+        }
+        LOG.debug("Load of task {}: {}", taskName, load);
+      });
+    return Collections.unmodifiableMap(taskLoads);
+  }
+
+  /**
+   * Writes the load of a task to {@link MetadataStore}.
+   *
+   * @param taskName the task name
+   * @param load     the load of the task
+   */
+  public void writeTaskLoad(String taskName, TaskLoad load) {
+    LOG.debug("Load of task {} is {}", taskName, load);
+    metadataStore.put(taskName, valueSerde.toBytes(load.encode()));
+  }
+
+  public void close() {
+    metadataStore.close();
+  }
+}
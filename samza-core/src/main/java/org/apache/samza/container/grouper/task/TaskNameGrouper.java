@@ -19,6 +19,8 @@
 package org.apache.samza.container.grouper.task;
 
 import java.util.List;
+import java.util.Map;
+import org.apache.samza.container.TaskName;
 import org.apache.samza.job.model.ContainerModel;
 import org.apache.samza.job.model.TaskModel;
 
@@ -55,4 +57,19 @@ public interface TaskNameGrouper {
   default Set<ContainerModel> group(Set<TaskModel> tasks, List<String> containersIds) {
     return group(tasks);
   }
+
+  /**
+   * Group tasks into the containers they will share, moving as few tasks as possible from the containers they were
+   * previously grouped into. Groupers that don't keep tasks in their previous containers group them as if there
+   * were no previous grouping.
+   *
+   * @param tasks Set of tasks to group into containers.
+   * @param containersIds List of the IDs of the containers to group the tasks into.
+   * @param previousContainerIds The ID of the container each task was previously grouped into.
+   * @return Set of containers, which contain the tasks that were passed in.
+   */
+  default Set<ContainerModel> group(Set<TaskModel> tasks, List<String> containersIds,
+      Map<TaskName, String> previousContainerIds) {
+    return group(tasks, containersIds);
+  }
 }
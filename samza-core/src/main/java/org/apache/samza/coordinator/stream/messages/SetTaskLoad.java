@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.samza.coordinator.stream.messages;
+
+/**
+ * SetTaskLoad is a {@link CoordinatorStreamMessage} used internally
+ * by the Samza framework to persist the load of each task, as measured by the container that ran it.
+ *
+ * Structure of the message looks like:
+ *
+ * <pre>
+ * key =&gt; [1, "set-task-load", $TaskName]
+ *
+ * message =&gt; {
+ *     "host": "192.168.0.1",
+ *     "source": "SamzaContainer",
+ *     "username":"app",
+ *     "timestamp": 1456177487325,
+ *     "values": {
+ *         "load": "120.5,61440.0,1048576,0.25"
+ *     }
+ * }
+ * </pre>
+ * */
+public class SetTaskLoad extends CoordinatorStreamMessage {
+  public static final String TYPE = "set-task-load";
+  public static final String LOAD_KEY = "load";
+
+  /**
+   * SetTaskLoad is used to set the load of a task.
+   * @param message which holds the load of the task.
+   */
+  public SetTaskLoad(CoordinatorStreamMessage message) {
+    super(message.getKeyArray(), message.getMessageMap());
+  }
+
+  /**
+   * SetTaskLoad is used to set the load of a task.
+   * @param source    the source of the message
+   * @param taskName  the taskName which is used to persist the message
+   * @param load      the encoded load of the task
+   */
+  public SetTaskLoad(String source, String taskName, String load) {
+    super(source);
+    setType(TYPE);
+    setKey(taskName);
+    putMessageValue(LOAD_KEY, load);
+  }
+
+  public String getTaskLoad() {
+    return getMessageValue(LOAD_KEY);
+  }
+}
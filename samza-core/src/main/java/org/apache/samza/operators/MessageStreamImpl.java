@@ -142,6 +142,23 @@ public class MessageStreamImpl<M> implements MessageStream<M> {
     return new MessageStreamImpl<>(this.streamAppDesc, op);
   }
 
+  @Override
+  public <K, OM, JM> MessageStream<JM> joinAll(MessageStream<OM> otherStream,
+      JoinFunction<? extends K, ? super M, ? super OM, ? extends JM> joinFn,
+      Serde<K> keySerde, Serde<M> messageSerde, Serde<OM> otherMessageSerde,
+      Duration ttl, String userDefinedId) {
+    if (otherStream.equals(this)) throw new SamzaException("Cannot join a MessageStream with itself.");
+    String opId = this.streamAppDesc.getNextOpId(OpCode.JOIN, userDefinedId);
+    OperatorSpec<?, OM> otherOpSpec = ((MessageStreamImpl<OM>) otherStream).getOperatorSpec();
+    JoinOperatorSpec<K, M, OM, JM> op =
+        OperatorSpecs.createMultiMatchJoinOperatorSpec(this.operatorSpec, otherOpSpec,
+            (JoinFunction<K, M, OM, JM>) joinFn, keySerde, messageSerde, otherMessageSerde, ttl.toMillis(), opId);
+    this.operatorSpec.registerNextOperatorSpec(op);
+    otherOpSpec.registerNextOperatorSpec((OperatorSpec<OM, ?>) op);
+
+    return new MessageStreamImpl<>(this.streamAppDesc, op);
+  }
+
   @Override
   public <K, R extends KV, JM> MessageStream<JM> join(Table<R> table,
       StreamTableJoinFunction<? extends K, ? super M, ? super R, ? extends JM> joinFn) {
@@ -18,6 +18,7 @@
  */
 package org.apache.samza.operators.functions;
 
+import org.apache.samza.operators.impl.store.TimeSeriesStore;
 import org.apache.samza.util.TimestampedValue;
 import org.apache.samza.storage.kv.KeyValueStore;
 
@@ -50,4 +51,11 @@ public interface PartialJoinFunction<K, M, OM, JM> extends InitableFunction, Clo
    */
   KeyValueStore<K, TimestampedValue<M>> getState();
 
+  /**
+   * Gets the state associated with this stream for a multi-match join, which retains all messages for a key.
+   *
+   * @return the time series store containing the state for this stream, or null if the join is not multi-match
+   */
+  TimeSeriesStore<K, M> getTimeSeriesState();
+
 }
@@ -48,6 +48,8 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 
 
 /**
@@ -175,13 +177,7 @@ public abstract class OperatorImpl<M, RM> {
     try {
       results = handleMessage(message, collector, coordinator);
     } catch (ClassCastException e) {
-      String actualType = e.getMessage().replaceFirst(" cannot be cast to .*", "");
-      String expectedType = e.getMessage().replaceFirst(".* cannot be cast to ", "");
-      throw new SamzaException(
-          String.format("Error applying operator %s (created at %s) to its input message. "
-                  + "Expected input message to be of type %s, but found it to be of type %s. "
-                  + "Are Serdes for the inputs to this operator configured correctly?",
-              getOpImplId(), getOperatorSpec().getSourceLocation(), expectedType, actualType), e);
+      throw inputTypeException(e);
     }
 
     long endNs = this.highResClock.nanoTime();
@@ -210,6 +206,73 @@ public abstract class OperatorImpl<M, RM> {
   protected abstract Collection<RM> handleMessage(M message, MessageCollector collector,
       TaskCoordinator coordinator);
 
+  /**
+   * Handle the incoming {@code message} for this {@link OperatorImpl} and propagate results to registered operators,
+   * allowing operators to handle the message asynchronously.
+   * <p>
+   * Delegates to {@link #handleMessageAsync(Object, MessageCollector, TaskCoordinator)} for handling the message.
+   *
+   * @param message  the input message
+   * @param collector  the {@link MessageCollector} for this message
+   * @param coordinator  the {@link TaskCoordinator} for this message
+   * @return  a future that completes when the message and its results have been handled by all downstream operators
+   */
+  public final CompletionStage<Void> onMessageAsync(M message, MessageCollector collector,
+      TaskCoordinator coordinator) {
+    this.numMessage.inc();
+    long startNs = this.highResClock.nanoTime();
+    CompletionStage<Collection<RM>> resultsFuture;
+    try {
+      resultsFuture = handleMessageAsync(message, collector, coordinator);
+    } catch (ClassCastException e) {
+      throw inputTypeException(e);
+    }
+
+    long endNs = this.highResClock.nanoTime();
+    this.handleMessageNs.update(endNs - startNs);
+
+    return resultsFuture.thenCompose(results -> {
+        CompletableFuture<?>[] resultFutures = results.stream()
+            .flatMap(rm -> this.registeredOperators.stream()
+                .map(op -> op.onMessageAsync(rm, collector, coordinator).toCompletableFuture()))
+            .toArray(CompletableFuture[]::new);
+
+        WatermarkFunction watermarkFn = getOperatorSpec().getWatermarkFn();
+        if (watermarkFn != null) {
+          // check whether there is new watermark emitted from the user function
+          Long outputWm = watermarkFn.getOutputWatermark();
+          propagateWatermark(outputWm, collector, coordinator);
+        }
+        return CompletableFuture.allOf(resultFutures);
+      });
+  }
+
+  /**
+   * Handle the incoming {@code message} and return a future of the results to be propagated to registered operators.
+   * <p>
+   * Defaults to completing with the results of {@link #handleMessage(Object, MessageCollector, TaskCoordinator)}.
+   * Operators that wait for I/O, e.g. table lookups, can override this to handle messages without blocking.
+   *
+   * @param message  the input message
+   * @param collector  the {@link MessageCollector} in the context
+   * @param coordinator  the {@link TaskCoordinator} in the context
+   * @return  a future of the results of the transformation
+   */
+  protected CompletionStage<Collection<RM>> handleMessageAsync(M message, MessageCollector collector,
+      TaskCoordinator coordinator) {
+    return CompletableFuture.completedFuture(handleMessage(message, collector, coordinator));
+  }
+
+  private SamzaException inputTypeException(ClassCastException e) {
+    String actualType = e.getMessage().replaceFirst(" cannot be cast to .*", "");
+    String expectedType = e.getMessage().replaceFirst(".* cannot be cast to ", "");
+    return new SamzaException(
+        String.format("Error applying operator %s (created at %s) to its input message. "
+                + "Expected input message to be of type %s, but found it to be of type %s. "
+                + "Are Serdes for the inputs to this operator configured correctly?",
+            getOpImplId(), getOperatorSpec().getSourceLocation(), expectedType, actualType), e);
+  }
+
   /**
    * Handle timer ticks for this {@link OperatorImpl} and propagate the results and timer tick to registered operators.
    * <p>
@@ -31,6 +31,9 @@ import org.apache.samza.operators.OperatorSpecGraph;
 import org.apache.samza.operators.Scheduler;
 import org.apache.samza.operators.functions.JoinFunction;
 import org.apache.samza.operators.functions.PartialJoinFunction;
+import org.apache.samza.operators.impl.store.TimeSeriesKey;
+import org.apache.samza.operators.impl.store.TimeSeriesStore;
+import org.apache.samza.operators.impl.store.TimeSeriesStoreImpl;
 import org.apache.samza.operators.spec.BroadcastOperatorSpec;
 import org.apache.samza.operators.spec.InputOperatorSpec;
 import org.apache.samza.operators.spec.JoinOperatorSpec;
@@ -230,7 +233,7 @@ public class OperatorImplGraph {
       return getOrCreatePartialJoinOpImpls((JoinOperatorSpec) operatorSpec,
           prevOperatorSpec.equals(((JoinOperatorSpec) operatorSpec).getLeftInputOpSpec()), clock);
     } else if (operatorSpec instanceof StreamTableJoinOperatorSpec) {
-      return new StreamTableJoinOperatorImpl((StreamTableJoinOperatorSpec) operatorSpec, context);
+      return new StreamTableJoinOperatorImpl((StreamTableJoinOperatorSpec) operatorSpec, context, this);
     } else if (operatorSpec instanceof SendToTableOperatorSpec) {
       return new SendToTableOperatorImpl((SendToTableOperatorSpec) operatorSpec, context);
     } else if (operatorSpec instanceof BroadcastOperatorSpec) {
@@ -264,6 +267,7 @@ public class OperatorImplGraph {
     return new PartialJoinFunction<Object, Object, Object, Object>() {
       private final JoinFunction joinFn = joinOpSpec.getJoinFn();
       private KeyValueStore<Object, TimestampedValue<Object>> leftStreamState;
+      private TimeSeriesStore<Object, Object> leftStreamSeries;
 
       @Override
       public Object apply(Object m, Object om) {
@@ -280,11 +284,23 @@ public class OperatorImplGraph {
         return leftStreamState;
       }
 
+      @Override
+      public TimeSeriesStore<Object, Object> getTimeSeriesState() {
+        return leftStreamSeries;
+      }
+
       @Override
       public void init(Context context) {
         String leftStoreName = joinOpSpec.getLeftOpId();
-        leftStreamState =
-            (KeyValueStore<Object, TimestampedValue<Object>>) context.getTaskContext().getStore(leftStoreName);
+        if (joinOpSpec.isMultiMatch()) {
+          leftStreamSeries = new TimeSeriesStoreImpl<>(
+              (KeyValueStore<TimeSeriesKey<Object>, Object>) context.getTaskContext().getStore(leftStoreName),
+              (KeyValueStore<TimeSeriesKey<Void>, Object>) context.getTaskContext()
+                  .getStore(joinOpSpec.getLeftTimeIndexStoreName()));
+        } else {
+          leftStreamState =
+              (KeyValueStore<Object, TimestampedValue<Object>>) context.getTaskContext().getStore(leftStoreName);
+        }
 
         // user-defined joinFn should only be initialized once, so we do it only in left partial join function.
         joinFn.init(context);
@@ -302,6 +318,7 @@ public class OperatorImplGraph {
     return new PartialJoinFunction<Object, Object, Object, Object>() {
       private final JoinFunction joinFn = joinOpSpec.getJoinFn();
       private KeyValueStore<Object, TimestampedValue<Object>> rightStreamState;
+      private TimeSeriesStore<Object, Object> rightStreamSeries;
 
       @Override
       public Object apply(Object m, Object om) {
@@ -316,8 +333,15 @@ public class OperatorImplGraph {
       @Override
       public void init(Context context) {
         String rightStoreName = joinOpSpec.getRightOpId();
-        rightStreamState =
-            (KeyValueStore<Object, TimestampedValue<Object>>) context.getTaskContext().getStore(rightStoreName);
+        if (joinOpSpec.isMultiMatch()) {
+          rightStreamSeries = new TimeSeriesStoreImpl<>(
+              (KeyValueStore<TimeSeriesKey<Object>, Object>) context.getTaskContext().getStore(rightStoreName),
+              (KeyValueStore<TimeSeriesKey<Void>, Object>) context.getTaskContext()
+                  .getStore(joinOpSpec.getRightTimeIndexStoreName()));
+        } else {
+          rightStreamState =
+              (KeyValueStore<Object, TimestampedValue<Object>>) context.getTaskContext().getStore(rightStoreName);
+        }
 
         // user-defined joinFn should only be initialized once,
         // so we do it only in left partial join function and not here again.
@@ -327,6 +351,11 @@ public class OperatorImplGraph {
       public KeyValueStore<Object, TimestampedValue<Object>> getState() {
         return rightStreamState;
       }
+
+      @Override
+      public TimeSeriesStore<Object, Object> getTimeSeriesState() {
+        return rightStreamSeries;
+      }
     };
   }
 
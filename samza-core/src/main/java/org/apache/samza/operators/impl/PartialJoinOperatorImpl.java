@@ -21,20 +21,29 @@ package org.apache.samza.operators.impl;
 import org.apache.samza.SamzaException;
 import org.apache.samza.context.Context;
 import org.apache.samza.operators.functions.PartialJoinFunction;
+import org.apache.samza.operators.impl.store.TimeSeriesStore;
 import org.apache.samza.operators.spec.JoinOperatorSpec;
 import org.apache.samza.operators.spec.OperatorSpec;
+import org.apache.samza.storage.kv.ClosableIterator;
 import org.apache.samza.storage.kv.KeyValueStore;
 import org.apache.samza.task.MessageCollector;
 import org.apache.samza.task.TaskCoordinator;
 import org.apache.samza.util.Clock;
 import org.apache.samza.util.TimestampedValue;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 
 /**
  * Implementation of one side of a {@link JoinOperatorSpec} that buffers and joins its input messages of
  * type {@code M} with buffered input messages of type {@code OM} in the paired {@link PartialJoinOperatorImpl}.
+ * <p>
+ * For a multi-match join, the messages of each side are buffered in a {@link TimeSeriesStore}, and a message is
+ * joined with all messages for its key within the ttl. Expired messages are removed when the timer fires, which the
+ * planner schedules at least once per ttl. The store finds them through its time index, which is restored from its
+ * own changelog, so messages restored after a restart expire as well.
  *
  * @param <K> the type of join key
  * @param <M> the type of input messages on this side of the join
@@ -69,6 +78,9 @@ class PartialJoinOperatorImpl<K, M, OM, JM> extends OperatorImpl<M, JM> {
 
   @Override
   public Collection<JM> handleMessage(M message, MessageCollector collector, TaskCoordinator coordinator) {
+    if (joinOpSpec.isMultiMatch()) {
+      return handleMultiMatchMessage(message);
+    }
     try {
       KeyValueStore<K, TimestampedValue<M>> thisState = thisPartialJoinFn.getState();
       KeyValueStore<K, TimestampedValue<OM>> otherState = otherPartialJoinFn.getState();
@@ -88,6 +100,45 @@ class PartialJoinOperatorImpl<K, M, OM, JM> extends OperatorImpl<M, JM> {
     return Collections.emptyList();
   }
 
+  @Override
+  protected Collection<JM> handleTimer(MessageCollector collector, TaskCoordinator coordinator) {
+    if (joinOpSpec.isMultiMatch()) {
+      removeExpiredMessages();
+    }
+    return Collections.emptyList();
+  }
+
+  private Collection<JM> handleMultiMatchMessage(M message) {
+    try {
+      TimeSeriesStore<K, M> thisState = thisPartialJoinFn.getTimeSeriesState();
+      TimeSeriesStore<K, OM> otherState = otherPartialJoinFn.getTimeSeriesState();
+
+      K key = thisPartialJoinFn.getKey(message);
+      long now = clock.currentTimeMillis();
+      thisState.put(key, message, now);
+
+      List<JM> joinResults = new ArrayList<>();
+      ClosableIterator<TimestampedValue<OM>> otherMessages = otherState.get(key, Math.max(now - ttlMs + 1, 0), now + 1);
+      try {
+        while (otherMessages.hasNext()) {
+          joinResults.add(thisPartialJoinFn.apply(message, otherMessages.next().getValue()));
+        }
+      } finally {
+        otherMessages.close();
+      }
+      return joinResults;
+    } catch (Exception e) {
+      throw new SamzaException("Error handling message in PartialJoinOperatorImpl " + getOpImplId(), e);
+    }
+  }
+
+  /**
+   * Removes the messages on this side of a multi-match join that are older than the ttl.
+   */
+  private void removeExpiredMessages() {
+    thisPartialJoinFn.getTimeSeriesState().removeBefore(clock.currentTimeMillis() - ttlMs + 1);
+  }
+
   @Override
   protected void handleClose() {
     this.thisPartialJoinFn.close();
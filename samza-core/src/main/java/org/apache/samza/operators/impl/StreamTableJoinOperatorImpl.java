@@ -18,6 +18,7 @@
  */
 package org.apache.samza.operators.impl;
 
+import org.apache.samza.config.TaskConfigJava;
 import org.apache.samza.context.Context;
 import org.apache.samza.operators.KV;
 import org.apache.samza.operators.spec.OperatorSpec;
@@ -26,13 +27,26 @@ import org.apache.samza.table.ReadableTable;
 import org.apache.samza.task.MessageCollector;
 import org.apache.samza.task.TaskCoordinator;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.stream.Collectors;
 
 
 /**
  * Implementation of a stream-table join operator that first retrieve the value of
  * the message key from incoming message, and then apply the join function.
+ * <p>
+ * When messages are handled asynchronously, the keys of consecutive messages are looked up in batches with
+ * {@link ReadableTable#getAllAsync(List)}. A batch is sent right away when no other batch is in flight, otherwise
+ * once it's full or a batch in flight completes, up to a maximum number of batches in flight. Batches are joined
+ * in the order they were sent, so the join results are in the order of the messages.
  *
  * @param <K> type of the join key
  * @param <M> type of input messages
@@ -44,9 +58,21 @@ class StreamTableJoinOperatorImpl<K, M, R extends KV, JM> extends OperatorImpl<M
   private final StreamTableJoinOperatorSpec<K, M, R, JM> joinOpSpec;
   private final ReadableTable<K, ?> table;
 
-  StreamTableJoinOperatorImpl(StreamTableJoinOperatorSpec<K, M, R, JM> joinOpSpec, Context context) {
+  // Guards the batches of asynchronous lookups. Batches complete on the table's threads, so the lock is shared with
+  // the task to make sure only one thread at a time runs the operators.
+  private final Object lock;
+  private final int batchSize;
+  private final int maxBatchesInFlight;
+  private final List<Lookup> pendingLookups = new ArrayList<>();
+  private final Deque<Batch> batchesInFlight = new ArrayDeque<>();
+
+  StreamTableJoinOperatorImpl(StreamTableJoinOperatorSpec<K, M, R, JM> joinOpSpec, Context context, Object lock) {
     this.joinOpSpec = joinOpSpec;
     this.table = (ReadableTable) context.getTaskContext().getTable(joinOpSpec.getTableId());
+    this.lock = lock;
+    TaskConfigJava taskConfig = new TaskConfigJava(context.getJobContext().getConfig());
+    this.batchSize = taskConfig.getAsyncTableJoinBatchSize();
+    this.maxBatchesInFlight = taskConfig.getAsyncTableJoinMaxBatchesInFlight();
   }
 
   @Override
@@ -67,6 +93,30 @@ class StreamTableJoinOperatorImpl<K, M, R extends KV, JM> extends OperatorImpl<M
       recordValue = table.get(key);
     }
 
+    return join(message, key, recordValue);
+  }
+
+  @Override
+  protected CompletionStage<Collection<JM>> handleMessageAsync(M message, MessageCollector collector,
+      TaskCoordinator coordinator) {
+    if (message == null) {
+      return CompletableFuture.completedFuture(Collections.emptyList());
+    }
+
+    K key = joinOpSpec.getJoinFn().getMessageKey(message);
+    if (key == null) {
+      return CompletableFuture.completedFuture(join(message, null, null));
+    }
+
+    synchronized (lock) {
+      Lookup lookup = new Lookup(message, key);
+      pendingLookups.add(lookup);
+      sendBatches();
+      return lookup.results;
+    }
+  }
+
+  private Collection<JM> join(M message, K key, Object recordValue) {
     R record = recordValue != null ? (R) KV.of(key, recordValue) : null;
     JM output = joinOpSpec.getJoinFn().apply(message, record);
 
@@ -77,6 +127,44 @@ class StreamTableJoinOperatorImpl<K, M, R extends KV, JM> extends OperatorImpl<M
       : Collections.emptyList();
   }
 
+  private void sendBatches() {
+    while (!pendingLookups.isEmpty() && batchesInFlight.size() < maxBatchesInFlight
+        && (batchesInFlight.isEmpty() || pendingLookups.size() >= batchSize)) {
+      List<Lookup> batchLookups = pendingLookups.subList(0, Math.min(batchSize, pendingLookups.size()));
+      Batch batch = new Batch(new ArrayList<>(batchLookups));
+      batchLookups.clear();
+      batchesInFlight.add(batch);
+
+      List<K> keys = batch.lookups.stream().map(lookup -> lookup.key).distinct().collect(Collectors.toList());
+      table.getAllAsync(keys).whenComplete((records, error) -> onBatchComplete(batch, records, error));
+    }
+  }
+
+  private void onBatchComplete(Batch batch, Map<K, ?> records, Throwable error) {
+    synchronized (lock) {
+      batch.records = records;
+      batch.error = error;
+      batch.complete = true;
+
+      while (!batchesInFlight.isEmpty() && batchesInFlight.peek().complete) {
+        Batch completedBatch = batchesInFlight.poll();
+        for (Lookup lookup : completedBatch.lookups) {
+          if (completedBatch.error != null) {
+            lookup.results.completeExceptionally(completedBatch.error);
+            continue;
+          }
+          try {
+            lookup.results.complete(join(lookup.message, lookup.key, completedBatch.records.get(lookup.key)));
+          } catch (Throwable t) {
+            lookup.results.completeExceptionally(t);
+          }
+        }
+      }
+
+      sendBatches();
+    }
+  }
+
   @Override
   protected void handleClose() {
     this.joinOpSpec.getJoinFn().close();
@@ -86,4 +174,32 @@ class StreamTableJoinOperatorImpl<K, M, R extends KV, JM> extends OperatorImpl<M
     return joinOpSpec;
   }
 
+  /**
+   * The lookup of the key of a message.
+   */
+  private class Lookup {
+    private final M message;
+    private final K key;
+    private final CompletableFuture<Collection<JM>> results = new CompletableFuture<>();
+
+    private Lookup(M message, K key) {
+      this.message = message;
+      this.key = key;
+    }
+  }
+
+  /**
+   * Lookups sent to the table with one {@link ReadableTable#getAllAsync(List)}.
+   */
+  private class Batch {
+    private final List<Lookup> lookups;
+    private boolean complete;
+    private Map<K, ?> records;
+    private Throwable error;
+
+    private Batch(List<Lookup> lookups) {
+      this.lookups = lookups;
+    }
+  }
+
 }
@@ -16,9 +16,10 @@
  * specific language governing permissions and limitations
  * under the License.
  */
-
 package org.apache.samza.operators.impl;
 
+import org.apache.samza.metrics.Counter;
+import org.apache.samza.metrics.Timer;
 import org.apache.samza.operators.triggers.Cancellable;
 import org.apache.samza.util.Clock;
 import org.slf4j.Logger;
@@ -26,21 +27,44 @@ import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.PriorityQueue;
 
 /**
  * Allows to schedule and cancel callbacks for triggers.
+ *
+ * <p>Pending callbacks are kept in a binary heap ordered by their scheduled time, and each callback knows its
+ * position in the heap, so both scheduling and cancelling a callback take O(log n) time. Callbacks scheduled for
+ * the same time run in the order they were scheduled.
+ *
+ * <p>In coalescing mode, triggers that push their firing time back on every message, such as the
+ * time since last message trigger, keep a single pending callback per trigger key and reschedule it when it runs,
+ * instead of cancelling and scheduling a callback for every message.
  */
 public class TriggerScheduler<WK> {
 
   private static final Logger LOG = LoggerFactory.getLogger(TriggerScheduler.class);
 
-  private final PriorityQueue<TriggerCallbackState<WK>> pendingCallbacks;
+  private final List<TriggerCallbackState> pendingCallbacks = new ArrayList<>();
   private final Clock clock;
+  private final boolean coalescing;
+  private final Counter pendingCallbackCount;
+  private final Timer callbackLagMs;
+  private long sequenceNumber = 0;
 
   public TriggerScheduler(Clock clock) {
-    this.pendingCallbacks = new PriorityQueue<>();
+    this(clock, false, null, null);
+  }
+
+  /**
+   * @param clock the clock to get the current time from
+   * @param coalescing whether triggers should coalesce the callbacks for their trigger key
+   * @param pendingCallbackCount the counter to keep the number of pending callbacks in, or null
+   * @param callbackLagMs the timer to update with how late each callback ran, or null
+   */
+  public TriggerScheduler(Clock clock, boolean coalescing, Counter pendingCallbackCount, Timer callbackLagMs) {
     this.clock = clock;
+    this.coalescing = coalescing;
+    this.pendingCallbackCount = pendingCallbackCount;
+    this.callbackLagMs = callbackLagMs;
   }
 
   /**
@@ -51,8 +75,13 @@ public class TriggerScheduler<WK> {
    * @return a {@link Cancellable} that can be used to cancel the execution of this runnable.
    */
   public Cancellable scheduleCallback(Runnable runnable, long scheduledTimeMs, TriggerKey<WK> triggerKey) {
-    TriggerCallbackState<WK> timerState = new TriggerCallbackState(triggerKey, runnable, scheduledTimeMs);
+    TriggerCallbackState timerState = new TriggerCallbackState(triggerKey, runnable, scheduledTimeMs, sequenceNumber++);
+    timerState.heapIndex = pendingCallbacks.size();
     pendingCallbacks.add(timerState);
+    siftUp(timerState.heapIndex);
+    if (pendingCallbackCount != null) {
+      pendingCallbackCount.inc();
+    }
     LOG.trace("Scheduled a new callback: {} at {} for triggerKey {}", new Object[] {runnable, scheduledTimeMs, triggerKey});
     return timerState;
   }
@@ -64,12 +93,15 @@ public class TriggerScheduler<WK> {
    * @return the list of {@link TriggerKey}s corresponding to the callbacks that were run.
    */
   public List<TriggerKey<WK>> runPendingCallbacks() {
-    TriggerCallbackState<WK> state;
+    TriggerCallbackState state;
     List<TriggerKey<WK>> keys = new ArrayList<>();
     long now = clock.currentTimeMillis();
 
-    while ((state = pendingCallbacks.peek()) != null && state.getScheduledTimeMs() <= now) {
-      pendingCallbacks.remove();
+    while (!pendingCallbacks.isEmpty() && (state = pendingCallbacks.get(0)).getScheduledTimeMs() <= now) {
+      remove(state);
+      if (callbackLagMs != null) {
+        callbackLagMs.update(now - state.getScheduledTimeMs());
+      }
       state.getCallback().run();
       TriggerKey<WK> key = state.getTriggerKey();
       keys.add(key);
@@ -77,10 +109,80 @@ public class TriggerScheduler<WK> {
     return keys;
   }
 
+  /**
+   * @return the number of callbacks that haven't run or been cancelled yet
+   */
+  public int getPendingCallbackCount() {
+    return pendingCallbacks.size();
+  }
+
+  /**
+   * @return whether triggers should keep a single pending callback for their trigger key, and reschedule it when it
+   *         runs, instead of cancelling and scheduling callbacks for every message
+   */
+  public boolean isCoalescing() {
+    return coalescing;
+  }
+
+  private void remove(TriggerCallbackState state) {
+    int index = state.heapIndex;
+    TriggerCallbackState last = pendingCallbacks.remove(pendingCallbacks.size() - 1);
+    if (last != state) {
+      pendingCallbacks.set(index, last);
+      last.heapIndex = index;
+      siftDown(index);
+      siftUp(last.heapIndex);
+    }
+    state.heapIndex = -1;
+    if (pendingCallbackCount != null) {
+      pendingCallbackCount.dec();
+    }
+  }
+
+  private void siftUp(int index) {
+    TriggerCallbackState state = pendingCallbacks.get(index);
+    while (index > 0) {
+      int parentIndex = (index - 1) >>> 1;
+      TriggerCallbackState parent = pendingCallbacks.get(parentIndex);
+      if (parent.compareTo(state) <= 0) {
+        break;
+      }
+      pendingCallbacks.set(index, parent);
+      parent.heapIndex = index;
+      index = parentIndex;
+    }
+    pendingCallbacks.set(index, state);
+    state.heapIndex = index;
+  }
+
+  private void siftDown(int index) {
+    TriggerCallbackState state = pendingCallbacks.get(index);
+    int size = pendingCallbacks.size();
+    while (true) {
+      int childIndex = 2 * index + 1;
+      if (childIndex >= size) {
+        break;
+      }
+      TriggerCallbackState child = pendingCallbacks.get(childIndex);
+      if (childIndex + 1 < size && pendingCallbacks.get(childIndex + 1).compareTo(child) < 0) {
+        childIndex++;
+        child = pendingCallbacks.get(childIndex);
+      }
+      if (state.compareTo(child) <= 0) {
+        break;
+      }
+      pendingCallbacks.set(index, child);
+      child.heapIndex = index;
+      index = childIndex;
+    }
+    pendingCallbacks.set(index, state);
+    state.heapIndex = index;
+  }
+
   /**
    * State corresponding to pending timer callbacks scheduled by various triggers.
    */
-  private class TriggerCallbackState<WK> implements Comparable<TriggerCallbackState<WK>>, Cancellable {
+  private class TriggerCallbackState implements Comparable<TriggerCallbackState>, Cancellable {
 
     private final TriggerKey<WK> triggerKey;
     private final Runnable callback;
@@ -88,10 +190,18 @@ public class TriggerScheduler<WK> {
     // the time at which the callback should trigger
     private final long scheduledTimeMs;
 
-    private TriggerCallbackState(TriggerKey<WK> triggerKey, Runnable callback, long scheduledTimeMs) {
+    // orders callbacks scheduled for the same time
+    private final long sequenceNumber;
+
+    // the position of the callback in the heap, or -1 if it isn't pending
+    private int heapIndex = -1;
+
+    private TriggerCallbackState(TriggerKey<WK> triggerKey, Runnable callback, long scheduledTimeMs,
+        long sequenceNumber) {
       this.triggerKey = triggerKey;
       this.callback = callback;
       this.scheduledTimeMs = scheduledTimeMs;
+      this.sequenceNumber = sequenceNumber;
     }
 
     private Runnable getCallback() {
@@ -107,14 +217,19 @@ public class TriggerScheduler<WK> {
     }
 
     @Override
-    public int compareTo(TriggerCallbackState<WK> other) {
-      return Long.compare(this.scheduledTimeMs, other.scheduledTimeMs);
+    public int compareTo(TriggerCallbackState other) {
+      int compare = Long.compare(this.scheduledTimeMs, other.scheduledTimeMs);
+      return compare != 0 ? compare : Long.compare(this.sequenceNumber, other.sequenceNumber);
     }
 
     @Override
     public boolean cancel() {
       LOG.trace("Cancelled a callback: {} at {} for triggerKey {}", new Object[] {callback, scheduledTimeMs, triggerKey});
-      return pendingCallbacks.remove(this);
+      if (heapIndex < 0) {
+        return false;
+      }
+      remove(this);
+      return true;
     }
   }
 }
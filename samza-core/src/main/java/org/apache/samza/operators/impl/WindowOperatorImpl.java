@@ -21,7 +21,9 @@
 package org.apache.samza.operators.impl;
 
 import com.google.common.base.Preconditions;
+import org.apache.samza.config.TaskConfigJava;
 import org.apache.samza.context.Context;
+import org.apache.samza.metrics.MetricsRegistry;
 import org.apache.samza.operators.functions.FoldLeftFunction;
 import org.apache.samza.operators.functions.MapFunction;
 import org.apache.samza.operators.functions.SupplierFunction;
@@ -80,6 +82,9 @@ import java.util.stream.Collectors;
  *
  * The {@link WindowOperatorImpl} checks if the trigger fired and returns the result of the firing.
  *
+ * The number of pending trigger callbacks and how late they run are reported as the
+ * {@code <opId>-pending-triggers} and {@code <opId>-trigger-lag-ms} metrics.
+ *
  * @param <M> the type of the incoming message
  * @param <K> the type of the key in the incoming message
  *
@@ -87,6 +92,7 @@ import java.util.stream.Collectors;
 public class WindowOperatorImpl<M, K> extends OperatorImpl<M, WindowPane<K, Object>> {
   // Object == Collection<M> || WV
   private static final Logger LOG = LoggerFactory.getLogger(WindowOperatorImpl.class);
+  private static final String METRICS_GROUP = WindowOperatorImpl.class.getName();
 
   private final WindowOperatorSpec<M, K, Object> windowOpSpec;
   private final Clock clock;
@@ -95,7 +101,7 @@ public class WindowOperatorImpl<M, K> extends OperatorImpl<M, WindowPane<K, Obje
   private final SupplierFunction<Object> initializer;
   private final MapFunction<M, K> keyFn;
 
-  private final TriggerScheduler<K> triggerScheduler;
+  private TriggerScheduler<K> triggerScheduler;
   private final Map<TriggerKey<K>, TriggerImplHandler> triggers = new HashMap<>();
   private TimeSeriesStore<K, Object> timeSeriesStore;
 
@@ -106,11 +112,16 @@ public class WindowOperatorImpl<M, K> extends OperatorImpl<M, WindowPane<K, Obje
     this.foldLeftFn = window.getFoldLeftFunction();
     this.initializer = window.getInitializer();
     this.keyFn = window.getKeyExtractor();
-    this.triggerScheduler= new TriggerScheduler(clock);
   }
 
   @Override
   protected void handleInit(Context context) {
+    String opId = getOpImplId();
+    MetricsRegistry metricsRegistry = context.getContainerContext().getContainerMetricsRegistry();
+    boolean coalescing = new TaskConfigJava(context.getJobContext().getConfig()).isWindowTriggerCoalescingEnabled();
+    this.triggerScheduler = new TriggerScheduler<>(clock, coalescing,
+        metricsRegistry.newCounter(METRICS_GROUP, opId + "-pending-triggers"),
+        metricsRegistry.newTimer(METRICS_GROUP, opId + "-trigger-lag-ms"));
 
     KeyValueStore<TimeSeriesKey<K>, Object> store =
         (KeyValueStore<TimeSeriesKey<K>, Object>) context.getTaskContext().getStore(windowOpSpec.getOpId());
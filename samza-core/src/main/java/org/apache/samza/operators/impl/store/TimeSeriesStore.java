@@ -105,6 +105,13 @@ public interface TimeSeriesStore<K, V> {
    */
   void remove(K key, long timestamp);
 
+  /**
+   * Removes all values for all keys with timestamps before the given timestamp.
+   *
+   * @param endTimestamp the end timestamp of the range, exclusive
+   */
+  void removeBefore(long endTimestamp);
+
   /**
    * Flushes this time series store, if applicable.
    */
@@ -27,6 +27,7 @@ import org.apache.samza.util.TimestampedValue;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.NoSuchElementException;
@@ -71,6 +72,11 @@ import java.util.concurrent.atomic.AtomicLong;
  * An 8 byte timestamp, a one byte version and a 7 byte sequence number are appended to the provided key and this
  * combination is used as the key in the k-v store. The provided value is stored as is.
  *
+ * <p>
+ * A store in append mode can be given a second {@link KeyValueStore} as a time index. The index maps the timestamp
+ * and sequence number of every entry, serialized without a key, to the provided key. Its entries are thus ordered
+ * by time, and {@link #removeBefore} only visits the expired entries instead of scanning the whole store.
+ *
  * <p> This class is thread-safe and concurrent reads/writes are expected.
  *
  * @param <K> the type of key in the store
@@ -80,7 +86,13 @@ public class TimeSeriesStoreImpl<K, V> implements TimeSeriesStore<K, V> {
 
   private static final Logger LOG = LoggerFactory.getLogger(TimeSeriesStoreImpl.class);
 
+  /**
+   * The maximum number of entries {@link #removeBefore} deletes at once.
+   */
+  private static final int REMOVE_BATCH_SIZE = 1000;
+
   private final KeyValueStore<TimeSeriesKey<K>, V> kvStore;
+  private final KeyValueStore<TimeSeriesKey<Void>, K> timeIndex;
 
   /**
    * Since timestamps are at the granularity of milliseconds, multiple entries added in the same
@@ -96,7 +108,23 @@ public class TimeSeriesStoreImpl<K, V> implements TimeSeriesStore<K, V> {
    * @param appendMode should the store be used in appendMode
    */
   public TimeSeriesStoreImpl(KeyValueStore<TimeSeriesKey<K>, V> kvStore, boolean appendMode) {
+    this(kvStore, null, appendMode);
+  }
+
+  /**
+   * Creates a {@link TimeSeriesStoreImpl} in append mode with a time index.
+   *
+   * @param kvStore the backing kv store to use
+   * @param timeIndex the kv store to use as the time index of {@code kvStore}
+   */
+  public TimeSeriesStoreImpl(KeyValueStore<TimeSeriesKey<K>, V> kvStore, KeyValueStore<TimeSeriesKey<Void>, K> timeIndex) {
+    this(kvStore, timeIndex, true);
+  }
+
+  private TimeSeriesStoreImpl(KeyValueStore<TimeSeriesKey<K>, V> kvStore, KeyValueStore<TimeSeriesKey<Void>, K> timeIndex,
+      boolean appendMode) {
     this.kvStore = kvStore;
+    this.timeIndex = timeIndex;
     this.appendMode = appendMode;
   }
 
@@ -119,6 +147,10 @@ public class TimeSeriesStoreImpl<K, V> implements TimeSeriesStore<K, V> {
     TimeSeriesKey<K> timeSeriesKey = new TimeSeriesKey<>(key, timestamp, seqNum.get());
 
     LOG.trace("Inserting {} -> {} into the store", timeSeriesKey, val);
+    if (timeIndex != null) {
+      // index the entry first, so that an entry is never stored without its index entry
+      timeIndex.put(new TimeSeriesKey<>(null, timestamp, timeSeriesKey.getSeqNum()), key);
+    }
     kvStore.put(timeSeriesKey, val);
   }
 
@@ -162,6 +194,11 @@ public class TimeSeriesStoreImpl<K, V> implements TimeSeriesStore<K, V> {
       range.close();
     }
     kvStore.deleteAll(keysToDelete);
+    if (timeIndex != null) {
+      List<TimeSeriesKey<Void>> indexKeysToDelete = new ArrayList<>(keysToDelete.size());
+      keysToDelete.forEach(k -> indexKeysToDelete.add(new TimeSeriesKey<>(null, k.getTimestamp(), k.getSeqNum())));
+      timeIndex.deleteAll(indexKeysToDelete);
+    }
   }
 
   @Override
@@ -169,8 +206,69 @@ public class TimeSeriesStoreImpl<K, V> implements TimeSeriesStore<K, V> {
     remove(key, timestamp, timestamp + 1);
   }
 
+  @Override
+  public void removeBefore(long endTimestamp) {
+    if (timeIndex == null) {
+      removeBeforeByScan(endTimestamp);
+      return;
+    }
+    TimeSeriesKey<Void> fromKey = new TimeSeriesKey<>(null, 0, 0);
+    TimeSeriesKey<Void> toKey = new TimeSeriesKey<>(null, endTimestamp, 0);
+    List<TimeSeriesKey<Void>> indexKeysToDelete = new ArrayList<>(REMOVE_BATCH_SIZE);
+    List<TimeSeriesKey<K>> keysToDelete = new ArrayList<>(REMOVE_BATCH_SIZE);
+    do {
+      indexKeysToDelete.clear();
+      keysToDelete.clear();
+      KeyValueIterator<TimeSeriesKey<Void>, K> range = timeIndex.range(fromKey, toKey);
+      try {
+        while (range.hasNext() && indexKeysToDelete.size() < REMOVE_BATCH_SIZE) {
+          Entry<TimeSeriesKey<Void>, K> entry = range.next();
+          TimeSeriesKey<Void> indexKey = entry.getKey();
+          indexKeysToDelete.add(indexKey);
+          keysToDelete.add(new TimeSeriesKey<>(entry.getValue(), indexKey.getTimestamp(), indexKey.getSeqNum()));
+        }
+      } finally {
+        range.close();
+      }
+      LOG.trace("Removing {} entries in the store before {}", keysToDelete.size(), endTimestamp);
+      kvStore.deleteAll(keysToDelete);
+      timeIndex.deleteAll(indexKeysToDelete);
+      if (!indexKeysToDelete.isEmpty()) {
+        // the next batch starts at the last deleted entry, which no longer exists
+        fromKey = indexKeysToDelete.get(indexKeysToDelete.size() - 1);
+      }
+    } while (indexKeysToDelete.size() == REMOVE_BATCH_SIZE);
+  }
+
+  /**
+   * Removes all values before the given timestamp in a store without a time index, which needs a pass over the
+   * whole store.
+   */
+  private void removeBeforeByScan(long endTimestamp) {
+    List<TimeSeriesKey<K>> keysToDelete = new ArrayList<>(REMOVE_BATCH_SIZE);
+    KeyValueIterator<TimeSeriesKey<K>, V> all = kvStore.all();
+    try {
+      while (all.hasNext()) {
+        TimeSeriesKey<K> timeSeriesKey = all.next().getKey();
+        if (timeSeriesKey.getTimestamp() < endTimestamp) {
+          keysToDelete.add(timeSeriesKey);
+        }
+        if (keysToDelete.size() == REMOVE_BATCH_SIZE) {
+          kvStore.deleteAll(keysToDelete);
+          keysToDelete.clear();
+        }
+      }
+    } finally {
+      all.close();
+    }
+    kvStore.deleteAll(keysToDelete);
+  }
+
   @Override
   public void flush() {
+    if (timeIndex != null) {
+      timeIndex.flush();
+    }
     kvStore.flush();
   }
 
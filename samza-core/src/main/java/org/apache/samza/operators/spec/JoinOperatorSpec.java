@@ -22,18 +22,25 @@ import com.google.common.collect.ImmutableMap;
 import org.apache.samza.operators.functions.JoinFunction;
 import org.apache.samza.operators.functions.ScheduledFunction;
 import org.apache.samza.operators.functions.WatermarkFunction;
+import org.apache.samza.operators.impl.store.TimeSeriesKeySerde;
 import org.apache.samza.operators.impl.store.TimestampedValueSerde;
 import org.apache.samza.util.TimestampedValue;
 import org.apache.samza.serializers.Serde;
 
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 
 
 /**
  * The spec for the join operator that buffers messages from one stream and
  * joins them with buffered messages from another stream.
+ * <p>
+ * By default, only the latest message for a key is buffered in each stream. A multi-match join buffers all
+ * messages for a key within the ttl in a {@link org.apache.samza.operators.impl.store.TimeSeriesStore}, and joins
+ * a message with all of them. Each side then also has a time index store, which orders the buffered messages by
+ * their timestamp so that expired messages can be removed without scanning the buffer.
  *
  * @param <K>  the type of join key
  * @param <M>  the type of message in this stream
@@ -44,6 +51,7 @@ public class JoinOperatorSpec<K, M, OM, JM> extends OperatorSpec<Object, JM> imp
 
   private final JoinFunction<K, M, OM, JM> joinFn;
   private final long ttlMs;
+  private final boolean multiMatch;
 
   private final OperatorSpec<?, M> leftInputOpSpec;
   private final OperatorSpec<?, OM> rightInputOpSpec;
@@ -52,9 +60,11 @@ public class JoinOperatorSpec<K, M, OM, JM> extends OperatorSpec<Object, JM> imp
    * The following {@link Serde}s are serialized by the ExecutionPlanner when generating the store configs for a join, and
    * deserialized once during startup in SamzaContainer. They don't need to be deserialized here on a per-task basis
    */
-  private transient final Serde<K> keySerde;
-  private transient final Serde<TimestampedValue<M>> messageSerde;
-  private transient final Serde<TimestampedValue<OM>> otherMessageSerde;
+  private transient final Serde keySerde;
+  private transient final Serde messageSerde;
+  private transient final Serde otherMessageSerde;
+  private transient final Serde timeIndexKeySerde;
+  private transient final Serde timeIndexMsgSerde;
 
   /**
    * Default constructor for a {@link JoinOperatorSpec}.
@@ -68,35 +78,65 @@ public class JoinOperatorSpec<K, M, OM, JM> extends OperatorSpec<Object, JM> imp
   JoinOperatorSpec(OperatorSpec<?, M> leftInputOpSpec, OperatorSpec<?, OM> rightInputOpSpec,
       JoinFunction<K, M, OM, JM> joinFn, Serde<K> keySerde, Serde<M> messageSerde, Serde<OM> otherMessageSerde,
       long ttlMs, String opId) {
+    this(leftInputOpSpec, rightInputOpSpec, joinFn, keySerde, messageSerde, otherMessageSerde, ttlMs, false, opId);
+  }
+
+  /**
+   * Constructor for a {@link JoinOperatorSpec} that may join each message with all buffered messages for its key.
+   *
+   * @param leftInputOpSpec  the operator spec for the stream on the left side of the join
+   * @param rightInputOpSpec  the operator spec for the stream on the right side of the join
+   * @param joinFn  the user-defined join function to get join keys and results
+   * @param ttlMs  the ttl in ms for retaining messages in each stream
+   * @param multiMatch  whether to retain all messages for a key within the ttl instead of only the latest one
+   * @param opId  the unique ID for this operator
+   */
+  JoinOperatorSpec(OperatorSpec<?, M> leftInputOpSpec, OperatorSpec<?, OM> rightInputOpSpec,
+      JoinFunction<K, M, OM, JM> joinFn, Serde<K> keySerde, Serde<M> messageSerde, Serde<OM> otherMessageSerde,
+      long ttlMs, boolean multiMatch, String opId) {
     super(OpCode.JOIN, opId);
     this.leftInputOpSpec = leftInputOpSpec;
     this.rightInputOpSpec = rightInputOpSpec;
     this.joinFn = joinFn;
-    this.keySerde = keySerde;
-    this.messageSerde = new TimestampedValueSerde<>(messageSerde);
-    this.otherMessageSerde = new TimestampedValueSerde<>(otherMessageSerde);
+    if (multiMatch) {
+      this.keySerde = new TimeSeriesKeySerde<>(keySerde);
+      this.messageSerde = messageSerde;
+      this.otherMessageSerde = otherMessageSerde;
+      this.timeIndexKeySerde = new TimeSeriesKeySerde<>(null);
+      this.timeIndexMsgSerde = keySerde;
+    } else {
+      this.keySerde = keySerde;
+      this.messageSerde = new TimestampedValueSerde<>(messageSerde);
+      this.otherMessageSerde = new TimestampedValueSerde<>(otherMessageSerde);
+      this.timeIndexKeySerde = null;
+      this.timeIndexMsgSerde = null;
+    }
     this.ttlMs = ttlMs;
+    this.multiMatch = multiMatch;
   }
 
   @Override
   public Collection<StoreDescriptor> getStoreDescriptors() {
-    String rocksDBStoreFactory = "org.apache.samza.storage.kv.RocksDbKeyValueStorageEngineFactory";
     String leftStoreName = getLeftOpId();
     String rightStoreName = getRightOpId();
-    Map<String, String> leftStoreCustomProps = ImmutableMap.of(
-        String.format("stores.%s.rocksdb.ttl.ms", leftStoreName), Long.toString(ttlMs),
-        String.format("stores.%s.changelog.kafka.cleanup.policy", leftStoreName), "delete",
-        String.format("stores.%s.changelog.kafka.retention.ms", leftStoreName), Long.toString(ttlMs));
-    Map<String, String> rightStoreCustomProps = ImmutableMap.of(
-        String.format("stores.%s.rocksdb.ttl.ms", rightStoreName), Long.toString(ttlMs),
-        String.format("stores.%s.changelog.kafka.cleanup.policy", rightStoreName), "delete",
-        String.format("stores.%s.changelog.kafka.retention.ms", rightStoreName), Long.toString(ttlMs));
-
-    return Arrays.asList(
-        new StoreDescriptor(leftStoreName, rocksDBStoreFactory, this.keySerde, this.messageSerde,
-            leftStoreName, leftStoreCustomProps),
-        new StoreDescriptor(rightStoreName, rocksDBStoreFactory, this.keySerde, this.otherMessageSerde,
-            rightStoreName, rightStoreCustomProps));
+    List<StoreDescriptor> storeDescriptors = new ArrayList<>();
+    storeDescriptors.add(getStoreDescriptor(leftStoreName, this.keySerde, this.messageSerde));
+    storeDescriptors.add(getStoreDescriptor(rightStoreName, this.keySerde, this.otherMessageSerde));
+    if (multiMatch) {
+      storeDescriptors.add(getStoreDescriptor(getLeftTimeIndexStoreName(), timeIndexKeySerde, timeIndexMsgSerde));
+      storeDescriptors.add(getStoreDescriptor(getRightTimeIndexStoreName(), timeIndexKeySerde, timeIndexMsgSerde));
+    }
+    return storeDescriptors;
+  }
+
+  private StoreDescriptor getStoreDescriptor(String storeName, Serde storeKeySerde, Serde storeMsgSerde) {
+    String rocksDBStoreFactory = "org.apache.samza.storage.kv.RocksDbKeyValueStorageEngineFactory";
+    Map<String, String> storeCustomProps = ImmutableMap.of(
+        String.format("stores.%s.rocksdb.ttl.ms", storeName), Long.toString(ttlMs),
+        String.format("stores.%s.changelog.kafka.cleanup.policy", storeName), "delete",
+        String.format("stores.%s.changelog.kafka.retention.ms", storeName), Long.toString(ttlMs));
+    return new StoreDescriptor(storeName, rocksDBStoreFactory, storeKeySerde, storeMsgSerde, storeName,
+        storeCustomProps);
   }
 
   @Override
@@ -125,6 +165,20 @@ public class JoinOperatorSpec<K, M, OM, JM> extends OperatorSpec<Object, JM> imp
     return this.getOpId() + "-R";
   }
 
+  /**
+   * @return the name of the time index store of the left side of a multi-match join
+   */
+  public String getLeftTimeIndexStoreName() {
+    return getLeftOpId() + "-time-index";
+  }
+
+  /**
+   * @return the name of the time index store of the right side of a multi-match join
+   */
+  public String getRightTimeIndexStoreName() {
+    return getRightOpId() + "-time-index";
+  }
+
   public JoinFunction<K, M, OM, JM> getJoinFn() {
     return this.joinFn;
   }
@@ -133,4 +187,11 @@ public class JoinOperatorSpec<K, M, OM, JM> extends OperatorSpec<Object, JM> imp
     return ttlMs;
   }
 
+  /**
+   * @return whether this join retains all messages for a key within the ttl, and emits all their matches
+   */
+  public boolean isMultiMatch() {
+    return multiMatch;
+  }
+
 }
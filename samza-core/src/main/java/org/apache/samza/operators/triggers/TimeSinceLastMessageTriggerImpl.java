@@ -52,17 +52,32 @@ public class TimeSinceLastMessageTriggerImpl<M, WK> implements TriggerImpl<M, WK
       long currTime = clock.currentTimeMillis();
 
       if (currTime < callbackTime && cancellable != null) {
+        if (context.isCoalescing()) {
+          // the pending callback reschedules itself for the new time when it runs
+          callbackTime = currTime + durationMs;
+          return;
+        }
         cancellable.cancel();
       }
 
       callbackTime = currTime + durationMs;
-      Runnable runnable = () -> {
+      scheduleCallback(context);
+    }
+  }
+
+  private void scheduleCallback(TriggerScheduler<WK> context) {
+    long scheduledTime = callbackTime;
+    Runnable runnable = () -> {
+      if (callbackTime > scheduledTime) {
+        LOG.trace("Rescheduling time since last message trigger for messages since it was scheduled");
+        scheduleCallback(context);
+      } else {
         LOG.trace("Time since last message trigger fired");
         shouldFire = true;
-      };
+      }
+    };
 
-      cancellable = context.scheduleCallback(runnable, callbackTime, triggerKey);
-    }
+    cancellable = context.scheduleCallback(runnable, callbackTime, triggerKey);
   }
 
   @Override
@@ -41,4 +41,9 @@ public class CallbackSchedulerImpl implements CallbackScheduler {
   public <K> void deleteCallback(K key) {
     this.epochTimeScheduler.deleteTimer(key);
   }
+
+  @Override
+  public <K> int restoreCallbacks(ScheduledCallback<K> callback) {
+    return this.epochTimeScheduler.restoreTimers(callback);
+  }
 }
@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.samza.storage;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.samza.container.TaskName;
+import org.apache.samza.system.IncomingMessageEnvelope;
+import org.apache.samza.system.SystemStreamPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * A storage manager for the side input stores that are shared by all the tasks of a container, i.e. the stores with
+ * {@link org.apache.samza.config.JavaStorageConfig#SIDE_INPUTS_SHARED} enabled.
+ *
+ * The container has a single instance of each shared store, managed by one {@link TaskSideInputStorageManager}, which
+ * tracks the offsets of the side input SSPs and writes the offset files of the stores. Every side input SSP is
+ * consumed once for the container, and its messages are written to the stores only by the first task, by task name,
+ * that has the SSP. The other tasks read the stores, so the stores must support concurrent reads when the tasks run
+ * on multiple threads. The stores are flushed by the first task of the container, and initialized and stopped once.
+ */
+public class SharedSideInputStorageManager {
+  private static final Logger LOG = LoggerFactory.getLogger(SharedSideInputStorageManager.class);
+
+  private final TaskSideInputStorageManager storageManager;
+  private final Map<TaskName, Set<SystemStreamPartition>> taskSideInputSSPs;
+  private final Map<SystemStreamPartition, TaskName> sspOwners = new HashMap<>();
+  private final TaskName flushingTaskName;
+
+  private boolean initialized = false;
+  private boolean stopped = false;
+
+  /**
+   * @param storageManager    the storage manager of the shared stores, for all the side input SSPs of the container
+   * @param taskSideInputSSPs the side input SSPs of the shared stores that each task of the container has
+   */
+  public SharedSideInputStorageManager(TaskSideInputStorageManager storageManager,
+      Map<TaskName, Set<SystemStreamPartition>> taskSideInputSSPs) {
+    this.storageManager = storageManager;
+    this.taskSideInputSSPs = taskSideInputSSPs;
+
+    taskSideInputSSPs.forEach((taskName, ssps) -> ssps.forEach(ssp ->
+        sspOwners.merge(ssp, taskName, (owner, other) -> owner.compareTo(other) <= 0 ? owner : other)));
+    this.flushingTaskName = taskSideInputSSPs.keySet().stream().min(TaskName::compareTo).orElse(null);
+    LOG.info("Side input SSPs of shared stores are written by tasks: {}", sspOwners);
+  }
+
+  /**
+   * Initializes the shared stores, if they haven't been initialized by another task yet.
+   */
+  public synchronized void init() {
+    if (!initialized) {
+      storageManager.init();
+      initialized = true;
+    }
+  }
+
+  /**
+   * Flushes the shared stores and writes their offset files, if the task is the one that flushes them.
+   *
+   * @param taskName the task that is committing
+   */
+  public synchronized void flush(TaskName taskName) {
+    if (taskName.equals(flushingTaskName)) {
+      storageManager.flush();
+    }
+  }
+
+  /**
+   * Stops the shared stores and writes their offset files, if they haven't been stopped by another task yet.
+   */
+  public synchronized void stop() {
+    if (initialized && !stopped) {
+      storageManager.stop();
+      stopped = true;
+    }
+  }
+
+  /**
+   * Gets the side input SSPs of the shared stores that the task has.
+   *
+   * @param taskName the task to get the SSPs for
+   * @return the side input SSPs of the task
+   */
+  public Set<SystemStreamPartition> getSideInputSSPs(TaskName taskName) {
+    return taskSideInputSSPs.getOrDefault(taskName, Collections.emptySet());
+  }
+
+  /**
+   * Gets the {@link StorageEngine} of the shared store {@code storeName} if found, or null.
+   *
+   * @param storeName store name to get the {@link StorageEngine} for
+   * @return the {@link StorageEngine} associated with {@code storeName} if found, or null
+   */
+  public StorageEngine getStore(String storeName) {
+    return storageManager.getStore(storeName);
+  }
+
+  /**
+   * Gets the starting offset of a side input {@link SystemStreamPartition}, which is the same for all tasks.
+   *
+   * @param ssp side input system stream partition to get the starting offset for
+   * @return the starting offset
+   */
+  public String getStartingOffset(SystemStreamPartition ssp) {
+    return storageManager.getStartingOffset(ssp);
+  }
+
+  /**
+   * Gets the last offset of a side input {@link SystemStreamPartition} written to the shared stores.
+   *
+   * @param ssp side input system stream partition to get the last processed offset for
+   * @return the last processed offset
+   */
+  public String getLastProcessedOffset(SystemStreamPartition ssp) {
+    return storageManager.getLastProcessedOffset(ssp);
+  }
+
+  /**
+   * Writes a side input message to the shared stores, if the task is the one that writes its SSP. Every task of the
+   * container receives the messages of its side input SSPs, but only one of them writes each message.
+   *
+   * @param taskName the task that received the message
+   * @param message  the side input message
+   */
+  public void process(TaskName taskName, IncomingMessageEnvelope message) {
+    if (taskName.equals(sspOwners.get(message.getSystemStreamPartition()))) {
+      synchronized (this) {
+        storageManager.process(message);
+      }
+    }
+  }
+}
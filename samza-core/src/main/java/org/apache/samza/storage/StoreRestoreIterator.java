@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.samza.storage;
+
+import com.google.common.util.concurrent.RateLimiter;
+import java.util.Iterator;
+import org.apache.samza.container.StoreRestorationMetrics;
+import org.apache.samza.system.IncomingMessageEnvelope;
+import org.apache.samza.util.Clock;
+
+
+/**
+ * An {@link Iterator} over the changelog messages restored into a store, which throttles the restore to the rate
+ * of a (possibly shared) {@link RateLimiter} in bytes per second, and tracks the progress of the restore in a
+ * {@link StoreRestorationMetrics}.
+ *
+ * <p>The size of a message is the length of its key and message if they are byte arrays, and
+ * {@link IncomingMessageEnvelope#getSize()} otherwise. The remaining messages and ETA are estimated from the
+ * newest offset of the changelog partition when the restore started, assuming that offsets are consecutive longs.
+ * They're left at -1 for changelogs with other offsets.
+ */
+public class StoreRestoreIterator implements Iterator<IncomingMessageEnvelope> {
+  private final Iterator<IncomingMessageEnvelope> iterator;
+  private final RateLimiter throttler;
+  private final StoreRestorationMetrics metrics;
+  private final Long newestOffset;
+  private final Clock clock;
+  private final long startTime;
+
+  private long restoredMessages = 0;
+  private long restoredBytes = 0;
+
+  /**
+   * @param iterator the changelog messages to restore
+   * @param throttler the rate limiter to acquire a permit per restored byte from, or null to not throttle
+   * @param metrics the metrics to update with the progress of the restore, or null to not track it
+   * @param newestOffset the newest offset of the changelog partition, or null if unknown
+   * @param clock the clock used to estimate the remaining time
+   */
+  public StoreRestoreIterator(Iterator<IncomingMessageEnvelope> iterator, RateLimiter throttler,
+      StoreRestorationMetrics metrics, String newestOffset, Clock clock) {
+    this.iterator = iterator;
+    this.throttler = throttler;
+    this.metrics = metrics;
+    this.newestOffset = parseOffset(newestOffset);
+    this.clock = clock;
+    this.startTime = clock.currentTimeMillis();
+  }
+
+  @Override
+  public boolean hasNext() {
+    boolean hasNext = iterator.hasNext();
+    if (!hasNext && metrics != null) {
+      metrics.remainingMessages().set(0L);
+      metrics.restoreEtaMs().set(0L);
+    }
+    return hasNext;
+  }
+
+  @Override
+  public IncomingMessageEnvelope next() {
+    IncomingMessageEnvelope envelope = iterator.next();
+    int size = sizeOf(envelope);
+    if (throttler != null && size > 0) {
+      throttler.acquire(size);
+    }
+
+    restoredMessages++;
+    restoredBytes += size;
+    if (metrics != null) {
+      updateMetrics(envelope);
+    }
+    return envelope;
+  }
+
+  @Override
+  public void remove() {
+    iterator.remove();
+  }
+
+  private void updateMetrics(IncomingMessageEnvelope envelope) {
+    metrics.restoredMessages().set(restoredMessages);
+    metrics.restoredBytes().set(restoredBytes);
+
+    Long offset = parseOffset(envelope.getOffset());
+    if (newestOffset != null && offset != null) {
+      long remaining = Math.max(newestOffset - offset, 0);
+      long elapsed = clock.currentTimeMillis() - startTime;
+      metrics.remainingMessages().set(remaining);
+      metrics.restoreEtaMs().set(elapsed * remaining / restoredMessages);
+    }
+  }
+
+  private static int sizeOf(IncomingMessageEnvelope envelope) {
+    Object key = envelope.getKey();
+    Object message = envelope.getMessage();
+    if (key instanceof byte[] || message instanceof byte[]) {
+      int keySize = key instanceof byte[] ? ((byte[]) key).length : 0;
+      int messageSize = message instanceof byte[] ? ((byte[]) message).length : 0;
+      return keySize + messageSize;
+    }
+    return envelope.getSize();
+  }
+
+  private static Long parseOffset(String offset) {
+    if (offset == null) {
+      return null;
+    }
+    try {
+      return Long.parseLong(offset);
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+}
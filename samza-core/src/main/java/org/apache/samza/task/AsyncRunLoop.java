@@ -75,6 +75,9 @@ public class AsyncRunLoop implements Runnable, Throttleable {
   private volatile Throwable throwable = null;
   private final HighResolutionClock clock;
   private final boolean isAsyncCommitEnabled;
+  private final boolean isBatchCommitEnabled;
+  // task workers ready to commit in the current iteration of the run loop, if commits are batched
+  private final List<AsyncTaskWorker> commitBatch = new ArrayList<>();
   private volatile boolean runLoopResumedSinceLastChecked;
 
   public AsyncRunLoop(Map<TaskName, TaskInstance> taskInstances,
@@ -89,6 +92,23 @@ public class AsyncRunLoop implements Runnable, Throttleable {
       SamzaContainerMetrics containerMetrics,
       HighResolutionClock clock,
       boolean isAsyncCommitEnabled) {
+    this(taskInstances, threadPool, consumerMultiplexer, maxConcurrency, windowMs, commitMs, callbackTimeoutMs,
+        maxThrottlingDelayMs, maxIdleMs, containerMetrics, clock, isAsyncCommitEnabled, false);
+  }
+
+  public AsyncRunLoop(Map<TaskName, TaskInstance> taskInstances,
+      ExecutorService threadPool,
+      SystemConsumers consumerMultiplexer,
+      int maxConcurrency,
+      long windowMs,
+      long commitMs,
+      long callbackTimeoutMs,
+      long maxThrottlingDelayMs,
+      long maxIdleMs,
+      SamzaContainerMetrics containerMetrics,
+      HighResolutionClock clock,
+      boolean isAsyncCommitEnabled,
+      boolean isBatchCommitEnabled) {
 
     this.threadPool = threadPool;
     this.consumerMultiplexer = consumerMultiplexer;
@@ -112,6 +132,7 @@ public class AsyncRunLoop implements Runnable, Throttleable {
     this.sspToTaskWorkerMapping = Collections.unmodifiableMap(getSspToAsyncTaskWorkerMap(taskInstances, workers));
     this.taskWorkers = Collections.unmodifiableList(new ArrayList<>(workers.values()));
     this.isAsyncCommitEnabled = isAsyncCommitEnabled;
+    this.isBatchCommitEnabled = isBatchCommitEnabled;
   }
 
   /**
@@ -230,6 +251,46 @@ public class AsyncRunLoop implements Runnable, Throttleable {
     for (AsyncTaskWorker worker: taskWorkers) {
       worker.run();
     }
+
+    if (!commitBatch.isEmpty()) {
+      commitAll(new ArrayList<>(commitBatch));
+      commitBatch.clear();
+    }
+  }
+
+  /**
+   * Invoke commit on the task workers together, so that the checkpoints of their tasks are written in one batch.
+   * Run commit in thread pool if not the single thread mode.
+   */
+  private void commitAll(List<AsyncTaskWorker> workers) {
+    Runnable commitWorker = new Runnable() {
+      @Override
+      public void run() {
+        try {
+          containerMetrics.commits().inc();
+
+          long startTime = clock.nanoTime();
+          TaskInstance.commitAll(workers.stream().map(worker -> worker.task).collect(Collectors.toList()));
+          containerMetrics.commitNs().update(clock.nanoTime() - startTime);
+
+          workers.forEach(worker -> worker.state.doneCommit());
+        } catch (Throwable t) {
+          log.error("Commit of {} tasks failed", workers.size(), t);
+          abort(t);
+        } finally {
+          log.trace("Commit of {} tasks completed", workers.size());
+          resume();
+        }
+      }
+    };
+
+    if (threadPool != null) {
+      log.trace("{} tasks commit on the thread pool", workers.size());
+      threadPool.submit(commitWorker);
+    } else {
+      log.trace("{} tasks commit on the run loop thread", workers.size());
+      commitWorker.run();
+    }
   }
 
 
@@ -412,7 +473,12 @@ public class AsyncRunLoop implements Runnable, Throttleable {
           scheduler();
           break;
         case COMMIT:
-          commit();
+          if (isBatchCommitEnabled) {
+            state.startCommit();
+            commitBatch.add(this);
+          } else {
+            commit();
+          }
           break;
         case END_OF_STREAM:
           endOfStream();
@@ -597,6 +663,7 @@ public class AsyncRunLoop implements Runnable, Throttleable {
           try {
             state.doneProcess();
             state.taskMetrics.asyncCallbackCompleted().inc();
+            state.taskMetrics.processNs().inc(workNanos);
             TaskCallbackImpl callbackImpl = (TaskCallbackImpl) callback;
             containerMetrics.processNs().update(clock.nanoTime() - callbackImpl.timeCreatedNs);
             log.trace("Got callback complete for task {}, ssp {}",
@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.samza.task;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import org.apache.samza.operators.OperatorSpecGraph;
+import org.apache.samza.operators.impl.InputOperatorImpl;
+import org.apache.samza.operators.impl.OperatorImplGraph;
+import org.apache.samza.system.IncomingMessageEnvelope;
+import org.apache.samza.system.MessageType;
+import org.apache.samza.util.Clock;
+import org.apache.samza.util.SystemClock;
+
+
+/**
+ * A {@link StreamOperatorTask} that lets operators handle messages asynchronously, e.g. to batch the table lookups
+ * of stream-table joins. The {@link TaskCallback} for a message is completed once the message and its results
+ * have been handled by all operators.
+ * <p>
+ * Operators may continue handling messages on other threads, so the operators are only invoked while holding the
+ * lock of the {@link OperatorImplGraph}. Timers are handled once there are no messages in flight. Watermarks and
+ * end-of-stream are handled once the messages before them have been handled, and the messages after them wait for
+ * them, so they never overtake the results of the messages before them.
+ */
+public class AsyncStreamOperatorTask extends StreamOperatorTask implements AsyncStreamTask {
+
+  // Guarded by the lock of the OperatorImplGraph.
+  private final Set<CompletableFuture<Void>> messagesInFlight = new HashSet<>();
+  private CompletableFuture<Void> lastControlMessage = CompletableFuture.completedFuture(null);
+
+  public AsyncStreamOperatorTask(OperatorSpecGraph specGraph, Clock clock) {
+    super(specGraph, clock);
+  }
+
+  public AsyncStreamOperatorTask(OperatorSpecGraph specGraph) {
+    this(specGraph, SystemClock.instance());
+  }
+
+  @Override
+  public void processAsync(IncomingMessageEnvelope ime, MessageCollector collector, TaskCoordinator coordinator,
+      TaskCallback callback) {
+    OperatorImplGraph operatorImplGraph = getOperatorImplGraph();
+    try {
+      synchronized (operatorImplGraph) {
+        InputOperatorImpl inputOpImpl = operatorImplGraph.getInputOperator(ime.getSystemStreamPartition().getSystemStream());
+        CompletableFuture<Void> handled;
+        if (inputOpImpl == null || MessageType.of(ime.getMessage()) != MessageType.USER_MESSAGE) {
+          // Failures of the messages before are reported by their own callbacks.
+          handled = CompletableFuture.allOf(messagesInFlight.toArray(new CompletableFuture[0]))
+              .handle((result, error) -> null)
+              .thenRun(() -> {
+                  synchronized (operatorImplGraph) {
+                    process(ime, collector, coordinator);
+                  }
+                });
+          lastControlMessage = handled;
+        } else if (lastControlMessage.isDone()) {
+          handled = inputOpImpl.onMessageAsync(ime, collector, coordinator).toCompletableFuture();
+        } else {
+          handled = lastControlMessage
+              .handle((result, error) -> null)
+              .thenCompose(v -> {
+                  synchronized (operatorImplGraph) {
+                    return inputOpImpl.onMessageAsync(ime, collector, coordinator);
+                  }
+                });
+        }
+
+        messagesInFlight.add(handled);
+        handled.whenComplete((result, error) -> {
+            synchronized (operatorImplGraph) {
+              messagesInFlight.remove(handled);
+            }
+            if (error == null) {
+              callback.complete();
+            } else {
+              callback.failure(error instanceof CompletionException && error.getCause() != null
+                  ? error.getCause() : error);
+            }
+          });
+      }
+    } catch (Throwable t) {
+      callback.failure(t);
+    }
+  }
+}
@@ -19,24 +19,47 @@
 
 package org.apache.samza.task;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import org.apache.samza.scheduler.ScheduledCallback;
+import org.apache.samza.storage.kv.Entry;
+import org.apache.samza.storage.kv.KeyValueIterator;
+import org.apache.samza.storage.kv.KeyValueStore;
+import org.apache.samza.util.Clock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import static com.google.common.base.Preconditions.checkState;
 
 /**
  * Per-task scheduler for keyed timers.
  * It does the following things:
- * 1) schedules the timer on the {@link ScheduledExecutorService}.
+ * 1) schedules the timer on the {@link ScheduledExecutorService}, or adds it to a {@link TimerWheel}.
  * 2) keeps track of the timers created and timers that are ready.
  * 3) triggers listener whenever a timer fires.
+ *
+ * <p>With a timer wheel, the executor only runs a single periodic tick for the task, which triggers the listener when
+ * the next bucket of the wheel expires. The wheel is advanced by the run loop when it removes the ready timers, so
+ * scheduling millions of timers doesn't create a future for each of them.
+ *
+ * <p>If a timer store is set, the key and time of each timer is also written to the store until the timer fires or
+ * is deleted. If the store has a changelog, {@link #restoreTimers} can reschedule the timers after a restart.
  */
 public class EpochTimeScheduler {
+  private static final Logger LOG = LoggerFactory.getLogger(EpochTimeScheduler.class);
+
+  /**
+   * The number of buckets in each level of a timer wheel.
+   */
+  private static final int TIMER_WHEEL_SIZE = 512;
 
   /**
    * For run loop to listen to timer firing so it can schedule the callbacks.
@@ -50,37 +73,145 @@ public class EpochTimeScheduler {
   private final Map<TimerKey<?>, ScheduledCallback> readyTimers = new ConcurrentHashMap<>();
   private volatile TimerListener timerListener;
 
+  // null unless the scheduler uses a timer wheel. Guarded by itself.
+  private final TimerWheel<Object, ScheduledCallback> timerWheel;
+  private final Clock clock;
+
+  private volatile KeyValueStore<Object, Long> timerStore;
+
   public static EpochTimeScheduler create(ScheduledExecutorService executor) {
-    return new EpochTimeScheduler(executor);
+    return new EpochTimeScheduler(executor, 0, () -> System.currentTimeMillis());
   }
 
-  private EpochTimeScheduler(ScheduledExecutorService executor) {
+  /**
+   * Creates a scheduler that keeps its timers in a {@link TimerWheel}.
+   *
+   * @param executor the executor to run the periodic tick of the wheel on, or null to not run it
+   * @param tickMs the time span of a bucket in the lowest level of the wheel, which is how late timers may fire
+   * @param clock the clock to get the current time from
+   * @return the scheduler
+   */
+  public static EpochTimeScheduler createWithTimerWheel(ScheduledExecutorService executor, long tickMs, Clock clock) {
+    return new EpochTimeScheduler(executor, tickMs, clock);
+  }
+
+  private EpochTimeScheduler(ScheduledExecutorService executor, long timerWheelTickMs, Clock clock) {
     this.executor = executor;
+    this.clock = clock;
+    if (timerWheelTickMs > 0) {
+      this.timerWheel = new TimerWheel<>(timerWheelTickMs, TIMER_WHEEL_SIZE, clock.currentTimeMillis());
+      if (executor != null) {
+        executor.scheduleAtFixedRate(this::tick, timerWheelTickMs, timerWheelTickMs, TimeUnit.MILLISECONDS);
+      }
+    } else {
+      this.timerWheel = null;
+    }
+  }
+
+  /**
+   * Sets the store to write the key and time of each scheduled timer to, so that they can be restored.
+   *
+   * @param store the timer store, whose values are the times of the timers
+   */
+  public void setTimerStore(KeyValueStore<Object, Long> store) {
+    this.timerStore = store;
   }
 
   public <K> void setTimer(K key, long timestamp, ScheduledCallback<K> callback) {
-    checkState(!scheduledFutures.containsKey(key),
-        String.format("Duplicate key %s registration for the same timer", key));
+    if (timerWheel != null) {
+      addToTimerWheel(key, timestamp, callback);
+    } else {
+      checkState(!scheduledFutures.containsKey(key),
+          String.format("Duplicate key %s registration for the same timer", key));
 
-    final long delay = timestamp - System.currentTimeMillis();
-    final ScheduledFuture<?> scheduledFuture = executor.schedule(() -> {
-        scheduledFutures.remove(key);
-        readyTimers.put(TimerKey.of(key, timestamp), callback);
+      final long delay = timestamp - System.currentTimeMillis();
+      final ScheduledFuture<?> scheduledFuture = executor.schedule(() -> {
+          scheduledFutures.remove(key);
+          setReady(key, timestamp, callback);
+        }, delay > 0 ? delay : 0, TimeUnit.MILLISECONDS);
+      scheduledFutures.put(key, scheduledFuture);
+    }
 
-        if (timerListener != null) {
-          timerListener.onTimer();
-        }
-      }, delay > 0 ? delay : 0, TimeUnit.MILLISECONDS);
-    scheduledFutures.put(key, scheduledFuture);
+    final KeyValueStore<Object, Long> store = timerStore;
+    if (store != null) {
+      store.put(key, timestamp);
+    }
   }
 
   public <K> void deleteTimer(K key) {
-    final ScheduledFuture<?> scheduledFuture = scheduledFutures.remove(key);
-    if (scheduledFuture != null) {
-      scheduledFuture.cancel(false);
+    if (timerWheel != null) {
+      synchronized (timerWheel) {
+        timerWheel.remove(key);
+      }
+    } else {
+      final ScheduledFuture<?> scheduledFuture = scheduledFutures.remove(key);
+      if (scheduledFuture != null) {
+        scheduledFuture.cancel(false);
+      }
+    }
+
+    final KeyValueStore<Object, Long> store = timerStore;
+    if (store != null) {
+      store.delete(key);
     }
   }
 
+  /**
+   * Reschedules all timers in the timer store with the given callback, in bulk. Timers whose key is already
+   * scheduled are skipped, and timers whose time has passed become ready immediately.
+   *
+   * @param callback the callback for the restored timers
+   * @param <K> the type of the timer keys
+   * @return the number of restored timers
+   */
+  public <K> int restoreTimers(ScheduledCallback<K> callback) {
+    final KeyValueStore<Object, Long> store = timerStore;
+    if (store == null) {
+      throw new IllegalStateException("Can't restore timers without a timer store.");
+    }
+
+    final List<Entry<Object, Long>> timers = new ArrayList<>();
+    final KeyValueIterator<Object, Long> iterator = store.all();
+    try {
+      while (iterator.hasNext()) {
+        timers.add(iterator.next());
+      }
+    } finally {
+      iterator.close();
+    }
+
+    int restored = 0;
+    if (timerWheel != null) {
+      final long now = clock.currentTimeMillis();
+      final List<Entry<Object, Long>> ready = new ArrayList<>();
+      synchronized (timerWheel) {
+        for (Entry<Object, Long> timer : timers) {
+          if (timerWheel.contains(timer.getKey())) {
+            continue;
+          }
+          if (timer.getValue() <= now || !timerWheel.add(timer.getKey(), timer.getValue(), callback)) {
+            ready.add(timer);
+          }
+          restored++;
+        }
+      }
+      ready.forEach(timer -> readyTimers.put(TimerKey.of(timer.getKey(), timer.getValue()), callback));
+      if (!ready.isEmpty()) {
+        notifyListener();
+      }
+    } else {
+      for (Entry<Object, Long> timer : timers) {
+        if (!scheduledFutures.containsKey(timer.getKey())) {
+          setTimer((K) timer.getKey(), timer.getValue(), callback);
+          restored++;
+        }
+      }
+    }
+
+    LOG.info("Restored {} timers from the timer store.", restored);
+    return restored;
+  }
+
   void registerListener(TimerListener listener) {
     timerListener = listener;
 
@@ -89,12 +220,75 @@ public class EpochTimeScheduler {
     }
   }
 
+  /**
+   * Removes the timers that are ready to fire, after advancing the timer wheel if there's one.
+   *
+   * @return the ready timers, ordered by their time
+   */
   public Map<TimerKey<?>, ScheduledCallback> removeReadyTimers() {
-    final Map<TimerKey<?>, ScheduledCallback> timers = new TreeMap<>(readyTimers);
-    readyTimers.keySet().removeAll(timers.keySet());
+    if (timerWheel != null) {
+      final List<TimerWheel.Timer<Object, ScheduledCallback>> expired = new ArrayList<>();
+      synchronized (timerWheel) {
+        timerWheel.advance(clock.currentTimeMillis(), expired);
+      }
+      expired.forEach(timer -> readyTimers.put(TimerKey.of(timer.key, timer.time), timer.value));
+    }
+    if (readyTimers.isEmpty()) {
+      return Collections.emptyMap();
+    }
+
+    final List<Map.Entry<TimerKey<?>, ScheduledCallback>> ready = new ArrayList<>(readyTimers.entrySet());
+    ready.sort(Comparator.comparingLong(entry -> entry.getKey().getTime()));
+    final Map<TimerKey<?>, ScheduledCallback> timers = new LinkedHashMap<>(ready.size() * 2);
+    final KeyValueStore<Object, Long> store = timerStore;
+    for (Map.Entry<TimerKey<?>, ScheduledCallback> entry : ready) {
+      readyTimers.remove(entry.getKey());
+      timers.put(entry.getKey(), entry.getValue());
+      if (store != null) {
+        // the key may have been scheduled again since the timer fired
+        final Long storedTime = store.get(entry.getKey().getKey());
+        if (storedTime != null && storedTime == entry.getKey().getTime()) {
+          store.delete(entry.getKey().getKey());
+        }
+      }
+    }
     return timers;
   }
 
+  private <K> void addToTimerWheel(K key, long timestamp, ScheduledCallback<K> callback) {
+    synchronized (timerWheel) {
+      checkState(!timerWheel.contains(key), String.format("Duplicate key %s registration for the same timer", key));
+      if (timestamp > clock.currentTimeMillis() && timerWheel.add(key, timestamp, callback)) {
+        return;
+      }
+    }
+    setReady(key, timestamp, callback);
+  }
+
+  private <K> void setReady(K key, long timestamp, ScheduledCallback<K> callback) {
+    readyTimers.put(TimerKey.of(key, timestamp), callback);
+    notifyListener();
+  }
+
+  private void notifyListener() {
+    if (timerListener != null) {
+      timerListener.onTimer();
+    }
+  }
+
+  /**
+   * Triggers the listener if the next bucket of the timer wheel has expired, so that the run loop advances it.
+   */
+  void tick() {
+    final long nextExpiration;
+    synchronized (timerWheel) {
+      nextExpiration = timerWheel.nextExpiration();
+    }
+    if (nextExpiration <= clock.currentTimeMillis()) {
+      notifyListener();
+    }
+  }
+
   public static class TimerKey<K> implements Comparable<TimerKey<K>> {
     private final K key;
     private final long time;
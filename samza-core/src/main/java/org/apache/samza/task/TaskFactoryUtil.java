@@ -26,6 +26,8 @@ import org.apache.samza.application.descriptors.ApplicationDescriptorImpl;
 import org.apache.samza.application.descriptors.StreamApplicationDescriptorImpl;
 import org.apache.samza.application.descriptors.TaskApplicationDescriptorImpl;
 import org.apache.samza.config.ConfigException;
+import org.apache.samza.config.TaskConfigJava;
+import org.apache.samza.operators.OperatorSpecGraph;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -48,8 +50,12 @@ public class TaskFactoryUtil {
     if (appDesc instanceof TaskApplicationDescriptorImpl) {
       return ((TaskApplicationDescriptorImpl) appDesc).getTaskFactory();
     } else if (appDesc instanceof StreamApplicationDescriptorImpl) {
-      return (StreamTaskFactory) () -> new StreamOperatorTask(
-          ((StreamApplicationDescriptorImpl) appDesc).getOperatorSpecGraph());
+      OperatorSpecGraph specGraph = ((StreamApplicationDescriptorImpl) appDesc).getOperatorSpecGraph();
+      if (new TaskConfigJava(appDesc.getConfig()).isAsyncTableJoinEnabled()) {
+        log.info("Using asynchronous tasks for stream-table joins.");
+        return (AsyncStreamTaskFactory) () -> new AsyncStreamOperatorTask(specGraph);
+      }
+      return (StreamTaskFactory) () -> new StreamOperatorTask(specGraph);
     }
     throw new IllegalArgumentException(String.format("ApplicationDescriptorImpl has to be either TaskApplicationDescriptorImpl or "
         + "StreamApplicationDescriptorImpl. class %s is not supported", appDesc.getClass().getName()));
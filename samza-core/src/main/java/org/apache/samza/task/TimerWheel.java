@@ -0,0 +1,280 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.samza.task;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+
+/**
+ * A hashed hierarchical timer wheel, which holds keyed timers in buckets of a fixed time span instead of scheduling
+ * each of them on an executor.
+ *
+ * <p>The lowest level of the wheel has {@code wheelSize} buckets of {@code tickMs} each, which expire at the end of
+ * their span. A timer that's further in the future than the span of a level is added to the next level, whose
+ * buckets span the whole lower level and expire at the start of their span. Adding and removing a timer takes
+ * constant time. Non-empty buckets are kept in a priority queue by their expiration, so advancing the wheel only
+ * visits the buckets that expired, however long it's been since it was last advanced. When a bucket of a higher
+ * level expires, its timers are added to the wheel again, which moves them down to a lower level.
+ *
+ * <p>Timers fire at most {@code tickMs} late, and never early. This class is not thread-safe.
+ *
+ * @param <K> the type of timer key
+ * @param <V> the type of value held with each timer
+ */
+class TimerWheel<K, V> {
+
+  private final Map<K, Timer<K, V>> timers = new HashMap<>();
+  private final PriorityQueue<Bucket<K, V>> queue =
+      new PriorityQueue<>((b1, b2) -> Long.compare(b1.expiration, b2.expiration));
+  private final Level<K, V> root;
+  private long currentMs;
+
+  /**
+   * @param tickMs the time span of a bucket in the lowest level of the wheel, in milliseconds
+   * @param wheelSize the number of buckets in each level of the wheel
+   * @param startMs the current time, in milliseconds
+   */
+  TimerWheel(long tickMs, int wheelSize, long startMs) {
+    if (tickMs < 1 || wheelSize < 2) {
+      throw new IllegalArgumentException(
+          String.format("Can't create a timer wheel with %d ms ticks and %d buckets.", tickMs, wheelSize));
+    }
+    this.root = new Level<>(tickMs, wheelSize, startMs, queue, true);
+    this.currentMs = startMs;
+  }
+
+  /**
+   * Adds a timer, unless a timer with the same key already exists.
+   *
+   * @param key the key of the timer
+   * @param time the time at which the timer expires, in milliseconds
+   * @param value the value held with the timer
+   * @return true if the timer was added, or false if it has already expired or a timer with the key exists. An
+   *         expired timer, i.e. one that isn't after the time the wheel was last advanced to, isn't added, and
+   *         should be fired by the caller.
+   */
+  boolean add(K key, long time, V value) {
+    if (time <= currentMs || timers.containsKey(key)) {
+      return false;
+    }
+    Timer<K, V> timer = new Timer<>(key, time, value);
+    root.add(timer);
+    timers.put(key, timer);
+    return true;
+  }
+
+  /**
+   * @return whether there's a timer with the key in the wheel
+   */
+  boolean contains(K key) {
+    return timers.containsKey(key);
+  }
+
+  /**
+   * Removes the timer with the key, if there's one.
+   *
+   * @return true if a timer was removed
+   */
+  boolean remove(K key) {
+    Timer<K, V> timer = timers.remove(key);
+    if (timer == null) {
+      return false;
+    }
+    timer.unlink();
+    return true;
+  }
+
+  /**
+   * @return the number of timers in the wheel
+   */
+  int size() {
+    return timers.size();
+  }
+
+  /**
+   * @return the time at which the next bucket expires, in milliseconds, or {@link Long#MAX_VALUE} if there are no
+   *         timers. The bucket may be empty if its timers were removed.
+   */
+  long nextExpiration() {
+    Bucket<K, V> bucket = queue.peek();
+    return bucket == null ? Long.MAX_VALUE : bucket.expiration;
+  }
+
+  /**
+   * Advances the wheel to {@code nowMs}, and removes the timers that expired by then.
+   *
+   * @param nowMs the current time, in milliseconds
+   * @param expired the list to add the expired timers to, in no particular order
+   */
+  void advance(long nowMs, List<Timer<K, V>> expired) {
+    List<Timer<K, V>> flushed = new ArrayList<>();
+    while (!queue.isEmpty() && queue.peek().expiration <= nowMs) {
+      // flush all buckets that expire at the same time before adding their timers again, so that a bucket that's
+      // still in the queue isn't reused for a later time
+      long expiration = queue.peek().expiration;
+      while (!queue.isEmpty() && queue.peek().expiration == expiration) {
+        queue.poll().flush(flushed);
+      }
+      currentMs = Math.max(currentMs, expiration);
+      root.advanceClock(currentMs);
+      for (Timer<K, V> timer : flushed) {
+        if (timer.time <= currentMs) {
+          timers.remove(timer.key);
+          expired.add(timer);
+        } else {
+          root.add(timer);
+        }
+      }
+      flushed.clear();
+    }
+    currentMs = Math.max(currentMs, nowMs);
+    root.advanceClock(currentMs);
+  }
+
+  /**
+   * A timer in the wheel, linked into the bucket it's in.
+   */
+  static final class Timer<K, V> {
+    final K key;
+    final long time;
+    final V value;
+
+    private Bucket<K, V> bucket;
+    private Timer<K, V> prev;
+    private Timer<K, V> next;
+
+    private Timer(K key, long time, V value) {
+      this.key = key;
+      this.time = time;
+      this.value = value;
+    }
+
+    private void unlink() {
+      if (bucket != null) {
+        prev.next = next;
+        next.prev = prev;
+        prev = null;
+        next = null;
+        bucket = null;
+      }
+    }
+  }
+
+  /**
+   * A doubly linked list of the timers that expire in the time span of a bucket.
+   */
+  private static final class Bucket<K, V> {
+    private final Timer<K, V> head = new Timer<>(null, -1, null);
+
+    /**
+     * The time at which the bucket expires, or -1 if it isn't in the queue.
+     */
+    private long expiration = -1;
+
+    private Bucket() {
+      head.prev = head;
+      head.next = head;
+    }
+
+    private void add(Timer<K, V> timer) {
+      timer.bucket = this;
+      timer.prev = head.prev;
+      timer.next = head;
+      head.prev.next = timer;
+      head.prev = timer;
+    }
+
+    private void flush(List<Timer<K, V>> flushed) {
+      Timer<K, V> timer = head.next;
+      while (timer != head) {
+        Timer<K, V> next = timer.next;
+        timer.unlink();
+        flushed.add(timer);
+        timer = next;
+      }
+      expiration = -1;
+    }
+  }
+
+  /**
+   * A level of the wheel, whose buckets span {@code tickMs} each. Levels above the root are created as needed.
+   * A timer is only added to a level if it's after the current tick of the level, except in the root level, where
+   * it's after the time the wheel was last advanced to.
+   */
+  private static final class Level<K, V> {
+    private final long tickMs;
+    private final int wheelSize;
+    private final long interval;
+    private final Bucket<K, V>[] buckets;
+    private final PriorityQueue<Bucket<K, V>> queue;
+    private final boolean isRoot;
+    private long currentTime;
+    private Level<K, V> overflow;
+
+    @SuppressWarnings("unchecked")
+    private Level(long tickMs, int wheelSize, long startMs, PriorityQueue<Bucket<K, V>> queue, boolean isRoot) {
+      this.tickMs = tickMs;
+      this.wheelSize = wheelSize;
+      // the span of the levels grows exponentially, so the top level may need to span all times
+      this.interval = tickMs > Long.MAX_VALUE / wheelSize ? Long.MAX_VALUE : tickMs * wheelSize;
+      this.buckets = new Bucket[wheelSize];
+      for (int i = 0; i < wheelSize; i++) {
+        buckets[i] = new Bucket<>();
+      }
+      this.queue = queue;
+      this.isRoot = isRoot;
+      this.currentTime = startMs - startMs % tickMs;
+    }
+
+    private void add(Timer<K, V> timer) {
+      if (interval == Long.MAX_VALUE || timer.time - currentTime < interval) {
+        long virtualId = timer.time / tickMs;
+        Bucket<K, V> bucket = buckets[(int) (virtualId % wheelSize)];
+        bucket.add(timer);
+        // timers in the root level fire at the end of their bucket, so they never fire early. Timers in higher
+        // levels move down at the start of their bucket, so they reach the root level before they're due.
+        long start = virtualId * tickMs;
+        long expiration = !isRoot ? start : start > Long.MAX_VALUE - tickMs ? Long.MAX_VALUE : start + tickMs;
+        if (bucket.expiration != expiration) {
+          bucket.expiration = expiration;
+          queue.add(bucket);
+        }
+      } else {
+        if (overflow == null) {
+          overflow = new Level<>(interval, wheelSize, currentTime, queue, false);
+        }
+        overflow.add(timer);
+      }
+    }
+
+    private void advanceClock(long timeMs) {
+      if (timeMs - currentTime >= tickMs) {
+        currentTime = timeMs - timeMs % tickMs;
+        if (overflow != null) {
+          overflow.advanceClock(currentTime);
+        }
+      }
+    }
+  }
+}
@@ -41,8 +41,7 @@ public class ZkCoordinationUtilsFactory implements CoordinationUtilsFactory {
     ZkClient zkClient =
         createZkClient(zkConfig.getZkConnect(), zkConfig.getZkSessionTimeoutMs(), zkConfig.getZkConnectionTimeoutMs());
 
-    ZkUtils zkUtils = new ZkUtils(new ZkKeyBuilder(groupId), zkClient, zkConfig.getZkConnectionTimeoutMs(), zkConfig.getZkSessionTimeoutMs(),
-        new NoOpMetricsRegistry());
+    ZkUtils zkUtils = new ZkUtils(new ZkKeyBuilder(groupId), zkClient, zkConfig, new NoOpMetricsRegistry());
     return new ZkCoordinationUtils(participantId, zkConfig, zkUtils);
   }
 
@@ -47,6 +47,7 @@ import org.apache.samza.coordinator.LeaderElectorListener;
 import org.apache.samza.coordinator.StreamPartitionCountMonitor;
 import org.apache.samza.job.model.ContainerModel;
 import org.apache.samza.job.model.JobModel;
+import org.apache.samza.job.model.TaskModel;
 import org.apache.samza.metrics.MetricsRegistry;
 import org.apache.samza.metrics.MetricsReporter;
 import org.apache.samza.metrics.ReadableMetricsRegistry;
@@ -98,11 +99,16 @@ public class ZkJobCoordinator implements JobCoordinator {
   private final SystemAdmins systemAdmins;
   private final int debounceTimeMs;
   private final Map<TaskName, Integer> changeLogPartitionMap = new HashMap<>();
+  private final boolean incrementalRebalanceEnabled;
 
   private JobCoordinatorListener coordinatorListener = null;
   private JobModel newJobModel;
   private boolean hasCreatedStreams = false;
   private String cachedJobModelVersion = null;
+  private JobModel cachedJobModel = null;
+  // The JobModel the container of this processor is running, or null if the container isn't running
+  @VisibleForTesting
+  JobModel activeJobModel = null;
 
   @VisibleForTesting
   ScheduleAfterDebounceTime debounceTimer;
@@ -122,6 +128,7 @@ public class ZkJobCoordinator implements JobCoordinator {
     leaderElector = new ZkLeaderElector(processorId, zkUtils);
     leaderElector.setLeaderElectorListener(new LeaderElectorListenerImpl());
     this.debounceTimeMs = new JobConfig(config).getDebounceTimeMs();
+    this.incrementalRebalanceEnabled = new ZkConfig(config).isIncrementalRebalanceEnabled();
     this.reporters = MetricsReporterLoader.getMetricsReporters(new MetricsConfig(config), processorId);
     debounceTimer = new ScheduleAfterDebounceTime(processorId);
     debounceTimer.setScheduledTaskCallback(throwable -> {
@@ -160,6 +167,7 @@ public class ZkJobCoordinator implements JobCoordinator {
 
       try {
         // todo: what does it mean for coordinator listener to be null? why not have it part of constructor?
+        activeJobModel = null;
         if (coordinatorListener != null) {
           coordinatorListener.onJobModelExpired();
         }
@@ -317,15 +325,35 @@ public class ZkJobCoordinator implements JobCoordinator {
         containerModel.getTasks().forEach((taskName, taskModel) -> changeLogPartitionMap.put(taskName, taskModel.getChangelogPartition().getPartitionId()));
       }
       cachedJobModelVersion = zkJobModelVersion;
+      cachedJobModel = jobModel;
     }
     /**
      * Host affinity is not supported in standalone. Hence, LocalityManager(which is responsible for container
      * to host mapping) is passed in as null when building the jobModel.
+     * With incremental rebalancing, tasks are kept on the processors they're on in the current JobModel.
      */
-    JobModel model = JobModelManager.readJobModel(this.config, changeLogPartitionMap, null, streamMetadataCache, processors);
+    JobModel model = JobModelManager.readJobModel(this.config, changeLogPartitionMap, null, streamMetadataCache, processors,
+        incrementalRebalanceEnabled ? cachedJobModel : null);
     return new JobModel(new MapConfig(), model.getContainers());
   }
 
+  /**
+   * Checks whether the container of this processor can keep running the tasks of the current JobModel with the new
+   * JobModel. That's the case if the processor has the same tasks in both, and the job has the same tasks, since
+   * tasks may depend on the tasks of the whole job, e.g. to aggregate watermarks of intermediate streams.
+   */
+  private boolean hasSameTasks(JobModel currentJobModel, JobModel jobModel) {
+    if (currentJobModel == null
+        || !Objects.equals(currentJobModel.getContainers().get(processorId), jobModel.getContainers().get(processorId))) {
+      return false;
+    }
+    Set<TaskModel> currentTasks = new HashSet<>();
+    currentJobModel.getContainers().values().forEach(containerModel -> currentTasks.addAll(containerModel.getTasks().values()));
+    Set<TaskModel> tasks = new HashSet<>();
+    jobModel.getContainers().values().forEach(containerModel -> tasks.addAll(containerModel.getTasks().values()));
+    return currentTasks.equals(tasks);
+  }
+
   @VisibleForTesting
   StreamPartitionCountMonitor getPartitionCountMonitor() {
     StreamMetadataCache streamMetadata = new StreamMetadataCache(systemAdmins, 0, SystemClock.instance());
@@ -388,8 +416,14 @@ public class ZkJobCoordinator implements JobCoordinator {
 
             // read the new Model
             JobModel jobModel = getJobModel();
-            // start the container with the new model
-            if (coordinatorListener != null) {
+            if (activeJobModel != null) {
+              // the container kept running since its tasks didn't change
+              LOG.info("pid=" + processorId + " continues running its container on version " + version);
+              activeJobModel = jobModel;
+              metrics.skippedContainerRestarts.inc();
+            } else if (coordinatorListener != null) {
+              // start the container with the new model
+              activeJobModel = jobModel;
               coordinatorListener.onNewJobModel(processorId, jobModel);
             }
           });
@@ -464,9 +498,15 @@ public class ZkJobCoordinator implements JobCoordinator {
                 processorId, newJobModel);
             stop();
           } else {
-            // stop current work
-            if (coordinatorListener != null) {
-              coordinatorListener.onJobModelExpired();
+            if (incrementalRebalanceEnabled && hasSameTasks(activeJobModel, newJobModel)) {
+              LOG.info("pid={} has the same tasks in JobModel version {}. Not stopping its container.",
+                  processorId, jobModelVersion);
+            } else {
+              // stop current work
+              activeJobModel = null;
+              if (coordinatorListener != null) {
+                coordinatorListener.onJobModelExpired();
+              }
             }
             // update ZK and wait for all the processors to get this new version
             barrier.join(jobModelVersion, processorId);
@@ -519,6 +559,7 @@ public class ZkJobCoordinator implements JobCoordinator {
           LOG.info("Cancelling all scheduled actions in session expiration for processorId: {}.", processorId);
           debounceTimer.cancelAllScheduledActions();
           debounceTimer.scheduleAfterDebounceTime(ZK_SESSION_EXPIRED, 0, () -> {
+              activeJobModel = null;
               if (coordinatorListener != null) {
                 coordinatorListener.onJobModelExpired();
               }
@@ -58,7 +58,7 @@ public class ZkJobCoordinatorFactory implements JobCoordinatorFactory {
     ZkKeyBuilder keyBuilder = new ZkKeyBuilder(coordinatorZkBasePath);
     ZkClient zkClient = ZkCoordinationUtilsFactory
         .createZkClient(zkConfig.getZkConnect(), zkConfig.getZkSessionTimeoutMs(), zkConfig.getZkConnectionTimeoutMs());
-    return new ZkUtils(keyBuilder, zkClient, zkConfig.getZkConnectionTimeoutMs(), zkConfig.getZkSessionTimeoutMs(), metricsRegistry);
+    return new ZkUtils(keyBuilder, zkClient, zkConfig, metricsRegistry);
   }
 
   public static String getJobCoordinationZkPath(Config config) {
@@ -57,6 +57,11 @@ public class ZkJobCoordinatorMetrics extends MetricsBase {
    */
   public final Timer singleBarrierRebalancingTime;
 
+  /**
+   * Number of new job models that the processor took without restarting its container, since its tasks didn't change
+   */
+  public final Counter skippedContainerRestarts;
+
   public ZkJobCoordinatorMetrics(MetricsRegistry metricsRegistry) {
     super(metricsRegistry);
     this.metricsRegistry = metricsRegistry;
@@ -65,6 +70,7 @@ public class ZkJobCoordinatorMetrics extends MetricsBase {
     this.barrierStateChange = newCounter("barrier-state-change");
     this.barrierError = newCounter("barrier-error");
     this.singleBarrierRebalancingTime = newTimer("single-barrier-rebalancing-time");
+    this.skippedContainerRestarts = newCounter("skipped-container-restarts");
   }
 
   public MetricsRegistry getMetricsRegistry() {
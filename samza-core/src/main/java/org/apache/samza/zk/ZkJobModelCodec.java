@@ -0,0 +1,185 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.samza.zk;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import org.apache.samza.SamzaException;
+import org.apache.samza.job.model.JobModel;
+import org.apache.samza.serializers.model.SamzaObjectMapper;
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.codehaus.jackson.node.ArrayNode;
+import org.codehaus.jackson.node.ObjectNode;
+
+/**
+ * Encodes the {@link JobModel}s that {@link ZkUtils} publishes as gzipped JSON, either in full or as a delta of a
+ * base JobModel that was published in full.
+ *
+ * <p>A delta only has the top-level fields of the JobModel, such as its config, and the containers that differ from
+ * the base, along with the names of the fields and containers of the base that were removed. A rebalance usually
+ * changes a few containers, so a delta is much smaller than the JobModel.
+ *
+ * <p>JobModels are handled as JSON trees, as written by {@link SamzaObjectMapper}, so that they can be compared
+ * and merged without depending on the model classes.
+ */
+class ZkJobModelCodec {
+  private static final String JOB_MODEL_KEY = "job-model";
+  private static final String BASE_VERSION_KEY = "base-version";
+  private static final String REMOVED_FIELDS_KEY = "removed-fields";
+  private static final String REMOVED_CONTAINERS_KEY = "removed-containers";
+  private static final String CONTAINERS_KEY = "containers";
+
+  private final ObjectMapper mapper = SamzaObjectMapper.getObjectMapper();
+
+  ObjectNode toTree(JobModel jobModel) {
+    return mapper.valueToTree(jobModel);
+  }
+
+  JobModel fromTree(ObjectNode jobModel) throws IOException {
+    return mapper.readValue(jobModel, JobModel.class);
+  }
+
+  /**
+   * Encodes the whole JobModel.
+   */
+  byte[] encode(ObjectNode jobModel) throws IOException {
+    ObjectNode encoded = mapper.createObjectNode();
+    encoded.put(JOB_MODEL_KEY, jobModel);
+    return compress(encoded);
+  }
+
+  /**
+   * Encodes the difference between the JobModel and a base JobModel, which must be published in full.
+   */
+  byte[] encodeDelta(ObjectNode jobModel, String baseVersion, ObjectNode base) throws IOException {
+    ObjectNode encoded = mapper.createObjectNode();
+    encoded.put(BASE_VERSION_KEY, baseVersion);
+    ObjectNode changed = encoded.putObject(JOB_MODEL_KEY);
+    ArrayNode removedFields = encoded.putArray(REMOVED_FIELDS_KEY);
+    ArrayNode removedContainers = encoded.putArray(REMOVED_CONTAINERS_KEY);
+
+    Iterator<Map.Entry<String, JsonNode>> fields = jobModel.getFields();
+    while (fields.hasNext()) {
+      Map.Entry<String, JsonNode> field = fields.next();
+      JsonNode baseField = base.get(field.getKey());
+      if (CONTAINERS_KEY.equals(field.getKey()) && field.getValue().isObject() && baseField != null
+          && baseField.isObject()) {
+        ObjectNode changedContainers = changed.putObject(CONTAINERS_KEY);
+        Iterator<Map.Entry<String, JsonNode>> containers = field.getValue().getFields();
+        while (containers.hasNext()) {
+          Map.Entry<String, JsonNode> container = containers.next();
+          if (!container.getValue().equals(baseField.get(container.getKey()))) {
+            changedContainers.put(container.getKey(), container.getValue());
+          }
+        }
+        Iterator<String> baseContainerIds = baseField.getFieldNames();
+        while (baseContainerIds.hasNext()) {
+          String containerId = baseContainerIds.next();
+          if (!field.getValue().has(containerId)) {
+            removedContainers.add(containerId);
+          }
+        }
+      } else if (!field.getValue().equals(baseField)) {
+        changed.put(field.getKey(), field.getValue());
+      }
+    }
+
+    Iterator<String> baseFieldNames = base.getFieldNames();
+    while (baseFieldNames.hasNext()) {
+      String fieldName = baseFieldNames.next();
+      if (!jobModel.has(fieldName)) {
+        removedFields.add(fieldName);
+      }
+    }
+    return compress(encoded);
+  }
+
+  ObjectNode decode(byte[] bytes) throws IOException {
+    try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+      JsonNode encoded = mapper.readTree(in);
+      if (encoded == null || !encoded.isObject() || !encoded.has(JOB_MODEL_KEY)) {
+        throw new SamzaException("Encoded JobModel is missing " + JOB_MODEL_KEY);
+      }
+      return (ObjectNode) encoded;
+    }
+  }
+
+  /**
+   * @return the version of the JobModel the encoded JobModel is a delta of, or null if it's a whole JobModel
+   */
+  String getBaseVersion(ObjectNode encoded) {
+    JsonNode baseVersion = encoded.get(BASE_VERSION_KEY);
+    return baseVersion == null ? null : baseVersion.getTextValue();
+  }
+
+  /**
+   * @return the whole JobModel encoded by {@link #encode}
+   */
+  ObjectNode getJobModel(ObjectNode encoded) {
+    if (getBaseVersion(encoded) != null) {
+      throw new SamzaException("Encoded JobModel is a delta of version " + getBaseVersion(encoded));
+    }
+    return (ObjectNode) encoded.get(JOB_MODEL_KEY);
+  }
+
+  /**
+   * @return the JobModel encoded by {@link #encodeDelta}, given the base it's a delta of. The base is not modified.
+   */
+  ObjectNode applyDelta(ObjectNode encoded, ObjectNode base) {
+    ObjectNode jobModel = mapper.createObjectNode();
+    jobModel.putAll(base);
+    for (JsonNode fieldName : encoded.path(REMOVED_FIELDS_KEY)) {
+      jobModel.remove(fieldName.getTextValue());
+    }
+
+    ObjectNode changed = (ObjectNode) encoded.get(JOB_MODEL_KEY);
+    Iterator<Map.Entry<String, JsonNode>> fields = changed.getFields();
+    while (fields.hasNext()) {
+      Map.Entry<String, JsonNode> field = fields.next();
+      JsonNode baseField = base.get(field.getKey());
+      if (CONTAINERS_KEY.equals(field.getKey()) && baseField != null && baseField.isObject()) {
+        ObjectNode containers = jobModel.putObject(CONTAINERS_KEY);
+        containers.putAll((ObjectNode) baseField);
+        for (JsonNode containerId : encoded.path(REMOVED_CONTAINERS_KEY)) {
+          containers.remove(containerId.getTextValue());
+        }
+        containers.putAll((ObjectNode) field.getValue());
+      } else {
+        jobModel.put(field.getKey(), field.getValue());
+      }
+    }
+    return jobModel;
+  }
+
+  private byte[] compress(ObjectNode encoded) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (OutputStream out = new GZIPOutputStream(bytes)) {
+      mapper.writeValue(out, encoded);
+    }
+    return bytes.toByteArray();
+  }
+}
@@ -97,6 +97,10 @@ public class ZkKeyBuilder {
     return String.format("%s/%s", getJobModelPathPrefix(), jobModelVersion);
   }
 
+  String getJobModelChunkPath(String jobModelVersion, int chunk) {
+    return String.format("%s/%d", getJobModelPath(jobModelVersion), chunk);
+  }
+
   String getJobModelVersionBarrierPrefix() {
     return String.format("%s/%s/%s/versionBarriers", getRootPath(), JOBMODEL_GENERATION_PATH, JOB_MODEL_UPGRADE_BARRIER_PATH);
   }
@@ -20,7 +20,10 @@
 package org.apache.samza.zk;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
@@ -37,11 +40,13 @@ import org.I0Itec.zkclient.exception.ZkInterruptedException;
 import org.I0Itec.zkclient.exception.ZkNodeExistsException;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.samza.SamzaException;
+import org.apache.samza.config.ZkConfig;
 import org.apache.samza.job.model.JobModel;
 import org.apache.samza.metrics.MetricsRegistry;
 import org.apache.samza.serializers.model.SamzaObjectMapper;
 import org.apache.zookeeper.data.Stat;
 import org.codehaus.jackson.map.ObjectMapper;
+import org.codehaus.jackson.node.ObjectNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -77,6 +82,8 @@ import org.slf4j.LoggerFactory;
 public class ZkUtils {
   private static final Logger LOG = LoggerFactory.getLogger(ZkUtils.class);
   /* package private */static final String ZK_PROTOCOL_VERSION = "1.0";
+  // Prefix of the data of the node of a JobModel published with compression, followed by its chunk count and size
+  private static final String COMPRESSED_JOB_MODEL_PREFIX = "compressed-job-model-v1:";
 
   private final ZkClient zkClient;
   private volatile String ephemeralPath = null;
@@ -85,6 +92,19 @@ public class ZkUtils {
   private final AtomicInteger currentGeneration;
   private final ZkUtilsMetrics metrics;
   private final int sessionTimeoutMs;
+  private final boolean jobModelCompressionEnabled;
+  private final int jobModelChunkBytes;
+  private final int jobModelMaxDeltas;
+  private final ZkJobModelCodec jobModelCodec = new ZkJobModelCodec();
+
+  // The last JobModel this processor published in full, which the JobModels it publishes next are deltas of
+  private String publishedBaseVersion = null;
+  private ObjectNode publishedBase = null;
+  private int publishedDeltas = 0;
+
+  // The last whole JobModel read, which is usually the base of the JobModel read next
+  private String cachedBaseVersion = null;
+  private ObjectNode cachedBase = null;
 
   public void incGeneration() {
     currentGeneration.incrementAndGet();
@@ -95,12 +115,33 @@ public class ZkUtils {
   }
 
   public ZkUtils(ZkKeyBuilder zkKeyBuilder, ZkClient zkClient, int connectionTimeoutMs, int sessionTimeOutMs, MetricsRegistry metricsRegistry) {
+    this(zkKeyBuilder, zkClient, connectionTimeoutMs, sessionTimeOutMs, metricsRegistry, false,
+        ZkConfig.DEFAULT_JOB_MODEL_CHUNK_BYTES, ZkConfig.DEFAULT_JOB_MODEL_MAX_DELTAS);
+  }
+
+  public ZkUtils(ZkKeyBuilder zkKeyBuilder, ZkClient zkClient, ZkConfig zkConfig, MetricsRegistry metricsRegistry) {
+    this(zkKeyBuilder, zkClient, zkConfig.getZkConnectionTimeoutMs(), zkConfig.getZkSessionTimeoutMs(), metricsRegistry,
+        zkConfig.isJobModelCompressionEnabled(), zkConfig.getJobModelChunkBytes(), zkConfig.getJobModelMaxDeltas());
+  }
+
+  /**
+   * @param jobModelCompressionEnabled if true, JobModels are published gzipped, split into chunks of at most
+   *                                   jobModelChunkBytes, and as deltas of the last JobModel published in full.
+   *                                   JobModels are read in either format.
+   * @param jobModelChunkBytes the maximum size of a chunk of a compressed JobModel
+   * @param jobModelMaxDeltas the number of JobModels published as deltas before one is published in full again
+   */
+  ZkUtils(ZkKeyBuilder zkKeyBuilder, ZkClient zkClient, int connectionTimeoutMs, int sessionTimeOutMs,
+      MetricsRegistry metricsRegistry, boolean jobModelCompressionEnabled, int jobModelChunkBytes, int jobModelMaxDeltas) {
     this.keyBuilder = zkKeyBuilder;
     this.connectionTimeoutMs = connectionTimeoutMs;
     this.zkClient = zkClient;
     this.metrics = new ZkUtilsMetrics(metricsRegistry);
     this.currentGeneration = new AtomicInteger(0);
     this.sessionTimeoutMs = sessionTimeOutMs;
+    this.jobModelCompressionEnabled = jobModelCompressionEnabled;
+    this.jobModelChunkBytes = jobModelChunkBytes;
+    this.jobModelMaxDeltas = jobModelMaxDeltas;
   }
 
   public void connect() throws ZkInterruptedException {
@@ -429,21 +470,70 @@ public class ZkUtils {
   /**
    * Publishes new job model into ZK.
    * This call should FAIL if the node already exists.
+   *
+   * <p>If JobModel compression is enabled, the JobModel is gzipped and written in Base64 into the children of its
+   * node, in chunks small enough for zookeeper, and the node itself holds the number of chunks and their total size. The JobModel
+   * is written as a delta of the last JobModel published in full by this processor, unless jobModelMaxDeltas deltas
+   * were already written since.
+   *
    * @param jobModelVersion  version of the jobModeL to publish
    * @param jobModel jobModel to publish
    *
    */
-  public void publishJobModel(String jobModelVersion, JobModel jobModel) {
+  public synchronized void publishJobModel(String jobModelVersion, JobModel jobModel) {
+    long startNs = System.nanoTime();
     try {
-      ObjectMapper mmapper = SamzaObjectMapper.getObjectMapper();
-      String jobModelStr = mmapper.writerWithDefaultPrettyPrinter().writeValueAsString(jobModel);
-      LOG.info("jobModelAsString=" + jobModelStr);
-      zkClient.createPersistent(keyBuilder.getJobModelPath(jobModelVersion), jobModelStr);
+      if (jobModelCompressionEnabled) {
+        publishCompressedJobModel(jobModelVersion, jobModel);
+      } else {
+        ObjectMapper mmapper = SamzaObjectMapper.getObjectMapper();
+        String jobModelStr = mmapper.writerWithDefaultPrettyPrinter().writeValueAsString(jobModel);
+        LOG.info("jobModelAsString=" + jobModelStr);
+        zkClient.createPersistent(keyBuilder.getJobModelPath(jobModelVersion), jobModelStr);
+        metrics.jobModelPublishBytes.set(jobModelStr.getBytes(StandardCharsets.UTF_8).length);
+      }
       LOG.info("wrote jobModel path =" + keyBuilder.getJobModelPath(jobModelVersion));
     } catch (Exception e) {
       LOG.error("JobModel publish failed for version=" + jobModelVersion, e);
       throw new SamzaException(e);
     }
+    metrics.jobModelPublishNs.update(System.nanoTime() - startNs);
+  }
+
+  private void publishCompressedJobModel(String jobModelVersion, JobModel jobModel) throws IOException {
+    ObjectNode jobModelTree = jobModelCodec.toTree(jobModel);
+    boolean isDelta = publishedBase != null && publishedDeltas < jobModelMaxDeltas;
+    byte[] bytes = isDelta
+        ? jobModelCodec.encodeDelta(jobModelTree, publishedBaseVersion, publishedBase)
+        : jobModelCodec.encode(jobModelTree);
+
+    int numChunks = Math.max(1, (bytes.length + jobModelChunkBytes - 1) / jobModelChunkBytes);
+    zkClient.createPersistent(keyBuilder.getJobModelPath(jobModelVersion),
+        COMPRESSED_JOB_MODEL_PREFIX + numChunks + ":" + bytes.length);
+    metrics.writes.inc();
+    for (int chunk = 0; chunk < numChunks; chunk++) {
+      int from = chunk * jobModelChunkBytes;
+      byte[] chunkBytes = Arrays.copyOfRange(bytes, from, Math.min(from + jobModelChunkBytes, bytes.length));
+      zkClient.createPersistent(keyBuilder.getJobModelChunkPath(jobModelVersion, chunk),
+          Base64.getEncoder().encodeToString(chunkBytes));
+      metrics.writes.inc();
+    }
+    metrics.jobModelPublishBytes.set(bytes.length);
+
+    if (isDelta) {
+      publishedDeltas++;
+      metrics.jobModelDeltas.inc();
+      LOG.info(String.format("Published JobModel version %s as a delta of version %s in %d bytes and %d chunks.",
+          jobModelVersion, publishedBaseVersion, bytes.length, numChunks));
+    } else {
+      publishedBaseVersion = jobModelVersion;
+      publishedBase = jobModelTree;
+      publishedDeltas = 0;
+      cachedBaseVersion = jobModelVersion;
+      cachedBase = jobModelTree;
+      LOG.info(String.format("Published JobModel version %s in %d bytes and %d chunks.",
+          jobModelVersion, bytes.length, numChunks));
+    }
   }
 
   /**
@@ -451,20 +541,78 @@ public class ZkUtils {
    * @param jobModelVersion jobModel version to get
    * @return job model for this version
    */
-  public JobModel getJobModel(String jobModelVersion) {
+  public synchronized JobModel getJobModel(String jobModelVersion) {
+    long startNs = System.nanoTime();
     LOG.info("Read the model ver=" + jobModelVersion + " from " + keyBuilder.getJobModelPath(jobModelVersion));
     Object data = zkClient.readData(keyBuilder.getJobModelPath(jobModelVersion));
     metrics.reads.inc();
     ObjectMapper mmapper = SamzaObjectMapper.getObjectMapper();
     JobModel jm;
     try {
-      jm = mmapper.readValue((String) data, JobModel.class);
+      if (isCompressedJobModel(data)) {
+        jm = jobModelCodec.fromTree(readCompressedJobModel(jobModelVersion, (String) data));
+      } else {
+        metrics.jobModelReadBytes.set(((String) data).getBytes(StandardCharsets.UTF_8).length);
+        jm = mmapper.readValue((String) data, JobModel.class);
+      }
     } catch (IOException e) {
       throw new SamzaException("failed to read JobModel from ZK", e);
     }
+    metrics.jobModelReadNs.update(System.nanoTime() - startNs);
     return jm;
   }
 
+  /**
+   * Reads the chunks of a JobModel published with compression, given the data of its node, and applies it to its
+   * base if it's a delta.
+   */
+  private ObjectNode readCompressedJobModel(String jobModelVersion, String header) throws IOException {
+    String[] sizes = header.substring(COMPRESSED_JOB_MODEL_PREFIX.length()).split(":");
+    int numChunks = Integer.parseInt(sizes[0]);
+    byte[] bytes = new byte[Integer.parseInt(sizes[1])];
+    int length = 0;
+    for (int chunk = 0; chunk < numChunks; chunk++) {
+      String chunkData = zkClient.readData(keyBuilder.getJobModelChunkPath(jobModelVersion, chunk));
+      metrics.reads.inc();
+      byte[] chunkBytes = Base64.getDecoder().decode(chunkData);
+      if (length + chunkBytes.length > bytes.length) {
+        throw new SamzaException("JobModel version " + jobModelVersion + " is larger than " + bytes.length + " bytes");
+      }
+      System.arraycopy(chunkBytes, 0, bytes, length, chunkBytes.length);
+      length += chunkBytes.length;
+    }
+    if (length != bytes.length) {
+      throw new SamzaException("Read " + length + " of " + bytes.length + " bytes of JobModel version " + jobModelVersion);
+    }
+    metrics.jobModelReadBytes.set(bytes.length);
+
+    ObjectNode encoded = jobModelCodec.decode(bytes);
+    String baseVersion = jobModelCodec.getBaseVersion(encoded);
+    if (baseVersion == null) {
+      cachedBaseVersion = jobModelVersion;
+      cachedBase = jobModelCodec.getJobModel(encoded);
+      return cachedBase;
+    }
+
+    if (!baseVersion.equals(cachedBaseVersion)) {
+      LOG.info("Reading base version " + baseVersion + " of JobModel version " + jobModelVersion);
+      Object baseData = zkClient.readData(keyBuilder.getJobModelPath(baseVersion));
+      metrics.reads.inc();
+      if (!isCompressedJobModel(baseData)) {
+        throw new SamzaException("Base version " + baseVersion + " of JobModel version " + jobModelVersion + " is not compressed");
+      }
+      readCompressedJobModel(baseVersion, (String) baseData);
+      if (!baseVersion.equals(cachedBaseVersion)) {
+        throw new SamzaException("Base version " + baseVersion + " of JobModel version " + jobModelVersion + " is a delta");
+      }
+    }
+    return jobModelCodec.applyDelta(encoded, cachedBase);
+  }
+
+  private static boolean isCompressedJobModel(Object data) {
+    return data instanceof String && ((String) data).startsWith(COMPRESSED_JOB_MODEL_PREFIX);
+  }
+
   /**
    * read the jobmodel version from ZK
    * @return jobmodel version as a string
@@ -598,7 +746,11 @@ public class ZkUtils {
     // read current list of JMs
     String path = keyBuilder.getJobModelPathPrefix();
     LOG.info("About to delete jm path=" + path);
-    List<String> znodeIds = zkClient.getChildren(path);
+    List<String> znodeIds = new ArrayList<>(zkClient.getChildren(path));
+    // Later JobModels may still be deltas of the base
+    synchronized (this) {
+      znodeIds.remove(publishedBaseVersion);
+    }
     deleteOldVersionPath(path, znodeIds, numVersionsToLeave, new Comparator<String>() {
       @Override
       public int compare(String o1, String o2) {
@@ -19,8 +19,10 @@
 package org.apache.samza.zk;
 
 import org.apache.samza.metrics.Counter;
+import org.apache.samza.metrics.Gauge;
 import org.apache.samza.metrics.MetricsBase;
 import org.apache.samza.metrics.MetricsRegistry;
+import org.apache.samza.metrics.Timer;
 
 /**
  * Contains all the metrics published by {@link ZkUtils}.
@@ -51,6 +53,31 @@ public class ZkUtilsMetrics extends MetricsBase {
    */
   public final Counter deletions;
 
+  /**
+   * Size in bytes of the last JobModel published into zookeeper, compressed if JobModel compression is enabled.
+   */
+  public final Gauge<Integer> jobModelPublishBytes;
+
+  /**
+   * Size in bytes of the last JobModel read from zookeeper, compressed if it was published with compression.
+   */
+  public final Gauge<Integer> jobModelReadBytes;
+
+  /**
+   * Time taken to serialize and publish a JobModel into zookeeper.
+   */
+  public final Timer jobModelPublishNs;
+
+  /**
+   * Time taken to read and deserialize a JobModel from zookeeper.
+   */
+  public final Timer jobModelReadNs;
+
+  /**
+   * Number of JobModels published as deltas of a previous JobModel.
+   */
+  public final Counter jobModelDeltas;
+
   public ZkUtilsMetrics(MetricsRegistry metricsRegistry) {
     super(metricsRegistry);
     this.reads = newCounter("reads");
@@ -58,5 +85,10 @@ public class ZkUtilsMetrics extends MetricsBase {
     this.deletions = newCounter("deletions");
     this.subscriptions = newCounter("subscriptions");
     this.zkConnectionError = newCounter("zk-connection-errors");
+    this.jobModelPublishBytes = newGauge("job-model-publish-bytes", 0);
+    this.jobModelReadBytes = newGauge("job-model-read-bytes", 0);
+    this.jobModelPublishNs = newTimer("job-model-publish-ns");
+    this.jobModelReadNs = newTimer("job-model-read-ns");
+    this.jobModelDeltas = newCounter("job-model-deltas");
   }
 }
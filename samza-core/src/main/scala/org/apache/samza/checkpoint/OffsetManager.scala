@@ -258,20 +258,50 @@ class OffsetManager(
 
       if(checkpointManager != null) {
         checkpointManager.writeCheckpoint(taskName, checkpoint)
-        val sspToOffsets = checkpoint.getOffsets
-        if(sspToOffsets != null) {
-          sspToOffsets.asScala.foreach {
-            case (ssp, cp) => offsetManagerMetrics.checkpointedOffsets.get(ssp).set(cp)
-          }
-        }
+        updateCheckpointedOffsets(checkpoint)
       }
 
-      // invoke checkpoint listeners
-      checkpoint.getOffsets.asScala.groupBy { case (ssp, _) => ssp.getSystem }.foreach {
-        case (systemName:String, offsets: Map[SystemStreamPartition, String]) => {
-          // Option is empty if there is no checkpointListener for this systemName
-          checkpointListeners.get(systemName).foreach(_.onCheckpoint(offsets.asJava))
-        }
+      notifyCheckpointListeners(checkpoint)
+    }
+  }
+
+  /**
+    * Write the checkpoints of several tasks that commit together in a single batch, and report the latency and size
+    * of the batch. Null checkpoints are skipped.
+    */
+  def writeCheckpoints(checkpoints: java.util.Map[TaskName, Checkpoint]) {
+    val checkpointsToWrite = checkpoints.asScala.filter { case (_, checkpoint) => checkpoint != null }
+    if (checkpointsToWrite.nonEmpty && (checkpointManager != null || checkpointListeners.nonEmpty)) {
+      debug("Writing checkpoints for %d tasks: %s." format (checkpointsToWrite.size, checkpointsToWrite))
+
+      if(checkpointManager != null) {
+        val startNs = System.nanoTime
+        checkpointManager.writeCheckpoints(checkpointsToWrite.asJava)
+        offsetManagerMetrics.checkpointBatchNs.update(System.nanoTime - startNs)
+        offsetManagerMetrics.checkpointBatches.inc
+        offsetManagerMetrics.checkpointBatchSize.set(checkpointsToWrite.size)
+        checkpointsToWrite.values.foreach(updateCheckpointedOffsets)
+      }
+
+      checkpointsToWrite.values.foreach(notifyCheckpointListeners)
+    }
+  }
+
+  private def updateCheckpointedOffsets(checkpoint: Checkpoint) {
+    val sspToOffsets = checkpoint.getOffsets
+    if(sspToOffsets != null) {
+      sspToOffsets.asScala.foreach {
+        case (ssp, cp) => offsetManagerMetrics.checkpointedOffsets.get(ssp).set(cp)
+      }
+    }
+  }
+
+  private def notifyCheckpointListeners(checkpoint: Checkpoint) {
+    // invoke checkpoint listeners
+    checkpoint.getOffsets.asScala.groupBy { case (ssp, _) => ssp.getSystem }.foreach {
+      case (systemName:String, offsets: Map[SystemStreamPartition, String]) => {
+        // Option is empty if there is no checkpointListener for this systemName
+        checkpointListeners.get(systemName).foreach(_.onCheckpoint(offsets.asJava))
       }
     }
   }
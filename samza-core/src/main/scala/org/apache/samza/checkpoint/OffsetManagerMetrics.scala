@@ -28,6 +28,15 @@ class OffsetManagerMetrics(val registry: MetricsRegistry = new MetricsRegistryMa
 
   val checkpointedOffsets = new ConcurrentHashMap[SystemStreamPartition, Gauge[String]]
 
+  /*
+   * Checkpoints of tasks that commit together are written in batches.
+   */
+  val checkpointBatches = newCounter("checkpoint-batches")
+
+  val checkpointBatchSize = newGauge("checkpoint-batch-size", 0)
+
+  val checkpointBatchNs = newTimer("checkpoint-batch-ns")
+
   def addCheckpointedOffset(systemStreamPartition: SystemStreamPartition, checkpointedOffset: String) {
     checkpointedOffsets.put(systemStreamPartition, newGauge("%s-%s-%d-checkpointed-offset" format (systemStreamPartition.getSystem, systemStreamPartition.getStream, systemStreamPartition.getPartition.getPartitionId), checkpointedOffset))
   }
@@ -53,6 +53,8 @@ object JobConfig {
   val JOB_CONTAINER_COUNT = "job.container.count"
   val JOB_CONTAINER_THREAD_POOL_SIZE = "job.container.thread.pool.size"
   val JOB_CONTAINER_SINGLE_THREAD_MODE = "job.container.single.thread.mode"
+  val JOB_CONTAINER_RESTORE_THREAD_POOL_SIZE = "job.container.restore.thread.pool.size"
+  val JOB_CONTAINER_RESTORE_MAX_BYTES_PER_SECOND = "job.container.restore.max.bytes.per.second"
   val JOB_INTERMEDIATE_STREAM_PARTITIONS = "job.intermediate.stream.partitions"
   val JOB_DEBOUNCE_TIME_MS = "job.debounce.time.ms"
   val DEFAULT_DEBOUNCE_TIME_MS = 20000
@@ -243,6 +245,13 @@ class JobConfig(config: Config) extends ScalaMapConfig(config) with Logging {
     case _ => false
   }
 
+  def getRestoreThreadPoolSize = getOption(JobConfig.JOB_CONTAINER_RESTORE_THREAD_POOL_SIZE).map(_.toInt)
+
+  def getRestoreMaxBytesPerSecond = getOption(JobConfig.JOB_CONTAINER_RESTORE_MAX_BYTES_PER_SECOND) match {
+    case Some(bytes) => bytes.toLong
+    case _ => -1L
+  }
+
   def getDebounceTimeMs = getInt(JobConfig.JOB_DEBOUNCE_TIME_MS, JobConfig.DEFAULT_DEBOUNCE_TIME_MS)
 
   def getNonLoggedStorePath = getOption(JobConfig.JOB_NON_LOGGED_STORE_BASE_DIR)
@@ -20,6 +20,8 @@
 package org.apache.samza.config
 
 
+import org.apache.samza.SamzaException
+import org.apache.samza.metrics.{HistogramReservoir, Reservoir, SlidingTimeWindowReservoir}
 import org.apache.samza.util.HighResolutionClock
 
 
@@ -31,6 +33,10 @@ object MetricsConfig {
   val METRICS_TIMER_ENABLED= "metrics.timer.enabled"
   // This flag enables more timer metrics, e.g. handle-message-ns in an operator, for debugging purpose
   val METRICS_TIMER_DEBUG_ENABLED= "metrics.timer.debug.enabled"
+  // The reservoir used by the timers of a container, either "sliding-window" or "histogram"
+  val METRICS_TIMER_RESERVOIR = "metrics.timer.reservoir"
+  val METRICS_TIMER_RESERVOIR_SLIDING_WINDOW = "sliding-window"
+  val METRICS_TIMER_RESERVOIR_HISTOGRAM = "histogram"
 
   // The following configs are applicable only to {@link MetricsSnapshotReporter}
   // added here only to maintain backwards compatibility of config
@@ -81,4 +87,17 @@ class MetricsConfig(config: Config) extends ScalaMapConfig(config) {
     */
   def getMetricsTimerDebugEnabled: Boolean = getBoolean(MetricsConfig.METRICS_TIMER_DEBUG_ENABLED, false)
 
+  /**
+    * Returns a function that creates the reservoir of a timer. The sliding window reservoir keeps
+    * every value in the window, the histogram reservoir uses a fixed amount of memory per timer.
+    * @return function to create timer reservoirs
+    */
+  def getMetricsTimerReservoir: () => Reservoir = {
+    get(MetricsConfig.METRICS_TIMER_RESERVOIR, MetricsConfig.METRICS_TIMER_RESERVOIR_SLIDING_WINDOW) match {
+      case MetricsConfig.METRICS_TIMER_RESERVOIR_SLIDING_WINDOW => () => new SlidingTimeWindowReservoir
+      case MetricsConfig.METRICS_TIMER_RESERVOIR_HISTOGRAM => () => new HistogramReservoir
+      case reservoir => throw new SamzaException("Unknown timer reservoir %s for %s." format (reservoir, MetricsConfig.METRICS_TIMER_RESERVOIR))
+    }
+  }
+
 }
\ No newline at end of file
@@ -88,6 +88,10 @@ class StorageConfig(config: Config) extends ScalaMapConfig(config) with Logging
     Option(new JavaStorageConfig(config).getSideInputsProcessorSerializedInstance(storeName))
   }
 
+  def isSideInputsShared(storeName: String): Boolean = {
+    new JavaStorageConfig(config).isSideInputsShared(storeName)
+  }
+
   /**
     * Build a map of storeName to changeLogDeleteRetention for all of the stores.
     * @return a map from storeName to the changeLogDeleteRetention of the store in ms.
@@ -21,7 +21,7 @@ package org.apache.samza.config
 
 import org.apache.samza.checkpoint.CheckpointManager
 import org.apache.samza.metrics.MetricsRegistry
-import org.apache.samza.system.SystemStream
+import org.apache.samza.system.{SystemConsumers, SystemStream}
 import org.apache.samza.util.{Logging, StreamUtil}
 
 object TaskConfig {
@@ -44,7 +44,10 @@ object TaskConfig {
   val MAX_CONCURRENCY = "task.max.concurrency" // max number of concurrent process for a AsyncStreamTask
   val CALLBACK_TIMEOUT_MS = "task.callback.timeout.ms"  // timeout period for triggering a callback
   val ASYNC_COMMIT = "task.async.commit" // to enable async commit in a AsyncStreamTask
+  val BATCH_COMMIT = "task.batch.commit" // to write the checkpoints of tasks that commit together in one batch
   val MAX_IDLE_MS = "task.max.idle.ms"  // maximum time to wait for a task worker to complete when there are no new messages to handle
+  val DESERIALIZATION_THREADS = "task.consumer.deserialization.threads" // number of threads deserializing polled messages ahead of the chooser
+  val DESERIALIZATION_BATCH_SIZE = "task.consumer.deserialization.batch.size" // number of polled messages of a partition deserialized together
 
   val DEFAULT_WINDOW_MS: Long = -1L
   val DEFAULT_COMMIT_MS = 60000L
@@ -149,6 +152,11 @@ class TaskConfig(config: Config) extends ScalaMapConfig(config) with Logging {
     case _ => false
   }
 
+  def getBatchCommit: Boolean = getOption(TaskConfig.BATCH_COMMIT) match {
+    case Some(batchCommit) => batchCommit.toBoolean
+    case _ => false
+  }
+
   def isAutoCommitEnabled: Boolean = getOption(TaskConfig.COMMIT_MS) match {
     case Some(commitMs) => commitMs.toInt > 0
     case _ => TaskConfig.DEFAULT_COMMIT_MS > 0
@@ -158,4 +166,16 @@ class TaskConfig(config: Config) extends ScalaMapConfig(config) with Logging {
     case Some(ms) => ms.toLong
     case _ => TaskConfig.DEFAULT_MAX_IDLE_MS
   }
+
+  def getDeserializationThreads: Int = getOption(TaskConfig.DESERIALIZATION_THREADS) match {
+    case Some(threads) => threads.toInt
+    case _ => SystemConsumers.DEFAULT_DESERIALIZATION_THREADS
+  }
+
+  def getDeserializationBatchSize: Int = getOption(TaskConfig.DESERIALIZATION_BATCH_SIZE) match {
+    case Some(batchSize) if batchSize.toInt < 1 =>
+      throw new ConfigException("%s must be at least 1, but is %s." format (TaskConfig.DESERIALIZATION_BATCH_SIZE, batchSize))
+    case Some(batchSize) => batchSize.toInt
+    case _ => SystemConsumers.DEFAULT_DESERIALIZATION_BATCH_SIZE
+  }
 }
@@ -42,7 +42,8 @@ class RunLoop (
   val maxThrottlingDelayMs: Long,
   val windowMs: Long = -1,
   val commitMs: Long = 60000,
-  val clock: () => Long = { System.nanoTime }) extends Runnable with Throttleable with TimerUtil with Logging {
+  val clock: () => Long = { System.nanoTime },
+  val batchCommit: Boolean = false) extends Runnable with Throttleable with TimerUtil with Logging {
 
   private val metricsMsOffset = 1000000L
   private val executor = new ThrottlingExecutor(maxThrottlingDelayMs)
@@ -166,13 +167,21 @@ class RunLoop (
         info("Committing task instances because the commit interval has elapsed.")
         lastCommitNs = currentTimeNs
         metrics.commits.inc
-        taskInstances.values.foreach(_.commit)
+        if (batchCommit) {
+          TaskInstance.commitAll(taskInstances.values.asJavaCollection)
+        } else {
+          taskInstances.values.foreach(_.commit)
+        }
       } else if (!coordinatorRequests.commitRequests.isEmpty){
         trace("Committing due to explicit commit request.")
         metrics.commits.inc
-        coordinatorRequests.commitRequests.asScala.foreach(taskName => {
-          taskInstances(taskName).commit
-        })
+        if (batchCommit) {
+          TaskInstance.commitAll(coordinatorRequests.commitRequests.asScala.map(taskInstances).asJavaCollection)
+        } else {
+          coordinatorRequests.commitRequests.asScala.foreach(taskName => {
+            taskInstances(taskName).commit
+          })
+        }
       }
 
       shutdownNow |= coordinatorRequests.shouldShutdownNow
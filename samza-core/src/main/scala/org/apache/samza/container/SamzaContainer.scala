@@ -42,10 +42,11 @@ import org.apache.samza.config.TaskConfig.Config2Task
 import org.apache.samza.config._
 import org.apache.samza.container.disk.DiskSpaceMonitor.Listener
 import org.apache.samza.container.disk.{DiskQuotaPolicyFactory, DiskSpaceMonitor, NoThrottlingDiskQuotaPolicyFactory, PollingScanDiskSpaceMonitor}
+import org.apache.samza.container.grouper.task.TaskLoadManager
 import org.apache.samza.container.host.{StatisticsMonitorImpl, SystemMemoryStatistics, SystemStatisticsMonitor}
 import org.apache.samza.context._
 import org.apache.samza.job.model.{ContainerModel, JobModel}
-import org.apache.samza.metrics.{JmxServer, JvmMetrics, MetricsRegistryMap, MetricsReporter}
+import org.apache.samza.metrics.{JmxServer, JvmMetrics, MetricsRegistry, MetricsRegistryMap, MetricsReporter}
 import org.apache.samza.serializers._
 import org.apache.samza.serializers.model.SamzaObjectMapper
 import org.apache.samza.storage._
@@ -143,7 +144,7 @@ object SamzaContainer extends Logging {
     startupLog("Using configuration: %s" format config)
     startupLog("Using container model: %s" format containerModel)
 
-    val registry = new MetricsRegistryMap(containerName)
+    val registry = new MetricsRegistryMap(containerName, config.getMetricsTimerReservoir)
     val samzaContainerMetrics = new SamzaContainerMetrics(containerName, registry)
     val systemProducersMetrics = new SystemProducersMetrics(registry)
     val systemConsumersMetrics = new SystemConsumersMetrics(registry)
@@ -447,7 +448,9 @@ object SamzaContainer extends Logging {
       metrics = systemConsumersMetrics,
       dropDeserializationError = dropDeserializationError,
       pollIntervalMs = pollIntervalMs,
-      clock = () => clock.nanoTime())
+      clock = () => clock.nanoTime(),
+      deserializationThreads = config.getDeserializationThreads,
+      deserializationBatchSize = config.getDeserializationBatchSize)
 
     val producerMultiplexer = new SystemProducers(
       producers = producers,
@@ -517,6 +520,89 @@ object SamzaContainer extends Logging {
 
     var taskStorageManagers : Map[TaskInstance, TaskStorageManager] = Map()
 
+    val defaultStoreBaseDir = new File(System.getProperty("user.dir"), "state")
+    info("Got default storage engine base directory: %s" format defaultStoreBaseDir)
+
+    val nonLoggedStorageBaseDir = getNonLoggedStorageBaseDir(config, defaultStoreBaseDir)
+    info("Got base directory for non logged data stores: %s" format nonLoggedStorageBaseDir)
+
+    val loggedStorageBaseDir = getLoggedStorageBaseDir(config, defaultStoreBaseDir)
+    info("Got base directory for logged data stores: %s" format loggedStorageBaseDir)
+
+    def getStoreSerde(storeName: String, serdeName: Option[String], serdeType: String) = serdeName match {
+      case Some(serde) => serdes.getOrElse(serde,
+        throw new SamzaException("%s: No class defined for serde: %s." format (serdeType, serde)))
+      case _ => null
+    }
+
+    def getSideInputsProcessor(storeName: String, registry: MetricsRegistry): SideInputsProcessor = {
+      // serialized instances takes precedence over the factory configuration.
+      config.getSideInputsProcessorSerializedInstance(storeName).map(serializedInstance =>
+          SerdeUtils.deserialize("Side Inputs Processor", serializedInstance).asInstanceOf[SideInputsProcessor])
+        .orElse(config.getSideInputsProcessorFactory(storeName).map(factoryClassName =>
+          Util.getObj(factoryClassName, classOf[SideInputsProcessorFactory])
+            .getSideInputsProcessor(config, registry)))
+        .get
+    }
+
+    // Side input stores shared by all tasks of the container are created once, and each side input SSP is written
+    // to them by one task.
+    val sharedSideInputStoresToSystemStreams = sideInputStoresToSystemStreams.filter {
+      case (storeName, _) => config.isSideInputsShared(storeName) && storageEngineFactories.contains(storeName)
+    }
+    info("Got shared side input stores: %s" format sharedSideInputStoresToSystemStreams.keys)
+
+    val sharedSideInputStorageManager = if (sharedSideInputStoresToSystemStreams.nonEmpty) {
+      val sharedStoresTaskName = new TaskName("Container " + containerModel.getId)
+      val sharedSideInputStoresToSSPs = sharedSideInputStoresToSystemStreams.mapValues(sideInputSystemStreams =>
+        containerModel.getTasks.values.asScala
+          .flatMap(_.getSystemStreamPartitions.asScala)
+          .filter(ssp => sideInputSystemStreams.contains(ssp.getSystemStream))
+          .toSet.asJava)
+      val taskSharedSideInputSSPs = containerModel.getTasks.values.asScala.map(taskModel =>
+        (taskModel.getTaskName, taskModel.getSystemStreamPartitions.asScala
+          .filter(ssp => sharedSideInputStoresToSystemStreams.values.exists(_.contains(ssp.getSystemStream)))
+          .toSet.asJava))
+        .filter { case (_, ssps) => !ssps.isEmpty }
+        .toMap
+
+      val sharedStores = sharedSideInputStoresToSystemStreams.keys.map(storeName => {
+        val storeDir = TaskStorageManager.getStorePartitionDir(loggedStorageBaseDir, storeName, sharedStoresTaskName)
+        storeWatchPaths.add(storeDir.toPath)
+        val storageEngine = storageEngineFactories(storeName).getStorageEngine(
+          storeName,
+          storeDir,
+          getStoreSerde(storeName, config.getStorageKeySerde(storeName), "StorageKeySerde"),
+          getStoreSerde(storeName, config.getStorageMsgSerde(storeName), "StorageMsgSerde"),
+          new TaskInstanceCollector(producerMultiplexer),
+          samzaContainerMetrics.registry,
+          null,
+          jobContext,
+          containerContext)
+        (storeName, storageEngine)
+      }).toMap
+      info("Got shared side input stores %s for SSPs: %s" format (sharedStores.keys, sharedSideInputStoresToSSPs))
+
+      val sharedSideInputStoresToProcessor = sharedStores.keys
+        .map(storeName => (storeName, getSideInputsProcessor(storeName, samzaContainerMetrics.registry)))
+        .toMap
+
+      new SharedSideInputStorageManager(
+        new TaskSideInputStorageManager(
+          sharedStoresTaskName,
+          streamMetadataCache,
+          loggedStorageBaseDir.getPath,
+          sharedStores.asJava,
+          sharedSideInputStoresToProcessor.asJava,
+          sharedSideInputStoresToSSPs.asJava,
+          systemAdmins,
+          config,
+          new SystemClock),
+        taskSharedSideInputSSPs.asJava)
+    } else {
+      null
+    }
+
     // Create taskInstances
     val taskInstances: Map[TaskName, TaskInstance] = containerModel.getTasks.values.asScala.map(taskModel => {
       debug("Setting up task instance: %s" format taskModel)
@@ -543,16 +629,8 @@ object SamzaContainer extends Logging {
 
       info("Got store consumers: %s" format storeConsumers)
 
-      val defaultStoreBaseDir = new File(System.getProperty("user.dir"), "state")
-      info("Got default storage engine base directory: %s" format defaultStoreBaseDir)
-
-      val nonLoggedStorageBaseDir = getNonLoggedStorageBaseDir(config, defaultStoreBaseDir)
-      info("Got base directory for non logged data stores: %s" format nonLoggedStorageBaseDir)
-
-      val loggedStorageBaseDir = getLoggedStorageBaseDir(config, defaultStoreBaseDir)
-      info("Got base directory for logged data stores: %s" format loggedStorageBaseDir)
-
       val taskStores = storageEngineFactories
+        .filterKeys(storeName => !sharedSideInputStoresToSystemStreams.contains(storeName))
         .map {
           case (storeName, storageEngineFactory) =>
             val changeLogSystemStreamPartition = if (changeLogSystemStreams.contains(storeName)) {
@@ -561,17 +639,9 @@ object SamzaContainer extends Logging {
               null
             }
 
-            val keySerde = config.getStorageKeySerde(storeName) match {
-              case Some(keySerde) => serdes.getOrElse(keySerde,
-                throw new SamzaException("StorageKeySerde: No class defined for serde: %s." format keySerde))
-              case _ => null
-            }
+            val keySerde = getStoreSerde(storeName, config.getStorageKeySerde(storeName), "StorageKeySerde")
 
-            val msgSerde = config.getStorageMsgSerde(storeName) match {
-              case Some(msgSerde) => serdes.getOrElse(msgSerde,
-                throw new SamzaException("StorageMsgSerde: No class defined for serde: %s." format msgSerde))
-              case _ => null
-            }
+            val msgSerde = getStoreSerde(storeName, config.getStorageMsgSerde(storeName), "StorageMsgSerde")
 
             // We use the logged storage base directory for change logged and side input stores since side input stores
             // dont have changelog configured.
@@ -604,22 +674,24 @@ object SamzaContainer extends Logging {
       val (sideInputStores, nonSideInputStores) =
         taskStores.partition { case (storeName, _) => sideInputStoresToSystemStreams.contains(storeName)}
 
-      val sideInputStoresToSSPs = sideInputStoresToSystemStreams.mapValues(sideInputSystemStreams =>
-        taskSSPs.filter(ssp => sideInputSystemStreams.contains(ssp.getSystemStream)).asJava)
+      val sideInputStoresToSSPs = sideInputStoresToSystemStreams
+        .filterKeys(storeName => !sharedSideInputStoresToSystemStreams.contains(storeName))
+        .mapValues(sideInputSystemStreams =>
+          taskSSPs.filter(ssp => sideInputSystemStreams.contains(ssp.getSystemStream)).asJava)
+
+      val taskSharedSideInputSSPs = if (sharedSideInputStorageManager != null) {
+        sharedSideInputStorageManager.getSideInputSSPs(taskName).asScala.toSet
+      } else {
+        Set[SystemStreamPartition]()
+      }
 
-      val taskSideInputSSPs = sideInputStoresToSSPs.values.flatMap(_.asScala).toSet
+      val taskSideInputSSPs = sideInputStoresToSSPs.values.flatMap(_.asScala).toSet ++ taskSharedSideInputSSPs
 
       info ("Got task side input SSPs: %s" format taskSideInputSSPs)
 
-      val sideInputStoresToProcessor = sideInputStores.keys.map(storeName => {
-          // serialized instances takes precedence over the factory configuration.
-          config.getSideInputsProcessorSerializedInstance(storeName).map(serializedInstance =>
-              (storeName, SerdeUtils.deserialize("Side Inputs Processor", serializedInstance)))
-            .orElse(config.getSideInputsProcessorFactory(storeName).map(factoryClassName =>
-              (storeName, Util.getObj(factoryClassName, classOf[SideInputsProcessorFactory])
-                .getSideInputsProcessor(config, taskInstanceMetrics.registry))))
-            .get
-        }).toMap
+      val sideInputStoresToProcessor = sideInputStores.keys
+        .map(storeName => (storeName, getSideInputsProcessor(storeName, taskInstanceMetrics.registry)))
+        .toMap
 
       val storageManager = new TaskStorageManager(
         taskName = taskName,
@@ -672,6 +744,7 @@ object SamzaContainer extends Logging {
           timerExecutor = timerExecutor,
           sideInputSSPs = taskSideInputSSPs,
           sideInputStorageManager = sideInputStorageManager,
+          sharedSideInputStorageManager = sharedSideInputStorageManager,
           jobContext = jobContext,
           containerContext = containerContext,
           applicationContainerContextOption = applicationContainerContextOption,
@@ -684,8 +757,12 @@ object SamzaContainer extends Logging {
     }).toMap
 
 
+    val restoreThreadPoolSize = config.getRestoreThreadPoolSize.getOrElse(taskStorageManagers.size)
+    val restoreMaxBytesPerSecond = config.getRestoreMaxBytesPerSecond
+    info("Restoring stores with %d threads and max bytes per second %d." format (restoreThreadPoolSize, restoreMaxBytesPerSecond))
+
     val containerStorageManager = new ContainerStorageManager(taskStorageManagers.asJava, storeSystemConsumers.asJava,
-      samzaContainerMetrics)
+      samzaContainerMetrics, restoreThreadPoolSize, restoreMaxBytesPerSecond)
 
     val maxThrottlingDelayMs = config.getLong("container.disk.quota.delay.max.ms", TimeUnit.SECONDS.toMillis(1))
 
@@ -797,6 +874,7 @@ class SamzaContainer(
   val isAutoCommitEnabled = config.isAutoCommitEnabled
 
   @volatile private var status = SamzaContainerStatus.NOT_STARTED
+  private var runLoopStartNs = 0L
   private var exceptionSeen: Throwable = null
   private var containerListener: SamzaContainerListener = null
 
@@ -846,6 +924,7 @@ class SamzaContainer(
         containerListener.afterStart()
       }
       metrics.containerStartupTime.update(System.nanoTime() - startTime)
+      runLoopStartNs = System.nanoTime()
       runLoop.run
     } catch {
       case e: Throwable =>
@@ -867,6 +946,7 @@ class SamzaContainer(
 
       shutdownConsumers
       shutdownTask
+      storeTaskLoads
       shutdownTableManager
       shutdownStores
       shutdownDiskSpaceMonitor
@@ -1022,6 +1102,25 @@ class SamzaContainer(
     }
   }
 
+  def storeTaskLoads {
+    if (runLoopStartNs > 0 && new TaskConfigJava(config).isTaskLoadPersistEnabled) {
+      val taskLoadManager = new TaskLoadManager(config, containerContext.getContainerMetricsRegistry)
+      try {
+        taskLoadManager.init()
+        val runNs = System.nanoTime() - runLoopStartNs
+        info("Writing the loads of %d tasks to metadata store" format taskInstances.size)
+        taskInstances.foreach {
+          case (taskName, taskInstance) => taskLoadManager.writeTaskLoad(taskName.getTaskName, taskInstance.getTaskLoad(runNs))
+        }
+      } catch {
+        case e: Exception =>
+          warn("Received an exception when persisting the loads of the tasks: %s" format e.getMessage)
+      } finally {
+        taskLoadManager.close()
+      }
+    }
+  }
+
   def startStores {
     info("Starting container storage manager.")
     containerStorageManager.start()
@@ -49,10 +49,33 @@ class SamzaContainerMetrics(
 
   val taskStoreRestorationMetrics: util.Map[TaskName, Gauge[Long]] = new util.HashMap[TaskName, Gauge[Long]]()
 
+  val storeRestorationMetrics: util.Map[TaskName, util.Map[String, StoreRestorationMetrics]] =
+    new util.HashMap[TaskName, util.Map[String, StoreRestorationMetrics]]()
+
   val exceptions = newListGauge[DiagnosticsExceptionEvent]("exceptions")
 
   def addStoreRestorationGauge(taskName: TaskName, storeName: String) {
-    taskStoreRestorationMetrics.put(taskName, newGauge("%s-%s-restore-time" format(taskName.toString, storeName), -1L))
+    taskStoreRestorationMetrics.put(taskName, newGauge("%s-restore-time" format taskName.toString, -1L))
+
+    val prefix = "%s-%s-" format(taskName.toString, storeName)
+    storeRestorationMetrics.putIfAbsent(taskName, new util.HashMap[String, StoreRestorationMetrics]())
+    storeRestorationMetrics.get(taskName).put(storeName, new StoreRestorationMetrics(
+      newGauge(prefix + "restore-time", -1L),
+      newGauge(prefix + "restored-messages", 0L),
+      newGauge(prefix + "restored-bytes", 0L),
+      newGauge(prefix + "restore-remaining-messages", -1L),
+      newGauge(prefix + "restore-eta-ms", -1L)))
   }
 
 }
+
+/**
+ * The progress of restoring a store of a task from its changelog. The remaining messages and ETA are estimated
+ * from the changelog offsets, and are -1 if the offsets are not numeric.
+ */
+class StoreRestorationMetrics(
+  val restoreTime: Gauge[Long],
+  val restoredMessages: Gauge[Long],
+  val restoredBytes: Gauge[Long],
+  val remainingMessages: Gauge[Long],
+  val restoreEtaMs: Gauge[Long])
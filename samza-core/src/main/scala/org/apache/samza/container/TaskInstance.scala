@@ -24,19 +24,20 @@ import java.util.Optional
 import java.util.concurrent.ScheduledExecutorService
 
 import org.apache.samza.SamzaException
-import org.apache.samza.checkpoint.OffsetManager
-import org.apache.samza.config.Config
+import org.apache.samza.checkpoint.{Checkpoint, OffsetManager}
+import org.apache.samza.config.{Config, TaskConfigJava}
 import org.apache.samza.config.StreamConfig.Config2Stream
+import org.apache.samza.container.grouper.task.TaskLoad
 import org.apache.samza.context._
 import org.apache.samza.job.model.{JobModel, TaskModel}
 import org.apache.samza.metrics.MetricsReporter
 import org.apache.samza.scheduler.{CallbackSchedulerImpl, ScheduledCallback}
 import org.apache.samza.storage.kv.KeyValueStore
-import org.apache.samza.storage.{TaskSideInputStorageManager, TaskStorageManager}
+import org.apache.samza.storage.{SharedSideInputStorageManager, TaskSideInputStorageManager, TaskStorageManager}
 import org.apache.samza.system._
 import org.apache.samza.table.TableManager
 import org.apache.samza.task._
-import org.apache.samza.util.{Logging, ScalaJavaUtil}
+import org.apache.samza.util.{Logging, ScalaJavaUtil, SystemClock}
 
 import scala.collection.JavaConversions._
 import scala.collection.JavaConverters._
@@ -60,6 +61,7 @@ class TaskInstance(
   timerExecutor : ScheduledExecutorService = null,
   sideInputSSPs: Set[SystemStreamPartition] = Set(),
   sideInputStorageManager: TaskSideInputStorageManager = null,
+  sharedSideInputStorageManager: SharedSideInputStorageManager = null,
   jobContext: JobContext,
   containerContext: ContainerContext,
   applicationContainerContextOption: Option[ApplicationContainerContext],
@@ -73,7 +75,12 @@ class TaskInstance(
   val isClosableTask = task.isInstanceOf[ClosableTask]
   val isAsyncTask = task.isInstanceOf[AsyncStreamTask]
 
-  val epochTimeScheduler: EpochTimeScheduler = EpochTimeScheduler.create(timerExecutor)
+  private val timerWheelTickMs = new TaskConfigJava(jobContext.getConfig).getTimerWheelTickMs
+  val epochTimeScheduler: EpochTimeScheduler = if (timerWheelTickMs > 0) {
+    EpochTimeScheduler.createWithTimerWheel(timerExecutor, timerWheelTickMs, SystemClock.instance)
+  } else {
+    EpochTimeScheduler.create(timerExecutor)
+  }
 
   private val kvStoreSupplier = ScalaJavaUtil.toJavaFunction(
     (storeName: String) => {
@@ -81,6 +88,8 @@ class TaskInstance(
         storageManager.getStore(storeName).get.asInstanceOf[KeyValueStore[_, _]]
       } else if (sideInputStorageManager != null && sideInputStorageManager.getStore(storeName) != null) {
         sideInputStorageManager.getStore(storeName).asInstanceOf[KeyValueStore[_, _]]
+      } else if (sharedSideInputStorageManager != null && sharedSideInputStorageManager.getStore(storeName) != null) {
+        sharedSideInputStorageManager.getStore(storeName).asInstanceOf[KeyValueStore[_, _]]
       } else {
         null
       }
@@ -103,10 +112,30 @@ class TaskInstance(
 
   private val config: Config = jobContext.getConfig
 
+  // side input SSPs of the stores shared by the tasks of the container, a subset of sideInputSSPs
+  private val sharedSideInputSSPs: Set[SystemStreamPartition] = if (sharedSideInputStorageManager != null) {
+    sharedSideInputStorageManager.getSideInputSSPs(taskName).asScala.toSet
+  } else {
+    Set()
+  }
+
   val intermediateStreams: Set[String] = config.getStreamIds.filter(config.getIsIntermediateStream).toSet
 
   val streamsToDeleteCommittedMessages: Set[String] = config.getStreamIds.filter(config.getDeleteCommittedMessages).map(config.getPhysicalName).toSet
 
+  /**
+   * Gets the load of the task, as the rates of its metrics over the given time that it ran for.
+   */
+  def getTaskLoad(runNs: Long): TaskLoad = {
+    val runSeconds = math.max(runNs, 1L) / 1e9
+    val storeSizeBytes = if (storageManager != null) storageManager.getPersistedStoreSizeBytes else 0L
+    new TaskLoad(
+      metrics.messagesActuallyProcessed.getCount / runSeconds,
+      metrics.bytesProcessed.getCount / runSeconds,
+      storeSizeBytes,
+      metrics.processNs.getCount / 1e9 / runSeconds)
+  }
+
   def registerMetrics {
     debug("Registering metrics for taskName: %s" format taskName)
 
@@ -127,6 +156,11 @@ class TaskInstance(
     } else {
       debug("Skipping side input storage manager initialization for taskName: %s" format taskName)
     }
+
+    if (sharedSideInputStorageManager != null) {
+      debug("Starting shared side input storage manager for taskName: %s" format taskName)
+      sharedSideInputStorageManager.init()
+    }
   }
 
   def startTableManager {
@@ -140,6 +174,17 @@ class TaskInstance(
   }
 
   def initTask {
+    val timerStore = new TaskConfigJava(config).getTimerStore
+    if (timerStore.isPresent) {
+      val storeName = timerStore.get
+      val store = kvStoreSupplier.apply(storeName)
+      if (store == null) {
+        throw new SamzaException("Timer store %s is not configured for taskName: %s" format (storeName, taskName))
+      }
+      debug("Persisting timers in store %s for taskName: %s" format (storeName, taskName))
+      epochTimeScheduler.setTimerStore(store.asInstanceOf[KeyValueStore[AnyRef, java.lang.Long]])
+    }
+
     if (isInitableTask) {
       debug("Initializing task for taskName: %s" format taskName)
 
@@ -166,7 +211,9 @@ class TaskInstance(
       val startingOffset = getStartingOffset(systemStreamPartition)
       consumerMultiplexer.register(systemStreamPartition, startingOffset)
       metrics.addOffsetGauge(systemStreamPartition, () =>
-        if (sideInputSSPs.contains(systemStreamPartition)) {
+        if (sharedSideInputSSPs.contains(systemStreamPartition)) {
+          sharedSideInputStorageManager.getLastProcessedOffset(systemStreamPartition)
+        } else if (sideInputSSPs.contains(systemStreamPartition)) {
           sideInputStorageManager.getLastProcessedOffset(systemStreamPartition)
         } else {
           offsetManager.getLastProcessedOffset(taskName, systemStreamPartition).orNull
@@ -187,11 +234,14 @@ class TaskInstance(
 
     if (ssp2CaughtupMapping(incomingMessageSsp)) {
       metrics.messagesActuallyProcessed.inc
+      metrics.bytesProcessed.inc(envelope.getSize)
 
       trace("Processing incoming message envelope for taskName and SSP: %s, %s"
         format (taskName, incomingMessageSsp))
 
-      if (sideInputSSPs.contains(incomingMessageSsp) && !envelope.isEndOfStream) {
+      if (sharedSideInputSSPs.contains(incomingMessageSsp) && !envelope.isEndOfStream) {
+        sharedSideInputStorageManager.process(taskName, envelope)
+      } else if (sideInputSSPs.contains(incomingMessageSsp) && !envelope.isEndOfStream) {
         sideInputStorageManager.process(envelope)
       } else {
         if (isAsyncTask) {
@@ -200,9 +250,11 @@ class TaskInstance(
             task.asInstanceOf[AsyncStreamTask].processAsync(envelope, collector, coordinator, callback)
           }
         } else {
+          val startNs = System.nanoTime
           exceptionHandler.maybeHandle {
             task.asInstanceOf[StreamTask].process(envelope, collector, coordinator)
           }
+          metrics.processNs.inc(System.nanoTime - startNs)
 
           trace("Updating offset map for taskName, SSP and offset: %s, %s, %s"
             format (taskName, incomingMessageSsp, envelope.getOffset))
@@ -244,6 +296,18 @@ class TaskInstance(
   }
 
   def commit {
+    val checkpoint = prepareCommit
+
+    trace("Checkpointing offsets for taskName: %s" format taskName)
+    offsetManager.writeCheckpoint(taskName, checkpoint)
+
+    completeCommit(checkpoint)
+  }
+
+  /**
+   * Builds the checkpoint of the task and flushes its producers and stores, so that the checkpoint can be written.
+   */
+  def prepareCommit: Checkpoint = {
     metrics.commits.inc
 
     val checkpoint = offsetManager.buildCheckpoint(taskName)
@@ -262,10 +326,17 @@ class TaskInstance(
     if (sideInputStorageManager != null) {
       sideInputStorageManager.flush()
     }
+    if (sharedSideInputStorageManager != null) {
+      sharedSideInputStorageManager.flush(taskName)
+    }
 
-    trace("Checkpointing offsets for taskName: %s" format taskName)
-    offsetManager.writeCheckpoint(taskName, checkpoint)
+    checkpoint
+  }
 
+  /**
+   * Deletes the committed messages of intermediate streams once the checkpoint of the task has been written.
+   */
+  def completeCommit(checkpoint: Checkpoint) {
     if (checkpoint != null) {
       checkpoint.getOffsets.asScala
         .filter { case (ssp, _) => streamsToDeleteCommittedMessages.contains(ssp.getStream) } // Only delete data of intermediate streams
@@ -297,6 +368,11 @@ class TaskInstance(
     } else {
       debug("Skipping side input storage manager shutdown for taskName: %s" format taskName)
     }
+
+    if (sharedSideInputStorageManager != null) {
+      debug("Shutting down shared side input storage manager for taskName: %s" format taskName)
+      sharedSideInputStorageManager.stop()
+    }
   }
 
   def shutdownTableManager {
@@ -353,7 +429,9 @@ class TaskInstance(
 
   private def getStartingOffset(systemStreamPartition: SystemStreamPartition) = {
     val offset =
-      if (sideInputSSPs.contains(systemStreamPartition)) {
+      if (sharedSideInputSSPs.contains(systemStreamPartition)) {
+        Option(sharedSideInputStorageManager.getStartingOffset(systemStreamPartition))
+      } else if (sideInputSSPs.contains(systemStreamPartition)) {
         Option(sideInputStorageManager.getStartingOffset(systemStreamPartition))
       } else {
         offsetManager.getStartingOffset(taskName, systemStreamPartition)
@@ -365,3 +443,20 @@ class TaskInstance(
     startingOffset
   }
 }
+
+object TaskInstance {
+  /**
+   * Commits task instances that share an offset manager together, so that their checkpoints are written in a single
+   * batch instead of one at a time.
+   */
+  def commitAll(taskInstances: java.util.Collection[TaskInstance]) {
+    if (!taskInstances.isEmpty) {
+      val checkpoints = new java.util.LinkedHashMap[TaskName, Checkpoint]()
+      taskInstances.asScala.foreach(taskInstance => checkpoints.put(taskInstance.taskName, taskInstance.prepareCommit))
+
+      taskInstances.iterator.next.offsetManager.writeCheckpoints(checkpoints)
+
+      taskInstances.asScala.foreach(taskInstance => taskInstance.completeCommit(checkpoints.get(taskInstance.taskName)))
+    }
+  }
+}
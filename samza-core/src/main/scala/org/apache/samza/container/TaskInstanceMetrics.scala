@@ -32,6 +32,8 @@ class TaskInstanceMetrics(
   val windows = newCounter("window-calls")
   val processes = newCounter("process-calls")
   val messagesActuallyProcessed = newCounter("messages-actually-processed")
+  val bytesProcessed = newCounter("bytes-processed")
+  val processNs = newCounter("process-ns")
   val sends = newCounter("send-calls")
   val flushes = newCounter("flush-calls")
   val pendingMessages = newGauge("pending-messages", 0)
@@ -160,6 +160,19 @@ object JobModelManager extends Logging {
                    localityManager: LocalityManager,
                    streamMetadataCache: StreamMetadataCache,
                    containerIds: java.util.List[String]): JobModel = {
+    readJobModel(config, changeLogPartitionMapping, localityManager, streamMetadataCache, containerIds, null)
+  }
+
+  /**
+   * Builds a new JobModel like [[readJobModel]], and asks the TaskNameGrouper to keep tasks in the containers they
+   * are in in the previous JobModel, if there is one.
+   */
+  def readJobModel(config: Config,
+                   changeLogPartitionMapping: util.Map[TaskName, Integer],
+                   localityManager: LocalityManager,
+                   streamMetadataCache: StreamMetadataCache,
+                   containerIds: java.util.List[String],
+                   previousJobModel: JobModel): JobModel = {
     // Do grouping to fetch TaskName to SSP mapping
     val allSystemStreamPartitions = getMatchedInputStreamPartitions(config, streamMetadataCache)
 
@@ -203,6 +216,11 @@ object JobModelManager extends Logging {
     val containerModels = {
       containerGrouper match {
         case grouper: BalancingTaskNameGrouper if isHostAffinityEnabled => grouper.balance(taskModels.asJava, localityManager)
+        case _ if previousJobModel != null =>
+          val previousContainerIds = new util.HashMap[TaskName, String]()
+          previousJobModel.getContainers.values.asScala.foreach(containerModel =>
+            containerModel.getTasks.keySet.asScala.foreach(taskName => previousContainerIds.put(taskName, containerModel.getId)))
+          containerGrouper.group(taskModels.asJava, containerIds, previousContainerIds)
         case _ => containerGrouper.group(taskModels.asJava, containerIds)
       }
     }
@@ -25,8 +25,11 @@ import java.util.concurrent.ConcurrentHashMap
 /**
  * A class that holds all metrics registered with it. It can be registered
  * with one or more MetricReporters to flush metrics.
+ *
+ * @param name The name of the registry
+ * @param newTimerReservoir Creates the reservoir of the timers created by name with newTimer
  */
-class MetricsRegistryMap(val name: String) extends ReadableMetricsRegistry with Logging {
+class MetricsRegistryMap(val name: String, val newTimerReservoir: () => Reservoir) extends ReadableMetricsRegistry with Logging {
   var listeners = Set[ReadableMetricsRegistryListener]()
 
   /*
@@ -34,6 +37,8 @@ class MetricsRegistryMap(val name: String) extends ReadableMetricsRegistry with
    */
   val metrics = new ConcurrentHashMap[String, ConcurrentHashMap[String, Metric]]
 
+  def this(name: String) = this(name, () => new SlidingTimeWindowReservoir)
+
   def this() = this("unknown")
 
   def newCounter(group: String, counter: Counter) = {
@@ -72,7 +77,7 @@ class MetricsRegistryMap(val name: String) extends ReadableMetricsRegistry with
 
   def newTimer(group: String, name: String) = {
     debug("Creating new timer %s %s." format (group, name))
-    newTimer(group, new Timer(name))
+    newTimer(group, new Timer(name, newTimerReservoir()))
   }
 
   /**
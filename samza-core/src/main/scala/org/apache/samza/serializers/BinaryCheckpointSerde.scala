@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.samza.serializers
+
+import java.io.{ByteArrayOutputStream, DataOutputStream}
+
+import org.apache.samza.checkpoint.Checkpoint
+import org.apache.samza.system.{SystemStream, SystemStreamPartition}
+
+import scala.collection.JavaConverters._
+
+/**
+ * Write out the Checkpoint object in a compact binary format, which is smaller and much cheaper to read than the
+ * JSON written by [[CheckpointSerde]]. This matters for checkpoint topics that are read from the beginning when a
+ * container starts.
+ *
+ * The format is a version byte, followed by the number of system streams and, for each system stream, its system,
+ * stream and number of partitions, followed by the partition ID and offset of each of its partitions. Strings are
+ * written in modified UTF-8, so the system and stream names of all the partitions of a stream are only written once.
+ *
+ * Checkpoints in both formats are read, so a job can switch to this serde without losing its checkpoints. Note that
+ * older versions of Samza can't read binary checkpoints.
+ */
+class BinaryCheckpointSerde extends CheckpointSerde {
+  import CheckpointSerde._
+
+  override def toBytes(checkpoint: Checkpoint): Array[Byte] = {
+    val bySystemStream = checkpoint.getOffsets.asScala.groupBy(_._1.getSystemStream)
+    val bytes = new ByteArrayOutputStream()
+    val out = new DataOutputStream(bytes)
+
+    out.writeByte(BINARY_FORMAT_VERSION)
+    out.writeInt(bySystemStream.size)
+    bySystemStream.foreach {
+      case (systemStream: SystemStream, offsets: collection.Map[SystemStreamPartition, String]) =>
+        out.writeUTF(systemStream.getSystem)
+        out.writeUTF(systemStream.getStream)
+        out.writeInt(offsets.size)
+        offsets.foreach {
+          case (ssp, offset) =>
+            require(offset != null, "Can't write a null offset for %s in a binary checkpoint" format ssp)
+            out.writeInt(ssp.getPartition.getPartitionId)
+            out.writeUTF(offset)
+        }
+    }
+    out.flush()
+    bytes.toByteArray
+  }
+}
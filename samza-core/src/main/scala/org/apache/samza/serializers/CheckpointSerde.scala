@@ -20,6 +20,7 @@
 package org.apache.samza.serializers
 
 import org.apache.samza.util.Logging
+import java.io.{ByteArrayInputStream, DataInputStream}
 import java.util
 import org.apache.samza.checkpoint.Checkpoint
 import org.apache.samza.container.TaskName
@@ -34,6 +35,9 @@ import org.codehaus.jackson.`type`.TypeReference
  * JSON only allows strings as map types, so we would need to separately serialize the SSP to a string that doesn't
  * then interfere with JSON's decoding of the overall map.  We'll sidestep the whole issue by turning the
  * map into a list[String] of (System, Stream, Partition, Offset) serializing that.
+ *
+ * Checkpoints written by a [[BinaryCheckpointSerde]] are read as well, so that a job can switch between the two
+ * formats without losing its checkpoints.
  */
 class CheckpointSerde extends Serde[Checkpoint] with Logging {
   import CheckpointSerde._
@@ -52,6 +56,10 @@ class CheckpointSerde extends Serde[Checkpoint] with Logging {
 
   def fromBytes(bytes: Array[Byte]): Checkpoint = {
     try {
+      if (bytes != null && bytes.length > 0 && bytes(0) == BINARY_FORMAT_VERSION) {
+        return binaryFromBytes(bytes)
+      }
+
       val jMap = jsonMapper.readValue(bytes, classOf[util.HashMap[String, util.HashMap[String, String]]])
 
       def deserializeJSONMap(m:util.HashMap[String, String]) = {
@@ -97,6 +105,23 @@ class CheckpointSerde extends Serde[Checkpoint] with Logging {
     jsonMapper.writeValueAsBytes(asMap)
   }
 
+  private def binaryFromBytes(bytes: Array[Byte]): Checkpoint = {
+    val in = new DataInputStream(new ByteArrayInputStream(bytes, 1, bytes.length - 1))
+    val offsets = new util.HashMap[SystemStreamPartition, String]()
+    val numSystemStreams = in.readInt()
+    for (_ <- 0 until numSystemStreams) {
+      val system = in.readUTF()
+      val stream = in.readUTF()
+      val numPartitions = in.readInt()
+      for (_ <- 0 until numPartitions) {
+        val partition = in.readInt()
+        offsets.put(new SystemStreamPartition(system, stream, new Partition(partition)), in.readUTF())
+      }
+    }
+    require(in.available() == 0, "Binary-encoded checkpoint has trailing bytes")
+    new Checkpoint(offsets)
+  }
+
   def changelogPartitionMappingFromBytes(bytes: Array[Byte]): util.Map[TaskName, java.lang.Integer] = {
     try {
       jsonMapper.readValue(bytes, PARTITION_MAPPING_TYPEREFERENCE)
@@ -112,5 +137,10 @@ class CheckpointSerde extends Serde[Checkpoint] with Logging {
 }
 
 object CheckpointSerde {
+  /**
+   * The first byte of a checkpoint written by a [[BinaryCheckpointSerde]]. JSON checkpoints always start with '{'.
+   */
+  val BINARY_FORMAT_VERSION: Byte = 1
+
   val PARTITION_MAPPING_TYPEREFERENCE = new TypeReference[util.HashMap[TaskName, java.lang.Integer]]() {}
 }
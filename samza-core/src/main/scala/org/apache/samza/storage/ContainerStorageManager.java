@@ -18,17 +18,22 @@
  */
 package org.apache.samza.storage;
 
+import com.google.common.util.concurrent.RateLimiter;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.samza.SamzaException;
 import org.apache.samza.container.SamzaContainerMetrics;
+import org.apache.samza.container.StoreRestorationMetrics;
 import org.apache.samza.container.TaskInstance;
+import org.apache.samza.container.TaskName;
 import org.apache.samza.metrics.Gauge;
 import org.apache.samza.system.SystemConsumer;
 import org.slf4j.Logger;
@@ -43,7 +48,8 @@ import org.slf4j.LoggerFactory;
  *  a) performing all container-level actions for restore such as, initializing and shutting down
  *  taskStorage managers, starting, registering and stopping consumers, etc.
  *
- *  b) performing individual taskStorageManager restores in parallel.
+ *  b) performing the restores of the individual stores of all tasks in parallel, optionally throttled to a
+ *  number of bytes per second shared by all stores.
  *
  */
 public class ContainerStorageManager {
@@ -58,17 +64,34 @@ public class ContainerStorageManager {
   // Size of thread-pool to be used for parallel restores
   private final int parallelRestoreThreadPoolSize;
 
+  // Rate limiter shared by all restores, in bytes per second, or null if restores are not throttled
+  private final RateLimiter restoreThrottler;
+
   // Naming convention to be used for restore threads
   private static final String RESTORE_THREAD_NAME = "Samza Restore Thread-%d";
 
   public ContainerStorageManager(Map<TaskInstance, TaskStorageManager> taskStorageManagers,
       Map<String, SystemConsumer> systemConsumers, SamzaContainerMetrics samzaContainerMetrics) {
+    // Setting thread pool size equal to the number of tasks
+    this(taskStorageManagers, systemConsumers, samzaContainerMetrics, taskStorageManagers.size(), -1);
+  }
+
+  /**
+   * @param taskStorageManagers the storage managers of the tasks in the container
+   * @param systemConsumers the changelog consumers, by system name
+   * @param samzaContainerMetrics the container metrics to report the restore progress in
+   * @param restoreThreadPoolSize the number of stores to restore in parallel
+   * @param restoreMaxBytesPerSecond the maximum number of bytes per second restored by all stores, or a non-positive
+   *                                 value to not throttle restores
+   */
+  public ContainerStorageManager(Map<TaskInstance, TaskStorageManager> taskStorageManagers,
+      Map<String, SystemConsumer> systemConsumers, SamzaContainerMetrics samzaContainerMetrics,
+      int restoreThreadPoolSize, long restoreMaxBytesPerSecond) {
     this.taskStorageManagers = taskStorageManagers;
     this.systemConsumers = systemConsumers;
     this.samzaContainerMetrics = samzaContainerMetrics;
-
-    // Setting thread pool size equal to the number of tasks
-    this.parallelRestoreThreadPoolSize = taskStorageManagers.size();
+    this.parallelRestoreThreadPoolSize = Math.max(restoreThreadPoolSize, 1);
+    this.restoreThrottler = restoreMaxBytesPerSecond > 0 ? RateLimiter.create(restoreMaxBytesPerSecond) : null;
   }
 
   public void start() throws SamzaException {
@@ -84,27 +107,36 @@ public class ContainerStorageManager {
     ExecutorService executorService = Executors.newFixedThreadPool(this.parallelRestoreThreadPoolSize,
         new ThreadFactoryBuilder().setNameFormat(RESTORE_THREAD_NAME).build());
 
-    List<Future> taskRestoreFutures = new ArrayList<>(this.taskStorageManagers.entrySet().size());
+    List<Future> storeRestoreFutures = new ArrayList<>();
 
-    // Submit restore callable for each taskInstance
+    // Submit a restore callable for each store of each taskInstance
     this.taskStorageManagers.forEach((taskInstance, taskStorageManager) -> {
-        taskRestoreFutures.add(
-            executorService.submit(new TaskRestoreCallable(this.samzaContainerMetrics, taskInstance, taskStorageManager)));
+        List<String> storeNames = taskStorageManager.getStoresToRestore();
+        if (storeNames == null || storeNames.isEmpty()) {
+          return;
+        }
+        TaskRestoreProgress taskProgress = new TaskRestoreProgress(taskInstance.taskName(), storeNames.size());
+        storeNames.forEach(storeName -> {
+            storeRestoreFutures.add(executorService.submit(
+                new StoreRestoreCallable(taskProgress, taskInstance, taskStorageManager, storeName)));
+          });
       });
 
     // loop-over the future list to wait for each thread to finish, catch any exceptions during restore and throw
     // as samza exceptions
-    for (Future future : taskRestoreFutures) {
-      try {
-        future.get();
-      } catch (Exception e) {
-        LOG.error("Exception when restoring ", e);
-        throw new SamzaException("Exception when restoring ", e);
+    try {
+      for (Future future : storeRestoreFutures) {
+        try {
+          future.get();
+        } catch (Exception e) {
+          LOG.error("Exception when restoring ", e);
+          throw new SamzaException("Exception when restoring ", e);
+        }
       }
+    } finally {
+      executorService.shutdownNow();
     }
 
-    executorService.shutdown();
-
     // Stop consumers
     this.systemConsumers.values().forEach(systemConsumer -> systemConsumer.stop());
 
@@ -124,34 +156,71 @@ public class ContainerStorageManager {
     LOG.info("Shutdown complete");
   }
 
-  /** Callable for performing the restoreStores on a taskStorage manager and emitting task-restoration metric.
+  private StoreRestorationMetrics getStoreRestorationMetrics(TaskName taskName, String storeName) {
+    Map<TaskName, Map<String, StoreRestorationMetrics>> metrics = this.samzaContainerMetrics.storeRestorationMetrics();
+    Map<String, StoreRestorationMetrics> taskMetrics = metrics == null ? null : metrics.get(taskName);
+    return taskMetrics == null ? null : taskMetrics.get(storeName);
+  }
+
+  /**
+   * Tracks the stores of a task that are still being restored, to emit the task-restoration metric once the
+   * last one is done.
+   */
+  private class TaskRestoreProgress {
+    private final TaskName taskName;
+    private final AtomicInteger remainingStores;
+    private final long startTime = System.currentTimeMillis();
+
+    private TaskRestoreProgress(TaskName taskName, int numStores) {
+      this.taskName = taskName;
+      this.remainingStores = new AtomicInteger(numStores);
+    }
+
+    private void storeRestored() {
+      if (this.remainingStores.decrementAndGet() == 0) {
+        long timeToRestore = System.currentTimeMillis() - this.startTime;
+        Map<TaskName, Gauge<Object>> taskMetrics = samzaContainerMetrics.taskStoreRestorationMetrics();
+        Gauge taskGauge = taskMetrics == null ? null : taskMetrics.get(this.taskName);
+
+        if (taskGauge != null) {
+          taskGauge.set(timeToRestore);
+        }
+        LOG.info("Restored stores in task instance {} in {} ms", this.taskName.getTaskName(), timeToRestore);
+      }
+    }
+  }
+
+  /** Callable for restoring a store of a taskStorage manager and emitting the store- and task-restoration metrics.
    *
    */
-  private class TaskRestoreCallable implements Callable<Void> {
+  private class StoreRestoreCallable implements Callable<Void> {
 
-    private TaskInstance taskInstance;
-    private TaskStorageManager taskStorageManager;
-    private SamzaContainerMetrics samzaContainerMetrics;
+    private final TaskRestoreProgress taskProgress;
+    private final TaskInstance taskInstance;
+    private final TaskStorageManager taskStorageManager;
+    private final String storeName;
 
-    public TaskRestoreCallable(SamzaContainerMetrics samzaContainerMetrics, TaskInstance taskInstance,
-        TaskStorageManager taskStorageManager) {
-      this.samzaContainerMetrics = samzaContainerMetrics;
+    public StoreRestoreCallable(TaskRestoreProgress taskProgress, TaskInstance taskInstance,
+        TaskStorageManager taskStorageManager, String storeName) {
+      this.taskProgress = taskProgress;
       this.taskInstance = taskInstance;
       this.taskStorageManager = taskStorageManager;
+      this.storeName = storeName;
     }
 
     @Override
     public Void call() {
       long startTime = System.currentTimeMillis();
-      LOG.info("Starting stores in task instance {}", this.taskInstance.taskName().getTaskName());
-      taskStorageManager.restoreStores();
+      TaskName taskName = this.taskInstance.taskName();
+      LOG.info("Starting store {} in task instance {}", this.storeName, taskName.getTaskName());
+      StoreRestorationMetrics storeMetrics = getStoreRestorationMetrics(taskName, this.storeName);
+      taskStorageManager.restoreStore(this.storeName, restoreThrottler, storeMetrics);
       long timeToRestore = System.currentTimeMillis() - startTime;
-      Gauge taskGauge = this.samzaContainerMetrics.taskStoreRestorationMetrics()
-          .getOrDefault(this.taskInstance.taskName().getTaskName(), null);
 
-      if (taskGauge != null) {
-        taskGauge.set(timeToRestore);
+      if (storeMetrics != null) {
+        storeMetrics.restoreTime().set(timeToRestore);
       }
+      this.taskProgress.storeRestored();
 
       return null;
     }
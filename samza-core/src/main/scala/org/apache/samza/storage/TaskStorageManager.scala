@@ -22,12 +22,15 @@ package org.apache.samza.storage
 import java.io._
 import java.util
 
+import com.google.common.util.concurrent.RateLimiter
 import org.apache.samza.config.StorageConfig
 import org.apache.samza.{Partition, SamzaException}
-import org.apache.samza.container.TaskName
+import org.apache.samza.container.{StoreRestorationMetrics, TaskName}
 import org.apache.samza.system._
 import org.apache.samza.util.{Clock, FileUtil, Logging}
 
+import scala.collection.JavaConverters._
+
 object TaskStorageManager {
   def getStoreDir(storeBaseDir: File, storeName: String) = {
     new File(storeBaseDir, storeName)
@@ -65,11 +68,22 @@ class TaskStorageManager(
   }
 
   var changeLogOldestOffsets: Map[SystemStream, String] = Map()
+  var changeLogNewestOffsets: Map[SystemStream, String] = Map()
   val fileOffsets: util.Map[SystemStreamPartition, String] = new util.HashMap[SystemStreamPartition, String]()
   val offsetFileName = "OFFSET"
 
   def getStore(storeName: String): Option[StorageEngine] = taskStores.get(storeName)
 
+  /**
+   * The total size of the files of the persisted stores of the task on disk.
+   */
+  def getPersistedStoreSizeBytes: Long = {
+    persistedStores.keys.map(storeName => {
+      val storeBaseDir = if (taskStores(storeName).getStoreProperties.isLoggedStore) loggedStoreBaseDir else nonLoggedStoreBaseDir
+      FileUtil.getSizeBytes(TaskStorageManager.getStorePartitionDir(storeBaseDir, storeName, taskName))
+    }).sum
+  }
+
   def init {
     cleanBaseDirs()
     setupBaseDirs()
@@ -155,6 +169,10 @@ class TaskStorageManager(
 
     changeLogOldestOffsets = getChangeLogOldestOffsetsForPartition(partition, changeLogMetadata)
     info("Assigning oldest change log offsets for taskName %s: %s" format (taskName, changeLogOldestOffsets))
+    changeLogNewestOffsets = changeLogMetadata
+      .mapValues(_.getSystemStreamPartitionMetadata.get(partition))
+      .filter(_._2 != null)
+      .mapValues(_.getNewestOffset)
   }
 
   private def registerSSPs() {
@@ -201,17 +219,37 @@ class TaskStorageManager(
   def restoreStores() {
     debug("Restoring stores for task: %s." format taskName.getTaskName)
 
-    for ((storeName, store) <- taskStoresToRestore) {
-      if (changeLogSystemStreams.contains(storeName)) {
-        val systemStream = changeLogSystemStreams(storeName)
-        val systemStreamPartition = new SystemStreamPartition(systemStream, partition)
-        val systemConsumer = storeConsumers(storeName)
-        val systemConsumerIterator = new SystemStreamPartitionIterator(systemConsumer, systemStreamPartition)
-        store.restore(systemConsumerIterator)
-      }
+    for (storeName <- getStoresToRestore.asScala) {
+      restoreStore(storeName, null, null)
     }
   }
 
+  /**
+   * Returns the names of the stores that need to be restored from their changelogs, once the manager is initialized.
+   */
+  def getStoresToRestore: util.List[String] = {
+    taskStoresToRestore.keys.filter(changeLogSystemStreams.contains).toList.asJava
+  }
+
+  /**
+   * Restores a store from its changelog. Different stores may be restored concurrently.
+   *
+   * @param storeName the store to restore
+   * @param throttler the rate limiter to acquire a permit from for every restored byte, or null to not throttle
+   * @param metrics the metrics to track the progress of the restore in, or null
+   */
+  def restoreStore(storeName: String, throttler: RateLimiter, metrics: StoreRestorationMetrics) {
+    debug("Restoring store %s for task: %s." format (storeName, taskName.getTaskName))
+
+    val store = taskStoresToRestore(storeName)
+    val systemStream = changeLogSystemStreams(storeName)
+    val systemStreamPartition = new SystemStreamPartition(systemStream, partition)
+    val systemConsumer = storeConsumers(storeName)
+    val systemConsumerIterator = new SystemStreamPartitionIterator(systemConsumer, systemStreamPartition)
+    store.restore(new StoreRestoreIterator(systemConsumerIterator, throttler, metrics,
+      changeLogNewestOffsets.getOrElse(systemStream, null), clock))
+  }
+
   def flush() {
     debug("Flushing stores.")
 
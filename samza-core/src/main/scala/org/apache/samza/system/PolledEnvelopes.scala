@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.samza.system
+
+import java.util
+import java.util.concurrent.{Callable, ExecutionException, ExecutorService, Future, FutureTask, RejectedExecutionException}
+
+import scala.util.Try
+
+/**
+ * The envelopes polled for a SystemStreamPartition, in the order they are handed to the MessageChooser.
+ *
+ * Without an executor, envelopes are deserialized as they are removed. With an executor, the envelopes after
+ * the first are deserialized on the executor in batches of batchSize, at most two batches ahead of the envelope
+ * removed last. The caller then usually finds envelopes already deserialized, while only a bounded number of
+ * deserialized envelopes is buffered per SystemStreamPartition. The first envelope is deserialized by the caller,
+ * since it's usually handed to the chooser right away.
+ *
+ * Not thread safe. Deserialization errors are thrown when the envelope is removed. Batches that can't be submitted
+ * because the executor was shut down are deserialized by the caller.
+ */
+private[system] class PolledEnvelopes(
+  envelopes: util.List[IncomingMessageEnvelope],
+  deserialize: IncomingMessageEnvelope => IncomingMessageEnvelope,
+  executor: ExecutorService = null,
+  batchSize: Int = 1) {
+
+  private val rawEnvelopes = envelopes.toArray(new Array[IncomingMessageEnvelope](envelopes.size))
+  private val numBatches = if (executor == null || rawEnvelopes.length < 2) 0 else (rawEnvelopes.length - 2) / batchSize + 1
+  private val batches = new Array[Future[Array[Try[IncomingMessageEnvelope]]]](numBatches)
+  private var batchesSubmitted = 0
+  private var next = 0
+
+  submitBatches(0)
+
+  def size = rawEnvelopes.length - next
+
+  def remove(): IncomingMessageEnvelope = {
+    if (next >= rawEnvelopes.length) {
+      throw new NoSuchElementException
+    }
+    val index = next
+    next += 1
+
+    if (index == 0 || numBatches == 0) {
+      val rawEnvelope = rawEnvelopes(index)
+      rawEnvelopes(index) = null
+      deserialize(rawEnvelope)
+    } else {
+      val batch = (index - 1) / batchSize
+      val offset = (index - 1) % batchSize
+      submitBatches(batch)
+      val deserialized = try {
+        batches(batch).get
+      } catch {
+        case e: ExecutionException => throw e.getCause
+      }
+      if (offset == deserialized.length - 1) {
+        // Let go of the batch once all its envelopes have been removed
+        batches(batch) = null
+      }
+      deserialized(offset).get
+    }
+  }
+
+  /**
+   * Submits the batches up to the one after the current batch.
+   */
+  private def submitBatches(currentBatch: Int) {
+    while (batchesSubmitted < numBatches && batchesSubmitted <= currentBatch + 1) {
+      val start = 1 + batchesSubmitted * batchSize
+      val end = math.min(start + batchSize, rawEnvelopes.length)
+      val task = new Callable[Array[Try[IncomingMessageEnvelope]]] {
+        override def call() = {
+          val deserialized = new Array[Try[IncomingMessageEnvelope]](end - start)
+          for (i <- start until end) {
+            deserialized(i - start) = Try(deserialize(rawEnvelopes(i)))
+          }
+          deserialized
+        }
+      }
+      batches(batchesSubmitted) = try {
+        executor.submit(task)
+      } catch {
+        case _: RejectedExecutionException =>
+          // The executor was shut down by stopping the SystemConsumers. Deserialize on this thread instead.
+          val futureTask = new FutureTask(task)
+          futureTask.run()
+          futureTask
+      }
+      batchesSubmitted += 1
+    }
+  }
+}
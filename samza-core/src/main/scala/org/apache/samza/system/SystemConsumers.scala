@@ -21,23 +21,25 @@ package org.apache.samza.system
 
 
 import java.util
-import java.util.concurrent.TimeUnit
+import java.util.concurrent.{ExecutorService, Executors, TimeUnit}
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder
 import scala.collection.JavaConverters._
 import org.apache.samza.serializers.SerdeManager
 import org.apache.samza.util.{Logging, TimerUtil}
 import org.apache.samza.system.chooser.MessageChooser
 import org.apache.samza.SamzaException
-import java.util.ArrayDeque
 import java.util.Collections
 import java.util.HashSet
 import java.util.HashMap
-import java.util.Queue
 import java.util.Set
 
 object SystemConsumers {
   val DEFAULT_POLL_INTERVAL_MS = 50
   val DEFAULT_NO_NEW_MESSAGES_TIMEOUT = 10
   val DEFAULT_DROP_SERIALIZATION_ERROR = false
+  val DEFAULT_DESERIALIZATION_THREADS = 0
+  val DEFAULT_DESERIALIZATION_BATCH_SIZE = 100
 }
 
 /**
@@ -106,13 +108,34 @@ class SystemConsumers (
    * Clock can be used to inject a custom clock when mocking this class in
    * tests. The default implementation returns the current system clock time.
    */
-  val clock: () => Long = () => System.nanoTime()) extends Logging with TimerUtil {
+  val clock: () => Long = () => System.nanoTime(),
+
+  /**
+   * The number of threads that deserialize polled messages ahead of the
+   * MessageChooser. If set to 0, messages are deserialized on the thread
+   * calling choose, when the chooser is updated with them. Serdes must be
+   * thread safe when this is more than 0.
+   */
+  deserializationThreads: Int = SystemConsumers.DEFAULT_DESERIALIZATION_THREADS,
+
+  /**
+   * The number of polled messages of a SystemStreamPartition deserialized
+   * together by a deserialization thread. At most two batches per
+   * SystemStreamPartition are deserialized ahead of the MessageChooser.
+   */
+  deserializationBatchSize: Int = SystemConsumers.DEFAULT_DESERIALIZATION_BATCH_SIZE) extends Logging with TimerUtil {
 
   /**
    * A buffer of incoming messages grouped by SystemStreamPartition. These
    * messages are handed out to the MessageChooser as it needs them.
    */
-  private val unprocessedMessagesBySSP = new HashMap[SystemStreamPartition, Queue[IncomingMessageEnvelope]]()
+  private val unprocessedMessagesBySSP = new HashMap[SystemStreamPartition, PolledEnvelopes]()
+
+  /**
+   * Deserializes polled messages ahead of the MessageChooser, if
+   * deserializationThreads is more than 0.
+   */
+  private var deserializationExecutor: ExecutorService = null
 
   /**
    * Set of SSPs that are currently at end-of-stream.
@@ -146,6 +169,7 @@ class SystemConsumers (
 
   debug("Got stream consumers: %s" format consumers)
   debug("Got no new message timeout: %s" format noNewMessagesTimeout)
+  debug("Got deserialization threads: %s" format deserializationThreads)
 
   metrics.setTimeout(() => timeout)
   metrics.setNeededByChooser(() => emptySystemStreamPartitionsBySystem.size)
@@ -159,6 +183,11 @@ class SystemConsumers (
       .groupBy(_.getSystem)
       .mapValues(systemStreamPartitions => new util.HashSet(systemStreamPartitions.toSeq.asJava))
 
+    if (deserializationThreads > 0) {
+      deserializationExecutor = Executors.newFixedThreadPool(deserializationThreads,
+        new ThreadFactoryBuilder().setNameFormat("Samza Deserialization Thread-%d").setDaemon(true).build())
+    }
+
     consumers
       .keySet
       .foreach(metrics.registerSystem)
@@ -178,6 +207,11 @@ class SystemConsumers (
     consumers.values.foreach(_.stop)
 
     chooser.stop
+
+    if (deserializationExecutor != null) {
+      deserializationExecutor.shutdown
+      deserializationExecutor = null
+    }
   }
 
 
@@ -191,7 +225,7 @@ class SystemConsumers (
     }
 
     metrics.registerSystemStreamPartition(systemStreamPartition)
-    unprocessedMessagesBySSP.put(systemStreamPartition, new ArrayDeque[IncomingMessageEnvelope]())
+    unprocessedMessagesBySSP.put(systemStreamPartition, newPolledEnvelopes(Collections.emptyList()))
     chooser.register(systemStreamPartition, offset)
 
     try {
@@ -290,12 +324,11 @@ class SystemConsumers (
       while (sspAndEnvelopeIterator.hasNext) {
         val sspAndEnvelope = sspAndEnvelopeIterator.next
         val systemStreamPartition = sspAndEnvelope.getKey
-        val envelopes = new ArrayDeque(sspAndEnvelope.getValue)
-        val numEnvelopes = envelopes.size
+        val numEnvelopes = sspAndEnvelope.getValue.size
         totalUnprocessedMessages += numEnvelopes
 
         if (numEnvelopes > 0) {
-          unprocessedMessagesBySSP.put(systemStreamPartition, envelopes)
+          unprocessedMessagesBySSP.put(systemStreamPartition, newPolledEnvelopes(sspAndEnvelope.getValue))
 
           // Update the chooser if it needs a message for this SSP.
           if (emptySystemStreamPartitionsBySystem.get(systemStreamPartition.getSystem).remove(systemStreamPartition)) {
@@ -338,9 +371,8 @@ class SystemConsumers (
     val q = unprocessedMessagesBySSP.get(systemStreamPartition)
 
     while (q.size > 0 && !updated) {
-      val rawEnvelope = q.remove
       val deserializedEnvelope = try {
-        Some(serdeManager.fromBytes(rawEnvelope))
+        Some(q.remove)
       } catch {
         case e: Throwable if !dropDeserializationError =>
           throw new SystemConsumersException(
@@ -363,6 +395,10 @@ class SystemConsumers (
 
     updated
   }
+
+  private def newPolledEnvelopes(envelopes: util.List[IncomingMessageEnvelope]) = {
+    new PolledEnvelopes(envelopes, envelope => serdeManager.fromBytes(envelope), deserializationExecutor, deserializationBatchSize)
+  }
 }
 
 /**
@@ -102,6 +102,21 @@ object FileUtil {
     }
   }
 
+  /**
+    * Recursively sums the sizes of a directory (or file) and all sub-directories. Equivalent
+    * to du -sb. Returns 0 if the file doesn't exist.
+    */
+  def getSizeBytes(file: File): Long = {
+    if (file == null) {
+      0L
+    } else if (file.isDirectory) {
+      val files = file.listFiles()
+      if (files != null) files.map(getSizeBytes).sum else 0L
+    } else {
+      file.length()
+    }
+  }
+
   /**
     * Generates the CRC32 checksum code for any given data
     * @param data The string for which checksum has to be generated
@@ -90,4 +90,17 @@ public class TestTaskConfigJava {
     Config config4 = new MapConfig(ImmutableMap.of("task.commit.ms", "-1"));
     assertFalse(new TaskConfig(config4).isAutoCommitEnabled());
   }
+
+  @Test
+  public void testGetDeserializationBatchSize() {
+    assertEquals(100, new TaskConfig(new MapConfig()).getDeserializationBatchSize());
+    Config config = new MapConfig(ImmutableMap.of("task.consumer.deserialization.batch.size", "10"));
+    assertEquals(10, new TaskConfig(config).getDeserializationBatchSize());
+  }
+
+  @Test(expected = ConfigException.class)
+  public void testGetDeserializationBatchSizeRejectsZero() {
+    Config config = new MapConfig(ImmutableMap.of("task.consumer.deserialization.batch.size", "0"));
+    new TaskConfig(config).getDeserializationBatchSize();
+  }
 }
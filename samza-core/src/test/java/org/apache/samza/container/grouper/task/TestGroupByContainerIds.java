@@ -251,4 +251,70 @@ public class TestGroupByContainerIds {
     assertEquals(1, actualContainerModels.size());
     assertEquals(ImmutableSet.of(expectedContainerModel), actualContainerModels);
   }
+
+  @Test
+  public void testGroupWithPreviousContainersKeepsTasksWhenContainerAdded() {
+    Set<TaskModel> taskModels = generateTaskModels(12);
+    Set<ContainerModel> previousContainers = buildSimpleGrouper().group(taskModels, ImmutableList.of("0", "1", "2"));
+    Map<TaskName, String> previousContainerIds = getContainerIds(previousContainers);
+
+    Set<ContainerModel> containers =
+        buildSimpleGrouper().group(taskModels, ImmutableList.of("0", "1", "2", "3"), previousContainerIds);
+
+    Map<TaskName, String> containerIds = getContainerIds(containers);
+    assertEquals(12, containerIds.size());
+    for (ContainerModel container : containers) {
+      assertEquals(3, container.getTasks().size());
+    }
+    // only the 3 tasks of the new container moved
+    long movedTasks = containerIds.entrySet().stream()
+        .filter(entry -> !entry.getValue().equals(previousContainerIds.get(entry.getKey())))
+        .count();
+    assertEquals(3, movedTasks);
+  }
+
+  @Test
+  public void testGroupWithPreviousContainersKeepsTasksWhenContainerRemoved() {
+    Set<TaskModel> taskModels = generateTaskModels(10);
+    Set<ContainerModel> previousContainers = buildSimpleGrouper().group(taskModels, ImmutableList.of("0", "1", "2"));
+    Map<TaskName, String> previousContainerIds = getContainerIds(previousContainers);
+
+    Set<ContainerModel> containers =
+        buildSimpleGrouper().group(taskModels, ImmutableList.of("0", "2"), previousContainerIds);
+
+    Map<TaskName, String> containerIds = getContainerIds(containers);
+    assertEquals(10, containerIds.size());
+    for (ContainerModel container : containers) {
+      assertEquals(5, container.getTasks().size());
+    }
+    // only the tasks of the removed container moved
+    containerIds.forEach((taskName, containerId) -> {
+        if (!"1".equals(previousContainerIds.get(taskName))) {
+          assertEquals(previousContainerIds.get(taskName), containerId);
+        }
+      });
+  }
+
+  @Test
+  public void testGroupWithPreviousContainersBalancesNewTasks() {
+    Set<TaskModel> previousTaskModels = generateTaskModels(4);
+    Map<TaskName, String> previousContainerIds =
+        getContainerIds(buildSimpleGrouper().group(previousTaskModels, ImmutableList.of("0", "1")));
+
+    Set<ContainerModel> containers =
+        buildSimpleGrouper().group(generateTaskModels(7), ImmutableList.of("0", "1"), previousContainerIds);
+
+    Map<TaskName, String> containerIds = getContainerIds(containers);
+    assertEquals(7, containerIds.size());
+    previousContainerIds.forEach((taskName, containerId) -> assertEquals(containerId, containerIds.get(taskName)));
+    Set<Integer> containerSizes = containers.stream().map(c -> c.getTasks().size()).collect(Collectors.toSet());
+    assertEquals(ImmutableSet.of(3, 4), containerSizes);
+  }
+
+  private static Map<TaskName, String> getContainerIds(Set<ContainerModel> containers) {
+    Map<TaskName, String> containerIds = new HashMap<>();
+    containers.forEach(container -> container.getTasks().keySet()
+        .forEach(taskName -> containerIds.put(taskName, container.getId())));
+    return containerIds;
+  }
 }
@@ -0,0 +1,198 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.samza.container.grouper.task;
+
+import com.google.common.collect.ImmutableList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import org.apache.samza.SamzaException;
+import org.apache.samza.config.Config;
+import org.apache.samza.config.JobConfig;
+import org.apache.samza.config.MapConfig;
+import org.apache.samza.config.TaskConfigJava;
+import org.apache.samza.container.LocalityManager;
+import org.apache.samza.job.model.ContainerModel;
+import org.apache.samza.job.model.TaskModel;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.powermock.api.mockito.PowerMockito;
+import org.powermock.core.classloader.annotations.PrepareForTest;
+import org.powermock.modules.junit4.PowerMockRunner;
+
+import static org.apache.samza.container.mock.ContainerMocks.*;
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+@RunWith(PowerMockRunner.class)
+@PrepareForTest({TaskAssignmentManager.class, TaskLoadManager.class, GroupByTaskLoad.class})
+public class TestGroupByTaskLoad {
+  private TaskAssignmentManager taskAssignmentManager;
+  private TaskLoadManager taskLoadManager;
+
+  @Before
+  public void setup() throws Exception {
+    taskAssignmentManager = mock(TaskAssignmentManager.class);
+    taskLoadManager = mock(TaskLoadManager.class);
+    PowerMockito.whenNew(TaskAssignmentManager.class).withAnyArguments().thenReturn(taskAssignmentManager);
+    PowerMockito.whenNew(TaskLoadManager.class).withAnyArguments().thenReturn(taskLoadManager);
+    when(taskAssignmentManager.readTaskAssignment()).thenReturn(Collections.emptyMap());
+    when(taskLoadManager.readTaskLoads()).thenReturn(Collections.emptyMap());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testGroupFewerTasksThanContainers() {
+    new GroupByTaskLoad(getConfig(2)).group(generateTaskModels(1));
+  }
+
+  @Test
+  public void testGroupWithoutLoadsBalancesTaskCount() {
+    Set<ContainerModel> containers = new GroupByTaskLoad(getConfig(3)).group(generateTaskModels(7));
+
+    assertEquals(3, containers.size());
+    Set<Integer> sizes = new HashSet<>();
+    containers.forEach(container -> sizes.add(container.getTasks().size()));
+    assertEquals(new HashSet<>(ImmutableList.of(2, 3)), sizes);
+  }
+
+  @Test
+  public void testGroupBalancesSkewedLoads() {
+    Set<TaskModel> taskModels = generateTaskModels(4);
+    Map<String, TaskLoad> loads = new HashMap<>();
+    // one hot task with as much load as the three others together
+    loads.put(getTaskName(0).getTaskName(), new TaskLoad(300, 300, 0, 0.3));
+    loads.put(getTaskName(1).getTaskName(), new TaskLoad(100, 100, 0, 0.1));
+    loads.put(getTaskName(2).getTaskName(), new TaskLoad(100, 100, 0, 0.1));
+    loads.put(getTaskName(3).getTaskName(), new TaskLoad(100, 100, 0, 0.1));
+
+    Map<String, ContainerModel> containers =
+        toMap(new GroupByTaskLoad(getConfig(2)).group(taskModels, loads, Collections.emptyMap()));
+
+    ContainerModel hotContainer = containers.get("0").getTasks().containsKey(getTaskName(0))
+        ? containers.get("0") : containers.get("1");
+    ContainerModel otherContainer = hotContainer == containers.get("0") ? containers.get("1") : containers.get("0");
+    assertEquals(1, hotContainer.getTasks().size());
+    assertEquals(3, otherContainer.getTasks().size());
+  }
+
+  @Test
+  public void testGroupKeepsPreviousAssignmentWithinTolerance() {
+    Set<TaskModel> taskModels = generateTaskModels(4);
+    Map<String, String> previousContainerIds = new HashMap<>();
+    previousContainerIds.put(getTaskName(0).getTaskName(), "1");
+    previousContainerIds.put(getTaskName(1).getTaskName(), "1");
+    previousContainerIds.put(getTaskName(2).getTaskName(), "0");
+    previousContainerIds.put(getTaskName(3).getTaskName(), "0");
+
+    Map<String, ContainerModel> containers =
+        toMap(new GroupByTaskLoad(getConfig(2)).group(taskModels, Collections.emptyMap(), previousContainerIds));
+
+    assertTrue(containers.get("1").getTasks().containsKey(getTaskName(0)));
+    assertTrue(containers.get("1").getTasks().containsKey(getTaskName(1)));
+    assertTrue(containers.get("0").getTasks().containsKey(getTaskName(2)));
+    assertTrue(containers.get("0").getTasks().containsKey(getTaskName(3)));
+  }
+
+  @Test
+  public void testGroupMovesTasksOfOverloadedContainer() {
+    Set<TaskModel> taskModels = generateTaskModels(4);
+    Map<String, TaskLoad> loads = new HashMap<>();
+    loads.put(getTaskName(0).getTaskName(), new TaskLoad(100, 0, 0, 0));
+    loads.put(getTaskName(1).getTaskName(), new TaskLoad(100, 0, 0, 0));
+    loads.put(getTaskName(2).getTaskName(), new TaskLoad(100, 0, 0, 0));
+    loads.put(getTaskName(3).getTaskName(), new TaskLoad(100, 0, 0, 0));
+    Map<String, String> previousContainerIds = new HashMap<>();
+    previousContainerIds.put(getTaskName(0).getTaskName(), "0");
+    previousContainerIds.put(getTaskName(1).getTaskName(), "0");
+    previousContainerIds.put(getTaskName(2).getTaskName(), "0");
+    previousContainerIds.put(getTaskName(3).getTaskName(), "1");
+
+    Map<String, ContainerModel> containers =
+        toMap(new GroupByTaskLoad(getConfig(2)).group(taskModels, loads, previousContainerIds));
+
+    assertEquals(2, containers.get("0").getTasks().size());
+    assertEquals(2, containers.get("1").getTasks().size());
+    assertTrue(containers.get("1").getTasks().containsKey(getTaskName(3)));
+  }
+
+  @Test
+  public void testGroupAssignsNewTasksTheAverageLoad() {
+    Set<TaskModel> taskModels = generateTaskModels(4);
+    Map<String, TaskLoad> loads = new HashMap<>();
+    loads.put(getTaskName(0).getTaskName(), new TaskLoad(100, 0, 0, 0));
+    loads.put(getTaskName(1).getTaskName(), new TaskLoad(100, 0, 0, 0));
+    Map<String, String> previousContainerIds = new HashMap<>();
+    previousContainerIds.put(getTaskName(0).getTaskName(), "0");
+    previousContainerIds.put(getTaskName(1).getTaskName(), "1");
+
+    Map<String, ContainerModel> containers =
+        toMap(new GroupByTaskLoad(getConfig(2)).group(taskModels, loads, previousContainerIds));
+
+    assertEquals(2, containers.get("0").getTasks().size());
+    assertEquals(2, containers.get("1").getTasks().size());
+    assertTrue(containers.get("0").getTasks().containsKey(getTaskName(0)));
+    assertTrue(containers.get("1").getTasks().containsKey(getTaskName(1)));
+  }
+
+  @Test
+  public void testBalanceSavesTaskAssignments() {
+    Set<TaskModel> taskModels = generateTaskModels(2);
+    Map<String, String> previousContainerIds = new HashMap<>();
+    previousContainerIds.put(getTaskName(0).getTaskName(), "1");
+    previousContainerIds.put(getTaskName(1).getTaskName(), "0");
+    previousContainerIds.put(getTaskName(2).getTaskName(), "0");
+    when(taskAssignmentManager.readTaskAssignment()).thenReturn(previousContainerIds);
+
+    new GroupByTaskLoad(getConfig(2)).balance(taskModels, mock(LocalityManager.class));
+
+    verify(taskAssignmentManager).writeTaskContainerMapping(getTaskName(0).getTaskName(), "1");
+    verify(taskAssignmentManager).writeTaskContainerMapping(getTaskName(1).getTaskName(), "0");
+    verify(taskAssignmentManager).deleteTaskContainerMappings(Collections.singleton(getTaskName(2).getTaskName()));
+    verify(taskAssignmentManager).close();
+    verify(taskLoadManager).close();
+  }
+
+  @Test
+  public void testTaskLoadEncoding() {
+    TaskLoad load = new TaskLoad(120.5, 61440.0, 1048576L, 0.25);
+    assertEquals(load, TaskLoad.decode(load.encode()));
+  }
+
+  @Test(expected = SamzaException.class)
+  public void testTaskLoadDecodingInvalidLoad() {
+    TaskLoad.decode("1.0,abc");
+  }
+
+  private static Map<String, ContainerModel> toMap(Set<ContainerModel> containers) {
+    Map<String, ContainerModel> containersMap = new HashMap<>();
+    containers.forEach(container -> containersMap.put(container.getId(), container));
+    return containersMap;
+  }
+
+  private static Config getConfig(int containerCount) {
+    Map<String, String> config = new HashMap<>();
+    config.put(JobConfig.JOB_CONTAINER_COUNT(), String.valueOf(containerCount));
+    config.put(TaskConfigJava.TASK_LOAD_BALANCE_TOLERANCE, "0.1");
+    return new MapConfig(config);
+  }
+}
@@ -32,9 +32,15 @@ import org.apache.samza.job.model.TaskModel;
 import org.apache.samza.metrics.MetricsRegistryMap;
 import org.apache.samza.operators.functions.JoinFunction;
 import org.apache.samza.operators.impl.store.TestInMemoryStore;
+import org.apache.samza.operators.impl.store.TimeSeriesKey;
+import org.apache.samza.operators.impl.store.TimeSeriesKeySerde;
+import org.apache.samza.operators.impl.store.TimeSeriesStore;
+import org.apache.samza.operators.impl.store.TimeSeriesStoreImpl;
 import org.apache.samza.operators.impl.store.TimestampedValueSerde;
 import org.apache.samza.serializers.IntegerSerde;
 import org.apache.samza.serializers.KVSerde;
+import org.apache.samza.storage.kv.KeyValueIterator;
+import org.apache.samza.storage.kv.KeyValueStore;
 import org.apache.samza.system.IncomingMessageEnvelope;
 import org.apache.samza.system.OutgoingMessageEnvelope;
 import org.apache.samza.system.SystemStream;
@@ -57,6 +63,7 @@ import java.util.Map;
 import java.util.Set;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
@@ -297,8 +304,124 @@ public class TestJoinOperator {
     assertTrue(output.isEmpty());
   }
 
+  @Test
+  public void joinAllEmitsAllMatches() throws Exception {
+    StreamApplicationDescriptorImpl streamAppDesc = this.getTestJoinStreamGraph(new TestJoinFunction(), true);
+    StreamOperatorTask sot = createStreamOperatorTask(new SystemClock(), streamAppDesc, true);
+    List<Integer> output = new ArrayList<>();
+    MessageCollector messageCollector = envelope -> output.add((Integer) envelope.getMessage());
+
+    // push messages to first stream twice with different values
+    numbers.forEach(n -> sot.process(new FirstStreamIME(n, n), messageCollector, taskCoordinator));
+    numbers.forEach(n -> sot.process(new FirstStreamIME(n, 2 * n), messageCollector, taskCoordinator));
+    // push messages to second stream with same keys
+    numbers.forEach(n -> sot.process(new SecondStreamIME(n, n), messageCollector, taskCoordinator));
+
+    assertEquals(20, output.size());
+    int outputSum = output.stream().reduce(0, (s, m) -> s + m);
+    assertEquals(275, outputSum); // should join with both messages in the first stream
+
+    output.clear();
+    // push messages to first stream again, which should join with all messages in the second stream
+    numbers.forEach(n -> sot.process(new FirstStreamIME(n, n), messageCollector, taskCoordinator));
+    assertEquals(10, output.size());
+    assertEquals(110, (int) output.stream().reduce(0, (s, m) -> s + m));
+  }
+
+  @Test
+  public void joinAllRemovesExpiredMessages() throws Exception {
+    TestClock testClock = new TestClock();
+    StreamApplicationDescriptorImpl streamAppDesc = this.getTestJoinStreamGraph(new TestJoinFunction(), true);
+    StreamOperatorTask sot = createStreamOperatorTask(testClock, streamAppDesc, true);
+    List<Integer> output = new ArrayList<>();
+    MessageCollector messageCollector = envelope -> output.add((Integer) envelope.getMessage());
+
+    // push messages to first stream
+    numbers.forEach(n -> sot.process(new FirstStreamIME(n, n), messageCollector, taskCoordinator));
+
+    testClock.advanceTime(JOIN_TTL.minus(Duration.ofMinutes(1)));
+    // push messages to first stream again before the first ones expire
+    numbers.forEach(n -> sot.process(new FirstStreamIME(n, 2 * n), messageCollector, taskCoordinator));
+
+    testClock.advanceTime(Duration.ofMinutes(2)); // 1 minute after ttl of the first messages
+    sot.window(messageCollector, taskCoordinator); // should expire only the first messages
+
+    // push messages to second stream with same key
+    numbers.forEach(n -> sot.process(new SecondStreamIME(n, n), messageCollector, taskCoordinator));
+
+    assertEquals(10, output.size());
+    assertEquals(165, (int) output.stream().reduce(0, (s, m) -> s + m)); // should only join the second messages
+
+    output.clear();
+    testClock.advanceTime(JOIN_TTL);
+    sot.window(messageCollector, taskCoordinator); // should expire all messages
+    numbers.forEach(n -> sot.process(new FirstStreamIME(n, n), messageCollector, taskCoordinator));
+    assertTrue(output.isEmpty());
+  }
+
+  @Test
+  public void joinAllRemovesExpiredMessagesRestoredFromChangelog() throws Exception {
+    TestClock testClock = new TestClock();
+    // messages restored from the changelog before the task starts
+    KeyValueStore<TimeSeriesKey<Integer>, KV<Integer, Integer>> leftStore = newTimeSeriesStore();
+    KeyValueStore<TimeSeriesKey<Void>, Integer> leftTimeIndex = newTimeIndexStore();
+    TimeSeriesStore<Integer, KV<Integer, Integer>> restored = new TimeSeriesStoreImpl<>(leftStore, leftTimeIndex);
+    numbers.forEach(n -> restored.put(n, KV.of(n, n), testClock.currentTimeMillis()));
+
+    StreamApplicationDescriptorImpl streamAppDesc = this.getTestJoinStreamGraph(new TestJoinFunction(), true);
+    StreamOperatorTask sot = createStreamOperatorTask(testClock, streamAppDesc, leftStore, newTimeSeriesStore(),
+        leftTimeIndex, newTimeIndexStore());
+    List<Integer> output = new ArrayList<>();
+    MessageCollector messageCollector = envelope -> output.add((Integer) envelope.getMessage());
+
+    testClock.advanceTime(Duration.ofMinutes(1));
+    // push messages to first stream, which are not restored
+    numbers.forEach(n -> sot.process(new FirstStreamIME(n, 2 * n), messageCollector, taskCoordinator));
+
+    testClock.advanceTime(JOIN_TTL.minus(Duration.ofMinutes(1)));
+    sot.window(messageCollector, taskCoordinator); // should expire only the restored messages
+    KeyValueIterator<TimeSeriesKey<Integer>, KV<Integer, Integer>> remaining = leftStore.all();
+    int numRemaining = 0;
+    while (remaining.hasNext()) {
+      assertTrue(remaining.next().getKey().getTimestamp() > testClock.currentTimeMillis() - JOIN_TTL.toMillis());
+      numRemaining++;
+    }
+    remaining.close();
+    assertEquals(10, numRemaining);
+
+    testClock.advanceTime(Duration.ofMinutes(1));
+    sot.window(messageCollector, taskCoordinator); // should expire all messages
+    assertFalse(leftStore.all().hasNext());
+    assertFalse(leftTimeIndex.all().hasNext());
+    assertTrue(output.isEmpty());
+  }
+
   private StreamOperatorTask createStreamOperatorTask(Clock clock, StreamApplicationDescriptorImpl graphSpec)
       throws Exception {
+    return createStreamOperatorTask(clock, graphSpec, false);
+  }
+
+  private StreamOperatorTask createStreamOperatorTask(Clock clock, StreamApplicationDescriptorImpl graphSpec,
+      boolean multiMatch) throws Exception {
+    // need to return different stores for left and right side
+    IntegerSerde integerSerde = new IntegerSerde();
+    if (multiMatch) {
+      return createStreamOperatorTask(clock, graphSpec, newTimeSeriesStore(), newTimeSeriesStore(),
+          newTimeIndexStore(), newTimeIndexStore());
+    }
+    TimestampedValueSerde timestampedValueSerde = new TimestampedValueSerde(new KVSerde(integerSerde, integerSerde));
+    return createStreamOperatorTask(clock, graphSpec, new TestInMemoryStore(integerSerde, timestampedValueSerde),
+        new TestInMemoryStore(integerSerde, timestampedValueSerde));
+  }
+
+  private StreamOperatorTask createStreamOperatorTask(Clock clock, StreamApplicationDescriptorImpl graphSpec,
+      KeyValueStore leftStore, KeyValueStore rightStore) throws Exception {
+    return createStreamOperatorTask(clock, graphSpec, leftStore, rightStore, null, null);
+  }
+
+  private StreamOperatorTask createStreamOperatorTask(Clock clock, StreamApplicationDescriptorImpl graphSpec,
+      KeyValueStore leftStore, KeyValueStore rightStore, KeyValueStore leftTimeIndex, KeyValueStore rightTimeIndex)
+      throws Exception {
     Map<String, String> mapConfig = new HashMap<>();
     mapConfig.put("job.name", "jobName");
     mapConfig.put("job.id", "jobId");
@@ -312,20 +435,31 @@ public class TestJoinOperator {
     when(context.getTaskContext().getTaskModel()).thenReturn(taskModel);
     when(context.getTaskContext().getTaskMetricsRegistry()).thenReturn(new MetricsRegistryMap());
     when(context.getContainerContext().getContainerMetricsRegistry()).thenReturn(new MetricsRegistryMap());
-    // need to return different stores for left and right side
-    IntegerSerde integerSerde = new IntegerSerde();
-    TimestampedValueSerde timestampedValueSerde = new TimestampedValueSerde(new KVSerde(integerSerde, integerSerde));
-    when(context.getTaskContext().getStore(eq("jobName-jobId-join-j1-L")))
-        .thenReturn(new TestInMemoryStore(integerSerde, timestampedValueSerde));
-    when(context.getTaskContext().getStore(eq("jobName-jobId-join-j1-R")))
-        .thenReturn(new TestInMemoryStore(integerSerde, timestampedValueSerde));
+    when(context.getTaskContext().getStore(eq("jobName-jobId-join-j1-L"))).thenReturn(leftStore);
+    when(context.getTaskContext().getStore(eq("jobName-jobId-join-j1-R"))).thenReturn(rightStore);
+    when(context.getTaskContext().getStore(eq("jobName-jobId-join-j1-L-time-index"))).thenReturn(leftTimeIndex);
+    when(context.getTaskContext().getStore(eq("jobName-jobId-join-j1-R-time-index"))).thenReturn(rightTimeIndex);
 
     StreamOperatorTask sot = new StreamOperatorTask(graphSpec.getOperatorSpecGraph(), clock);
     sot.init(context);
     return sot;
   }
 
+  private KeyValueStore<TimeSeriesKey<Integer>, KV<Integer, Integer>> newTimeSeriesStore() {
+    IntegerSerde integerSerde = new IntegerSerde();
+    return new TestInMemoryStore(new TimeSeriesKeySerde(integerSerde), new KVSerde(integerSerde, integerSerde));
+  }
+
+  private KeyValueStore<TimeSeriesKey<Void>, Integer> newTimeIndexStore() {
+    return new TestInMemoryStore(new TimeSeriesKeySerde(null), new IntegerSerde());
+  }
+
   private StreamApplicationDescriptorImpl getTestJoinStreamGraph(TestJoinFunction joinFn) throws IOException {
+    return getTestJoinStreamGraph(joinFn, false);
+  }
+
+  private StreamApplicationDescriptorImpl getTestJoinStreamGraph(TestJoinFunction joinFn, boolean multiMatch)
+      throws IOException {
     Map<String, String> mapConfig = new HashMap<>();
     mapConfig.put("job.name", "jobName");
     mapConfig.put("job.id", "jobId");
@@ -343,8 +477,10 @@ public class TestJoinOperator {
         MessageStream<KV<Integer, Integer>> inStream = appDesc.getInputStream(inputDescriptor1);
         MessageStream<KV<Integer, Integer>> inStream2 = appDesc.getInputStream(inputDescriptor2);
 
-        inStream
-            .join(inStream2, joinFn, integerSerde, kvSerde, kvSerde, JOIN_TTL, "j1")
+        MessageStream<Integer> joined = multiMatch
+            ? inStream.joinAll(inStream2, joinFn, integerSerde, kvSerde, kvSerde, JOIN_TTL, "j1")
+            : inStream.join(inStream2, joinFn, integerSerde, kvSerde, kvSerde, JOIN_TTL, "j1");
+        joined
             .sink((message, messageCollector, taskCoordinator) -> {
                 SystemStream outputSystemStream = new SystemStream("outputSystem", "outputStream");
                 messageCollector.send(new OutgoingMessageEnvelope(outputSystemStream, message));
@@ -20,6 +20,8 @@ package org.apache.samza.operators.impl;
 
 import junit.framework.Assert;
 import org.apache.samza.SamzaException;
+import org.apache.samza.config.MapConfig;
+import org.apache.samza.config.TaskConfigJava;
 import org.apache.samza.context.Context;
 import org.apache.samza.context.MockContext;
 import org.apache.samza.operators.KV;
@@ -31,9 +33,20 @@ import org.apache.samza.task.MessageCollector;
 import org.apache.samza.task.TaskCoordinator;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 
+import static org.mockito.Matchers.anyList;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 
@@ -80,7 +93,7 @@ public class TestStreamTableJoinOperatorImpl {
     MessageCollector mockMessageCollector = mock(MessageCollector.class);
     TaskCoordinator mockTaskCoordinator = mock(TaskCoordinator.class);
 
-    StreamTableJoinOperatorImpl streamTableJoinOperator = new StreamTableJoinOperatorImpl(mockJoinOpSpec, context);
+    StreamTableJoinOperatorImpl streamTableJoinOperator = new StreamTableJoinOperatorImpl(mockJoinOpSpec, context, new Object());
 
     // Table has the key
     Collection<TestMessageEnvelope> result;
@@ -92,4 +105,105 @@ public class TestStreamTableJoinOperatorImpl {
     Assert.assertEquals(0, result.size());
   }
 
+  @Test
+  public void testHandleMessageAsyncBatchesLookupsAndPreservesOrder() {
+    String tableId = "t1";
+    StreamTableJoinOperatorSpec mockJoinOpSpec = mock(StreamTableJoinOperatorSpec.class);
+    when(mockJoinOpSpec.getTableId()).thenReturn(tableId);
+    when(mockJoinOpSpec.getJoinFn()).thenReturn(new ConcatJoinFunction());
+
+    List<List<String>> requestedKeys = new ArrayList<>();
+    List<CompletableFuture<Map<String, String>>> batchFutures = new ArrayList<>();
+    ReadableTable table = mock(ReadableTable.class);
+    when(table.getAllAsync(anyList())).thenAnswer(invocation -> {
+        requestedKeys.add(new ArrayList<>((List<String>) invocation.getArguments()[0]));
+        CompletableFuture<Map<String, String>> future = new CompletableFuture<>();
+        batchFutures.add(future);
+        return future;
+      });
+    Map<String, String> config = new HashMap<>();
+    config.put(TaskConfigJava.ASYNC_TABLE_JOIN_BATCH_SIZE, "2");
+    config.put(TaskConfigJava.ASYNC_TABLE_JOIN_MAX_BATCHES_IN_FLIGHT, "2");
+    Context context = new MockContext(new MapConfig(config));
+    when(context.getTaskContext().getTable(tableId)).thenReturn(table);
+
+    StreamTableJoinOperatorImpl<String, KV<String, String>, KV<String, String>, String> streamTableJoinOperator =
+        new StreamTableJoinOperatorImpl(mockJoinOpSpec, context, new Object());
+    MessageCollector mockMessageCollector = mock(MessageCollector.class);
+    TaskCoordinator mockTaskCoordinator = mock(TaskCoordinator.class);
+
+    List<CompletableFuture<Collection<String>>> results = new ArrayList<>();
+    for (String key : Arrays.asList("1", "2", "3", "1", "4", "5")) {
+      results.add(streamTableJoinOperator.handleMessageAsync(KV.of(key, "m" + key), mockMessageCollector,
+          mockTaskCoordinator).toCompletableFuture());
+    }
+
+    // The first lookup is sent right away, the next ones in full batches, up to the maximum batches in flight
+    Assert.assertEquals(Arrays.asList(Arrays.asList("1"), Arrays.asList("2", "3")), requestedKeys);
+    verify(table, never()).get(org.mockito.Matchers.any());
+
+    // A later batch completing first doesn't complete its messages before the earlier messages
+    Map<String, String> records = new HashMap<>();
+    records.put("2", "r2");
+    batchFutures.get(1).complete(records);
+    Assert.assertTrue(results.stream().noneMatch(CompletableFuture::isDone));
+    Assert.assertEquals(2, requestedKeys.size());
+
+    // Completing the first batch completes both, and sends the pending lookups
+    batchFutures.get(0).complete(Collections.singletonMap("1", "r1"));
+    Assert.assertEquals(Collections.singletonList("m1r1"), results.get(0).join());
+    Assert.assertEquals(Collections.singletonList("m2r2"), results.get(1).join());
+    Assert.assertEquals(Collections.singletonList("m3null"), results.get(2).join());
+    Assert.assertEquals(Arrays.asList("1", "4"), requestedKeys.get(2));
+    Assert.assertEquals(3, requestedKeys.size());
+
+    records = new HashMap<>();
+    records.put("1", "r1'");
+    records.put("4", "r4");
+    batchFutures.get(2).complete(records);
+    Assert.assertEquals(Collections.singletonList("m1r1'"), results.get(3).join());
+    Assert.assertEquals(Collections.singletonList("m4r4"), results.get(4).join());
+    Assert.assertFalse(results.get(5).isDone());
+    Assert.assertEquals(Arrays.asList("5"), requestedKeys.get(3));
+
+    batchFutures.get(3).completeExceptionally(new SamzaException("Lookup failed"));
+    Assert.assertTrue(results.get(5).isCompletedExceptionally());
+  }
+
+  @Test
+  public void testHandleMessageAsyncWithNullKey() {
+    String tableId = "t1";
+    StreamTableJoinOperatorSpec mockJoinOpSpec = mock(StreamTableJoinOperatorSpec.class);
+    when(mockJoinOpSpec.getTableId()).thenReturn(tableId);
+    when(mockJoinOpSpec.getJoinFn()).thenReturn(new ConcatJoinFunction());
+    ReadableTable table = mock(ReadableTable.class);
+    Context context = new MockContext();
+    when(context.getTaskContext().getTable(tableId)).thenReturn(table);
+
+    StreamTableJoinOperatorImpl<String, KV<String, String>, KV<String, String>, String> streamTableJoinOperator =
+        new StreamTableJoinOperatorImpl(mockJoinOpSpec, context, new Object());
+    CompletionStage<Collection<String>> result = streamTableJoinOperator.handleMessageAsync(KV.of(null, "m"),
+        mock(MessageCollector.class), mock(TaskCoordinator.class));
+
+    Assert.assertEquals(Collections.singletonList("mnull"), result.toCompletableFuture().join());
+    verify(table, never()).getAllAsync(anyList());
+  }
+
+  private static class ConcatJoinFunction
+      implements StreamTableJoinFunction<String, KV<String, String>, KV<String, String>, String> {
+    @Override
+    public String apply(KV<String, String> message, KV<String, String> record) {
+      return message.getValue() + (record != null ? record.getValue() : null);
+    }
+
+    @Override
+    public String getMessageKey(KV<String, String> message) {
+      return message.getKey();
+    }
+
+    @Override
+    public String getRecordKey(KV<String, String> record) {
+      return record.getKey();
+    }
+  }
 }
@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.samza.operators.impl;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.apache.samza.metrics.Counter;
+import org.apache.samza.metrics.Timer;
+import org.apache.samza.operators.triggers.Cancellable;
+import org.apache.samza.operators.triggers.FiringType;
+import org.apache.samza.testUtils.TestClock;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+
+public class TestTriggerScheduler {
+
+  @Test
+  public void testCallbacksRunInOrderOfTime() {
+    TestClock clock = new TestClock();
+    TriggerScheduler<String> scheduler = new TriggerScheduler<>(clock);
+    List<String> results = new ArrayList<>();
+    scheduler.scheduleCallback(() -> results.add("c"), 300, new TriggerKey<>(FiringType.DEFAULT, "c", 0));
+    scheduler.scheduleCallback(() -> results.add("a"), 100, new TriggerKey<>(FiringType.DEFAULT, "a", 0));
+    scheduler.scheduleCallback(() -> results.add("b1"), 200, new TriggerKey<>(FiringType.DEFAULT, "b1", 0));
+    scheduler.scheduleCallback(() -> results.add("b2"), 200, new TriggerKey<>(FiringType.DEFAULT, "b2", 0));
+    assertEquals(4, scheduler.getPendingCallbackCount());
+
+    clock.advanceTime(Duration.ofMillis(200));
+    List<TriggerKey<String>> keys = scheduler.runPendingCallbacks();
+    assertEquals(3, keys.size());
+    assertEquals("a", keys.get(0).getKey());
+    assertEquals("[a, b1, b2]", results.toString());
+    assertEquals(1, scheduler.getPendingCallbackCount());
+  }
+
+  @Test
+  public void testCancel() {
+    TestClock clock = new TestClock();
+    Counter pendingCallbacks = new Counter("pending");
+    Timer callbackLag = new Timer("lag");
+    TriggerScheduler<String> scheduler = new TriggerScheduler<>(clock, false, pendingCallbacks, callbackLag);
+    List<String> results = new ArrayList<>();
+    Cancellable a = scheduler.scheduleCallback(() -> results.add("a"), 100, new TriggerKey<>(FiringType.DEFAULT, "a", 0));
+    Cancellable b = scheduler.scheduleCallback(() -> results.add("b"), 200, new TriggerKey<>(FiringType.DEFAULT, "b", 0));
+    scheduler.scheduleCallback(() -> results.add("c"), 300, new TriggerKey<>(FiringType.DEFAULT, "c", 0));
+    assertEquals(3, pendingCallbacks.getCount());
+
+    assertTrue(b.cancel());
+    assertFalse(b.cancel());
+    assertEquals(2, pendingCallbacks.getCount());
+
+    clock.advanceTime(Duration.ofMillis(1000));
+    scheduler.runPendingCallbacks();
+    assertEquals("[a, c]", results.toString());
+    assertFalse(a.cancel());
+    assertEquals(0, pendingCallbacks.getCount());
+    assertEquals(0, scheduler.getPendingCallbackCount());
+    assertEquals(2, callbackLag.getSnapshot().getSize());
+    assertEquals(clock.currentTimeMillis() - 100, callbackLag.getSnapshot().getMax());
+  }
+
+  @Test
+  public void testRandomSchedulesAndCancels() {
+    TestClock clock = new TestClock();
+    TriggerScheduler<Integer> scheduler = new TriggerScheduler<>(clock);
+    Random random = new Random(1);
+    List<Long> results = new ArrayList<>();
+    List<Cancellable> cancellables = new ArrayList<>();
+    int numCancelled = 0;
+    for (int i = 0; i < 1000; i++) {
+      long time = random.nextInt(10000);
+      cancellables.add(scheduler.scheduleCallback(() -> results.add(time), time,
+          new TriggerKey<>(FiringType.DEFAULT, i, 0)));
+      if (random.nextBoolean() && cancellables.remove(random.nextInt(cancellables.size())).cancel()) {
+        numCancelled++;
+      }
+    }
+
+    clock.advanceTime(Duration.ofMillis(10000));
+    scheduler.runPendingCallbacks();
+    assertEquals(1000 - numCancelled, results.size());
+    for (int i = 1; i < results.size(); i++) {
+      assertTrue(results.get(i - 1) <= results.get(i));
+    }
+  }
+}
@@ -41,6 +41,7 @@ import org.apache.samza.context.TaskContextImpl;
 import org.apache.samza.system.descriptors.GenericInputDescriptor;
 import org.apache.samza.system.descriptors.GenericSystemDescriptor;
 import org.apache.samza.job.model.TaskModel;
+import org.apache.samza.metrics.Counter;
 import org.apache.samza.metrics.MetricsRegistryMap;
 import org.apache.samza.operators.KV;
 import org.apache.samza.operators.MessageStream;
@@ -262,6 +263,47 @@ public class TestWindowOperator {
     Assert.assertEquals((windowPanes.get(3).getMessage()).size(), 2);
   }
 
+  @Test
+  public void testSessionWindowsWithCoalescedTriggers() throws Exception {
+    Map<String, String> configMap = new HashMap<>(this.config);
+    configMap.put("task.window.trigger.coalescing", "true");
+    when(this.context.getJobContext().getConfig()).thenReturn(new MapConfig(configMap));
+    MetricsRegistryMap metricsRegistry = new MetricsRegistryMap();
+    when(this.context.getContainerContext().getContainerMetricsRegistry()).thenReturn(metricsRegistry);
+
+    OperatorSpecGraph sgb =
+        this.getKeyedSessionWindowStreamGraph(AccumulationMode.DISCARDING, Duration.ofMillis(500)).getOperatorSpecGraph();
+    TestClock testClock = new TestClock();
+    List<WindowPane<Integer, Collection<IntegerEnvelope>>> windowPanes = new ArrayList<>();
+    StreamOperatorTask task = new StreamOperatorTask(sgb, testClock);
+    task.init(this.context);
+    MessageCollector messageCollector =
+        envelope -> windowPanes.add((WindowPane<Integer, Collection<IntegerEnvelope>>) envelope.getMessage());
+    Counter pendingTriggers = (Counter) metricsRegistry.getGroup(WindowOperatorImpl.class.getName())
+        .get("jobName-jobId-window-w1-pending-triggers");
+
+    task.process(new IntegerEnvelope(1), messageCollector, taskCoordinator);
+    testClock.advanceTime(Duration.ofMillis(400));
+    task.process(new IntegerEnvelope(1), messageCollector, taskCoordinator);
+    testClock.advanceTime(Duration.ofMillis(400));
+    task.process(new IntegerEnvelope(1), messageCollector, taskCoordinator);
+    // the first callback is pushed back instead of being replaced
+    Assert.assertEquals(1, pendingTriggers.getCount());
+
+    // the callback runs 500ms after the first message, and reschedules itself for 500ms after the last message
+    testClock.advanceTime(Duration.ofMillis(200));
+    task.window(messageCollector, taskCoordinator);
+    Assert.assertEquals(0, windowPanes.size());
+    Assert.assertEquals(1, pendingTriggers.getCount());
+
+    testClock.advanceTime(Duration.ofMillis(300));
+    task.window(messageCollector, taskCoordinator);
+    Assert.assertEquals(1, windowPanes.size());
+    Assert.assertEquals(new Integer(1), windowPanes.get(0).getKey().getKey());
+    Assert.assertEquals(3, windowPanes.get(0).getMessage().size());
+    Assert.assertEquals(0, pendingTriggers.getCount());
+  }
+
   @Test
   public void testSessionWindowsAccumulatingMode() throws Exception {
     OperatorSpecGraph sgb = this.getKeyedSessionWindowStreamGraph(AccumulationMode.DISCARDING,
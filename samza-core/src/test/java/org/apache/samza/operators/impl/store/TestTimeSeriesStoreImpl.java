@@ -169,6 +169,50 @@ public class TestTimeSeriesStoreImpl {
     Assert.assertEquals(0, values.size());
   }
 
+  @Test
+  public void testRemoveBeforeRemovesAllKeys() {
+    TimeSeriesStore<String, byte[]> timeSeriesStore = newTimeSeriesStore(new StringSerde("UTF-8"), true);
+
+    timeSeriesStore.put("hello", "world-1".getBytes(), 1L);
+    timeSeriesStore.put("hello", "world-2".getBytes(), 2L);
+    timeSeriesStore.put("hello", "world-3".getBytes(), 3L);
+    timeSeriesStore.put("world", "hello-1".getBytes(), 1L);
+    timeSeriesStore.put("world", "hello-2".getBytes(), 2L);
+
+    timeSeriesStore.removeBefore(3L);
+    List<TimestampedValue<byte[]>> values = readStore(timeSeriesStore, "hello", 0L, Long.MAX_VALUE);
+    Assert.assertEquals(1, values.size());
+    Assert.assertEquals(3L, values.get(0).getTimestamp());
+    Assert.assertEquals(0, readStore(timeSeriesStore, "world", 0L, Long.MAX_VALUE).size());
+  }
+
+  @Test
+  public void testRemoveBeforeWithTimeIndex() {
+    KeyValueStore<TimeSeriesKey<String>, byte[]> kvStore =
+        new TestInMemoryStore(new TimeSeriesKeySerde<>(new StringSerde("UTF-8")), new ByteSerde());
+    KeyValueStore<TimeSeriesKey<Void>, String> timeIndex =
+        new TestInMemoryStore(new TimeSeriesKeySerde<>(null), new StringSerde("UTF-8"));
+    TimeSeriesStore<String, byte[]> timeSeriesStore = new TimeSeriesStoreImpl<>(kvStore, timeIndex);
+
+    // more entries than are removed in a single batch
+    for (int i = 0; i < 2500; i++) {
+      timeSeriesStore.put("hello", "world".getBytes(), i);
+      timeSeriesStore.put("world", "hello".getBytes(), i);
+    }
+
+    timeSeriesStore.removeBefore(2400L);
+    List<TimestampedValue<byte[]>> values = readStore(timeSeriesStore, "hello", 0L, Long.MAX_VALUE);
+    Assert.assertEquals(100, values.size());
+    Assert.assertEquals(2400L, values.get(0).getTimestamp());
+    Assert.assertEquals(100, readStore(timeSeriesStore, "world", 0L, Long.MAX_VALUE).size());
+
+    // removing entries of a single key also removes their index entries
+    timeSeriesStore.remove("hello", 0L, Long.MAX_VALUE);
+    timeSeriesStore.removeBefore(Long.MAX_VALUE);
+    Assert.assertFalse(kvStore.all().hasNext());
+    Assert.assertFalse(timeIndex.all().hasNext());
+  }
+
   private static <K, V> List<TimestampedValue<V>> readStore(
       TimeSeriesStore<K, V> store, K key, long startTimestamp, long endTimestamp) {
     List<TimestampedValue<V>> list = new ArrayList<>();
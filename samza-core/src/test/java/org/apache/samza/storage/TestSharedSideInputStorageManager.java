@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.samza.storage;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.apache.samza.Partition;
+import org.apache.samza.container.TaskName;
+import org.apache.samza.system.IncomingMessageEnvelope;
+import org.apache.samza.system.SystemStreamPartition;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+
+public class TestSharedSideInputStorageManager {
+  private static final TaskName TASK_0 = new TaskName("Partition 0");
+  private static final TaskName TASK_1 = new TaskName("Partition 1");
+  private static final SystemStreamPartition SSP_0 = new SystemStreamPartition("system", "stream", new Partition(0));
+  private static final SystemStreamPartition SSP_1 = new SystemStreamPartition("system", "stream", new Partition(1));
+  private static final SystemStreamPartition BROADCAST_SSP =
+      new SystemStreamPartition("system", "broadcast", new Partition(0));
+
+  @Test
+  public void testProcessOnlyByOwnerTask() {
+    TaskSideInputStorageManager storageManager = mock(TaskSideInputStorageManager.class);
+    SharedSideInputStorageManager sharedStorageManager = new SharedSideInputStorageManager(storageManager,
+        ImmutableMap.of(TASK_0, ImmutableSet.of(SSP_0, BROADCAST_SSP), TASK_1, ImmutableSet.of(SSP_1, BROADCAST_SSP)));
+
+    IncomingMessageEnvelope message0 = new IncomingMessageEnvelope(SSP_0, "0", "key", "value");
+    IncomingMessageEnvelope message1 = new IncomingMessageEnvelope(SSP_1, "0", "key", "value");
+    IncomingMessageEnvelope broadcastMessage = new IncomingMessageEnvelope(BROADCAST_SSP, "0", "key", "value");
+
+    sharedStorageManager.process(TASK_0, message0);
+    sharedStorageManager.process(TASK_1, message1);
+    sharedStorageManager.process(TASK_0, broadcastMessage);
+    sharedStorageManager.process(TASK_1, broadcastMessage);
+
+    verify(storageManager).process(message0);
+    verify(storageManager).process(message1);
+    // the broadcast SSP is written only by the first task that has it
+    verify(storageManager, times(1)).process(broadcastMessage);
+  }
+
+  @Test
+  public void testFlushOnlyByFirstTask() {
+    TaskSideInputStorageManager storageManager = mock(TaskSideInputStorageManager.class);
+    SharedSideInputStorageManager sharedStorageManager = new SharedSideInputStorageManager(storageManager,
+        ImmutableMap.of(TASK_1, ImmutableSet.of(SSP_1), TASK_0, ImmutableSet.of(SSP_0)));
+
+    sharedStorageManager.flush(TASK_1);
+    verify(storageManager, never()).flush();
+
+    sharedStorageManager.flush(TASK_0);
+    verify(storageManager, times(1)).flush();
+  }
+
+  @Test
+  public void testInitAndStopOnce() {
+    TaskSideInputStorageManager storageManager = mock(TaskSideInputStorageManager.class);
+    SharedSideInputStorageManager sharedStorageManager = new SharedSideInputStorageManager(storageManager,
+        ImmutableMap.of(TASK_0, ImmutableSet.of(SSP_0), TASK_1, ImmutableSet.of(SSP_1)));
+
+    sharedStorageManager.stop();
+    verify(storageManager, never()).stop();
+
+    sharedStorageManager.init();
+    sharedStorageManager.init();
+    verify(storageManager, times(1)).init();
+
+    sharedStorageManager.stop();
+    sharedStorageManager.stop();
+    verify(storageManager, times(1)).stop();
+  }
+
+  @Test
+  public void testGetSideInputSSPs() {
+    TaskSideInputStorageManager storageManager = mock(TaskSideInputStorageManager.class);
+    SharedSideInputStorageManager sharedStorageManager = new SharedSideInputStorageManager(storageManager,
+        ImmutableMap.of(TASK_0, ImmutableSet.of(SSP_0)));
+
+    assertEquals(ImmutableSet.of(SSP_0), sharedStorageManager.getSideInputSSPs(TASK_0));
+    assertTrue(sharedStorageManager.getSideInputSSPs(TASK_1).isEmpty());
+  }
+}
@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.samza.storage;
+
+import com.google.common.util.concurrent.RateLimiter;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.samza.Partition;
+import org.apache.samza.container.StoreRestorationMetrics;
+import org.apache.samza.metrics.Gauge;
+import org.apache.samza.system.IncomingMessageEnvelope;
+import org.apache.samza.system.SystemStreamPartition;
+import org.apache.samza.util.Clock;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+
+public class TestStoreRestoreIterator {
+  private static final SystemStreamPartition SSP = new SystemStreamPartition("system", "changelog", new Partition(0));
+
+  private final long[] time = new long[1];
+  private final Clock clock = () -> time[0];
+
+  @Test
+  public void testMetrics() {
+    List<IncomingMessageEnvelope> envelopes = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      envelopes.add(new IncomingMessageEnvelope(SSP, String.valueOf(i), new byte[2], new byte[8]));
+    }
+    StoreRestorationMetrics metrics = newMetrics();
+    StoreRestoreIterator iterator = new StoreRestoreIterator(envelopes.iterator(), null, metrics, "9", clock);
+
+    time[0] = 100;
+    iterator.next();
+    assertEquals(1L, metrics.restoredMessages().getValue());
+    assertEquals(10L, metrics.restoredBytes().getValue());
+    assertEquals(9L, metrics.remainingMessages().getValue());
+    assertEquals(900L, metrics.restoreEtaMs().getValue());
+
+    time[0] = 500;
+    for (int i = 0; i < 4; i++) {
+      iterator.next();
+    }
+    assertEquals(5L, metrics.restoredMessages().getValue());
+    assertEquals(50L, metrics.restoredBytes().getValue());
+    assertEquals(5L, metrics.remainingMessages().getValue());
+    assertEquals(500L, metrics.restoreEtaMs().getValue());
+
+    while (iterator.hasNext()) {
+      iterator.next();
+    }
+    assertEquals(10L, metrics.restoredMessages().getValue());
+    assertEquals(0L, metrics.remainingMessages().getValue());
+    assertEquals(0L, metrics.restoreEtaMs().getValue());
+  }
+
+  @Test
+  public void testNonNumericOffsets() {
+    List<IncomingMessageEnvelope> envelopes = new ArrayList<>();
+    envelopes.add(new IncomingMessageEnvelope(SSP, "a", "key", "value"));
+    StoreRestorationMetrics metrics = newMetrics();
+    StoreRestoreIterator iterator = new StoreRestoreIterator(envelopes.iterator(), null, metrics, "b", clock);
+
+    iterator.next();
+    assertEquals(1L, metrics.restoredMessages().getValue());
+    assertEquals(-1L, metrics.remainingMessages().getValue());
+    assertEquals(-1L, metrics.restoreEtaMs().getValue());
+  }
+
+  @Test
+  public void testThrottle() {
+    List<IncomingMessageEnvelope> envelopes = new ArrayList<>();
+    envelopes.add(new IncomingMessageEnvelope(SSP, "0", new byte[3], new byte[4]));
+    envelopes.add(new IncomingMessageEnvelope(SSP, "1", null, null));
+    RateLimiter throttler = mock(RateLimiter.class);
+    StoreRestoreIterator iterator = new StoreRestoreIterator(envelopes.iterator(), throttler, null, null, clock);
+
+    iterator.next();
+    iterator.next();
+    assertFalse(iterator.hasNext());
+    verify(throttler).acquire(7);
+    verifyNoMoreInteractions(throttler);
+  }
+
+  private static StoreRestorationMetrics newMetrics() {
+    return new StoreRestorationMetrics(new Gauge<Object>("time", -1L), new Gauge<Object>("messages", 0L),
+        new Gauge<Object>("bytes", 0L), new Gauge<Object>("remaining", -1L), new Gauge<Object>("eta", -1L));
+  }
+}
@@ -54,6 +54,7 @@ import scala.collection.JavaConverters;
 import static org.junit.Assert.assertEquals;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.anyLong;
+import static org.mockito.Mockito.anyMap;
 import static org.mockito.Mockito.anyObject;
 import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.eq;
@@ -105,6 +106,7 @@ public class TestAsyncRunLoop {
         null,
         new scala.collection.immutable.HashSet<>(),
         null,
+        null,
         mock(JobContext.class),
         mock(ContainerContext.class),
         Option.apply(null),
@@ -453,6 +455,45 @@ public class TestAsyncRunLoop {
     verify(offsetManager).writeCheckpoint(eq(taskName1), any(Checkpoint.class));
   }
 
+  @Test
+  public void testCommitAllTasksInBatch() throws Exception {
+    CountDownLatch task0ProcessedMessagesLatch = new CountDownLatch(1);
+    CountDownLatch task1ProcessedMessagesLatch = new CountDownLatch(1);
+
+    SystemConsumers consumerMultiplexer = mock(SystemConsumers.class);
+    when(consumerMultiplexer.pollIntervalMs()).thenReturn(10);
+    OffsetManager offsetManager = mock(OffsetManager.class);
+
+    TestTask task0 = new TestTask(true, true, false, task0ProcessedMessagesLatch);
+    task0.setCommitRequest(TaskCoordinator.RequestScope.ALL_TASKS_IN_CONTAINER);
+    TestTask task1 = new TestTask(true, false, true, task1ProcessedMessagesLatch);
+
+    TaskInstance t0 = createTaskInstance(task0, taskName0, ssp0, offsetManager, consumerMultiplexer);
+    TaskInstance t1 = createTaskInstance(task1, taskName1, ssp1, offsetManager, consumerMultiplexer);
+
+    Map<TaskName, TaskInstance> tasks = new HashMap<>();
+    tasks.put(taskName0, t0);
+    tasks.put(taskName1, t1);
+    int maxMessagesInFlight = 1;
+    AsyncRunLoop runLoop = new AsyncRunLoop(tasks, executor, consumerMultiplexer, maxMessagesInFlight, windowMs, commitMs,
+                                            callbackTimeoutMs, maxThrottlingDelayMs, maxIdleMs, containerMetrics, () -> 0L, false, true);
+    //have a null message in between to make sure task0 finishes processing and invoke the commit
+    when(consumerMultiplexer.choose(false)).thenReturn(envelope0)
+        .thenAnswer(x -> {
+            task0ProcessedMessagesLatch.await();
+            return null;
+          }).thenReturn(envelope1).thenReturn(null);
+    runLoop.run();
+
+    task0ProcessedMessagesLatch.await();
+    task1ProcessedMessagesLatch.await();
+
+    verify(offsetManager).buildCheckpoint(eq(taskName0));
+    verify(offsetManager).buildCheckpoint(eq(taskName1));
+    verify(offsetManager, atLeastOnce()).writeCheckpoints(anyMap());
+    verify(offsetManager, never()).writeCheckpoint(any(TaskName.class), any(Checkpoint.class));
+  }
+
   @Test
   public void testShutdownOnConsensus() throws Exception {
     CountDownLatch task0ProcessedMessagesLatch = new CountDownLatch(1);
@@ -0,0 +1,218 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.samza.task;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import org.apache.samza.Partition;
+import org.apache.samza.application.descriptors.StreamApplicationDescriptorImpl;
+import org.apache.samza.config.Config;
+import org.apache.samza.config.MapConfig;
+import org.apache.samza.context.Context;
+import org.apache.samza.context.MockContext;
+import org.apache.samza.context.TaskContextImpl;
+import org.apache.samza.job.model.TaskModel;
+import org.apache.samza.metrics.MetricsRegistryMap;
+import org.apache.samza.operators.KV;
+import org.apache.samza.operators.functions.MapFunction;
+import org.apache.samza.operators.functions.StreamTableJoinFunction;
+import org.apache.samza.operators.functions.WatermarkFunction;
+import org.apache.samza.serializers.KVSerde;
+import org.apache.samza.serializers.StringSerde;
+import org.apache.samza.system.IncomingMessageEnvelope;
+import org.apache.samza.system.OutgoingMessageEnvelope;
+import org.apache.samza.system.SystemStream;
+import org.apache.samza.system.SystemStreamPartition;
+import org.apache.samza.system.WatermarkMessage;
+import org.apache.samza.system.descriptors.GenericInputDescriptor;
+import org.apache.samza.system.descriptors.GenericSystemDescriptor;
+import org.apache.samza.table.ReadableTable;
+import org.apache.samza.table.descriptors.BaseTableDescriptor;
+import org.apache.samza.testUtils.StreamTestUtils;
+import org.apache.samza.util.SystemClock;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyList;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+
+public class TestAsyncStreamOperatorTask {
+  private static final String TABLE_ID = "t1";
+
+  private final SystemStreamPartition ssp = new SystemStreamPartition("insystem", "instream", new Partition(0));
+  private final TaskCoordinator taskCoordinator = mock(TaskCoordinator.class);
+
+  @Test
+  public void testWatermarkWaitsForPendingLookups() throws Exception {
+    List<CompletableFuture<Map<String, String>>> lookups = new ArrayList<>();
+    ReadableTable table = mock(ReadableTable.class);
+    when(table.getAllAsync(anyList())).thenAnswer(invocation -> {
+        CompletableFuture<Map<String, String>> lookup = new CompletableFuture<>();
+        lookups.add(lookup);
+        return lookup;
+      });
+    List<Object> output = new ArrayList<>();
+    MessageCollector collector = envelope -> output.add(envelope.getMessage());
+    AsyncStreamOperatorTask task = createTask(table);
+
+    TaskCallback messageCallback1 = mock(TaskCallback.class);
+    TaskCallback watermarkCallback = mock(TaskCallback.class);
+    TaskCallback messageCallback2 = mock(TaskCallback.class);
+    task.processAsync(new IncomingMessageEnvelope(ssp, "0", "1", "m1"), collector, taskCoordinator,
+        messageCallback1);
+    task.processAsync(new IncomingMessageEnvelope(ssp, "1", null, new WatermarkMessage(5)), collector,
+        taskCoordinator, watermarkCallback);
+    task.processAsync(new IncomingMessageEnvelope(ssp, "2", "2", "m2"), collector, taskCoordinator,
+        messageCallback2);
+
+    // the watermark and the message after it wait for the lookup of the message before it
+    assertEquals(1, lookups.size());
+    assertEquals(Collections.emptyList(), output);
+    verify(watermarkCallback, never()).complete();
+    verify(messageCallback2, never()).complete();
+
+    lookups.get(0).complete(ImmutableMap.of("1", "r1"));
+    verify(messageCallback1).complete();
+    verify(watermarkCallback).complete();
+    assertEquals(Arrays.asList("m1r1", "watermark-5"), output);
+    assertEquals(2, lookups.size());
+    verify(messageCallback2, never()).complete();
+
+    lookups.get(1).complete(ImmutableMap.of("2", "r2"));
+    verify(messageCallback2).complete();
+    assertEquals(Arrays.asList("m1r1", "watermark-5", "m2r2"), output);
+  }
+
+  @Test
+  public void testWatermarkWithoutPendingLookupsIsHandledRightAway() throws Exception {
+    ReadableTable table = mock(ReadableTable.class);
+    when(table.getAllAsync(anyList())).thenReturn(CompletableFuture.completedFuture(ImmutableMap.of("1", "r1")));
+    List<Object> output = new ArrayList<>();
+    MessageCollector collector = envelope -> output.add(envelope.getMessage());
+    AsyncStreamOperatorTask task = createTask(table);
+
+    TaskCallback messageCallback = mock(TaskCallback.class);
+    TaskCallback watermarkCallback = mock(TaskCallback.class);
+    task.processAsync(new IncomingMessageEnvelope(ssp, "0", "1", "m1"), collector, taskCoordinator, messageCallback);
+    task.processAsync(new IncomingMessageEnvelope(ssp, "1", null, new WatermarkMessage(5)), collector,
+        taskCoordinator, watermarkCallback);
+
+    verify(messageCallback).complete();
+    verify(watermarkCallback).complete();
+    assertEquals(Arrays.asList("m1r1", "watermark-5"), output);
+  }
+
+  private AsyncStreamOperatorTask createTask(ReadableTable table) throws Exception {
+    Map<String, String> mapConfig = new HashMap<>();
+    mapConfig.put("job.name", "jobName");
+    mapConfig.put("job.id", "jobId");
+    StreamTestUtils.addStreamConfigs(mapConfig, "inStream", "insystem", "instream");
+    Config config = new MapConfig(mapConfig);
+
+    BaseTableDescriptor tableDescriptor = mock(BaseTableDescriptor.class);
+    when(tableDescriptor.getTableId()).thenReturn(TABLE_ID);
+    StreamApplicationDescriptorImpl streamAppDesc = new StreamApplicationDescriptorImpl(appDesc -> {
+        StringSerde stringSerde = new StringSerde();
+        GenericSystemDescriptor sd = new GenericSystemDescriptor("insystem", "mockFactoryClassName");
+        GenericInputDescriptor<KV<String, String>> inputDescriptor =
+            sd.getInputDescriptor("inStream", KVSerde.of(stringSerde, stringSerde));
+        appDesc.getInputStream(inputDescriptor)
+            .join(appDesc.getTable(tableDescriptor), new ConcatJoinFunction())
+            .map(new WatermarkRecordingFunction())
+            .sink((message, messageCollector, taskCoordinator) -> messageCollector.send(
+                new OutgoingMessageEnvelope(new SystemStream("outputSystem", "outputStream"), message)));
+      }, config);
+
+    Context context = new MockContext(config);
+    TaskModel taskModel = mock(TaskModel.class);
+    when(taskModel.getSystemStreamPartitions()).thenReturn(ImmutableSet.of(ssp));
+    when(context.getTaskContext().getTaskModel()).thenReturn(taskModel);
+    when(context.getTaskContext().getTaskMetricsRegistry()).thenReturn(new MetricsRegistryMap());
+    when(context.getContainerContext().getContainerMetricsRegistry()).thenReturn(new MetricsRegistryMap());
+    when(context.getTaskContext().getTable(TABLE_ID)).thenReturn(table);
+    // the watermark states are shared through the task context
+    TaskContextImpl taskContext = (TaskContextImpl) context.getTaskContext();
+    Map<String, Object> objects = new HashMap<>();
+    doAnswer(invocation -> objects.put((String) invocation.getArguments()[0], invocation.getArguments()[1]))
+        .when(taskContext).registerObject(anyString(), any());
+    when(taskContext.fetchObject(anyString())).thenAnswer(invocation -> objects.get(invocation.getArguments()[0]));
+
+    AsyncStreamOperatorTask task = new AsyncStreamOperatorTask(streamAppDesc.getOperatorSpecGraph(),
+        SystemClock.instance());
+    task.init(context);
+    return task;
+  }
+
+  private static class ConcatJoinFunction
+      implements StreamTableJoinFunction<String, KV<String, String>, KV<String, String>, String> {
+    @Override
+    public String apply(KV<String, String> message, KV<String, String> record) {
+      return record == null ? null : message.getValue() + record.getValue();
+    }
+
+    @Override
+    public String getMessageKey(KV<String, String> message) {
+      return message.getKey();
+    }
+
+    @Override
+    public String getRecordKey(KV<String, String> record) {
+      return record.getKey();
+    }
+  }
+
+  /**
+   * Passes messages through, and emits a marker message for each watermark it receives.
+   */
+  private static class WatermarkRecordingFunction implements MapFunction<String, String>, WatermarkFunction<String> {
+    private Long watermark;
+
+    @Override
+    public String apply(String message) {
+      return message;
+    }
+
+    @Override
+    public Collection<String> processWatermark(long watermark) {
+      this.watermark = watermark;
+      return Collections.singletonList("watermark-" + watermark);
+    }
+
+    @Override
+    public Long getOutputWatermark() {
+      return watermark;
+    }
+  }
+}
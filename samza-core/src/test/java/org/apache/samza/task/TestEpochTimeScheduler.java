@@ -23,9 +23,15 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.samza.operators.impl.store.TestInMemoryStore;
+import org.apache.samza.serializers.LongSerde;
+import org.apache.samza.serializers.StringSerde;
+import org.apache.samza.storage.kv.KeyValueStore;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.anyBoolean;
 import static org.mockito.Matchers.anyLong;
@@ -172,4 +178,129 @@ public class TestEpochTimeScheduler {
 
     assertTrue(results.size() == 1);
   }
+
+  @Test
+  public void testTimerWheel() {
+    AtomicLong now = new AtomicLong(1000);
+    EpochTimeScheduler scheduler = EpochTimeScheduler.createWithTimerWheel(null, 10, () -> now.get());
+    List<String> results = new ArrayList<>();
+    List<String> listener = new ArrayList<>();
+    scheduler.registerListener(() -> {
+        listener.add("timer-listener");
+      });
+    scheduler.setTimer("timer-2", 1200, (key, collector, coordinator) -> {
+        results.add(key);
+      });
+    scheduler.setTimer("timer-1", 1100, (key, collector, coordinator) -> {
+        results.add(key);
+      });
+    scheduler.setTimer("timer-3", 5000, (key, collector, coordinator) -> {
+        results.add(key);
+      });
+    scheduler.deleteTimer("timer-3");
+
+    scheduler.tick();
+    fireTimers(scheduler);
+    assertTrue(listener.isEmpty());
+    assertTrue(results.isEmpty());
+
+    now.set(1210);
+    scheduler.tick();
+    fireTimers(scheduler);
+    assertEquals(1, listener.size());
+    assertEquals(2, results.size());
+    assertEquals("timer-1", results.get(0));
+    assertEquals("timer-2", results.get(1));
+
+    now.set(10000);
+    fireTimers(scheduler);
+    assertEquals(2, results.size());
+  }
+
+  @Test
+  public void testTimerWheelPastTimer() {
+    EpochTimeScheduler scheduler = EpochTimeScheduler.createWithTimerWheel(null, 10, () -> 1000L);
+    List<String> results = new ArrayList<>();
+    scheduler.registerListener(() -> {
+        results.add("timer-listener");
+      });
+    scheduler.setTimer("timer", 1, (key, collector, coordinator) -> {
+        results.add(key);
+      });
+
+    fireTimers(scheduler);
+
+    assertEquals(2, results.size());
+    assertEquals("timer", results.get(1));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testTimerWheelDuplicateKey() {
+    EpochTimeScheduler scheduler = EpochTimeScheduler.createWithTimerWheel(null, 10, () -> 1000L);
+    scheduler.setTimer("timer", 2000, (key, collector, coordinator) -> { });
+    scheduler.setTimer("timer", 3000, (key, collector, coordinator) -> { });
+  }
+
+  @Test
+  public void testTimerStore() {
+    KeyValueStore<Object, Long> store = (KeyValueStore) new TestInMemoryStore<>(new StringSerde(), new LongSerde());
+    AtomicLong now = new AtomicLong(1000);
+    EpochTimeScheduler scheduler = EpochTimeScheduler.createWithTimerWheel(null, 10, () -> now.get());
+    scheduler.setTimerStore(store);
+    scheduler.setTimer("timer-1", 1100, (key, collector, coordinator) -> { });
+    scheduler.setTimer("timer-2", 1200, (key, collector, coordinator) -> { });
+    scheduler.setTimer("timer-3", 1300, (key, collector, coordinator) -> { });
+    scheduler.deleteTimer("timer-3");
+    assertEquals(Long.valueOf(1100), store.get("timer-1"));
+    assertEquals(Long.valueOf(1200), store.get("timer-2"));
+    assertNull(store.get("timer-3"));
+
+    now.set(1110);
+    fireTimers(scheduler);
+    assertNull(store.get("timer-1"));
+    assertEquals(Long.valueOf(1200), store.get("timer-2"));
+  }
+
+  @Test
+  public void testRestoreTimers() {
+    KeyValueStore<Object, Long> store = (KeyValueStore) new TestInMemoryStore<>(new StringSerde(), new LongSerde());
+    store.put("past-timer", 500L);
+    store.put("future-timer", 1500L);
+
+    AtomicLong now = new AtomicLong(1000);
+    EpochTimeScheduler scheduler = EpochTimeScheduler.createWithTimerWheel(null, 10, () -> now.get());
+    scheduler.setTimerStore(store);
+    List<String> results = new ArrayList<>();
+    assertEquals(2, scheduler.restoreTimers((key, collector, coordinator) -> {
+        results.add(key.toString());
+      }));
+
+    fireTimers(scheduler);
+    assertEquals(1, results.size());
+    assertEquals("past-timer", results.get(0));
+    assertNull(store.get("past-timer"));
+
+    now.set(1510);
+    fireTimers(scheduler);
+    assertEquals(2, results.size());
+    assertEquals("future-timer", results.get(1));
+    assertNull(store.get("future-timer"));
+  }
+
+  @Test
+  public void testRestoreTimersWithExecutor() {
+    KeyValueStore<Object, Long> store = (KeyValueStore) new TestInMemoryStore<>(new StringSerde(), new LongSerde());
+    store.put("timer", 1L);
+
+    EpochTimeScheduler scheduler = EpochTimeScheduler.create(createExecutorService());
+    scheduler.setTimerStore(store);
+    List<String> results = new ArrayList<>();
+    assertEquals(1, scheduler.restoreTimers((key, collector, coordinator) -> {
+        results.add(key.toString());
+      }));
+
+    fireTimers(scheduler);
+    assertEquals(1, results.size());
+    assertNull(store.get("timer"));
+  }
 }
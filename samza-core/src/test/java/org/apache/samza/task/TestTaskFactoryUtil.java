@@ -19,12 +19,15 @@
 package org.apache.samza.task;
 
 import java.lang.reflect.Field;
+import java.util.Collections;
 import java.util.concurrent.ExecutorService;
 import org.apache.samza.SamzaException;
 import org.apache.samza.application.descriptors.ApplicationDescriptorImpl;
 import org.apache.samza.application.descriptors.StreamApplicationDescriptorImpl;
 import org.apache.samza.application.descriptors.TaskApplicationDescriptorImpl;
 import org.apache.samza.config.ConfigException;
+import org.apache.samza.config.MapConfig;
+import org.apache.samza.config.TaskConfigJava;
 import org.apache.samza.operators.OperatorSpecGraph;
 import org.junit.Test;
 
@@ -110,6 +113,7 @@ public class TestTaskFactoryUtil {
     StreamApplicationDescriptorImpl mockStreamApp = mock(StreamApplicationDescriptorImpl.class);
     OperatorSpecGraph mockSpecGraph = mock(OperatorSpecGraph.class);
     when(mockStreamApp.getOperatorSpecGraph()).thenReturn(mockSpecGraph);
+    when(mockStreamApp.getConfig()).thenReturn(new MapConfig());
     TaskFactory streamTaskFactory = TaskFactoryUtil.getTaskFactory(mockStreamApp);
     assertTrue(streamTaskFactory instanceof StreamTaskFactory);
     StreamTask streamTask = ((StreamTaskFactory) streamTaskFactory).createInstance();
@@ -117,6 +121,21 @@ public class TestTaskFactoryUtil {
     verify(mockSpecGraph).clone();
   }
 
+  // test getTaskFactory with StreamApplicationDescriptor and async table joins
+  @Test
+  public void testGetTaskFactoryWithStreamAppDescriptorAndAsyncTableJoin() {
+    StreamApplicationDescriptorImpl mockStreamApp = mock(StreamApplicationDescriptorImpl.class);
+    OperatorSpecGraph mockSpecGraph = mock(OperatorSpecGraph.class);
+    when(mockStreamApp.getOperatorSpecGraph()).thenReturn(mockSpecGraph);
+    when(mockStreamApp.getConfig()).thenReturn(
+        new MapConfig(Collections.singletonMap(TaskConfigJava.ASYNC_TABLE_JOIN, "true")));
+    TaskFactory taskFactory = TaskFactoryUtil.getTaskFactory(mockStreamApp);
+    assertTrue(taskFactory instanceof AsyncStreamTaskFactory);
+    AsyncStreamTask asyncStreamTask = ((AsyncStreamTaskFactory) taskFactory).createInstance();
+    assertTrue(asyncStreamTask instanceof AsyncStreamOperatorTask);
+    verify(mockSpecGraph).clone();
+  }
+
   // test getTaskFactory with TaskApplicationDescriptor
   @Test
   public void testGetTaskFactoryWithTaskAppDescriptor() {
@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.samza.task;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+
+public class TestTimerWheel {
+
+  private static List<String> advance(TimerWheel<String, String> wheel, long nowMs) {
+    List<TimerWheel.Timer<String, String>> expired = new ArrayList<>();
+    wheel.advance(nowMs, expired);
+    return expired.stream().map(timer -> timer.key).sorted().collect(Collectors.toList());
+  }
+
+  @Test
+  public void testTimersExpireInOrder() {
+    TimerWheel<String, String> wheel = new TimerWheel<>(10, 8, 1000);
+    assertTrue(wheel.add("a", 1025, "a"));
+    assertTrue(wheel.add("b", 1075, "b"));
+    assertTrue(wheel.add("c", 1500, "c"));
+    assertTrue(wheel.add("d", 100000, "d"));
+    assertEquals(4, wheel.size());
+
+    // timers fire at the end of their tick
+    assertTrue(advance(wheel, 1025).isEmpty());
+    assertEquals(1030, wheel.nextExpiration());
+    assertEquals("[a]", advance(wheel, 1030).toString());
+    assertTrue(advance(wheel, 1079).isEmpty());
+    assertEquals("[b]", advance(wheel, 1080).toString());
+    assertTrue(advance(wheel, 1509).isEmpty());
+    assertEquals("[c]", advance(wheel, 1510).toString());
+    // timers at the start of a bucket in a higher level fire as soon as it expires
+    assertTrue(advance(wheel, 99999).isEmpty());
+    assertEquals("[d]", advance(wheel, 100000).toString());
+    assertEquals(0, wheel.size());
+  }
+
+  @Test
+  public void testExpiredAndDuplicateTimersAreNotAdded() {
+    TimerWheel<String, String> wheel = new TimerWheel<>(10, 8, 1000);
+    assertFalse(wheel.add("expired", 1000, "expired"));
+    assertTrue(wheel.add("a", 1001, "a"));
+    assertFalse(wheel.add("a", 2000, "a"));
+    assertEquals(1, wheel.size());
+  }
+
+  @Test
+  public void testRemove() {
+    TimerWheel<String, String> wheel = new TimerWheel<>(10, 8, 1000);
+    wheel.add("a", 1050, "a");
+    wheel.add("b", 5000, "b");
+    assertTrue(wheel.remove("a"));
+    assertFalse(wheel.remove("a"));
+    assertTrue(wheel.remove("b"));
+    assertTrue(advance(wheel, 10000).isEmpty());
+
+    // the key can be added again once removed
+    assertFalse(wheel.add("a", 10000, "a"));
+    assertTrue(wheel.add("a", 10050, "a"));
+    assertEquals("[a]", advance(wheel, 10060).toString());
+  }
+
+  @Test
+  public void testFarFutureTimers() {
+    TimerWheel<String, String> wheel = new TimerWheel<>(1, 2, 0);
+    assertTrue(wheel.add("max", Long.MAX_VALUE, "max"));
+    assertTrue(wheel.add("a", 1L << 40, "a"));
+    assertEquals("[a]", advance(wheel, (1L << 40) + 1).toString());
+    assertTrue(advance(wheel, Long.MAX_VALUE - 1).isEmpty());
+    assertEquals("[max]", advance(wheel, Long.MAX_VALUE).toString());
+  }
+
+  @Test
+  public void testTimersNeverFireEarly() {
+    long tickMs = 7;
+    TimerWheel<Integer, Long> wheel = new TimerWheel<>(tickMs, 16, 0);
+    Random random = new Random(1);
+    int numTimers = 10000;
+    for (int i = 0; i < numTimers; i++) {
+      long time = 1 + random.nextInt(1000000);
+      assertTrue(wheel.add(i, time, time));
+    }
+
+    int fired = 0;
+    long now = 0;
+    while (fired < numTimers) {
+      now += 1 + random.nextInt(2 * (int) tickMs);
+      List<TimerWheel.Timer<Integer, Long>> expired = new ArrayList<>();
+      wheel.advance(now, expired);
+      for (TimerWheel.Timer<Integer, Long> timer : expired) {
+        // the clock moves up to two ticks at a time, so a timer may fire up to three ticks late
+        assertTrue(timer.time <= now);
+        assertTrue(timer.time > now - 3 * tickMs);
+      }
+      fired += expired.size();
+    }
+    assertEquals(0, wheel.size());
+  }
+}
@@ -18,14 +18,24 @@
  */
 package org.apache.samza.zk;
 
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
 import org.I0Itec.zkclient.ZkClient;
+import org.apache.samza.Partition;
 import org.apache.samza.config.MapConfig;
+import org.apache.samza.config.ZkConfig;
+import org.apache.samza.container.TaskName;
+import org.apache.samza.coordinator.JobCoordinatorListener;
 import org.apache.samza.coordinator.StreamPartitionCountMonitor;
+import org.apache.samza.job.model.ContainerModel;
 import org.apache.samza.job.model.JobModel;
+import org.apache.samza.job.model.TaskModel;
+import org.apache.samza.system.SystemStreamPartition;
 import org.apache.samza.util.NoOpMetricsRegistry;
 import org.apache.samza.zk.ZkJobCoordinator.ZkSessionStateChangedListener;
 import org.apache.zookeeper.Watcher;
@@ -34,6 +44,7 @@ import org.mockito.Mockito;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 
+import static junit.framework.Assert.assertNull;
 import static junit.framework.Assert.assertTrue;
 import static org.mockito.Mockito.*;
 
@@ -164,4 +175,80 @@ public class TestZkJobCoordinator {
 
     Mockito.verify(monitor).stop();
   }
+
+  @Test
+  public void testShouldNotStopContainerWhenTasksAreUnchangedWithIncrementalRebalance() {
+    ZkUtils zkUtils = createZkUtils();
+    JobCoordinatorListener listener = Mockito.mock(JobCoordinatorListener.class);
+    ZkJobCoordinator zkJobCoordinator = createIncrementalRebalanceJobCoordinator(zkUtils, listener);
+    String processorId = zkJobCoordinator.getProcessorId();
+
+    zkJobCoordinator.activeJobModel = createJobModel(ImmutableMap.of(processorId, 0, "other", 1));
+    JobModel newJobModel = createJobModel(ImmutableMap.of(processorId, 0, "other", 1));
+    when(zkUtils.getJobModel(TEST_JOB_MODEL_VERSION)).thenReturn(newJobModel);
+
+    zkJobCoordinator.new ZkJobModelVersionChangeHandler(zkUtils).doHandleDataChange("path", TEST_JOB_MODEL_VERSION);
+
+    verify(listener, never()).onJobModelExpired();
+    verify(zkUtils.getZkClient()).createPersistent(Mockito.anyString());
+  }
+
+  @Test
+  public void testShouldStopContainerWhenTasksChangeWithIncrementalRebalance() {
+    ZkUtils zkUtils = createZkUtils();
+    JobCoordinatorListener listener = Mockito.mock(JobCoordinatorListener.class);
+    ZkJobCoordinator zkJobCoordinator = createIncrementalRebalanceJobCoordinator(zkUtils, listener);
+    String processorId = zkJobCoordinator.getProcessorId();
+
+    zkJobCoordinator.activeJobModel = createJobModel(ImmutableMap.of(processorId, 0, "other", 1));
+    JobModel newJobModel = createJobModel(ImmutableMap.of(processorId, 1, "other", 0));
+    when(zkUtils.getJobModel(TEST_JOB_MODEL_VERSION)).thenReturn(newJobModel);
+
+    zkJobCoordinator.new ZkJobModelVersionChangeHandler(zkUtils).doHandleDataChange("path", TEST_JOB_MODEL_VERSION);
+
+    verify(listener).onJobModelExpired();
+    assertNull(zkJobCoordinator.activeJobModel);
+  }
+
+  private ZkUtils createZkUtils() {
+    ZkKeyBuilder keyBuilder = Mockito.mock(ZkKeyBuilder.class);
+    ZkClient mockZkClient = Mockito.mock(ZkClient.class);
+    when(keyBuilder.getJobModelVersionBarrierPrefix()).thenReturn(TEST_BARRIER_ROOT);
+
+    ZkUtils zkUtils = Mockito.mock(ZkUtils.class);
+    when(zkUtils.getKeyBuilder()).thenReturn(keyBuilder);
+    when(zkUtils.getZkClient()).thenReturn(mockZkClient);
+    return zkUtils;
+  }
+
+  private ZkJobCoordinator createIncrementalRebalanceJobCoordinator(ZkUtils zkUtils, JobCoordinatorListener listener) {
+    Map<String, String> configMap = new HashMap<>();
+    configMap.put(ZkConfig.ZK_INCREMENTAL_REBALANCE_ENABLED, "true");
+    ZkJobCoordinator zkJobCoordinator = new ZkJobCoordinator(new MapConfig(configMap), new NoOpMetricsRegistry(), zkUtils);
+    zkJobCoordinator.setListener(listener);
+
+    // run the scheduled actions right away
+    ScheduleAfterDebounceTime mockDebounceTimer = Mockito.mock(ScheduleAfterDebounceTime.class);
+    doAnswer(invocation -> {
+        ((Runnable) invocation.getArguments()[2]).run();
+        return null;
+      }).when(mockDebounceTimer).scheduleAfterDebounceTime(Mockito.anyString(), Mockito.anyLong(), Mockito.any(Runnable.class));
+    zkJobCoordinator.debounceTimer = mockDebounceTimer;
+    return zkJobCoordinator;
+  }
+
+  /**
+   * Creates a JobModel with a task for each partition, and the task of the given partition in each container.
+   */
+  private static JobModel createJobModel(Map<String, Integer> containerPartitions) {
+    Map<String, ContainerModel> containers = new HashMap<>();
+    containerPartitions.forEach((containerId, partition) -> {
+        TaskName taskName = new TaskName("Partition " + partition);
+        TaskModel taskModel = new TaskModel(taskName,
+            ImmutableSet.of(new SystemStreamPartition("system", "stream", new Partition(partition))),
+            new Partition(partition));
+        containers.put(containerId, new ContainerModel(containerId, ImmutableMap.of(taskName, taskModel)));
+      });
+    return new JobModel(new MapConfig(), containers);
+  }
 }
@@ -35,10 +35,18 @@ import org.I0Itec.zkclient.ZkConnection;
 import org.I0Itec.zkclient.exception.ZkInterruptedException;
 import org.I0Itec.zkclient.exception.ZkNodeExistsException;
 import org.apache.commons.lang3.reflect.FieldUtils;
+import org.apache.samza.Partition;
 import org.apache.samza.SamzaException;
 import org.apache.samza.config.MapConfig;
+import org.apache.samza.config.ZkConfig;
+import org.apache.samza.container.TaskName;
 import org.apache.samza.job.model.ContainerModel;
 import org.apache.samza.job.model.JobModel;
+import org.apache.samza.job.model.TaskModel;
+import org.apache.samza.metrics.Counter;
+import org.apache.samza.metrics.Gauge;
+import org.apache.samza.metrics.MetricsRegistryMap;
+import org.apache.samza.system.SystemStreamPartition;
 import org.apache.samza.testUtils.EmbeddedZookeeper;
 import org.apache.samza.util.NoOpMetricsRegistry;
 import org.junit.After;
@@ -307,6 +315,103 @@ public class TestZkUtils {
     Assert.assertEquals(jobModel, zkUtils.getJobModel(version));
   }
 
+  @Test
+  public void testPublishCompressedJobModelInChunks() {
+    String root = KEY_BUILDER.getJobModelPathPrefix();
+    zkClient.deleteRecursive(root);
+    zkClient.createPersistent(root, true);
+    MetricsRegistryMap registry = new MetricsRegistryMap();
+    ZkUtils compressingZkUtils = new ZkUtils(KEY_BUILDER, zkClient, CONNECTION_TIMEOUT_MS, SESSION_TIMEOUT_MS,
+        registry, true, 100, 0);
+
+    JobModel jobModel = createJobModel(4, 8, "value");
+    compressingZkUtils.publishJobModel("1", jobModel);
+
+    Assert.assertTrue(zkClient.getChildren(KEY_BUILDER.getJobModelPath("1")).size() > 1);
+    Assert.assertEquals(jobModel, compressingZkUtils.getJobModel("1"));
+    // JobModels are read in either format
+    Assert.assertEquals(jobModel, zkUtils.getJobModel("1"));
+
+    Gauge<Integer> publishBytes =
+        (Gauge<Integer>) registry.getGroup(ZkUtilsMetrics.class.getName()).get("job-model-publish-bytes");
+    Assert.assertTrue(publishBytes.getValue() > 0);
+
+    zkUtils.publishJobModel("2", jobModel);
+    Assert.assertEquals(jobModel, compressingZkUtils.getJobModel("2"));
+  }
+
+  @Test
+  public void testPublishJobModelDeltas() {
+    String root = KEY_BUILDER.getJobModelPathPrefix();
+    zkClient.deleteRecursive(root);
+    zkClient.createPersistent(root, true);
+    MetricsRegistryMap registry = new MetricsRegistryMap();
+    ZkUtils leaderZkUtils = new ZkUtils(KEY_BUILDER, zkClient, CONNECTION_TIMEOUT_MS, SESSION_TIMEOUT_MS,
+        registry, true, ZkConfig.DEFAULT_JOB_MODEL_CHUNK_BYTES, 2);
+
+    JobModel jobModel1 = createJobModel(4, 8, "value");
+    Map<String, ContainerModel> containers = new HashMap<>(jobModel1.getContainers());
+    containers.remove("3");
+    JobModel jobModel2 = new JobModel(jobModel1.getConfig(), containers);
+    containers.put("0", createJobModel(1, 2, "value").getContainers().get("0"));
+    JobModel jobModel3 = new JobModel(createJobModel(1, 1, "changed").getConfig(), containers);
+    JobModel jobModel4 = createJobModel(2, 8, "value");
+
+    leaderZkUtils.publishJobModel("1", jobModel1);
+    leaderZkUtils.publishJobModel("2", jobModel2);
+    leaderZkUtils.publishJobModel("3", jobModel3);
+    leaderZkUtils.publishJobModel("4", jobModel4);
+
+    Counter deltas = (Counter) registry.getGroup(ZkUtilsMetrics.class.getName()).get("job-model-deltas");
+    Assert.assertEquals(2, deltas.getCount());
+    Assert.assertEquals(jobModel3, leaderZkUtils.getJobModel("3"));
+
+    // A processor that didn't read the base reads it first
+    ZkUtils followerZkUtils = getZkUtils();
+    Assert.assertEquals(jobModel3, followerZkUtils.getJobModel("3"));
+    Assert.assertEquals(jobModel2, followerZkUtils.getJobModel("2"));
+    Assert.assertEquals(jobModel4, followerZkUtils.getJobModel("4"));
+    Assert.assertEquals(jobModel1, followerZkUtils.getJobModel("1"));
+  }
+
+  @Test
+  public void testCleanUpZkJobModelsKeepsTheBaseOfDeltas() {
+    String root = KEY_BUILDER.getJobModelPathPrefix();
+    zkClient.deleteRecursive(root);
+    zkClient.createPersistent(root, true);
+    ZkUtils leaderZkUtils = new ZkUtils(KEY_BUILDER, zkClient, CONNECTION_TIMEOUT_MS, SESSION_TIMEOUT_MS,
+        new NoOpMetricsRegistry(), true, ZkConfig.DEFAULT_JOB_MODEL_CHUNK_BYTES, 10);
+
+    for (int i = 101; i < 110; i++) {
+      leaderZkUtils.publishJobModel(String.valueOf(i), createJobModel(2, i - 100, "value"));
+    }
+
+    leaderZkUtils.deleteOldJobModels(5);
+    List<String> versions = new ArrayList<>(zkClient.getChildren(root));
+    Collections.sort(versions);
+    Assert.assertEquals(Arrays.asList("101", "105", "106", "107", "108", "109"), versions);
+    Assert.assertEquals(createJobModel(2, 9, "value"), getZkUtils().getJobModel("109"));
+  }
+
+  private static JobModel createJobModel(int numContainers, int numTasksPerContainer, String configValue) {
+    Map<String, ContainerModel> containers = new HashMap<>();
+    int partition = 0;
+    for (int container = 0; container < numContainers; container++) {
+      Map<TaskName, TaskModel> tasks = new HashMap<>();
+      for (int task = 0; task < numTasksPerContainer; task++, partition++) {
+        TaskName taskName = new TaskName("Partition " + partition);
+        tasks.put(taskName, new TaskModel(taskName,
+            Collections.singleton(new SystemStreamPartition("system", "stream", new Partition(partition))),
+            new Partition(partition)));
+      }
+      containers.put(String.valueOf(container), new ContainerModel(String.valueOf(container), tasks));
+    }
+    Map<String, String> config = new HashMap<>();
+    config.put("job.name", "test-job");
+    config.put("test.key", configValue);
+    return new JobModel(new MapConfig(config), containers);
+  }
+
   @Test
   public void testCleanUpZkJobModels() {
     String root = zkUtils.getKeyBuilder().getJobModelPathPrefix();
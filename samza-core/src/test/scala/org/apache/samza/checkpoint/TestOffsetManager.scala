@@ -28,7 +28,8 @@ import org.junit.Assert._
 import org.junit.Test
 import org.apache.samza.SamzaException
 import org.apache.samza.config.MapConfig
-import org.mockito.Mockito.{mock, when}
+import org.mockito.Matchers.any
+import org.mockito.Mockito.{mock, never, verify, when}
 import org.scalatest.Assertions.intercept
 
 import scala.collection.JavaConverters._
@@ -337,6 +338,43 @@ class TestOffsetManager {
     assertEquals("47", offsetManager.offsetManagerMetrics.checkpointedOffsets.get(systemStreamPartition).getValue)
   }
 
+  @Test
+  def testWriteCheckpointsInBatch {
+    val taskName1 = new TaskName("c1")
+    val taskName2 = new TaskName("c2")
+    val systemStream = new SystemStream("test-system", "test-stream")
+    val partition1 = new Partition(0)
+    val partition2 = new Partition(1)
+    val systemStreamPartition1 = new SystemStreamPartition(systemStream, partition1)
+    val systemStreamPartition2 = new SystemStreamPartition(systemStream, partition2)
+    val testStreamMetadata = new SystemStreamMetadata(systemStream.getStream, Map(
+      partition1 -> new SystemStreamPartitionMetadata("0", "1", "2"),
+      partition2 -> new SystemStreamPartitionMetadata("0", "1", "2")).asJava)
+    val systemStreamMetadata = Map(systemStream -> testStreamMetadata)
+    val checkpointManager = mock(classOf[CheckpointManager])
+    val systemAdmins = mock(classOf[SystemAdmins])
+    when(systemAdmins.getSystemAdmin("test-system")).thenReturn(getSystemAdmin)
+    val offsetManager = OffsetManager(systemStreamMetadata, new MapConfig, checkpointManager, systemAdmins, Map(), new OffsetManagerMetrics)
+    offsetManager.register(taskName1, Set(systemStreamPartition1))
+    offsetManager.register(taskName2, Set(systemStreamPartition2))
+    offsetManager.start
+
+    offsetManager.update(taskName1, systemStreamPartition1, "46")
+    offsetManager.update(taskName2, systemStreamPartition2, "47")
+    val checkpoints = new util.LinkedHashMap[TaskName, Checkpoint]()
+    checkpoints.put(taskName1, offsetManager.buildCheckpoint(taskName1))
+    checkpoints.put(taskName2, offsetManager.buildCheckpoint(taskName2))
+    offsetManager.writeCheckpoints(checkpoints)
+
+    verify(checkpointManager).writeCheckpoints(checkpoints)
+    verify(checkpointManager, never()).writeCheckpoint(any(classOf[TaskName]), any(classOf[Checkpoint]))
+    assertEquals("46", offsetManager.offsetManagerMetrics.checkpointedOffsets.get(systemStreamPartition1).getValue)
+    assertEquals("47", offsetManager.offsetManagerMetrics.checkpointedOffsets.get(systemStreamPartition2).getValue)
+    assertEquals(1, offsetManager.offsetManagerMetrics.checkpointBatches.getCount)
+    assertEquals(2, offsetManager.offsetManagerMetrics.checkpointBatchSize.getValue)
+    assertEquals(1, offsetManager.offsetManagerMetrics.checkpointBatchNs.getSnapshot.getSize)
+  }
+
   // Utility method to create and write checkpoint in one statement
   def checkpoint(offsetManager: OffsetManager, taskName: TaskName): Unit = {
     offsetManager.writeCheckpoint(taskName, offsetManager.buildCheckpoint(taskName))
@@ -90,6 +90,8 @@ class TestTaskInstance extends AssertionsForJUnit with MockitoSugar {
       any(), Matchers.eq(this.applicationContainerContext)))
       .thenReturn(this.applicationTaskContext)
     when(this.systemAdmins.getSystemAdmin(SYSTEM_NAME)).thenReturn(this.systemAdmin)
+    when(this.metrics.bytesProcessed).thenReturn(mock[Counter])
+    when(this.metrics.processNs).thenReturn(mock[Counter])
     setupTaskInstance(Some(this.applicationTaskContextFactory))
   }
 
@@ -201,6 +203,24 @@ class TestTaskInstance extends AssertionsForJUnit with MockitoSugar {
     verify(commitsCounter).inc()
   }
 
+  @Test
+  def testCommitAllWritesCheckpointsInBatch() {
+    val commitsCounter = mock[Counter]
+    when(this.metrics.commits).thenReturn(commitsCounter)
+    val checkpoint = new Checkpoint(Map(SYSTEM_STREAM_PARTITION -> "4").asJava)
+    when(this.offsetManager.buildCheckpoint(TASK_NAME)).thenReturn(checkpoint)
+
+    TaskInstance.commitAll(java.util.Collections.singletonList(taskInstance))
+
+    val mockOrder = inOrder(this.offsetManager, this.collector, this.taskStorageManager)
+    mockOrder.verify(this.offsetManager).buildCheckpoint(TASK_NAME)
+    mockOrder.verify(this.collector).flush
+    mockOrder.verify(this.taskStorageManager).flush()
+    mockOrder.verify(offsetManager).writeCheckpoints(java.util.Collections.singletonMap(TASK_NAME, checkpoint))
+    verify(offsetManager, never()).writeCheckpoint(any(), any())
+    verify(commitsCounter).inc()
+  }
+
   /**
     * Given that an application task context factory is provided, then lifecycle calls should be made and the context
     * should be accessible.
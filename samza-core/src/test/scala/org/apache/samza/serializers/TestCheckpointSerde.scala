@@ -43,6 +43,40 @@ class TestCheckpointSerde {
     assertEquals(1, deserializedOffsets.getOffsets.size)
   }
 
+  @Test
+  def testBinaryCheckpointRoundTrip {
+    val offsets = new util.HashMap[SystemStreamPartition, String]()
+    for (partition <- 0 until 8) {
+      offsets.put(new SystemStreamPartition("test-system", "test-stream", new Partition(partition)), partition.toString)
+    }
+    offsets.put(new SystemStreamPartition("other-system", "other-stream", new Partition(3)), "offset-\u00e9")
+    val checkpoint = new Checkpoint(offsets)
+
+    val binaryBytes = new BinaryCheckpointSerde().toBytes(checkpoint)
+    val jsonBytes = new CheckpointSerde().toBytes(checkpoint)
+
+    assertEquals(checkpoint, new BinaryCheckpointSerde().fromBytes(binaryBytes))
+    // Both serdes read both formats
+    assertEquals(checkpoint, new CheckpointSerde().fromBytes(binaryBytes))
+    assertEquals(checkpoint, new BinaryCheckpointSerde().fromBytes(jsonBytes))
+    assertTrue(binaryBytes.length * 4 < jsonBytes.length)
+  }
+
+  @Test
+  def testEmptyBinaryCheckpoint {
+    val serde = new BinaryCheckpointSerde
+    val checkpoint = new Checkpoint(new util.HashMap[SystemStreamPartition, String]())
+    assertEquals(checkpoint, serde.fromBytes(serde.toBytes(checkpoint)))
+  }
+
+  @Test
+  def testTruncatedBinaryCheckpoint {
+    val serde = new BinaryCheckpointSerde
+    val ssp = new SystemStreamPartition("test-system", "test-stream", new Partition(0))
+    val bytes = serde.toBytes(new Checkpoint(Map(ssp -> "1").asJava))
+    assertNull(serde.fromBytes(util.Arrays.copyOf(bytes, bytes.length - 1)))
+  }
+
   @Test
   def testChangelogPartitionMappingRoundTrip {
     val mapping = new util.HashMap[TaskName, java.lang.Integer]()
@@ -18,12 +18,14 @@
  */
 package org.apache.samza.storage;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.CountDownLatch;
 import org.apache.samza.container.SamzaContainerMetrics;
 import org.apache.samza.container.TaskInstance;
 import org.apache.samza.container.TaskName;
+import org.apache.samza.metrics.MetricsRegistryMap;
 import org.apache.samza.system.SystemConsumer;
 import org.junit.Assert;
 import org.junit.Before;
@@ -66,10 +68,14 @@ public class TestContainerStorageManager {
         return null;
       }).when(mockTaskStorageManager).stop();
 
+    Mockito.doAnswer(invocation -> {
+        return Arrays.asList("store 1", "store 2");
+      }).when(mockTaskStorageManager).getStoresToRestore();
+
     Mockito.doAnswer(invocation -> {
         taskStorageManagersRestoreStoreCount.countDown();
         return null;
-      }).when(mockTaskStorageManager).restoreStores();
+      }).when(mockTaskStorageManager).restoreStore(Mockito.anyString(), Mockito.any(), Mockito.any());
 
     taskStorageManagers.put(mockTaskInstance, mockTaskStorageManager);
   }
@@ -86,7 +92,7 @@ public class TestContainerStorageManager {
     // define the expected number of invocations on taskStorageManagers' init, stop and restore count
     // and the expected number of sysConsumer start and stop
     this.taskStorageManagersInitCount = new CountDownLatch(2);
-    this.taskStorageManagersRestoreStoreCount = new CountDownLatch(2);
+    this.taskStorageManagersRestoreStoreCount = new CountDownLatch(4);
     this.taskStorageManagersRestoreStopCount = new CountDownLatch(2);
     this.systemConsumerStartCount = new CountDownLatch(1);
     this.systemConsumerStopCount = new CountDownLatch(1);
@@ -122,4 +128,23 @@ public class TestContainerStorageManager {
     Assert.assertTrue("systemConsumerStopCount count should be 0", this.systemConsumerStopCount.getCount() == 0);
     Assert.assertTrue("systemConsumerStartCount count should be 0", this.systemConsumerStartCount.getCount() == 0);
   }
+
+  @Test
+  public void testRestoreMetrics() {
+    SamzaContainerMetrics metrics = new SamzaContainerMetrics("container", new MetricsRegistryMap());
+    for (TaskInstance taskInstance : taskStorageManagers.keySet()) {
+      metrics.addStoreRestorationGauge(taskInstance.taskName(), "store 1");
+      metrics.addStoreRestorationGauge(taskInstance.taskName(), "store 2");
+    }
+
+    new ContainerStorageManager(taskStorageManagers, systemConsumers, metrics, 1, 1000).start();
+
+    Assert.assertEquals("Restore count should be 0", 0, this.taskStorageManagersRestoreStoreCount.getCount());
+    for (TaskInstance taskInstance : taskStorageManagers.keySet()) {
+      TaskName taskName = taskInstance.taskName();
+      Assert.assertTrue((long) metrics.taskStoreRestorationMetrics().get(taskName).getValue() >= 0);
+      Assert.assertTrue((long) metrics.storeRestorationMetrics().get(taskName).get("store 1").restoreTime().getValue() >= 0);
+      Assert.assertTrue((long) metrics.storeRestorationMetrics().get(taskName).get("store 2").restoreTime().getValue() >= 0);
+    }
+  }
 }
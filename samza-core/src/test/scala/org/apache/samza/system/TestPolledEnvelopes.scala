@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.samza.system
+
+import java.util
+import java.util.concurrent.{ExecutorService, Executors, LinkedBlockingQueue, ThreadPoolExecutor, TimeUnit}
+import java.util.concurrent.atomic.AtomicInteger
+
+import org.apache.samza.Partition
+import org.junit.Assert._
+import org.junit.Test
+
+class TestPolledEnvelopes {
+  val ssp = new SystemStreamPartition("test-system", "test-stream", new Partition(0))
+
+  private def envelopes(messages: String*) = {
+    val list = new util.ArrayList[IncomingMessageEnvelope]()
+    messages.foreach(message => list.add(new IncomingMessageEnvelope(ssp, "0", null, message)))
+    list
+  }
+
+  private def deserialize(envelope: IncomingMessageEnvelope) = {
+    val message = envelope.getMessage.asInstanceOf[String]
+    if (message.startsWith("bad")) {
+      throw new IllegalArgumentException(message)
+    }
+    new IncomingMessageEnvelope(ssp, envelope.getOffset, null, message.toUpperCase)
+  }
+
+  @Test
+  def testDeserializesOnRemoveWithoutExecutor {
+    val deserialized = new AtomicInteger
+    val polledEnvelopes = new PolledEnvelopes(envelopes("a", "b"), envelope => {
+      deserialized.incrementAndGet
+      deserialize(envelope)
+    })
+
+    assertEquals(2, polledEnvelopes.size)
+    assertEquals(0, deserialized.get)
+    assertEquals("A", polledEnvelopes.remove().getMessage)
+    assertEquals(1, deserialized.get)
+    assertEquals("B", polledEnvelopes.remove().getMessage)
+    assertEquals(0, polledEnvelopes.size)
+  }
+
+  @Test
+  def testDeserializesBoundedBatchesAhead {
+    val submitted = new AtomicInteger
+    val executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue[Runnable]) {
+      override def execute(command: Runnable) {
+        submitted.incrementAndGet
+        super.execute(command)
+      }
+    }
+    try {
+      val polledEnvelopes = new PolledEnvelopes(envelopes("a", "b", "c", "d", "bad", "f", "g", "h"), deserialize,
+        executor, 2)
+
+      // The first envelope is left for the caller, and only the first two batches are submitted.
+      assertEquals(2, submitted.get)
+      assertEquals("A", polledEnvelopes.remove().getMessage)
+      assertEquals("B", polledEnvelopes.remove().getMessage)
+      assertEquals("C", polledEnvelopes.remove().getMessage)
+      assertEquals(2, submitted.get)
+
+      // Moving on to the second batch submits the third
+      assertEquals("D", polledEnvelopes.remove().getMessage)
+      assertEquals(3, submitted.get)
+
+      // Errors are thrown for the envelope that failed to deserialize only
+      try {
+        polledEnvelopes.remove()
+        fail("Expected the deserialization error to be thrown")
+      } catch {
+        case e: IllegalArgumentException => assertEquals("bad", e.getMessage)
+      }
+      assertEquals("F", polledEnvelopes.remove().getMessage)
+      assertEquals("G", polledEnvelopes.remove().getMessage)
+      assertEquals("H", polledEnvelopes.remove().getMessage)
+      assertEquals(4, submitted.get)
+      assertEquals(0, polledEnvelopes.size)
+    } finally {
+      executor.shutdown
+    }
+  }
+
+  @Test
+  def testDeserializesOnCallerAfterExecutorShutdown {
+    val executor: ExecutorService = Executors.newSingleThreadExecutor
+    executor.shutdown
+    val polledEnvelopes = new PolledEnvelopes(envelopes("a", "b", "c"), deserialize, executor, 1)
+
+    assertEquals("A", polledEnvelopes.remove().getMessage)
+    assertEquals("B", polledEnvelopes.remove().getMessage)
+    assertEquals("C", polledEnvelopes.remove().getMessage)
+  }
+}
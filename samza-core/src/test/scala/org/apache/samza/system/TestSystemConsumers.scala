@@ -339,6 +339,36 @@ class TestSystemConsumers {
     assertTrue(consumer.lastPoll.contains(systemStreamPartition1))
   }
 
+  @Test
+  def testDeserializationThreads {
+    val system = "test-system"
+    val systemStreamPartition = new SystemStreamPartition(system, "some-stream", new Partition(1))
+    val consumer = new SerializingConsumer
+    val serdeManager = new SerdeManager(systemMessageSerdes = Map(system -> new StringSerde("UTF-8").asInstanceOf[Serde[Object]]))
+    val consumers = new SystemConsumers(new DefaultChooser, Map(system -> consumer), serdeManager,
+      deserializationThreads = 2, deserializationBatchSize = 3)
+
+    consumers.register(systemStreamPartition, "0")
+    (0 until 10).foreach(i => consumer.putBytesMessage("message-" + i))
+    consumers.start
+
+    (0 until 10).foreach(i => {
+      val envelope = consumers.choose()
+      assertNotNull(envelope)
+      assertEquals("message-" + i, envelope.getMessage)
+    })
+    assertNull(consumers.choose())
+    consumers.stop
+
+    // Messages polled after stopping are deserialized on the calling thread
+    consumer.putBytesMessage("message-10")
+    consumer.putBytesMessage("message-11")
+    consumers.start
+    assertEquals("message-10", consumers.choose().getMessage)
+    assertEquals("message-11", consumers.choose().getMessage)
+    consumers.stop
+  }
+
   /**
    * A simple MockSystemConsumer that keeps track of what was polled, and lets
    * you define how many envelopes to return in the poll response. You can
@@ -375,7 +405,10 @@ class TestSystemConsumers {
   private class SerializingConsumer extends BlockingEnvelopeMap {
     val systemStreamPartition = new SystemStreamPartition("test-system", "some-stream", new Partition(1))
     def putBytesMessage {
-      put(systemStreamPartition, new IncomingMessageEnvelope(systemStreamPartition, "0", "0", "test".getBytes()))
+      putBytesMessage("test")
+    }
+    def putBytesMessage(message: String) {
+      put(systemStreamPartition, new IncomingMessageEnvelope(systemStreamPartition, "0", "0", message.getBytes()))
     }
     def putStringMessage {
       put(systemStreamPartition, new IncomingMessageEnvelope(systemStreamPartition, "0", "1", "test"))
@@ -36,6 +36,7 @@ import org.apache.commons.lang.Validate;
 import org.apache.samza.Partition;
 import org.apache.samza.SamzaException;
 import org.apache.samza.config.Config;
+import org.apache.samza.config.JavaSystemConfig;
 import org.apache.samza.metrics.Counter;
 import org.apache.samza.metrics.MetricsRegistry;
 import org.apache.samza.system.IncomingMessageEnvelope;
@@ -118,7 +119,9 @@ public class HdfsSystemConsumer extends BlockingEnvelopeMap {
   private final HdfsConfig hdfsConfig;
 
   public HdfsSystemConsumer(String systemName, Config config, HdfsSystemConsumerMetrics consumerMetrics) {
-    super(consumerMetrics.getMetricsRegistry());
+    super(consumerMetrics.getMetricsRegistry(), System::currentTimeMillis, null,
+        new JavaSystemConfig(config).getConsumerBufferMaxMessages(systemName),
+        new JavaSystemConfig(config).getConsumerBufferMaxBytes(systemName));
     hdfsConfig = new HdfsConfig(config);
     readerType = HdfsReaderFactory.getType(hdfsConfig.getFileReaderType(systemName));
     stagingDirectory = hdfsConfig.getStagingDirectory(systemName);
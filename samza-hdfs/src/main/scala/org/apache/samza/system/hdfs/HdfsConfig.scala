@@ -43,6 +43,18 @@ object HdfsConfig {
   val WRITE_BATCH_SIZE_RECORDS = "systems.%s.producer.hdfs.write.batch.size.records"
   val WRITE_BATCH_SIZE_RECORDS_DEFAULT = (256L * 1024L).toString
 
+  // number of writers, each with its own output files, that the producer spreads the messages of a source across
+  val WRITERS_PER_SOURCE = "systems.%s.producer.hdfs.writers.per.source"
+  val WRITERS_PER_SOURCE_DEFAULT = 1.toString
+
+  // how often the producer flushes its writers in the background, 0 to only flush when the job commits
+  val FLUSH_INTERVAL_MS = "systems.%s.producer.hdfs.flush.interval.ms"
+  val FLUSH_INTERVAL_MS_DEFAULT = 0.toString
+
+  // size of the buffer of each HDFS output stream, 0 to use io.file.buffer.size from the Hadoop configuration
+  val WRITE_BUFFER_SIZE_BYTES = "systems.%s.producer.hdfs.write.buffer.size.bytes"
+  val WRITE_BUFFER_SIZE_BYTES_DEFAULT = 0.toString
+
   // human-readable compression type name to be interpreted/handled by the HdfsWriter impl
   val COMPRESSION_TYPE = "systems.%s.producer.hdfs.compression.type"
   val COMPRESSION_TYPE_DEFAULT = "none"
@@ -143,6 +155,30 @@ class HdfsConfig(config: Config) extends ScalaMapConfig(config) {
     getOrElse(HdfsConfig.WRITE_BATCH_SIZE_RECORDS format systemName, HdfsConfig.WRITE_BATCH_SIZE_RECORDS_DEFAULT).toLong
   }
 
+  /**
+   * The number of writers the producer spreads the messages of each source across. Each writer has its
+   * own output files and lock, so messages with different partition keys can be written concurrently.
+   */
+  def getWritersPerSource(systemName: String): Int = {
+    getOrElse(HdfsConfig.WRITERS_PER_SOURCE format systemName, HdfsConfig.WRITERS_PER_SOURCE_DEFAULT).toInt
+  }
+
+  /**
+   * How often the producer flushes its writers in the background, in milliseconds. If 0, the writers
+   * are only flushed when the job commits.
+   */
+  def getFlushIntervalMs(systemName: String): Long = {
+    getOrElse(HdfsConfig.FLUSH_INTERVAL_MS format systemName, HdfsConfig.FLUSH_INTERVAL_MS_DEFAULT).toLong
+  }
+
+  /**
+   * The size of the buffer of each HDFS output stream, in bytes. If 0, the io.file.buffer.size
+   * of the Hadoop configuration is used.
+   */
+  def getWriteBufferSizeBytes(systemName: String): Int = {
+    getOrElse(HdfsConfig.WRITE_BUFFER_SIZE_BYTES format systemName, HdfsConfig.WRITE_BUFFER_SIZE_BYTES_DEFAULT).toInt
+  }
+
   /**
    * Simple, human-readable label for various compression options. HdfsWriter implementations
    * can choose how to handle these individually, or throw an exception. Example: "none", "gzip", ...
@@ -16,35 +16,76 @@
  * specific language governing permissions and limitations
  * under the License.
  */
-
 package org.apache.samza.system.hdfs
 
 
+import java.util.concurrent.{Executors, ScheduledExecutorService, TimeUnit}
+import java.util.concurrent.atomic.AtomicInteger
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder
 import org.apache.hadoop.conf.Configuration
 import org.apache.hadoop.fs.FileSystem
+import org.apache.samza.SamzaException
 import org.apache.samza.system.hdfs.writer.HdfsWriter
 import org.apache.samza.system.{OutgoingMessageEnvelope, SystemProducer}
 import org.apache.samza.util.{Logging, TimerUtil}
 
-import scala.collection.mutable.{Map => MMap}
+import scala.collection.concurrent.TrieMap
 
 
+/**
+ * Writes the messages of each source to HDFS through systems.%s.producer.hdfs.writers.per.source writers.
+ * Messages are assigned to a writer by their partition key, or their key if they don't have one, so the
+ * messages of a key are written in order to the same files. Each writer is locked separately, so sends
+ * to different writers don't wait for each other, and the writers can be flushed in the background
+ * every systems.%s.producer.hdfs.flush.interval.ms.
+ */
 class HdfsSystemProducer(
   systemName: String, clientId: String, config: HdfsConfig, metrics: HdfsSystemProducerMetrics,
   val clock: () => Long = () => System.currentTimeMillis) extends SystemProducer with Logging with TimerUtil {
   val dfs = FileSystem.newInstance(new Configuration(true))
-  val writers: MMap[String, HdfsWriter[_]] = MMap.empty[String, HdfsWriter[_]]
-  private val lock = new Object //synchronization lock for thread safe access
+  val writersPerSource = config.getWritersPerSource(systemName)
+  val flushIntervalMs = config.getFlushIntervalMs(systemName)
+  val writers: TrieMap[String, Array[HdfsWriterShard]] = TrieMap.empty[String, Array[HdfsWriterShard]]
+  private val lock = new Object //synchronization lock for registering and stopping
+  private val nextShard = new AtomicInteger //spreads messages without a key across the writers
+  private var flusher: Option[ScheduledExecutorService] = None
+  private val flusherShutdownTimeoutMs = 10000L
+  @volatile private var stopped = false
+
+  if (writersPerSource < 1) {
+    throw new SamzaException("System %s can't have %d writers per source." format (systemName, writersPerSource))
+  }
 
   def start(): Unit = {
     info("entering HdfsSystemProducer.start() call for system: " + systemName + ", client: " + clientId)
+
+    if (flushIntervalMs > 0) {
+      val executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+        .setNameFormat("Samza HdfsSystemProducer Flusher " + systemName)
+        .setDaemon(true)
+        .build)
+      executor.scheduleWithFixedDelay(new Runnable {
+        override def run(): Unit = flushInBackground
+      }, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS)
+      flusher = Some(executor)
+    }
   }
 
   def stop(): Unit = {
     info("entering HdfsSystemProducer.stop() for system: " + systemName + ", client: " + clientId)
 
+    flusher.foreach { executor =>
+      executor.shutdown
+      if (!executor.awaitTermination(flusherShutdownTimeoutMs, TimeUnit.MILLISECONDS)) {
+        warn("Background flush for system: " + systemName + " did not finish within " + flusherShutdownTimeoutMs + " ms.")
+        executor.shutdownNow
+      }
+    }
+    // a background flush that outlived the timeout skips the writers once they are closed
+    stopped = true
     lock.synchronized {
-      writers.values.map(_.close)
+      writers.values.flatten.foreach { shard => shard.synchronized { shard.writer.close } }
       dfs.close
     }
   }
@@ -54,7 +95,9 @@ class HdfsSystemProducer(
       "call for system: " + systemName + ", client: " + clientId)
 
     lock.synchronized {
-      writers += (source -> HdfsWriter.getInstance(dfs, systemName, config))
+      writers += (source -> Array.tabulate(writersPerSource) { i =>
+        new HdfsWriterShard(HdfsWriter.getInstance(dfs, systemName, config), metrics.newWriterMetrics(source, i))
+      })
     }
   }
 
@@ -63,18 +106,21 @@ class HdfsSystemProducer(
       "call for system: " + systemName + ", client: " + clientId)
 
     metrics.flushes.inc
-    lock.synchronized {
-      try {
-        updateTimer(metrics.flushMs) {
-          writers.get(source).head.flush
-        }
-      } catch {
-        case e: Exception => {
-          metrics.flushFailed.inc
-          warn("Exception thrown while client " + clientId + " flushed HDFS out stream, msg: " + e.getMessage)
-          debug("Detailed message from exception thrown by client " + clientId + " in HDFS flush: ", e)
-          writers.get(source).head.close
-          throw e
+    updateTimer(metrics.flushMs) {
+      writers(source).foreach { shard =>
+        shard.synchronized {
+          try {
+            throwBackgroundFlushFailure(shard)
+            flushShard(shard)
+          } catch {
+            case e: Exception => {
+              metrics.flushFailed.inc
+              warn("Exception thrown while client " + clientId + " flushed HDFS out stream, msg: " + e.getMessage)
+              debug("Detailed message from exception thrown by client " + clientId + " in HDFS flush: ", e)
+              shard.writer.close
+              throw e
+            }
+          }
         }
       }
     }
@@ -86,21 +132,92 @@ class HdfsSystemProducer(
       "call for system: " + systemName + ", client: " + clientId)
 
     metrics.sends.inc
-    lock.synchronized {
+    val shard = getShard(source, ome)
+    shard.synchronized {
       try {
-        updateTimer(metrics.sendMs) {
-          writers.get(source).head.write(ome)
+        throwBackgroundFlushFailure(shard)
+        val sendMs = updateTimerAndGetDuration(shard.metrics.sendMs) { _ =>
+          shard.writer.write(ome)
         }
+        metrics.sendMs.update(sendMs)
       } catch {
         case e: Exception => {
           metrics.sendFailed.inc
           warn("Exception thrown while client " + clientId + " wrote to HDFS, msg: " + e.getMessage)
           debug("Detailed message from exception thrown by client " + clientId + " in HDFS write: ", e)
-          writers.get(source).head.close
+          shard.writer.close
           throw e
         }
       }
     }
+    shard.metrics.sends.inc
     metrics.sendSuccess.inc
   }
-}
\ No newline at end of file
+
+  /**
+   * Picks the writer of a source for a message. Messages with the same partition key, or key if they don't have a
+   * partition key, always go to the same writer. Messages without either are spread across the writers.
+   */
+  private def getShard(source: String, ome: OutgoingMessageEnvelope): HdfsWriterShard = {
+    val shards = writers(source)
+    if (shards.length == 1) {
+      shards(0)
+    } else {
+      val hash = Option(ome.getPartitionKey).orElse(Option(ome.getKey)) match {
+        case Some(bytes: Array[Byte]) => java.util.Arrays.hashCode(bytes)
+        case Some(key) => key.hashCode
+        case None => nextShard.getAndIncrement
+      }
+      shards((hash & Int.MaxValue) % shards.length)
+    }
+  }
+
+  /**
+   * Must be called while holding the lock of the shard.
+   */
+  private def flushShard(shard: HdfsWriterShard): Unit = {
+    updateTimer(shard.metrics.flushMs) {
+      shard.writer.flush
+    }
+    shard.metrics.flushes.inc
+  }
+
+  /**
+   * Fails the send or flush of a writer whose last background flush failed, since the messages sent to it since the
+   * previous flush may not have been written. Must be called while holding the lock of the shard.
+   */
+  private def throwBackgroundFlushFailure(shard: HdfsWriterShard): Unit = {
+    shard.backgroundFlushFailure.foreach { e =>
+      shard.backgroundFlushFailure = None
+      throw new SamzaException("Background flush of HDFS writer failed for system: " + systemName, e)
+    }
+  }
+
+  private def flushInBackground(): Unit = {
+    writers.values.flatten.foreach { shard =>
+      shard.synchronized {
+        if (!stopped && shard.backgroundFlushFailure.isEmpty) {
+          try {
+            flushShard(shard)
+          } catch {
+            case e: Exception => {
+              metrics.backgroundFlushFailed.inc
+              warn("Exception thrown while client " + clientId + " flushed HDFS out stream in the background, msg: " +
+                e.getMessage)
+              debug("Detailed message from exception thrown by client " + clientId + " in HDFS background flush: ", e)
+              shard.backgroundFlushFailure = Some(e)
+            }
+          }
+        }
+      }
+    }
+  }
+}
+
+/**
+ * One of the writers of a source. Sends, flushes and closes of the writer are synchronized on the shard.
+ */
+class HdfsWriterShard(val writer: HdfsWriter[_], val metrics: HdfsWriterMetrics) {
+  /* The failure of the last background flush, thrown by the next send or flush of the writer */
+  var backgroundFlushFailure: Option[Exception] = None
+}
@@ -20,7 +20,7 @@
 package org.apache.samza.system.hdfs
 
 
-import org.apache.samza.metrics.{MetricsRegistry, MetricsHelper, Gauge, MetricsRegistryMap}
+import org.apache.samza.metrics.{Counter, MetricsRegistry, MetricsHelper, Gauge, MetricsRegistryMap, Timer}
 
 
 class HdfsSystemProducerMetrics(val systemName: String = "unknown", val registry: MetricsRegistry = new MetricsRegistryMap) extends MetricsHelper {
@@ -37,6 +37,27 @@ class HdfsSystemProducerMetrics(val systemName: String = "unknown", val registry
   val flushSuccess = newCounter("flush-success")
   val flushMs = newTimer("flush-ms")
 
+  /* Tracks the number of background flushes that failed, which fail the next send or flush of the writer */
+  val backgroundFlushFailed = newCounter("background-flush-failed")
+
+  /**
+   * Creates the metrics of one of the writers of a source, which show how evenly the messages are spread across
+   * the writers and how long each of them spends writing.
+   */
+  def newWriterMetrics(source: String, index: Int) = {
+    val prefix = "%s-writer-%d-" format (source, index)
+    new HdfsWriterMetrics(
+      newCounter(prefix + "sends"),
+      newTimer(prefix + "send-ms"),
+      newCounter(prefix + "flushes"),
+      newTimer(prefix + "flush-ms"))
+  }
+
   override def getPrefix = systemName + "-"
 
 }
+
+/**
+ * The metrics of one of the writers of a source.
+ */
+class HdfsWriterMetrics(val sends: Counter, val sendMs: Timer, val flushes: Counter, val flushMs: Timer)
@@ -37,6 +37,7 @@ class AvroDataFileHdfsWriter (dfs: FileSystem, systemName: String, config: HdfsC
   extends HdfsWriter[DataFileWriter[Object]](dfs, systemName, config) {
 
   val batchSize = config.getWriteBatchSizeRecords(systemName)
+  val bufferSize = config.getWriteBufferSizeBytes(systemName)
   val bucketer = Some(Bucketer.getInstance(systemName, config))
   var recordsWritten = 0L
 
@@ -78,7 +79,8 @@ class AvroDataFileHdfsWriter (dfs: FileSystem, systemName: String, config: HdfsC
     val fileWriter = new DataFileWriter[Object](datumWriter)
     val cn = config.getCompressionType(systemName)
     if (!cn.equals("none")) fileWriter.setCodec(CodecFactory.fromString(cn))
-    Some(fileWriter.create(schema, dfs.create(path)))
+    val out = if (bufferSize > 0) dfs.create(path, true, bufferSize) else dfs.create(path)
+    Some(fileWriter.create(schema, out))
   }
 
 }
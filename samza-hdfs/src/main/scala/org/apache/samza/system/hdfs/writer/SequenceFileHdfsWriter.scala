@@ -34,6 +34,7 @@ abstract class SequenceFileHdfsWriter(dfs: FileSystem, systemName: String, confi
   extends HdfsWriter[SequenceFile.Writer](dfs, systemName, config) {
 
   val batchSize = config.getWriteBatchSizeBytes(systemName)
+  val bufferSize = config.getWriteBufferSizeBytes(systemName)
   val bucketer = Some(Bucketer.getInstance(systemName, config))
 
   var bytesWritten = 0L
@@ -105,18 +106,16 @@ abstract class SequenceFileHdfsWriter(dfs: FileSystem, systemName: String, confi
 
   protected def getNextWriter: Option[SequenceFile.Writer] = {
     val path = bucketer.get.getNextWritePath(dfs)
-    Some(
-      SequenceFile.createWriter(
-        dfs.getConf,
-        Writer.file(path),
-        Writer.keyClass(keyClass),
-        Writer.valueClass(valueClass),
-        Writer.compression(
-          SequenceFile.CompressionType.BLOCK,
-          getCompressionCodec(config.getCompressionType(systemName))
-        )
+    val options = Seq(
+      Writer.file(path),
+      Writer.keyClass(keyClass),
+      Writer.valueClass(valueClass),
+      Writer.compression(
+        SequenceFile.CompressionType.BLOCK,
+        getCompressionCodec(config.getCompressionType(systemName))
       )
-    )
+    ) ++ (if (bufferSize > 0) Seq(Writer.bufferSize(bufferSize)) else Seq.empty)
+    Some(SequenceFile.createWriter(dfs.getConf, options: _*))
   }
 
 }
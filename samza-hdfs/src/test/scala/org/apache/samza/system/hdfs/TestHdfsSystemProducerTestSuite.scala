@@ -50,6 +50,7 @@ object TestHdfsSystemProducerTestSuite {
   val AVRO_JOB_NAME = "samza-hdfs-test-job-avro" // write some data as Avro
   val TEXT_BATCH_JOB_NAME = "samza-hdfs-test-batch-job-text" // force a file split, understanding that Text does some compressing
   val AVRO_BATCH_JOB_NAME = "samza-hdfs-test-batch-job-avro" // force a file split, understanding that Avro does some compressing
+  val SHARDED_TEXT_JOB_NAME = "samza-hdfs-test-sharded-job-text" // write String data through 3 writers per source
   val TEST_DATE = (new SimpleDateFormat("yyyy_MM_dd-HH")).format(new Date)
 
   // Test data
@@ -333,6 +334,49 @@ class TestHdfsSystemProducerTestSuite extends Logging {
     }
   }
 
+  @Test
+  def testHdfsSystemProducerShardedTextWrite {
+    var producer: Option[HdfsSystemProducer] = None
+
+    try {
+      producer = buildProducer(SHARDED_TEXT_JOB_NAME, cluster.get)
+      producer.get.register(TEST)
+      producer.get.start
+
+      Thread.sleep(PAUSE)
+
+      val systemStream = new SystemStream(SHARDED_TEXT_JOB_NAME, TEST)
+      val keys = (0 until 30).map { i => "key-" + (i % 3) }
+      keys.foreach {
+        key => producer.get.send(TEST, new OutgoingMessageEnvelope(systemStream, key, null, key))
+      }
+
+      // let the background flusher run at least once
+      Thread.sleep(PAUSE)
+
+      producer.get.stop
+      producer = None
+
+      // messages with the same partition key are written to the files of one writer
+      val results = cluster.get.getFileSystem.listStatus(testWritePath(SHARDED_TEXT_JOB_NAME))
+      assertTrue(results.length >= 1 && results.length <= 3)
+      val written = results.map { r =>
+        val reader = getReader(cluster.get.getFileSystem, r.getPath)
+        val key = new LongWritable
+        val value = new Text
+        val values = scala.collection.mutable.ArrayBuffer.empty[String]
+        while (reader.next(key, value)) {
+          values += value.toString
+        }
+        values
+      }
+      assertEquals(keys.sorted, written.flatten.toSeq.sorted)
+      keys.distinct.foreach { key => assertEquals(1, written.count { _.contains(key) }) }
+    } finally {
+      producer.map { _.stop }
+    }
+  }
+
 }
 
 
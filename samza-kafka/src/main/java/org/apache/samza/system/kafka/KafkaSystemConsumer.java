@@ -34,6 +34,7 @@ import org.apache.kafka.clients.consumer.KafkaConsumer;
 import org.apache.kafka.common.TopicPartition;
 import org.apache.samza.SamzaException;
 import org.apache.samza.config.Config;
+import org.apache.samza.config.JavaSystemConfig;
 import org.apache.samza.config.KafkaConfig;
 import org.apache.samza.system.IncomingMessageEnvelope;
 import org.apache.samza.system.SystemConsumer;
@@ -87,6 +88,8 @@ public class KafkaSystemConsumer<K, V> extends BlockingEnvelopeMap implements Sy
   public KafkaSystemConsumer(Consumer<K, V> kafkaConsumer, String systemName, Config config, String clientId,
       KafkaSystemConsumerMetrics metrics, Clock clock) {
 
+    // The buffers are bounded by pausing the partitions once they reach the fetch thresholds (see
+    // needsMoreMessages), not by a bounded queue, since blocking a put would stall the poll thread for all partitions.
     super(metrics.registry(), clock, metrics.getClass().getName());
 
     this.kafkaConsumer = kafkaConsumer;
@@ -96,6 +99,12 @@ public class KafkaSystemConsumer<K, V> extends BlockingEnvelopeMap implements Sy
     this.metrics = metrics;
 
     fetchThresholdBytesEnabled = new KafkaConfig(config).isConsumerFetchThresholdBytesEnabled(systemName);
+    if (new JavaSystemConfig(config).getConsumerBufferMaxMessages(systemName) > 0) {
+      LOG.warn("{}: Ignoring {} for Kafka system {}. Use {} and {} to bound the buffered messages instead.", this,
+          String.format(JavaSystemConfig.CONSUMER_BUFFER_MAX_MESSAGES_FORMAT, systemName), systemName,
+          String.format(KafkaConfig.CONSUMER_FETCH_THRESHOLD(), systemName),
+          String.format(KafkaConfig.CONSUMER_FETCH_THRESHOLD_BYTES(), systemName));
+    }
 
     // create a sink for passing the messages between the proxy and the consumer
     messageSink = new KafkaConsumerMessageSink();
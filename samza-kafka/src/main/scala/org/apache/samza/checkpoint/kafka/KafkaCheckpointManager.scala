@@ -19,6 +19,7 @@
 
 package org.apache.samza.checkpoint.kafka
 
+import java.nio.ByteBuffer
 import java.util.Collections
 import java.util.concurrent.TimeUnit
 import java.util.concurrent.atomic.AtomicReference
@@ -36,6 +37,7 @@ import org.apache.samza.system.kafka.KafkaStreamSpec
 import org.apache.samza.util.{ExponentialSleepStrategy, Logging}
 import org.apache.samza.{Partition, SamzaException}
 
+import scala.collection.JavaConverters._
 import scala.collection.mutable
 
 /**
@@ -145,19 +147,22 @@ class KafkaCheckpointManager(checkpointSpec: KafkaStreamSpec,
     * @inheritdoc
     */
   override def writeCheckpoint(taskName: TaskName, checkpoint: Checkpoint) {
-    val key = new KafkaCheckpointLogKey(KafkaCheckpointLogKey.CHECKPOINT_KEY_TYPE, taskName, expectedGrouperFactory)
-    val keyBytes = try {
-      checkpointKeySerde.toBytes(key)
-    } catch {
-      case e: Exception => throw new SamzaException(s"Exception when writing checkpoint-key for $taskName: $checkpoint", e)
-    }
-    val msgBytes = try {
-      checkpointMsgSerde.toBytes(checkpoint)
-    } catch {
-      case e: Exception => throw new SamzaException(s"Exception when writing checkpoint for $taskName: $checkpoint", e)
+    writeCheckpoints(Collections.singletonMap(taskName, checkpoint))
+  }
+
+  /**
+    * Sends the checkpoints of all the tasks and then flushes the producer once, instead of flushing it for each task.
+    */
+  override def writeCheckpoints(checkpoints: java.util.Map[TaskName, Checkpoint]) {
+    if (checkpoints.isEmpty) {
+      return
     }
 
-    val envelope = new OutgoingMessageEnvelope(checkpointSsp, keyBytes, msgBytes)
+    val envelopes = checkpoints.asScala.toSeq.map { case (taskName, checkpoint) =>
+      (taskName, buildCheckpointEnvelope(taskName, checkpoint))
+    }
+    // The checkpoint producer is a KafkaSystemProducer, whose flush waits for the messages of all sources
+    val flushSource = envelopes.head._1.getTaskName
 
     // Used for exponential backoff retries on failure in sending messages through producer.
     val startTimeInMillis: Long = System.currentTimeMillis()
@@ -167,14 +172,14 @@ class KafkaCheckpointManager(checkpointSpec: KafkaStreamSpec,
     while ((System.currentTimeMillis() - startTimeInMillis) <= MaxRetryDurationInMillis) {
       val currentProducer = producerRef.get()
       try {
-        currentProducer.send(taskName.getTaskName, envelope)
-        currentProducer.flush(taskName.getTaskName) // make sure it is written
-        debug(s"Wrote checkpoint: $checkpoint for task: $taskName")
+        envelopes.foreach { case (taskName, envelope) => currentProducer.send(taskName.getTaskName, envelope) }
+        currentProducer.flush(flushSource) // make sure they are written
+        debug(s"Wrote checkpoints: $checkpoints")
         return
       } catch {
         case exception: Exception => {
           producerException = exception
-          warn(s"Retrying failed checkpoint write to key: $key, checkpoint: $checkpoint for task: $taskName", exception)
+          warn(s"Retrying failed checkpoint write of checkpoints: $checkpoints", exception)
           // TODO: Remove this producer recreation logic after SAMZA-1393.
           val newProducer: SystemProducer = getSystemProducer()
           producerCreationLock.synchronized {
@@ -200,7 +205,23 @@ class KafkaCheckpointManager(checkpointSpec: KafkaStreamSpec,
       sleepTimeInMillis = Math.min(sleepTimeInMillis * 2, maxSleepTimeInMillis)
       Thread.sleep(sleepTimeInMillis)
     }
-    throw new SamzaException(s"Exception when writing checkpoint: $checkpoint for task: $taskName.", producerException)
+    throw new SamzaException(s"Exception when writing checkpoints: $checkpoints.", producerException)
+  }
+
+  private def buildCheckpointEnvelope(taskName: TaskName, checkpoint: Checkpoint): OutgoingMessageEnvelope = {
+    val key = new KafkaCheckpointLogKey(KafkaCheckpointLogKey.CHECKPOINT_KEY_TYPE, taskName, expectedGrouperFactory)
+    val keyBytes = try {
+      checkpointKeySerde.toBytes(key)
+    } catch {
+      case e: Exception => throw new SamzaException(s"Exception when writing checkpoint-key for $taskName: $checkpoint", e)
+    }
+    val msgBytes = try {
+      checkpointMsgSerde.toBytes(checkpoint)
+    } catch {
+      case e: Exception => throw new SamzaException(s"Exception when writing checkpoint for $taskName: $checkpoint", e)
+    }
+
+    new OutgoingMessageEnvelope(checkpointSsp, keyBytes, msgBytes)
   }
 
   /**
@@ -234,9 +255,13 @@ class KafkaCheckpointManager(checkpointSpec: KafkaStreamSpec,
     *
     * <p> The underlying [[SystemConsumer]] is stateful and tracks its offsets. Hence, each invocation of this method
     * will read the log from where it left off previously. This allows for multiple efficient calls to [[readLastCheckpoint()]]
+    *
+    * <p> Only the last checkpoint of each task is deserialized, after the log has been read. A key is written with
+    * every checkpoint of a task, so each distinct key is only deserialized and validated once.
     */
   private def readCheckpoints(): Map[TaskName, Checkpoint] = {
-    val checkpoints = mutable.Map[TaskName, Checkpoint]()
+    val lastCheckpoints = mutable.Map[TaskName, (Array[Byte], String)]()
+    val checkpointKeys = mutable.Map[ByteBuffer, KafkaCheckpointLogKey]()
 
     val iterator = new SystemStreamPartitionIterator(systemConsumer, checkpointSsp)
     var numMessagesRead = 0
@@ -256,45 +281,64 @@ class KafkaCheckpointManager(checkpointSpec: KafkaStreamSpec,
           s"Offset:$offset")
       }
 
-      val checkpointKey = try {
-        checkpointKeySerde.fromBytes(keyBytes)
-      } catch {
-        case e: Exception => if (validateCheckpoint) {
-          throw new SamzaException(s"Exception while serializing checkpoint-key. " +
-            s"Topic: $checkpointTopic Offset: $offset", e)
-        } else {
-          warn(s"Ignoring exception while serializing checkpoint-key. Topic: $checkpointTopic Offset: $offset", e)
-          null
+      val checkpointKey = checkpointKeys.getOrElse(ByteBuffer.wrap(keyBytes), {
+        val key = readCheckpointKey(keyBytes, offset)
+        if (key != null) {
+          checkpointKeys.put(ByteBuffer.wrap(keyBytes), key)
         }
+        key
+      })
+
+      // If the type of the key is not KafkaCheckpointLogKey.CHECKPOINT_KEY_TYPE, it can safely be ignored.
+      if (checkpointKey != null && KafkaCheckpointLogKey.CHECKPOINT_KEY_TYPE.equals(checkpointKey.getType)) {
+        val checkpointBytes = checkpointEnvelope.getMessage.asInstanceOf[Array[Byte]]
+        lastCheckpoints.put(checkpointKey.getTaskName, (checkpointBytes, offset))
       }
+    }
+    info(s"Read $numMessagesRead messages from system:$checkpointSystem topic:$checkpointTopic")
 
-      if (checkpointKey != null) {
-        // If the grouper in the key is not equal to the configured grouper, error out.
-        val actualGrouperFactory = checkpointKey.getGrouperFactoryClassName
-        if (!expectedGrouperFactory.equals(actualGrouperFactory)) {
-          warn(s"Grouper mismatch. Configured: $expectedGrouperFactory Actual: $actualGrouperFactory ")
-          if (validateCheckpoint) {
-            throw new SamzaException("SSPGrouperFactory in the checkpoint topic does not match the configured value" +
-              s"Configured value: $expectedGrouperFactory; Actual value: $actualGrouperFactory Offset: $offset")
-          }
-        }
+    val checkpoints = lastCheckpoints.map { case (taskName, (checkpointBytes, offset)) =>
+      val checkpoint = try {
+        checkpointMsgSerde.fromBytes(checkpointBytes)
+      } catch {
+        case e: Exception => throw new SamzaException(s"Exception while serializing checkpoint-message. " +
+          s"Topic: $checkpointTopic Offset: $offset", e)
+      }
+      taskName -> checkpoint
+    }
+    debug(s"Deserialized ${checkpoints.size} checkpoints from topic:$checkpointTopic")
+    checkpoints.toMap
+  }
 
-        // If the type of the key is not KafkaCheckpointLogKey.CHECKPOINT_KEY_TYPE, it can safely be ignored.
-        if (KafkaCheckpointLogKey.CHECKPOINT_KEY_TYPE.equals(checkpointKey.getType)) {
-          val checkpointBytes = checkpointEnvelope.getMessage.asInstanceOf[Array[Byte]]
-          val checkpoint = try {
-            checkpointMsgSerde.fromBytes(checkpointBytes)
-          } catch {
-            case e: Exception => throw new SamzaException(s"Exception while serializing checkpoint-message. " +
-              s"Topic: $checkpointTopic Offset: $offset", e)
-          }
+  /**
+    * Deserializes a checkpoint key and validates its grouper. Returns null if the key can't be deserialized and
+    * checkpoints are not validated.
+    */
+  private def readCheckpointKey(keyBytes: Array[Byte], offset: String): KafkaCheckpointLogKey = {
+    val checkpointKey = try {
+      checkpointKeySerde.fromBytes(keyBytes)
+    } catch {
+      case e: Exception => if (validateCheckpoint) {
+        throw new SamzaException(s"Exception while serializing checkpoint-key. " +
+          s"Topic: $checkpointTopic Offset: $offset", e)
+      } else {
+        warn(s"Ignoring exception while serializing checkpoint-key. Topic: $checkpointTopic Offset: $offset", e)
+        null
+      }
+    }
 
-          checkpoints.put(checkpointKey.getTaskName, checkpoint)
+    if (checkpointKey != null) {
+      // If the grouper in the key is not equal to the configured grouper, error out.
+      val actualGrouperFactory = checkpointKey.getGrouperFactoryClassName
+      if (!expectedGrouperFactory.equals(actualGrouperFactory)) {
+        warn(s"Grouper mismatch. Configured: $expectedGrouperFactory Actual: $actualGrouperFactory ")
+        if (validateCheckpoint) {
+          throw new SamzaException("SSPGrouperFactory in the checkpoint topic does not match the configured value" +
+            s"Configured value: $expectedGrouperFactory; Actual value: $actualGrouperFactory Offset: $offset")
         }
       }
     }
-    info(s"Read $numMessagesRead messages from system:$checkpointSystem topic:$checkpointTopic")
-    checkpoints.toMap
+    checkpointKey
   }
 
   /**
@@ -24,6 +24,7 @@ import org.apache.samza.checkpoint.{CheckpointManager, CheckpointManagerFactory}
 import org.apache.samza.config.JobConfig.Config2Job
 import org.apache.samza.config._
 import org.apache.samza.metrics.MetricsRegistry
+import org.apache.samza.serializers.{BinaryCheckpointSerde, CheckpointSerde}
 import org.apache.samza.system.{StreamSpec, SystemFactory}
 import org.apache.samza.system.kafka.KafkaStreamSpec
 import org.apache.samza.util.{KafkaUtil, Logging, Util, _}
@@ -50,7 +51,12 @@ class KafkaCheckpointManagerFactory extends CheckpointManagerFactory with Loggin
         .copyWithReplicationFactor(kafkaConfig.getCheckpointReplicationFactor.get.toInt)
         .copyWithProperties(kafkaConfig.getCheckpointTopicProperties)
 
+    val checkpointSerde = kafkaConfig.getCheckpointFormat match {
+      case KafkaConfig.CHECKPOINT_FORMAT_BINARY => new BinaryCheckpointSerde
+      case _ => new CheckpointSerde
+    }
+
     new KafkaCheckpointManager(checkpointSpec, checkpointSystemFactory, config.failOnCheckpointValidation, config,
-      new NoOpMetricsRegistry)
+      new NoOpMetricsRegistry, checkpointSerde)
   }
 }
@@ -46,6 +46,9 @@ object KafkaConfig {
   val CHECKPOINT_SYSTEM = "task.checkpoint.system"
   val CHECKPOINT_REPLICATION_FACTOR = "task.checkpoint." + TOPIC_REPLICATION_FACTOR
   val CHECKPOINT_SEGMENT_BYTES = "task.checkpoint." + SEGMENT_BYTES
+  val CHECKPOINT_FORMAT = "task.checkpoint.format"
+  val CHECKPOINT_FORMAT_JSON = "json"
+  val CHECKPOINT_FORMAT_BINARY = "binary"
 
   val CHANGELOG_STREAM_REPLICATION_FACTOR = "stores.%s.changelog." + TOPIC_REPLICATION_FACTOR
   val DEFAULT_CHANGELOG_STREAM_REPLICATION_FACTOR = CHANGELOG_STREAM_REPLICATION_FACTOR format "default"
@@ -131,6 +134,18 @@ class KafkaConfig(config: Config) extends ScalaMapConfig(config) {
     getInt(KafkaConfig.CHECKPOINT_SEGMENT_BYTES, defaultsegBytes)
   }
 
+  /**
+    * Gets the format checkpoints are written to the checkpoint topic in, either json (the default) or binary.
+    * Checkpoints in both formats are always read.
+    */
+  def getCheckpointFormat = {
+    val format = getOrElse(KafkaConfig.CHECKPOINT_FORMAT, KafkaConfig.CHECKPOINT_FORMAT_JSON)
+    if (!Set(KafkaConfig.CHECKPOINT_FORMAT_JSON, KafkaConfig.CHECKPOINT_FORMAT_BINARY).contains(format)) {
+      throw new SamzaException("Unknown value %s for %s" format (format, KafkaConfig.CHECKPOINT_FORMAT))
+    }
+    format
+  }
+
   /**
     * Gets the replication factor for the coordinator topic. Uses the following precedence.
     *
@@ -30,6 +30,7 @@ import org.apache.samza.config.JobConfig;
 import org.apache.samza.container.TaskName;
 import org.apache.samza.container.grouper.stream.GroupByPartitionFactory;
 import org.apache.samza.metrics.MetricsRegistry;
+import org.apache.samza.serializers.BinaryCheckpointSerde;
 import org.apache.samza.serializers.CheckpointSerde;
 import org.apache.samza.system.IncomingMessageEnvelope;
 import org.apache.samza.system.StreamValidationException;
@@ -215,6 +216,67 @@ public class TestKafkaCheckpointManagerJava {
     Assert.assertEquals(checkpoint.getOffsets(), ImmutableMap.of(ssp, Integer.toString(newestOffset)));
   }
 
+  @Test
+  public void testOnlyTheLastCheckpointOfEachTaskIsDeserialized() throws Exception {
+    KafkaStreamSpec checkpointSpec = new KafkaStreamSpec(CHECKPOINT_TOPIC, CHECKPOINT_TOPIC,
+        CHECKPOINT_SYSTEM, 1);
+    Config mockConfig = mock(Config.class);
+    when(mockConfig.get(JobConfig.SSP_GROUPER_FACTORY())).thenReturn(GROUPER_FACTORY_CLASS);
+
+    SystemStreamPartition ssp = new SystemStreamPartition("system-1", "input-topic", new Partition(0));
+    TaskName task2 = new TaskName("task2");
+
+    List<List<IncomingMessageEnvelope>> pollOutputs = new ArrayList<>();
+    for (int offset = 0; offset < 10; offset++) {
+      pollOutputs.add(ImmutableList.of(newCheckpointEnvelope(TASK1, ssp, Integer.toString(offset)),
+          newCheckpointEnvelope(task2, ssp, Integer.toString(offset + 100))));
+    }
+
+    SystemConsumer mockConsumer = newConsumer(pollOutputs);
+    SystemAdmin mockAdmin = newAdmin("0", "19");
+    SystemFactory factory = newFactory(mock(SystemProducer.class), mockConsumer, mockAdmin);
+
+    CountingCheckpointSerde checkpointSerde = new CountingCheckpointSerde();
+    CountingCheckpointKeySerde checkpointKeySerde = new CountingCheckpointKeySerde();
+    KafkaCheckpointManager checkpointManager = new KafkaCheckpointManager(checkpointSpec, factory,
+        true, mockConfig, mock(MetricsRegistry.class), checkpointSerde, checkpointKeySerde);
+    checkpointManager.register(TASK1);
+    checkpointManager.register(task2);
+    checkpointManager.start();
+
+    Assert.assertEquals(ImmutableMap.of(ssp, "9"), checkpointManager.readLastCheckpoint(TASK1).getOffsets());
+    Assert.assertEquals(ImmutableMap.of(ssp, "109"), checkpointManager.readLastCheckpoint(task2).getOffsets());
+    Assert.assertEquals(2, checkpointSerde.numDeserialized);
+    Assert.assertEquals(2, checkpointKeySerde.numDeserialized);
+  }
+
+  @Test
+  public void testBinaryCheckpointsAreRead() throws Exception {
+    KafkaStreamSpec checkpointSpec = new KafkaStreamSpec(CHECKPOINT_TOPIC, CHECKPOINT_TOPIC,
+        CHECKPOINT_SYSTEM, 1);
+    Config mockConfig = mock(Config.class);
+    when(mockConfig.get(JobConfig.SSP_GROUPER_FACTORY())).thenReturn(GROUPER_FACTORY_CLASS);
+
+    SystemStreamPartition ssp = new SystemStreamPartition("system-1", "input-topic", new Partition(0));
+    KafkaCheckpointLogKey checkpointKey = new KafkaCheckpointLogKey("checkpoint", TASK1, GROUPER_FACTORY_CLASS);
+    IncomingMessageEnvelope binaryEnvelope = new IncomingMessageEnvelope(CHECKPOINT_SSP, "1",
+        new KafkaCheckpointLogKeySerde().toBytes(checkpointKey),
+        new BinaryCheckpointSerde().toBytes(new Checkpoint(ImmutableMap.of(ssp, "1"))));
+
+    // a JSON checkpoint followed by a binary one, as written by a job that switched to the binary format
+    SystemConsumer mockConsumer = newConsumer(ImmutableList.of(
+        ImmutableList.of(newCheckpointEnvelope(TASK1, ssp, "0"), binaryEnvelope)));
+    SystemAdmin mockAdmin = newAdmin("0", "1");
+    SystemFactory factory = newFactory(mock(SystemProducer.class), mockConsumer, mockAdmin);
+
+    KafkaCheckpointManager checkpointManager = new KafkaCheckpointManager(checkpointSpec, factory,
+        true, mockConfig, mock(MetricsRegistry.class), new CheckpointSerde(), new KafkaCheckpointLogKeySerde());
+    checkpointManager.register(TASK1);
+    checkpointManager.start();
+
+    Assert.assertEquals(ImmutableMap.of(ssp, "1"), checkpointManager.readLastCheckpoint(TASK1).getOffsets());
+  }
+
   /**
    * Create a new {@link SystemConsumer} that returns a list of messages sequentially at each subsequent poll.
    *
@@ -274,6 +336,24 @@ public class TestKafkaCheckpointManagerJava {
     }
   }
 
+  private static class CountingCheckpointSerde extends CheckpointSerde {
+    private int numDeserialized = 0;
+
+    public Checkpoint fromBytes(byte[] bytes) {
+      numDeserialized++;
+      return super.fromBytes(bytes);
+    }
+  }
+
+  private static class CountingCheckpointKeySerde extends KafkaCheckpointLogKeySerde {
+    private int numDeserialized = 0;
+
+    public KafkaCheckpointLogKey fromBytes(byte[] bytes) {
+      numDeserialized++;
+      return super.fromBytes(bytes);
+    }
+  }
+
   private static class ExceptionThrowingCheckpointKeySerde extends KafkaCheckpointLogKeySerde {
     public KafkaCheckpointLogKey fromBytes(byte[] bytes) {
       throw new KafkaException("exception");
@@ -21,6 +21,7 @@
 
 package org.apache.samza.system.kafka;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import org.apache.kafka.clients.consumer.Consumer;
@@ -29,6 +30,7 @@ import org.apache.kafka.clients.consumer.KafkaConsumer;
 import org.apache.kafka.common.serialization.ByteArraySerializer;
 import org.apache.samza.Partition;
 import org.apache.samza.config.Config;
+import org.apache.samza.config.JavaSystemConfig;
 import org.apache.samza.config.JobConfig;
 import org.apache.samza.config.KafkaConfig;
 import org.apache.samza.config.KafkaConsumerConfig;
@@ -53,7 +55,11 @@ public class TestKafkaSystemConsumer {
   public final String FETCH_THRESHOLD_BYTES = "100000";
 
   private KafkaSystemConsumer createConsumer(String fetchMsg, String fetchBytes) {
-    final Map<String, String> map = new HashMap<>();
+    return createConsumer(fetchMsg, fetchBytes, Collections.emptyMap());
+  }
+
+  private KafkaSystemConsumer createConsumer(String fetchMsg, String fetchBytes, Map<String, String> extraConfig) {
+    final Map<String, String> map = new HashMap<>(extraConfig);
 
     map.put(JobConfig.JOB_NAME(), TEST_JOB);
 
@@ -205,6 +211,25 @@ public class TestKafkaSystemConsumer {
     consumer.stop();
   }
 
+  @Test(timeout = 10000)
+  public void testBufferMaxMessagesDoesNotBlockThePollThread() {
+    SystemStreamPartition ssp0 = new SystemStreamPartition(TEST_SYSTEM, TEST_STREAM, new Partition(0));
+    KafkaSystemConsumer consumer = createConsumer("4", "0",
+        Collections.singletonMap(String.format(JavaSystemConfig.CONSUMER_BUFFER_MAX_MESSAGES_FORMAT, TEST_SYSTEM), "1"));
+
+    consumer.register(ssp0, "0");
+    consumer.start();
+    // a poll may return more messages than the fetch threshold, and the poll thread must be able to buffer them all
+    for (int i = 0; i < 6; i++) {
+      consumer.messageSink.addMessage(ssp0, new IncomingMessageEnvelope(ssp0, String.valueOf(i), null, "value" + i));
+    }
+
+    Assert.assertEquals(false, consumer.messageSink.needsMoreMessages(ssp0));
+    Assert.assertEquals(6, consumer.getNumMessagesInQueue(ssp0));
+
+    consumer.stop();
+  }
+
   // mock kafkaConsumer and SystemConsumer
   static class MockKafkaConsumer extends KafkaConsumer {
     public MockKafkaConsumer(Map<String, Object> configs) {
@@ -131,6 +131,25 @@ class TestKafkaCheckpointManager extends KafkaServerTestHarness {
     assertEquals(checkpoint2, readCheckpoint(checkpointTopic, taskName))
   }
 
+  @Test
+  def testWriteCheckpointsShouldWriteAllTasksInBatch(): Unit = {
+    val checkpointTopic = "checkpoint-topic-3"
+    val taskName1 = new TaskName("Partition 1")
+    val ssp1 = new SystemStreamPartition("kafka", "topic", new Partition(1))
+    val checkpoint3 = new Checkpoint(ImmutableMap.of(ssp1, "offset-3"))
+
+    val kcm = createKafkaCheckpointManager(checkpointTopic)
+    kcm.register(taskName)
+    kcm.register(taskName1)
+    kcm.createResources
+    kcm.start
+    kcm.writeCheckpoints(ImmutableMap.of(taskName, checkpoint1, taskName1, checkpoint3))
+    kcm.stop
+
+    assertEquals(checkpoint1, readCheckpoint(checkpointTopic, taskName))
+    assertEquals(checkpoint3, readCheckpoint(checkpointTopic, taskName1))
+  }
+
   @Test(expected = classOf[SamzaException])
   def testWriteCheckpointShouldRetryFiniteTimesOnFailure(): Unit = {
     val checkpointTopic = "checkpoint-topic-2"
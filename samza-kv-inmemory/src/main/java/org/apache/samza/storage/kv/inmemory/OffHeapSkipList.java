@@ -0,0 +1,540 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.samza.storage.kv.inmemory;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.apache.samza.storage.kv.Entry;
+
+/**
+ * A sorted map of byte array keys and values that keeps its entries outside the Java heap, so that large maps
+ * don't add to garbage collection pauses.
+ *
+ * <p>The entries are stored in direct {@link ByteBuffer} slabs, allocated by bumping an offset in the current slab.
+ * Keys are ordered lexicographically by their unsigned bytes, by a skip list whose nodes are stored in the slabs with
+ * their keys, so there's no on-heap object per entry. A node is laid out as its height, the key length, the address of
+ * its value, its next nodes at each level and the key bytes. A value is laid out as its length and its bytes.
+ *
+ * <p>Overwritten values and deleted nodes are not reused. When they take more space than the live entries, the entries
+ * are copied to new slabs in key order and the old slabs are released, which also lays out range scans sequentially.
+ *
+ * <p>Reads and iterators take a shared lock, and writes take an exclusive lock. Iterators are weakly consistent: they
+ * see the entries as of each call to {@link Iterator#hasNext()} or {@link Iterator#next()}, and continue after the last
+ * key they returned when the entries are compacted.
+ */
+public class OffHeapSkipList {
+  static final int MAX_HEIGHT = 16;
+
+  private static final long NULL = -1L;
+
+  private static final int HEIGHT_OFFSET = 0;
+  private static final int KEY_LENGTH_OFFSET = 4;
+  private static final int VALUE_ADDRESS_OFFSET = 8;
+  private static final int NEXT_OFFSET = 16;
+  private static final int VALUE_HEADER_SIZE = 4;
+
+  private final int slabSize;
+  private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+  private final Random random = new Random();
+  private final long[] head = new long[MAX_HEIGHT];
+  private final long[] predecessors = new long[MAX_HEIGHT];
+
+  private Arena arena;
+  private int height = 1;
+  private long size = 0;
+  private long liveBytes = 0;
+  private int generation = 0;
+
+  /**
+   * @param slabSize the size of the direct buffers entries are allocated from, in bytes. Larger entries get a
+   *                 buffer of their own.
+   */
+  public OffHeapSkipList(int slabSize) {
+    if (slabSize < NEXT_OFFSET + 8 * MAX_HEIGHT) {
+      throw new IllegalArgumentException(String.format("Slab size %d is too small.", slabSize));
+    }
+    this.slabSize = slabSize;
+    this.arena = new Arena(slabSize);
+    Arrays.fill(head, NULL);
+  }
+
+  /**
+   * @param key the key to get the value of
+   * @return the value of the key, or null if there's none
+   */
+  public byte[] get(byte[] key) {
+    lock.readLock().lock();
+    try {
+      long node = findGreaterOrEqual(key, null);
+      if (node == NULL || compare(key, node) != 0) {
+        return null;
+      }
+      return readValue(valueAddress(node));
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Sets the value of a key, replacing any previous value.
+   *
+   * @param key the key
+   * @param value the value
+   */
+  public void put(byte[] key, byte[] value) {
+    lock.writeLock().lock();
+    try {
+      long node = findGreaterOrEqual(key, predecessors);
+      if (node != NULL && compare(key, node) == 0) {
+        long previousValue = valueAddress(node);
+        liveBytes -= valueSize(valueLength(previousValue));
+        setValueAddress(node, writeValue(value));
+      } else {
+        insert(key, value);
+      }
+      maybeCompact();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Removes a key and its value, if it's in the map.
+   *
+   * @param key the key to remove
+   */
+  public void delete(byte[] key) {
+    lock.writeLock().lock();
+    try {
+      long node = findGreaterOrEqual(key, predecessors);
+      if (node == NULL || compare(key, node) != 0) {
+        return;
+      }
+      int nodeHeight = height(node);
+      for (int level = 0; level < nodeHeight; level++) {
+        setNext(predecessors[level], level, next(node, level));
+      }
+      while (height > 1 && head[height - 1] == NULL) {
+        height--;
+      }
+      liveBytes -= nodeSize(nodeHeight, keyLength(node)) + valueSize(valueLength(valueAddress(node)));
+      // iterators positioned on the node skip it, and follow its next nodes back into the list
+      setValueAddress(node, NULL);
+      size--;
+      maybeCompact();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Iterates over the entries with keys from {@code from}, inclusive, to {@code to}, exclusive, in key order.
+   *
+   * @param from the first key, or null to start from the first entry
+   * @param to the key to stop before, or null to iterate to the last entry
+   * @return an iterator over the entries
+   */
+  public Iterator<Entry<byte[], byte[]>> iterator(byte[] from, byte[] to) {
+    return new RangeIterator(from, to);
+  }
+
+  /**
+   * Releases the slabs of the map and removes all its entries.
+   */
+  public void clear() {
+    lock.writeLock().lock();
+    try {
+      arena = new Arena(slabSize);
+      Arrays.fill(head, NULL);
+      height = 1;
+      size = 0;
+      liveBytes = 0;
+      generation++;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * @return the number of entries in the map
+   */
+  public long size() {
+    lock.readLock().lock();
+    try {
+      return size;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * @return the total size of the slabs, in bytes
+   */
+  public long getAllocatedBytes() {
+    lock.readLock().lock();
+    try {
+      return arena.allocatedBytes;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * @return the size of the live entries and their nodes, in bytes
+   */
+  public long getLiveBytes() {
+    lock.readLock().lock();
+    try {
+      return liveBytes;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * @return the size of the overwritten and deleted entries that haven't been compacted yet, in bytes
+   */
+  public long getGarbageBytes() {
+    lock.readLock().lock();
+    try {
+      return arena.usedBytes - liveBytes;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private void insert(byte[] key, byte[] value) {
+    int nodeHeight = 1;
+    while (nodeHeight < MAX_HEIGHT && random.nextInt(4) == 0) {
+      nodeHeight++;
+    }
+    if (nodeHeight > height) {
+      for (int level = height; level < nodeHeight; level++) {
+        predecessors[level] = NULL;
+      }
+      height = nodeHeight;
+    }
+
+    long node = allocateNode(key, nodeHeight, writeValue(value));
+    for (int level = 0; level < nodeHeight; level++) {
+      setNext(node, level, next(predecessors[level], level));
+      setNext(predecessors[level], level, node);
+    }
+    size++;
+  }
+
+  /**
+   * Copies the live entries to new slabs once the overwritten and deleted entries take more space than they do.
+   */
+  private void maybeCompact() {
+    if (arena.usedBytes <= slabSize || arena.usedBytes - liveBytes <= liveBytes) {
+      return;
+    }
+
+    Arena previous = arena;
+    long first = head[0];
+    arena = new Arena(slabSize);
+    liveBytes = 0;
+    Arrays.fill(head, NULL);
+    long[] tails = new long[MAX_HEIGHT];
+    Arrays.fill(tails, NULL);
+
+    for (long node = first; node != NULL; node = next(previous, node, 0)) {
+      byte[] key = readKey(previous, node);
+      byte[] value = readValue(previous, valueAddress(previous, node));
+      int nodeHeight = height(previous, node);
+      long copy = allocateNode(key, nodeHeight, writeValue(value));
+      for (int level = 0; level < nodeHeight; level++) {
+        setNext(copy, level, NULL);
+        setNext(tails[level], level, copy);
+        tails[level] = copy;
+      }
+    }
+    generation++;
+  }
+
+  /**
+   * Finds the first node with a key greater than or equal to {@code key}, and optionally the last node before it at
+   * each level, where {@link #NULL} stands for the head of the list.
+   */
+  private long findGreaterOrEqual(byte[] key, long[] predecessors) {
+    long node = NULL;
+    long next = NULL;
+    for (int level = height - 1; level >= 0; level--) {
+      next = next(node, level);
+      while (next != NULL && compare(key, next) > 0) {
+        node = next;
+        next = next(node, level);
+      }
+      if (predecessors != null) {
+        predecessors[level] = node;
+      }
+    }
+    return next;
+  }
+
+  private long allocateNode(byte[] key, int nodeHeight, long valueAddress) {
+    int nodeSize = nodeSize(nodeHeight, key.length);
+    long node = arena.allocate(nodeSize);
+    ByteBuffer slab = arena.slab(node);
+    int offset = Arena.offset(node);
+    slab.putInt(offset + HEIGHT_OFFSET, nodeHeight);
+    slab.putInt(offset + KEY_LENGTH_OFFSET, key.length);
+    slab.putLong(offset + VALUE_ADDRESS_OFFSET, valueAddress);
+    copyIn(slab, offset + NEXT_OFFSET + 8 * nodeHeight, key);
+    liveBytes += nodeSize;
+    return node;
+  }
+
+  private long writeValue(byte[] value) {
+    long address = arena.allocate(valueSize(value.length));
+    ByteBuffer slab = arena.slab(address);
+    int offset = Arena.offset(address);
+    slab.putInt(offset, value.length);
+    copyIn(slab, offset + VALUE_HEADER_SIZE, value);
+    liveBytes += valueSize(value.length);
+    return address;
+  }
+
+  /**
+   * Compares a key to the key of a node, by their unsigned bytes.
+   */
+  private int compare(byte[] key, long node) {
+    ByteBuffer slab = arena.slab(node);
+    int offset = Arena.offset(node);
+    int nodeKeyLength = slab.getInt(offset + KEY_LENGTH_OFFSET);
+    int keyOffset = offset + NEXT_OFFSET + 8 * slab.getInt(offset + HEIGHT_OFFSET);
+    int length = Math.min(key.length, nodeKeyLength);
+    for (int i = 0; i < length; i++) {
+      int diff = (key[i] & 0xff) - (slab.get(keyOffset + i) & 0xff);
+      if (diff != 0) {
+        return diff;
+      }
+    }
+    return key.length - nodeKeyLength;
+  }
+
+  private long next(long node, int level) {
+    return node == NULL ? head[level] : next(arena, node, level);
+  }
+
+  private void setNext(long node, int level, long next) {
+    if (node == NULL) {
+      head[level] = next;
+    } else {
+      arena.slab(node).putLong(Arena.offset(node) + NEXT_OFFSET + 8 * level, next);
+    }
+  }
+
+  private int height(long node) {
+    return height(arena, node);
+  }
+
+  private int keyLength(long node) {
+    return arena.slab(node).getInt(Arena.offset(node) + KEY_LENGTH_OFFSET);
+  }
+
+  private long valueAddress(long node) {
+    return valueAddress(arena, node);
+  }
+
+  private void setValueAddress(long node, long valueAddress) {
+    arena.slab(node).putLong(Arena.offset(node) + VALUE_ADDRESS_OFFSET, valueAddress);
+  }
+
+  private int valueLength(long valueAddress) {
+    return arena.slab(valueAddress).getInt(Arena.offset(valueAddress));
+  }
+
+  private byte[] readValue(long valueAddress) {
+    return readValue(arena, valueAddress);
+  }
+
+  private static long next(Arena arena, long node, int level) {
+    return arena.slab(node).getLong(Arena.offset(node) + NEXT_OFFSET + 8 * level);
+  }
+
+  private static int height(Arena arena, long node) {
+    return arena.slab(node).getInt(Arena.offset(node) + HEIGHT_OFFSET);
+  }
+
+  private static long valueAddress(Arena arena, long node) {
+    return arena.slab(node).getLong(Arena.offset(node) + VALUE_ADDRESS_OFFSET);
+  }
+
+  private static byte[] readKey(Arena arena, long node) {
+    ByteBuffer slab = arena.slab(node);
+    int offset = Arena.offset(node);
+    byte[] key = new byte[slab.getInt(offset + KEY_LENGTH_OFFSET)];
+    copyOut(slab, offset + NEXT_OFFSET + 8 * slab.getInt(offset + HEIGHT_OFFSET), key);
+    return key;
+  }
+
+  private static byte[] readValue(Arena arena, long valueAddress) {
+    ByteBuffer slab = arena.slab(valueAddress);
+    int offset = Arena.offset(valueAddress);
+    byte[] value = new byte[slab.getInt(offset)];
+    copyOut(slab, offset + VALUE_HEADER_SIZE, value);
+    return value;
+  }
+
+  /**
+   * Copies bytes into a slab with a bulk put. The slab is duplicated so that concurrent readers don't share
+   * its position.
+   */
+  private static void copyIn(ByteBuffer slab, int offset, byte[] bytes) {
+    ByteBuffer buffer = slab.duplicate();
+    buffer.position(offset);
+    buffer.put(bytes);
+  }
+
+  private static void copyOut(ByteBuffer slab, int offset, byte[] bytes) {
+    ByteBuffer buffer = slab.duplicate();
+    buffer.position(offset);
+    buffer.get(bytes);
+  }
+
+  private static int nodeSize(int nodeHeight, int keyLength) {
+    return NEXT_OFFSET + 8 * nodeHeight + keyLength;
+  }
+
+  private static int valueSize(int valueLength) {
+    return VALUE_HEADER_SIZE + valueLength;
+  }
+
+  /**
+   * The slabs entries are allocated from. An address is the index of the slab in the upper 32 bits, and the offset
+   * in the slab in the lower 32 bits.
+   */
+  private static class Arena {
+    private final int slabSize;
+    private final List<ByteBuffer> slabs = new ArrayList<>();
+    private int currentSlab = -1;
+    private int currentOffset = 0;
+    private long allocatedBytes = 0;
+    private long usedBytes = 0;
+
+    private Arena(int slabSize) {
+      this.slabSize = slabSize;
+    }
+
+    private long allocate(int size) {
+      usedBytes += size;
+      if (size > slabSize) {
+        slabs.add(ByteBuffer.allocateDirect(size));
+        allocatedBytes += size;
+        return address(slabs.size() - 1, 0);
+      }
+      if (currentSlab < 0 || slabSize - currentOffset < size) {
+        slabs.add(ByteBuffer.allocateDirect(slabSize));
+        allocatedBytes += slabSize;
+        currentSlab = slabs.size() - 1;
+        currentOffset = 0;
+      }
+      long address = address(currentSlab, currentOffset);
+      currentOffset += size;
+      return address;
+    }
+
+    private ByteBuffer slab(long address) {
+      return slabs.get((int) (address >>> 32));
+    }
+
+    private static int offset(long address) {
+      return (int) address;
+    }
+
+    private static long address(int slab, int offset) {
+      return ((long) slab << 32) | offset;
+    }
+  }
+
+  private class RangeIterator implements Iterator<Entry<byte[], byte[]>> {
+    private final byte[] from;
+    private final byte[] to;
+    private byte[] lastKey = null;
+    private long nextNode = NULL;
+    private int nodeGeneration = -1;
+
+    private RangeIterator(byte[] from, byte[] to) {
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    public boolean hasNext() {
+      lock.readLock().lock();
+      try {
+        return position() != NULL;
+      } finally {
+        lock.readLock().unlock();
+      }
+    }
+
+    @Override
+    public Entry<byte[], byte[]> next() {
+      lock.readLock().lock();
+      try {
+        long node = position();
+        if (node == NULL) {
+          throw new NoSuchElementException();
+        }
+        byte[] key = readKey(arena, node);
+        byte[] value = readValue(valueAddress(node));
+        lastKey = key;
+        nextNode = OffHeapSkipList.this.next(node, 0);
+        return new Entry<>(key, value);
+      } finally {
+        lock.readLock().unlock();
+      }
+    }
+
+    /**
+     * Moves to the next live node in the range, seeking from the last returned key if the slabs changed.
+     */
+    private long position() {
+      if (nodeGeneration != generation) {
+        if (lastKey == null) {
+          nextNode = from == null ? head[0] : findGreaterOrEqual(from, null);
+        } else {
+          nextNode = findGreaterOrEqual(lastKey, null);
+          if (nextNode != NULL && compare(lastKey, nextNode) == 0) {
+            nextNode = OffHeapSkipList.this.next(nextNode, 0);
+          }
+        }
+        nodeGeneration = generation;
+      }
+      while (nextNode != NULL && valueAddress(nextNode) == NULL) {
+        nextNode = OffHeapSkipList.this.next(nextNode, 0);
+      }
+      if (nextNode != NULL && to != null && compare(to, nextNode) <= 0) {
+        nextNode = NULL;
+      }
+      return nextNode;
+    }
+  }
+}
@@ -37,6 +37,12 @@ import org.apache.samza.table.descriptors.LocalTableDescriptor;
  */
 public class InMemoryTableDescriptor<K, V> extends LocalTableDescriptor<K, V, InMemoryTableDescriptor<K, V>> {
 
+  static final public String INMEMORY_OFF_HEAP = "inmemory.off.heap";
+  static final public String INMEMORY_OFF_HEAP_SLAB_SIZE_BYTES = "inmemory.off.heap.slab.size.bytes";
+
+  private Boolean offHeap;
+  private Integer offHeapSlabSize;
+
   /**
    * Constructs a table descriptor instance
    * @param tableId Id of the table, it must conform to pattern {@literal [\\d\\w-_]+}
@@ -46,6 +52,38 @@ public class InMemoryTableDescriptor<K, V> extends LocalTableDescriptor<K, V, In
     super(tableId, serde);
   }
 
+  /**
+   * Stores the entries of the table outside the Java heap, in direct buffers, instead of as byte arrays in a
+   * concurrent skip list. This keeps large tables from adding to garbage collection pauses and saves the per entry
+   * object overhead. The JVM has to be allowed enough direct memory for the table, see -XX:MaxDirectMemorySize.
+   * <p>
+   * Default value is false.
+   * <p>
+   * Refer to <code>stores.store-name.inmemory.off.heap</code> in Samza configuration guide
+   *
+   * @return this table descriptor instance
+   */
+  public InMemoryTableDescriptor<K, V> withOffHeap() {
+    this.offHeap = true;
+    return this;
+  }
+
+  /**
+   * The size of the direct buffers that the entries of an off-heap table ({@link #withOffHeap}) are allocated from,
+   * per task instance. Entries larger than this get a buffer of their own.
+   * <p>
+   * Default value is 16,777,216.
+   * <p>
+   * Refer to <code>stores.store-name.inmemory.off.heap.slab.size.bytes</code> in Samza configuration guide
+   *
+   * @param offHeapSlabSize the slab size in bytes
+   * @return this table descriptor instance
+   */
+  public InMemoryTableDescriptor<K, V> withOffHeapSlabSize(int offHeapSlabSize) {
+    this.offHeapSlabSize = offHeapSlabSize;
+    return this;
+  }
+
   @Override
   public String getProviderFactoryClassName() {
     return LocalTableProviderFactory.class.getName();
@@ -57,6 +95,14 @@ public class InMemoryTableDescriptor<K, V> extends LocalTableDescriptor<K, V, In
     // Store factory configuration
     tableConfig.put(String.format(StorageConfig.FACTORY(), tableId),
         InMemoryKeyValueStorageEngineFactory.class.getName());
+
+    if (offHeap != null) {
+      addStoreConfig(INMEMORY_OFF_HEAP, offHeap.toString(), tableConfig);
+    }
+    if (offHeapSlabSize != null) {
+      addStoreConfig(INMEMORY_OFF_HEAP_SLAB_SIZE_BYTES, offHeapSlabSize.toString(), tableConfig);
+    }
+
     return Collections.unmodifiableMap(tableConfig);
   }
 }
@@ -24,9 +24,11 @@ import java.io.File
 import org.apache.samza.context.{ContainerContext, JobContext}
 import org.apache.samza.metrics.MetricsRegistry
 import org.apache.samza.storage.kv.{BaseKeyValueStorageEngineFactory, KeyValueStore, KeyValueStoreMetrics}
+import org.apache.samza.storage.kv.inmemory.descriptors.InMemoryTableDescriptor
 import org.apache.samza.system.SystemStreamPartition
+import org.apache.samza.util.Logging
 
-class InMemoryKeyValueStorageEngineFactory[K, V] extends BaseKeyValueStorageEngineFactory[K, V] {
+class InMemoryKeyValueStorageEngineFactory[K, V] extends BaseKeyValueStorageEngineFactory[K, V] with Logging {
 
   override def getKVStore(storeName: String,
     storeDir: File,
@@ -34,9 +36,16 @@ class InMemoryKeyValueStorageEngineFactory[K, V] extends BaseKeyValueStorageEngi
     changeLogSystemStreamPartition: SystemStreamPartition,
     jobContext: JobContext,
     containerContext: ContainerContext): KeyValueStore[Array[Byte], Array[Byte]] = {
+    val storageConfig = jobContext.getConfig.subset("stores." + storeName + ".", true)
     val metrics = new KeyValueStoreMetrics(storeName, registry)
-    val inMemoryDb = new InMemoryKeyValueStore (metrics)
-    inMemoryDb
+    if (storageConfig.getBoolean(InMemoryTableDescriptor.INMEMORY_OFF_HEAP, false)) {
+      val slabSize = storageConfig.getInt(InMemoryTableDescriptor.INMEMORY_OFF_HEAP_SLAB_SIZE_BYTES,
+        OffHeapKeyValueStore.DEFAULT_SLAB_SIZE_BYTES)
+      info("Using off-heap in-memory store for %s with %d byte slabs." format (storeName, slabSize))
+      new OffHeapKeyValueStore(slabSize, metrics)
+    } else {
+      new InMemoryKeyValueStore(metrics)
+    }
   }
 
 }
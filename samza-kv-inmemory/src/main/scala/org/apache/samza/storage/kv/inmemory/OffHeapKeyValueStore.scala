@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.samza.storage.kv.inmemory
+
+import java.util
+
+import org.apache.samza.storage.kv._
+import org.apache.samza.util.Logging
+
+/**
+ * In memory implementation of a key value store that keeps its entries off the Java heap.
+ *
+ * This uses an [[OffHeapSkipList]] to store the keys in order in direct buffers, so the size of the store doesn't
+ * affect garbage collection. The direct memory of the JVM has to be large enough for the store, see
+ * -XX:MaxDirectMemorySize.
+ *
+ * @param slabSize The size of the direct buffers entries are allocated from, in bytes
+ * @param metrics A metrics instance to publish key-value store related statistics
+ */
+class OffHeapKeyValueStore(
+  val slabSize: Int = OffHeapKeyValueStore.DEFAULT_SLAB_SIZE_BYTES,
+  val metrics: KeyValueStoreMetrics = new KeyValueStoreMetrics) extends KeyValueStore[Array[Byte], Array[Byte]] with Logging {
+
+  val underlying = new OffHeapSkipList(slabSize)
+
+  metrics.newGauge("off-heap-allocated-bytes", () => underlying.getAllocatedBytes)
+  metrics.newGauge("off-heap-live-bytes", () => underlying.getLiveBytes)
+  metrics.newGauge("off-heap-garbage-bytes", () => underlying.getGarbageBytes)
+  metrics.newGauge("off-heap-entries", () => underlying.size)
+
+  override def flush(): Unit = {
+    // No-op for In memory store.
+    metrics.flushes.inc
+  }
+
+  /**
+   * Releases the direct buffers of the store.
+   */
+  override def close(): Unit = underlying.clear()
+
+  private class OffHeapIterator (val iter: util.Iterator[Entry[Array[Byte], Array[Byte]]])
+    extends KeyValueIterator[Array[Byte], Array[Byte]] {
+
+    override def close(): Unit = Unit
+
+    override def remove(): Unit = throw new UnsupportedOperationException("OffHeapKeyValueStore iterator doesn't support remove")
+
+    override def next(): Entry[Array[Byte], Array[Byte]] = {
+      val n = iter.next()
+      metrics.bytesRead.inc(n.getKey.length + n.getValue.length)
+      n
+    }
+
+    override def hasNext: Boolean = iter.hasNext
+  }
+
+  override def all(): KeyValueIterator[Array[Byte], Array[Byte]] = {
+    metrics.alls.inc
+
+    new OffHeapIterator(underlying.iterator(null, null))
+  }
+
+  override def range(from: Array[Byte], to: Array[Byte]): KeyValueIterator[Array[Byte], Array[Byte]] = {
+    metrics.ranges.inc
+    require(from != null && to != null, "Null bound not allowed.")
+
+    new OffHeapIterator(underlying.iterator(from, to))
+  }
+
+  override def delete(key: Array[Byte]): Unit = {
+    metrics.deletes.inc
+    put(key, null)
+  }
+
+  override def putAll(entries: util.List[Entry[Array[Byte], Array[Byte]]]): Unit = {
+    val iter = entries.iterator()
+    while(iter.hasNext) {
+      val next = iter.next()
+      put(next.getKey, next.getValue)
+    }
+  }
+
+  override def put(key: Array[Byte], value: Array[Byte]): Unit = {
+    metrics.puts.inc
+    require(key != null, "Null key not allowed.")
+    if (value == null) {
+      metrics.deletes.inc
+      underlying.delete(key)
+    } else {
+      metrics.bytesWritten.inc(key.length + value.length)
+      underlying.put(key, value)
+    }
+  }
+
+  override def get(key: Array[Byte]): Array[Byte] = {
+    metrics.gets.inc
+    require(key != null, "Null key not allowed.")
+    val found = underlying.get(key)
+    if (found != null) {
+      metrics.bytesRead.inc(found.length)
+    }
+    found
+  }
+
+  override def snapshot(from: Array[Byte], to: Array[Byte]): KeyValueSnapshot[Array[Byte], Array[Byte]] = {
+    // like the on-heap store, the snapshot is a view of the range rather than a copy
+    new KeyValueSnapshot[Array[Byte], Array[Byte]] {
+      override def iterator(): KeyValueIterator[Array[Byte], Array[Byte]] = {
+        new OffHeapIterator(underlying.iterator(from, to))
+      }
+
+      override def close() { }
+    }
+  }
+}
+
+object OffHeapKeyValueStore {
+  val DEFAULT_SLAB_SIZE_BYTES = 16 * 1024 * 1024
+}
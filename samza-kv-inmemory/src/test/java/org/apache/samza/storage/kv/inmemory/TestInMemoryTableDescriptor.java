@@ -54,6 +54,19 @@ public class TestInMemoryTableDescriptor {
         tableConfig.get(String.format(StorageConfig.FACTORY(), TABLE_ID)));
   }
 
+  @Test
+  public void testOffHeap() {
+    Map<String, String> tableConfig = createTableDescriptor()
+        .withOffHeap()
+        .withOffHeapSlabSize(1048576)
+        .toConfig(createJobConfig());
+    Assert.assertEquals(4, tableConfig.size());
+    Assert.assertEquals("true",
+        tableConfig.get(String.format("stores.%s.%s", TABLE_ID, InMemoryTableDescriptor.INMEMORY_OFF_HEAP)));
+    Assert.assertEquals("1048576", tableConfig.get(
+        String.format("stores.%s.%s", TABLE_ID, InMemoryTableDescriptor.INMEMORY_OFF_HEAP_SLAB_SIZE_BYTES)));
+  }
+
   private Config createJobConfig() {
     return new MapConfig();
   }
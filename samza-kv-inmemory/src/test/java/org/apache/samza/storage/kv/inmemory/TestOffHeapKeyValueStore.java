@@ -0,0 +1,188 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.samza.storage.kv.inmemory;
+
+import com.google.common.primitives.Ints;
+import com.google.common.primitives.UnsignedBytes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import org.apache.samza.metrics.MetricsRegistryMap;
+import org.apache.samza.storage.kv.Entry;
+import org.apache.samza.storage.kv.KeyValueIterator;
+import org.apache.samza.storage.kv.KeyValueStoreMetrics;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TestOffHeapKeyValueStore {
+  private static final int SLAB_SIZE = 4096;
+
+  @Test
+  public void testPutGetDelete() {
+    OffHeapKeyValueStore store = createStore();
+    store.put(key(1), "one".getBytes());
+    store.put(key(2), "two".getBytes());
+    assertArrayEquals("one".getBytes(), store.get(key(1)));
+    assertArrayEquals("two".getBytes(), store.get(key(2)));
+    assertNull(store.get(key(3)));
+
+    store.put(key(1), "uno".getBytes());
+    assertArrayEquals("uno".getBytes(), store.get(key(1)));
+
+    store.delete(key(1));
+    assertNull(store.get(key(1)));
+    assertArrayEquals("two".getBytes(), store.get(key(2)));
+    assertEquals(1, store.underlying().size());
+    store.close();
+  }
+
+  @Test
+  public void testRangeAndAllAreOrderedByUnsignedBytes() {
+    OffHeapKeyValueStore store = createStore();
+    byte[][] keys = {new byte[] {(byte) 0xff}, new byte[] {0x01}, new byte[] {0x01, 0x00}, new byte[] {0x7f}};
+    for (byte[] key : keys) {
+      store.put(key, key);
+    }
+
+    List<byte[]> all = keys(store.all());
+    assertEquals(4, all.size());
+    assertArrayEquals(new byte[] {0x01}, all.get(0));
+    assertArrayEquals(new byte[] {0x01, 0x00}, all.get(1));
+    assertArrayEquals(new byte[] {0x7f}, all.get(2));
+    assertArrayEquals(new byte[] {(byte) 0xff}, all.get(3));
+
+    List<byte[]> range = keys(store.range(new byte[] {0x01, 0x00}, new byte[] {(byte) 0xff}));
+    assertEquals(2, range.size());
+    assertArrayEquals(new byte[] {0x01, 0x00}, range.get(0));
+    assertArrayEquals(new byte[] {0x7f}, range.get(1));
+    store.close();
+  }
+
+  @Test
+  public void testRandomOperationsMatchSortedMap() {
+    OffHeapKeyValueStore store = createStore();
+    TreeMap<byte[], byte[]> expected = new TreeMap<>(UnsignedBytes.lexicographicalComparator());
+    Random random = new Random(42);
+    for (int i = 0; i < 20000; i++) {
+      byte[] key = key(random.nextInt(500));
+      if (random.nextInt(3) == 0) {
+        store.delete(key);
+        expected.remove(key);
+      } else {
+        byte[] value = new byte[random.nextInt(100)];
+        random.nextBytes(value);
+        store.put(key, value);
+        expected.put(key, value);
+      }
+    }
+
+    assertEquals(expected.size(), store.underlying().size());
+    KeyValueIterator<byte[], byte[]> iterator = store.all();
+    for (Map.Entry<byte[], byte[]> entry : expected.entrySet()) {
+      assertTrue(iterator.hasNext());
+      Entry<byte[], byte[]> actual = iterator.next();
+      assertArrayEquals(entry.getKey(), actual.getKey());
+      assertArrayEquals(entry.getValue(), actual.getValue());
+    }
+    assertFalse(iterator.hasNext());
+    // overwritten and deleted entries are compacted once they outgrow the live ones
+    assertTrue(store.underlying().getGarbageBytes() <= Math.max(store.underlying().getLiveBytes(), SLAB_SIZE));
+    store.close();
+  }
+
+  @Test
+  public void testIteratorContinuesAfterCompaction() {
+    OffHeapKeyValueStore store = createStore();
+    for (int i = 0; i < 100; i++) {
+      store.put(key(i), new byte[64]);
+    }
+
+    KeyValueIterator<byte[], byte[]> iterator = store.all();
+    for (int i = 0; i < 10; i++) {
+      assertArrayEquals(key(i), iterator.next().getKey());
+    }
+    // overwrite the values until the store is compacted
+    for (int round = 0; round < 5; round++) {
+      for (int i = 0; i < 100; i++) {
+        store.put(key(i), new byte[64]);
+      }
+    }
+    store.delete(key(10));
+    assertTrue(store.underlying().getGarbageBytes() <= store.underlying().getLiveBytes());
+
+    for (int i = 11; i < 100; i++) {
+      assertArrayEquals(key(i), iterator.next().getKey());
+    }
+    assertFalse(iterator.hasNext());
+    store.close();
+  }
+
+  @Test
+  public void testValuesLargerThanSlab() {
+    OffHeapKeyValueStore store = createStore();
+    byte[] value = new byte[SLAB_SIZE * 3];
+    new Random(1).nextBytes(value);
+    store.put(key(1), value);
+    store.put(key(2), "small".getBytes());
+    assertArrayEquals(value, store.get(key(1)));
+    assertArrayEquals("small".getBytes(), store.get(key(2)));
+    store.close();
+  }
+
+  @Test
+  public void testMemoryGauges() {
+    MetricsRegistryMap registry = new MetricsRegistryMap();
+    OffHeapKeyValueStore store = new OffHeapKeyValueStore(SLAB_SIZE, new KeyValueStoreMetrics("testOffHeap", registry));
+    store.put(key(1), new byte[100]);
+
+    Map<String, Object> gauges = new TreeMap<>();
+    registry.getGroup(KeyValueStoreMetrics.class.getName())
+        .forEach((name, metric) -> gauges.put(name, metric));
+    assertTrue(gauges.containsKey("testoffheap-off-heap-allocated-bytes"));
+    assertTrue(gauges.containsKey("testoffheap-off-heap-live-bytes"));
+    assertTrue(gauges.containsKey("testoffheap-off-heap-entries"));
+    assertEquals(SLAB_SIZE, store.underlying().getAllocatedBytes());
+    assertTrue(store.underlying().getLiveBytes() > 100);
+
+    store.close();
+    assertEquals(0, store.underlying().getAllocatedBytes());
+  }
+
+  private static OffHeapKeyValueStore createStore() {
+    return new OffHeapKeyValueStore(SLAB_SIZE, new KeyValueStoreMetrics("testOffHeap", new MetricsRegistryMap()));
+  }
+
+  private static byte[] key(int i) {
+    return Ints.toByteArray(i);
+  }
+
+  private static List<byte[]> keys(KeyValueIterator<byte[], byte[]> iterator) {
+    List<byte[]> keys = new ArrayList<>();
+    while (iterator.hasNext()) {
+      keys.add(iterator.next().getKey());
+    }
+    iterator.close();
+    return keys;
+  }
+}
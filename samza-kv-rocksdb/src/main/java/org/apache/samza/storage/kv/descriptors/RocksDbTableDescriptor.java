@@ -40,6 +40,7 @@ public class RocksDbTableDescriptor<K, V> extends LocalTableDescriptor<K, V, Roc
 
   static final public String WRITE_BATCH_SIZE = "write.batch.size";
   static final public String OBJECT_CACHE_SIZE = "object.cache.size";
+  static final public String OBJECT_CACHE_SEGMENTS = "object.cache.segments";
   static final public String CONTAINER_CACHE_SIZE_BYTES = "container.cache.size.bytes";
   static final public String CONTAINER_WRITE_BUFFER_SIZE_BYTES = "container.write.buffer.size.bytes";
   static final public String ROCKSDB_COMPRESSION = "rocksdb.compression";
@@ -52,6 +53,7 @@ public class RocksDbTableDescriptor<K, V> extends LocalTableDescriptor<K, V, Roc
 
   private Integer writeBatchSize;
   private Integer objectCacheSize;
+  private Integer objectCacheSegments;
   private Integer cacheSize;
   private Integer writeBufferSize;
   private Integer blockSize;
@@ -110,6 +112,24 @@ public class RocksDbTableDescriptor<K, V> extends LocalTableDescriptor<K, V, Roc
     return this;
   }
 
+  /**
+   * The number of independently locked segments the object cache ({@link #withObjectCacheSize})
+   * and write batch ({@link #withWriteBatchSize}) are split into. A value greater than 1 enables
+   * a concurrent cache where cache hits don't take any lock and writes only lock the segment
+   * of their key, which helps tables that are accessed by several threads at once.
+   * <p>
+   * Default value is 1.
+   * <p>
+   * Refer to <code>stores.store-name.object.cache.segments</code> in Samza configuration guide
+   *
+   * @param objectCacheSegments the number of object cache segments
+   * @return this table descriptor instance
+   */
+  public RocksDbTableDescriptor<K, V> withObjectCacheSegments(int objectCacheSegments) {
+    this.objectCacheSegments = objectCacheSegments;
+    return this;
+  }
+
   /**
    * The size of RocksDB's block cache in bytes, per container. If there are several task
    * instances within one container, each is given a proportional share of this cache.
@@ -293,6 +313,9 @@ public class RocksDbTableDescriptor<K, V> extends LocalTableDescriptor<K, V, Roc
     if (objectCacheSize != null) {
       addStoreConfig(OBJECT_CACHE_SIZE, objectCacheSize.toString(), tableConfig);
     }
+    if (objectCacheSegments != null) {
+      addStoreConfig(OBJECT_CACHE_SEGMENTS, objectCacheSegments.toString(), tableConfig);
+    }
     if (cacheSize != null) {
       addStoreConfig(CONTAINER_CACHE_SIZE_BYTES, cacheSize.toString(), tableConfig);
     }
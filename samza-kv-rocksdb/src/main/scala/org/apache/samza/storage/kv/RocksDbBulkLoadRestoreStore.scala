@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.samza.storage.kv
+
+import java.io.File
+
+import org.apache.samza.util.{FileUtil, Logging}
+
+/**
+ * A write-only store used to restore a [[RocksDbKeyValueStore]] from its changelog by bulk loading SST files
+ * instead of writing every changelog entry through the memtable.
+ *
+ * Restored entries are buffered in memory sorted by key, which also drops all but the latest entry for a key. Once the
+ * buffer holds maxBufferedBytes of keys and values, or when the store is flushed at the end of restore, the buffer is
+ * written to an SST file and ingested into the store. Later files take precedence over earlier ones, so the
+ * store ends up with the latest value of every key in the changelog.
+ *
+ * Reads are not supported, since the restored entries are not visible until they are ingested.
+ *
+ * @param store The store to restore
+ * @param maxBufferedBytes The number of key and value bytes to buffer before writing an SST file
+ */
+class RocksDbBulkLoadRestoreStore(
+  val store: RocksDbKeyValueStore,
+  val maxBufferedBytes: Long) extends KeyValueStore[Array[Byte], Array[Byte]] with Logging {
+
+  private val buffer = new java.util.TreeMap[Array[Byte], Array[Byte]](new store.LexicographicComparator)
+  private var bufferedBytes = 0L
+  private var filesIngested = 0
+  private val sstDir = new File(store.dir, "bulk-load")
+
+  override def put(key: Array[Byte], value: Array[Byte]) {
+    require(key != null, "Null key not allowed.")
+    val buffered = buffer.containsKey(key)
+    val previous = buffer.put(key, value)
+    if (!buffered) {
+      bufferedBytes += key.length
+    }
+    if (previous != null) {
+      bufferedBytes -= previous.length
+    }
+    if (value != null) {
+      bufferedBytes += value.length
+    }
+
+    if (bufferedBytes >= maxBufferedBytes) {
+      ingestBuffer()
+    }
+  }
+
+  override def putAll(entries: java.util.List[Entry[Array[Byte], Array[Byte]]]) {
+    val iter = entries.iterator
+    while (iter.hasNext) {
+      val curr = iter.next
+      put(curr.getKey, curr.getValue)
+    }
+  }
+
+  override def delete(key: Array[Byte]) {
+    put(key, null)
+  }
+
+  /**
+   * Ingests any buffered entries and flushes the store.
+   */
+  override def flush() {
+    ingestBuffer()
+    if (sstDir.exists()) {
+      FileUtil.rm(sstDir)
+    }
+    store.flush()
+  }
+
+  /**
+   * Ingests any buffered entries. The underlying store is closed by its owner, not by this store.
+   */
+  override def close() {
+    ingestBuffer()
+  }
+
+  override def get(key: Array[Byte]): Array[Byte] = throw unsupported
+
+  override def range(from: Array[Byte], to: Array[Byte]): KeyValueIterator[Array[Byte], Array[Byte]] = throw unsupported
+
+  override def all(): KeyValueIterator[Array[Byte], Array[Byte]] = throw unsupported
+
+  private def ingestBuffer() {
+    if (!buffer.isEmpty) {
+      if (!sstDir.exists()) {
+        sstDir.mkdirs()
+      }
+      val sstFile = new File(sstDir, "restore-%d.sst" format filesIngested)
+      debug("Ingesting %d restored entries (%d bytes) for store %s from %s."
+        format (buffer.size, bufferedBytes, store.storeName, sstFile))
+      store.ingestSorted(buffer.entrySet.iterator, sstFile)
+      filesIngested += 1
+      buffer.clear()
+      bufferedBytes = 0
+    }
+  }
+
+  private def unsupported = new UnsupportedOperationException(
+    "Store %s can't be read while it is being bulk loaded from its changelog." format store.storeName)
+}
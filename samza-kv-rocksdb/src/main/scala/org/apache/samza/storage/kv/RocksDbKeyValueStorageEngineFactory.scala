@@ -21,13 +21,15 @@ package org.apache.samza.storage.kv
 
 import java.io.File
 
+import org.apache.samza.config.Config
 import org.apache.samza.config.StorageConfig._
 import org.apache.samza.context.{ContainerContext, JobContext}
 import org.apache.samza.metrics.MetricsRegistry
 import org.apache.samza.system.SystemStreamPartition
+import org.apache.samza.util.Logging
 import org.rocksdb.{FlushOptions, WriteOptions}
 
-class RocksDbKeyValueStorageEngineFactory [K, V] extends BaseKeyValueStorageEngineFactory[K, V] {
+class RocksDbKeyValueStorageEngineFactory [K, V] extends BaseKeyValueStorageEngineFactory[K, V] with Logging {
   /**
    * Return a KeyValueStore instance for the given store name
    * @param storeName Name of the store
@@ -64,4 +66,25 @@ class RocksDbKeyValueStorageEngineFactory [K, V] extends BaseKeyValueStorageEngi
       rocksDbMetrics)
     rocksDb
   }
+
+  /**
+   * Restores the store by bulk loading sorted SST files if rocksdb.restore.bulk.load is enabled.
+   * TTL stores are always restored through the regular write path, since ingested entries would bypass the
+   * timestamps TTL expiry relies on.
+   */
+  override def getRestoreStore(storeName: String,
+    rawStore: KeyValueStore[Array[Byte], Array[Byte]],
+    storeConfig: Config): KeyValueStore[Array[Byte], Array[Byte]] = {
+    rawStore match {
+      case rocksDb: RocksDbKeyValueStore if storeConfig.getBoolean("rocksdb.restore.bulk.load", false) =>
+        if (storeConfig.containsKey("rocksdb.ttl.ms")) {
+          warn("Bulk load restore is not supported for TTL store %s. Restoring through regular writes." format storeName)
+          rawStore
+        } else {
+          info("Using bulk load restore for store %s." format storeName)
+          new RocksDbBulkLoadRestoreStore(rocksDb, storeConfig.getLong("rocksdb.restore.bulk.load.buffer.bytes", 67108864L))
+        }
+      case _ => rawStore
+    }
+  }
 }
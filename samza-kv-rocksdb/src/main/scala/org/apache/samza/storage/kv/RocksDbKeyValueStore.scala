@@ -172,25 +172,103 @@ class RocksDbKeyValueStore(
     }
   }
 
-  // Write batch from RocksDB API is not used currently because of: https://github.com/facebook/rocksdb/issues/262
+  /**
+    * Applies all entries with a single atomic WriteBatch, so a batch costs one JNI call into RocksDB
+    * instead of one per entry. Entries with a null value are deleted.
+    */
   def putAll(entries: java.util.List[Entry[Array[Byte], Array[Byte]]]): Unit = ifOpen {
     metrics.putAlls.inc()
     val iter = entries.iterator
     var wrote = 0
     var deletes = 0
-    while (iter.hasNext) {
-      val curr = iter.next()
-      if (curr.getValue == null) {
-        deletes += 1
-        db.delete(writeOptions, curr.getKey)
-      } else {
-        wrote += 1
+    var bytesWritten = 0L
+    val writeBatch = new WriteBatch()
+    try {
+      while (iter.hasNext) {
+        val curr = iter.next()
         val key = curr.getKey
-        val value = curr.getValue
-        metrics.bytesWritten.inc(key.length + value.length)
-        db.put(writeOptions, key, value)
+        require(key != null, "Null key not allowed.")
+        if (curr.getValue == null) {
+          deletes += 1
+          writeBatch.remove(key)
+        } else {
+          wrote += 1
+          val value = curr.getValue
+          bytesWritten += key.length + value.length
+          writeBatch.put(key, value)
+        }
+      }
+      db.write(writeOptions, writeBatch)
+    } finally {
+      writeBatch.close()
+    }
+    metrics.bytesWritten.inc(bytesWritten)
+    metrics.puts.inc(wrote)
+    metrics.deletes.inc(deletes)
+  }
+
+  /**
+    * Writes the entries into a new SST file and ingests it into the store, bypassing the memtable and the
+    * compactions that would otherwise rewrite the data. The entries must be sorted with the lexicographic
+    * comparator and must not contain duplicate keys. Entries with a null value are written as deletes.
+    *
+    * Ingested entries take precedence over any existing value of the same key in the store.
+    *
+    * @param entries the sorted entries to ingest
+    * @param sstFile the file to write the entries to. It's moved into the store on successful ingestion.
+    */
+  def ingestSorted(entries: java.util.Iterator[java.util.Map.Entry[Array[Byte], Array[Byte]]], sstFile: File): Unit = ifOpen {
+    metrics.putAlls.inc()
+    var wrote = 0
+    var deletes = 0
+    var bytesWritten = 0L
+    val envOptions = new EnvOptions()
+    val writer = new SstFileWriter(envOptions, options)
+    try {
+      writer.open(sstFile.getAbsolutePath)
+      while (entries.hasNext) {
+        val curr = entries.next()
+        val key = new Slice(curr.getKey)
+        try {
+          if (curr.getValue == null) {
+            deletes += 1
+            writer.delete(key)
+          } else {
+            wrote += 1
+            bytesWritten += curr.getKey.length + curr.getValue.length
+            val value = new Slice(curr.getValue)
+            try {
+              writer.put(key, value)
+            } finally {
+              value.close()
+            }
+          }
+        } finally {
+          key.close()
+        }
+      }
+      if (wrote + deletes > 0) {
+        writer.finish()
       }
+    } finally {
+      writer.close()
+      envOptions.close()
     }
+
+    if (wrote + deletes > 0) {
+      val ingestOptions = new IngestExternalFileOptions()
+      try {
+        ingestOptions.setMoveFiles(true)
+        db.ingestExternalFile(util.Arrays.asList(sstFile.getAbsolutePath), ingestOptions)
+      } finally {
+        ingestOptions.close()
+      }
+    }
+    if (sstFile.exists()) {
+      sstFile.delete()
+    }
+
+    metrics.bytesWritten.inc(bytesWritten)
     metrics.puts.inc(wrote)
     metrics.deletes.inc(deletes)
   }
@@ -26,7 +26,7 @@ import java.util
 import org.apache.samza.SamzaException
 import org.apache.samza.config.MapConfig
 import org.apache.samza.metrics.{Gauge, MetricsRegistryMap}
-import org.apache.samza.util.ExponentialSleepStrategy
+import org.apache.samza.util.{ExponentialSleepStrategy, FileUtil}
 import org.junit.{Assert, Test}
 import org.rocksdb.{FlushOptions, Options, RocksDB, RocksIterator}
 
@@ -181,6 +181,84 @@ class TestRocksDbKeyValueStore
     rocksDBReadOnly.close()
   }
 
+  @Test
+  def testPutAllWritesAndDeletesInOneBatch(): Unit = {
+    val map = new util.HashMap[String, String]()
+    val config = new MapConfig(map)
+    val options = new Options()
+    options.setCreateIfMissing(true)
+
+    val registry = new MetricsRegistryMap("registrymap")
+    val metrics = new KeyValueStoreMetrics("dbStore", registry)
+    val dbDir = new File(System.getProperty("java.io.tmpdir"), "putAllStore")
+    FileUtil.rm(dbDir)
+    val rocksDB = new RocksDbKeyValueStore(dbDir, options, config, false, "dbStore", metrics = metrics)
+
+    try {
+      val key1 = "key1".getBytes("UTF-8")
+      val key2 = "key2".getBytes("UTF-8")
+      val key3 = "key3".getBytes("UTF-8")
+      val value = "val".getBytes("UTF-8")
+      rocksDB.put(key3, value)
+
+      rocksDB.putAll(util.Arrays.asList(
+        new Entry(key1, value),
+        new Entry(key2, value),
+        new Entry(key3, null),
+        new Entry(key2, "val2".getBytes("UTF-8"))))
+
+      Assert.assertArrayEquals(value, rocksDB.get(key1))
+      Assert.assertArrayEquals("val2".getBytes("UTF-8"), rocksDB.get(key2))
+      Assert.assertNull(rocksDB.get(key3))
+      Assert.assertEquals(1, metrics.putAlls.getCount)
+      Assert.assertEquals(4, metrics.puts.getCount)
+      Assert.assertEquals(1, metrics.deletes.getCount)
+    } finally {
+      rocksDB.close()
+      FileUtil.rm(dbDir)
+    }
+  }
+
+  @Test
+  def testBulkLoadRestore(): Unit = {
+    val map = new util.HashMap[String, String]()
+    val config = new MapConfig(map)
+    val options = new Options()
+    options.setCreateIfMissing(true)
+
+    val dbDir = new File(System.getProperty("java.io.tmpdir"), "bulkLoadStore")
+    FileUtil.rm(dbDir)
+    val rocksDB = new RocksDbKeyValueStore(dbDir, options, config, false, "dbStore")
+    val key0 = "key0".getBytes("UTF-8")
+    rocksDB.put(key0, "existing".getBytes("UTF-8"))
+
+    // small enough to ingest several files
+    val restoreStore = new RocksDbBulkLoadRestoreStore(rocksDB, 64)
+    for (i <- 0 until 20) {
+      restoreStore.put(("key" + (i % 10)).getBytes("UTF-8"), ("val" + i).getBytes("UTF-8"))
+    }
+    restoreStore.delete("key3".getBytes("UTF-8"))
+    restoreStore.putAll(util.Arrays.asList(new Entry("key4".getBytes("UTF-8"), null)))
+    restoreStore.flush()
+
+    Assert.assertArrayEquals("val10".getBytes("UTF-8"), rocksDB.get(key0))
+    Assert.assertArrayEquals("val19".getBytes("UTF-8"), rocksDB.get("key9".getBytes("UTF-8")))
+    Assert.assertNull(rocksDB.get("key3".getBytes("UTF-8")))
+    Assert.assertNull(rocksDB.get("key4".getBytes("UTF-8")))
+    val iter = rocksDB.all()
+    var count = 0
+    while (iter.hasNext) {
+      iter.next()
+      count += 1
+    }
+    iter.close()
+    Assert.assertEquals(8, count)
+    Assert.assertFalse(new File(dbDir, "bulk-load").exists())
+
+    rocksDB.close()
+    FileUtil.rm(dbDir)
+  }
+
   @Test
   def testMetricsConfig(): Unit = {
     val registry = new MetricsRegistryMap("registrymap")
@@ -22,6 +22,7 @@ package org.apache.samza.storage.kv
 import java.io.File
 
 import org.apache.samza.SamzaException
+import org.apache.samza.config.Config
 import org.apache.samza.config.MetricsConfig.Config2Metrics
 import org.apache.samza.context.{ContainerContext, JobContext}
 import org.apache.samza.metrics.MetricsRegistry
@@ -59,6 +60,20 @@ trait BaseKeyValueStorageEngineFactory[K, V] extends StorageEngineFactory[K, V]
     jobContext: JobContext,
     containerContext: ContainerContext): KeyValueStore[Array[Byte], Array[Byte]]
 
+  /**
+   * Return the store that changelog entries are written to while the store is being restored. The storage engine
+   * flushes it once the restore completes. Implementations can override this to use a restore path that is only
+   * valid before the store serves any reads. By default, entries are written to the raw store itself.
+   *
+   * @param storeName Name of the store
+   * @param rawStore The raw store returned by getKVStore
+   * @param storeConfig The configuration of the store, without the stores.store-name. prefix
+   * @return The store to restore into
+   */
+  def getRestoreStore(storeName: String,
+    rawStore: KeyValueStore[Array[Byte], Array[Byte]],
+    storeConfig: Config): KeyValueStore[Array[Byte], Array[Byte]] = rawStore
+
   /**
    * Constructs a key-value StorageEngine and returns it to the caller
    *
@@ -95,11 +110,21 @@ trait BaseKeyValueStorageEngineFactory[K, V] extends StorageEngineFactory[K, V]
     val batchSize = storageConfig.getInt("write.batch.size", 500)
     val cacheSize = storageConfig.getInt("object.cache.size", math.max(batchSize, 1000))
     val enableCache = cacheSize > 0
+    val cacheSegments = storageConfig.getInt("object.cache.segments", 1)
+    val restoreBatchSize = storageConfig.getInt("restore.batch.size", batchSize)
 
     if (cacheSize > 0 && cacheSize < batchSize) {
       throw new SamzaException("A store's cache.size cannot be less than batch.size as batched values reside in cache.")
     }
 
+    if (cacheSegments < 1) {
+      throw new SamzaException("A store's object.cache.segments must be at least 1.")
+    }
+
+    if (restoreBatchSize < 1) {
+      throw new SamzaException("A store's restore.batch.size must be at least 1.")
+    }
+
     if (keySerde == null) {
       throw new SamzaException("Must define a key serde when using key value storage.")
     }
@@ -127,7 +152,11 @@ trait BaseKeyValueStorageEngineFactory[K, V] extends StorageEngineFactory[K, V]
     // maybe wrap with caching
     val maybeCachedStore = if (enableCache) {
       val cachedStoreMetrics = new CachedStoreMetrics(storeName, registry)
-      new CachedStore(serialized, cacheSize, batchSize, cachedStoreMetrics)
+      if (cacheSegments > 1) {
+        new ConcurrentCachedStore(serialized, cacheSize, batchSize, cacheSegments, cachedStoreMetrics)
+      } else {
+        new CachedStore(serialized, cacheSize, batchSize, cachedStoreMetrics)
+      }
     } else {
       serialized
     }
@@ -154,8 +183,10 @@ trait BaseKeyValueStorageEngineFactory[K, V] extends StorageEngineFactory[K, V]
       }
     }
 
-    new KeyValueStorageEngine(storeName, storeDir, storePropertiesBuilder.build(), nullSafeStore, rawStore,
-      keyValueStorageEngineMetrics, batchSize, () => clock.nanoTime())
+    val restoreStore = getRestoreStore(storeName, rawStore, storageConfig)
+
+    new KeyValueStorageEngine(storeName, storeDir, storePropertiesBuilder.build(), nullSafeStore, restoreStore,
+      keyValueStorageEngineMetrics, restoreBatchSize, () => clock.nanoTime())
   }
 
 }
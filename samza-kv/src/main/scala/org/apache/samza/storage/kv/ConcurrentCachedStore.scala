@@ -0,0 +1,402 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.samza.storage.kv
+
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.concurrent.locks.ReentrantLock
+
+import org.apache.samza.util.Logging
+
+/**
+ * A lock-striped variant of [[CachedStore]] for stores that are accessed by several threads at once, e.g. when
+ * job.container.thread.pool.size is greater than 1 or when task.max.concurrency allows concurrent callbacks.
+ *
+ * The key space is split into a fixed number of segments by key hash. Each segment has its own map of cache entries,
+ * its own CLOCK ring for eviction and its own dirty list. Cache hits only read the segment's concurrent map and set the
+ * entry's reference bit, so they never block. Puts, cache misses and evictions lock only the segment the key belongs
+ * to. Writes to the underlying store are serialized on a separate lock, which is always acquired after any segment lock.
+ *
+ * The write-behind semantics are the same as for [[CachedStore]]: repeated writes to a key within a segment's dirty
+ * list are deduplicated, and dirty entries are written out oldest first when the segment's dirty list reaches its share
+ * of the write batch size, when a dirty entry is about to be evicted, or on flush. Range queries, flushes and close
+ * write out the dirty entries of all segments in one batch first.
+ *
+ * Reads that miss the cache go to the underlying store without taking the write lock, so the underlying store must
+ * support concurrent reads alongside writes of other keys. This holds for the RocksDB and in-memory stores.
+ *
+ * This class is thread safe.
+ *
+ * @param store The store to cache
+ * @param cacheSize The number of entries to hold in the in memory-cache, split evenly across segments
+ * @param writeBatchSize The number of entries to batch together before forcing a write, split evenly across segments
+ * @param numSegments The number of independently locked segments
+ * @param metrics The metrics recording object for this cached store
+ */
+class ConcurrentCachedStore[K, V](
+  val store: KeyValueStore[K, V],
+  val cacheSize: Int,
+  val writeBatchSize: Int,
+  val numSegments: Int,
+  val metrics: CachedStoreMetrics = new CachedStoreMetrics) extends KeyValueStore[K, V] with Logging {
+
+  require(numSegments > 0, "The number of cache segments must be positive.")
+
+  /** the maximum number of entries held by each segment */
+  private val segmentCacheSize = math.max(1, (cacheSize + numSegments - 1) / numSegments)
+
+  /** the number of dirty entries in a segment that forces a write of that segment */
+  private val segmentWriteBatchSize = math.max(1, (writeBatchSize + numSegments - 1) / numSegments)
+
+  /** the number of items in the dirty lists of all segments */
+  private val dirtyCount = new AtomicInteger(0)
+
+  /** the number of items currently in the cache across all segments */
+  private val cacheCount = new AtomicInteger(0)
+
+  /** serializes writes and flushes to the underlying store. acquired after any segment lock. */
+  private val storeLock = new ReentrantLock
+
+  private val segments = Array.fill(numSegments)(new Segment)
+
+  /** tracks whether an array has been used as a key. since this is dangerous with hash maps, we want to warn on it. **/
+  @volatile private var containsArrayKeys = false
+
+  metrics.setDirtyCount(() => dirtyCount.get)
+  metrics.setCacheSize(() => cacheCount.get)
+
+  override def get(key: K): V = {
+    metrics.gets.inc
+
+    val segment = segmentFor(key)
+    val c = segment.entries.get(key)
+    if (c != null) {
+      metrics.cacheHits.inc
+      c.referenced = true
+      c.value
+    } else {
+      segment.lock.lock()
+      try {
+        // another thread may have loaded the key while we were waiting for the lock
+        val loaded = segment.entries.get(key)
+        if (loaded != null) {
+          metrics.cacheHits.inc
+          loaded.referenced = true
+          loaded.value
+        } else {
+          val v = store.get(key)
+          cacheEntry(segment, key, v)
+          v
+        }
+      } finally {
+        segment.lock.unlock()
+      }
+    }
+  }
+
+  override def getAll(keys: java.util.List[K]): java.util.Map[K, V] = {
+    metrics.gets.inc(keys.size)
+    val returnValue = new java.util.HashMap[K, V](keys.size)
+    val misses = new Array[java.util.ArrayList[K]](numSegments)
+    val keysIterator = keys.iterator
+    while (keysIterator.hasNext) {
+      val key = keysIterator.next
+      val index = segmentIndex(key)
+      val cached = segments(index).entries.get(key)
+      if (cached != null) {
+        metrics.cacheHits.inc
+        cached.referenced = true
+        returnValue.put(key, cached.value)
+      } else {
+        if (misses(index) == null) {
+          misses(index) = new java.util.ArrayList[K]
+        }
+        misses(index).add(key)
+      }
+    }
+
+    // look up the misses one segment at a time, so a concurrent put to the same key can't be overwritten by a stale read
+    for (index <- 0 until numSegments if misses(index) != null) {
+      val segment = segments(index)
+      segment.lock.lock()
+      try {
+        val toLoad = new java.util.ArrayList[K](misses(index).size)
+        val missIterator = misses(index).iterator
+        while (missIterator.hasNext) {
+          val key = missIterator.next
+          val loaded = segment.entries.get(key)
+          if (loaded != null) {
+            // another thread loaded the key while we were waiting for the lock
+            metrics.cacheHits.inc
+            loaded.referenced = true
+            returnValue.put(key, loaded.value)
+          } else {
+            toLoad.add(key)
+          }
+        }
+        if (!toLoad.isEmpty) {
+          val entryIterator = store.getAll(toLoad).entrySet.iterator
+          while (entryIterator.hasNext) {
+            val entry = entryIterator.next
+            returnValue.put(entry.getKey, entry.getValue)
+            cacheEntry(segment, entry.getKey, entry.getValue)
+          }
+        }
+      } finally {
+        segment.lock.unlock()
+      }
+    }
+    returnValue
+  }
+
+  private class ConcurrentCachedStoreIterator(val iter: KeyValueIterator[K, V])
+    extends KeyValueIterator[K, V] {
+
+    override def close(): Unit = iter.close()
+
+    override def remove(): Unit = throw new UnsupportedOperationException("ConcurrentCachedStore iterator doesn't support remove")
+
+    override def next() = iter.next()
+
+    override def hasNext: Boolean = iter.hasNext
+  }
+
+  override def range(from: K, to: K): KeyValueIterator[K, V] = {
+    metrics.ranges.inc
+    putAllDirtyEntries(flushStore = false)
+
+    new ConcurrentCachedStoreIterator(store.range(from, to))
+  }
+
+  override def all(): KeyValueIterator[K, V] = {
+    metrics.alls.inc
+    putAllDirtyEntries(flushStore = false)
+
+    new ConcurrentCachedStoreIterator(store.all())
+  }
+
+  override def put(key: K, value: V) {
+    metrics.puts.inc
+
+    checkKeyIsArray(key)
+
+    val segment = segmentFor(key)
+    segment.lock.lock()
+    try {
+      val found = segment.entries.get(key)
+      if (found == null) {
+        cacheEntry(segment, key, value)
+      } else {
+        found.value = value
+        found.referenced = true
+      }
+
+      // Add the key to the newest end of the dirty list (and remove any prior
+      // occurrence to dedupe).
+      if (!segment.dirty.remove(key)) {
+        dirtyCount.incrementAndGet()
+      }
+      segment.dirty.add(key)
+
+      // putAll() dirty values if the segment's write list is full.
+      if (segment.dirty.size >= segmentWriteBatchSize) {
+        debug("Segment dirty count %s >= segment write batch size %s. Calling putAll() on dirty entries of the segment."
+          format (segment.dirty.size, segmentWriteBatchSize))
+        putAllDirtyEntries(segment)
+      } else if (hasArrayKeys) {
+        // Flush every time, see CachedStore for the legacy behavior this preserves.
+        putAllDirtyEntries(segment)
+      }
+    } finally {
+      segment.lock.unlock()
+    }
+  }
+
+  override def putAll(entries: java.util.List[Entry[K, V]]) {
+    val iter = entries.iterator
+    while (iter.hasNext) {
+      val curr = iter.next
+      put(curr.getKey, curr.getValue)
+    }
+  }
+
+  override def delete(key: K) {
+    metrics.deletes.inc
+    put(key, null.asInstanceOf[V])
+  }
+
+  override def flush() {
+    trace("Purging dirty entries from ConcurrentCachedStore.")
+    metrics.flushes.inc
+    putAllDirtyEntries(flushStore = true)
+    trace("Flushed store.")
+  }
+
+  override def close() {
+    trace("Closing.")
+    flush()
+    store.close()
+  }
+
+  override def snapshot(from: K, to: K): KeyValueSnapshot[K, V] = {
+    store.snapshot(from, to)
+  }
+
+  def hasArrayKeys = containsArrayKeys
+
+  private def segmentIndex(key: K): Int = {
+    // spread the hash bits so that keys with poor low-order bits still use all segments
+    val h = if (key == null) 0 else key.hashCode
+    val spread = h ^ (h >>> 16)
+    (spread & Int.MaxValue) % numSegments
+  }
+
+  private def segmentFor(key: K): Segment = segments(segmentIndex(key))
+
+  /**
+   * Adds a new entry to the segment, evicting entries with the CLOCK algorithm if the segment is full.
+   * The segment's lock must be held before calling this method.
+   */
+  private def cacheEntry(segment: Segment, key: K, value: V) {
+    segment.entries.put(key, new ConcurrentCacheEntry[V](value))
+    segment.clock.addLast(key)
+    cacheCount.incrementAndGet()
+
+    while (segment.entries.size > segmentCacheSize) {
+      evict(segment)
+    }
+  }
+
+  /**
+   * Sweeps the segment's CLOCK ring, clearing reference bits until it finds an entry that hasn't been
+   * accessed since the last sweep, and evicts it. The segment's lock must be held before calling this method.
+   */
+  private def evict(segment: Segment) {
+    var evicted = false
+    while (!evicted) {
+      val key = segment.clock.pollFirst()
+      val entry = segment.entries.get(key)
+      if (entry.referenced) {
+        entry.referenced = false
+        segment.clock.addLast(key)
+      } else {
+        // if this entry hasn't been written out yet, flush it and all other dirty keys of the segment
+        if (segment.dirty.contains(key)) {
+          debug("Found a dirty entry. Calling putAll() on dirty entries of the segment.")
+          putAllDirtyEntries(segment)
+        }
+        segment.entries.remove(key)
+        cacheCount.decrementAndGet()
+        evicted = true
+      }
+    }
+  }
+
+  /**
+   * Writes out the dirty list of a single segment, oldest first. The segment's lock must be held before
+   * calling this method.
+   */
+  private def putAllDirtyEntries(segment: Segment) {
+    trace("Calling putAll() on dirty entries of a segment.")
+    val batch = new java.util.ArrayList[Entry[K, V]](segment.dirty.size)
+    collectDirtyEntries(segment, batch)
+    storeLock.lock()
+    try {
+      store.putAll(batch)
+    } finally {
+      storeLock.unlock()
+    }
+    metrics.putAllDirtyEntriesBatchSize.inc(batch.size)
+  }
+
+  /**
+   * Writes out the dirty lists of all segments in a single batch, and optionally flushes the underlying store.
+   * Segment locks are acquired in index order so this can't deadlock with other flushes.
+   */
+  private def putAllDirtyEntries(flushStore: Boolean) {
+    trace("Calling putAll() on dirty entries of all segments.")
+    segments.foreach(_.lock.lock())
+    try {
+      val batch = new java.util.ArrayList[Entry[K, V]](dirtyCount.get)
+      segments.foreach(collectDirtyEntries(_, batch))
+      storeLock.lock()
+      try {
+        if (!batch.isEmpty) {
+          store.putAll(batch)
+        }
+        if (flushStore) {
+          store.flush()
+        }
+      } finally {
+        storeLock.unlock()
+      }
+      metrics.putAllDirtyEntriesBatchSize.inc(batch.size)
+    } finally {
+      segments.reverseIterator.foreach(_.lock.unlock())
+    }
+  }
+
+  /**
+   * Moves the dirty entries of the segment into the batch, oldest first, and resets its dirty list.
+   * The segment's lock must be held before calling this method.
+   */
+  private def collectDirtyEntries(segment: Segment, batch: java.util.List[Entry[K, V]]) {
+    val iter = segment.dirty.iterator
+    while (iter.hasNext) {
+      val key = iter.next
+      batch.add(new Entry(key, segment.entries.get(key).value))
+    }
+    dirtyCount.addAndGet(-segment.dirty.size)
+    segment.dirty.clear()
+  }
+
+  private def checkKeyIsArray(key: K) {
+    if (!containsArrayKeys && key.isInstanceOf[Array[_]]) {
+      // Warn the first time that we see an array key.
+      warn("Using arrays as keys results in unpredictable behavior since cache is implemented with a map. Consider using ByteBuffer, or a different key type, or turn off the cache altogether.")
+      containsArrayKeys = true
+    }
+  }
+
+  /**
+   * A single lock stripe of the cache. Entries can be read without holding the lock; everything else
+   * must be accessed with the lock held.
+   */
+  private class Segment {
+    val lock = new ReentrantLock
+
+    /** the cached entries of this segment */
+    val entries = new ConcurrentHashMap[K, ConcurrentCacheEntry[V]]
+
+    /** the CLOCK ring over the keys in entries, from the next eviction candidate to the most recently added */
+    val clock = new java.util.ArrayDeque[K]
+
+    /** the keys to be written out on flush from oldest to newest */
+    val dirty = new java.util.LinkedHashSet[K]
+  }
+}
+
+private class ConcurrentCacheEntry[V](@volatile var value: V) {
+  /**
+   * set on every access and cleared by the CLOCK sweep. new entries start out referenced so that the sweep
+   * triggered by their own insertion can't evict them.
+   */
+  @volatile var referenced = true
+}
@@ -32,6 +32,9 @@ import scala.collection.JavaConverters._
  * A key value store.
  *
  * This implements both the key/value interface and the storage engine interface.
+ *
+ * @param rawStore The store that changelog entries are written to during restore
+ * @param batchSize The number of changelog entries written to the raw store at once during restore
  */
 class KeyValueStorageEngine[K, V](
   storeName: String,
@@ -145,6 +148,9 @@ class KeyValueStorageEngine[K, V](
     if (batch.size > 0) {
       doPutAll(rawStore, batch)
     }
+
+    // make sure restored entries are durable before the store starts serving, since writes may bypass the WAL
+    rawStore.flush()
   }
 
   def flush() = {
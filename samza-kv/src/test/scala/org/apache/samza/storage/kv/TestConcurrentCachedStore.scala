@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.samza.storage.kv
+
+import java.util
+import java.util.Arrays
+import java.util.concurrent.{Callable, Executors, TimeUnit}
+
+import org.junit.Assert._
+import org.junit.Test
+import org.mockito.ArgumentCaptor
+import org.mockito.Matchers.anyObject
+import org.mockito.Mockito._
+
+import scala.collection.JavaConverters._
+
+class TestConcurrentCachedStore {
+  @Test
+  def testArrayCheck() {
+    val kv = mock(classOf[KeyValueStore[Array[Byte], Array[Byte]]])
+    val store = new ConcurrentCachedStore[Array[Byte], Array[Byte]](kv, 100, 100, 4)
+
+    assertFalse(store.hasArrayKeys)
+    store.put("test1-key".getBytes("UTF-8"), "test1-value".getBytes("UTF-8"))
+    assertTrue(store.hasArrayKeys)
+  }
+
+  @Test
+  def testDirtyEntriesAreDedupedAndWrittenOldestFirst() {
+    val kv = mock(classOf[KeyValueStore[String, String]])
+    val store = new ConcurrentCachedStore[String, String](kv, 4, 4, 1)
+
+    store.put("test1-key", "test1-value")
+    store.put("test2-key", "test2-value")
+    store.put("test1-key", "test1-value-updated")
+    store.put("test3-key", "test3-value")
+
+    verify(kv, never()).putAll(anyObject())
+    store.put("test4-key", "test4-value")
+
+    val entriesCaptor = ArgumentCaptor.forClass(classOf[util.List[Entry[String, String]]])
+    verify(kv).putAll(entriesCaptor.capture)
+    verify(kv, never()).flush()
+
+    val dirtyEntries = entriesCaptor.getAllValues.get(0).asScala.toSeq
+    assertEquals(Seq("test2-key", "test1-key", "test3-key", "test4-key"), dirtyEntries map (_.getKey))
+    assertEquals(Seq("test2-value", "test1-value-updated", "test3-value", "test4-value"), dirtyEntries map (_.getValue))
+  }
+
+  @Test
+  def testClockEvictionWritesOutDirtyEntries() {
+    val kv = spy(new MockKeyValueStore())
+    val store = new ConcurrentCachedStore[String, String](kv, 2, 2, 1)
+
+    store.put("test1-key", "test1-value")
+    store.put("test2-key", "test2-value")
+    // Batch limit reached
+    verify(kv, times(1)).putAll(anyObject())
+
+    // Above eviction threshold but evicted entries are not dirty
+    store.put("test3-key", "test3-value")
+    verify(kv, times(1)).putAll(anyObject())
+
+    // Reload test1-key, which makes the dirty test3-key the next eviction candidate. It must be written
+    // out before it's evicted.
+    store.get("test1-key")
+    store.put("test4-key", "test4-value")
+    verify(kv, times(2)).putAll(anyObject())
+    assertEquals("test3-value", kv.get("test3-key"))
+
+    // Cache hits and misses both see the latest values
+    assertEquals("test1-value", store.get("test1-key"))
+    assertEquals("test2-value", store.get("test2-key"))
+    assertEquals("test3-value", store.get("test3-key"))
+    assertEquals("test4-value", store.get("test4-key"))
+  }
+
+  @Test
+  def testIteratorFlushesAllSegments() {
+    val kv = new MockKeyValueStore()
+    val store = new ConcurrentCachedStore[String, String](kv, 100, 100, 4)
+
+    val keys = Arrays.asList("test1-key", "test2-key", "test3-key")
+    val values = Arrays.asList("test1-value", "test2-value", "test3-value")
+
+    for (i <- 0 until 3) {
+      store.put(keys.get(i), values.get(i))
+    }
+    assertFalse(kv.all().hasNext)
+
+    val iter = store.all()
+    for (i <- 0 until 3) {
+      assertTrue(iter.hasNext)
+      val entry = iter.next()
+      assertEquals(keys.get(i), entry.getKey)
+      assertEquals(values.get(i), entry.getValue)
+    }
+    assertFalse(iter.hasNext)
+  }
+
+  @Test
+  def testGetAllAndDelete() {
+    val kv = new MockKeyValueStore()
+    kv.put("test1-key", "test1-value")
+    val store = new ConcurrentCachedStore[String, String](kv, 100, 100, 4)
+    store.put("test2-key", "test2-value")
+    store.delete("test1-key")
+
+    val result = store.getAll(Arrays.asList("test1-key", "test2-key", "test3-key"))
+    assertNull(result.get("test1-key"))
+    assertEquals("test2-value", result.get("test2-key"))
+    assertNull(result.get("test3-key"))
+
+    store.flush()
+    assertNull(kv.get("test1-key"))
+    assertEquals("test2-value", kv.get("test2-key"))
+  }
+
+  @Test
+  def testConcurrentAccess() {
+    val kv = new MockKeyValueStore {
+      override def get(key: String) = synchronized(super.get(key))
+      override def putAll(entries: util.List[Entry[String, String]]) = synchronized(super.putAll(entries))
+    }
+    val store = new ConcurrentCachedStore[String, String](kv, 64, 32, 8)
+    val numThreads = 8
+    val numKeys = 1000
+    val executor = Executors.newFixedThreadPool(numThreads)
+
+    val futures = (0 until numThreads).map(t => executor.submit(new Callable[Unit] {
+      override def call(): Unit = {
+        for (i <- 0 until numKeys) {
+          val key = "key-" + t + "-" + i
+          store.put(key, "value-" + i)
+          assertEquals("value-" + i, store.get(key))
+        }
+      }
+    }))
+    futures.foreach(_.get(30, TimeUnit.SECONDS))
+    executor.shutdownNow()
+
+    store.flush()
+    assertEquals(numThreads * numKeys, kv.kvMap.size)
+    for (t <- 0 until numThreads; i <- 0 until numKeys) {
+      assertEquals("value-" + i, store.get("key-" + t + "-" + i))
+    }
+  }
+}
@@ -24,6 +24,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import org.apache.avro.Schema;
@@ -76,12 +77,22 @@ public class AvroRelConverter implements SamzaRelConverter {
    */
   @Override
   public SamzaSqlRelMessage convertToRelMessage(KV<Object, Object> samzaMessage) {
+    return convertToRelMessage(samzaMessage, null);
+  }
+
+  /**
+   * Converts the nested avro object in SamzaMessage to relational message corresponding to
+   * the tableName with relational schema. Only the fields in projectedFieldNames are converted, so nested records,
+   * arrays and maps in the fields the query doesn't use are skipped.
+   */
+  @Override
+  public SamzaSqlRelMessage convertToRelMessage(KV<Object, Object> samzaMessage, Set<String> projectedFieldNames) {
     List<String> payloadFieldNames = new ArrayList<>();
     List<Object> payloadFieldValues = new ArrayList<>();
     Object value = samzaMessage.getValue();
     if (value instanceof IndexedRecord) {
       fetchFieldNamesAndValuesFromIndexedRecord((IndexedRecord) value, payloadFieldNames, payloadFieldValues,
-          payloadSchema);
+          payloadSchema, projectedFieldNames);
     } else if (value == null) {
       // If the payload is null, set each record value as null.
       payloadFieldNames.addAll(payloadSchema.getFields().stream().map(Schema.Field::name).collect(Collectors.toList()));
@@ -97,34 +108,41 @@ public class AvroRelConverter implements SamzaRelConverter {
 
   public void fetchFieldNamesAndValuesFromIndexedRecord(IndexedRecord record, List<String> fieldNames,
       List<Object> fieldValues, Schema cachedSchema) {
+    fetchFieldNamesAndValuesFromIndexedRecord(record, fieldNames, fieldValues, cachedSchema, null);
+  }
+
+  /**
+   * Same as {@link #fetchFieldNamesAndValuesFromIndexedRecord(IndexedRecord, List, List, Schema)}, except that only
+   * the values of the fields in projectedFieldNames are converted, if it isn't null. The other values are null.
+   */
+  public void fetchFieldNamesAndValuesFromIndexedRecord(IndexedRecord record, List<String> fieldNames,
+      List<Object> fieldValues, Schema cachedSchema, Set<String> projectedFieldNames) {
     // Please note that record schema and cached schema could be different due to schema evolution.
     // Always represent record schema in the form of cached schema. This approach has the side-effect
     // of dropping the newly added fields in the scenarios where the record schema has newer version
     // than the cached schema. [TODO: SAMZA-1679]
     Schema recordSchema = record.getSchema();
-    fieldNames.addAll(cachedSchema.getFields().stream()
-        .map(Schema.Field::name)
-        .collect(Collectors.toList()));
-    fieldValues.addAll(fieldNames.stream()
-        .map(f -> convertToJavaObject(
-            recordSchema.getField(f) != null ? record.get(recordSchema.getField(f).pos()) : null,
-            getNonNullUnionSchema(payloadSchema.getField(f).schema())))
-        .collect(Collectors.toList()));
+    for (Schema.Field cachedField : cachedSchema.getFields()) {
+      String fieldName = cachedField.name();
+      fieldNames.add(fieldName);
+      if (projectedFieldNames != null && !projectedFieldNames.contains(fieldName)) {
+        fieldValues.add(null);
+        continue;
+      }
+      Schema.Field recordField = recordSchema.getField(fieldName);
+      fieldValues.add(convertToJavaObject(recordField != null ? record.get(recordField.pos()) : null,
+          getNonNullUnionSchema(payloadSchema.getField(fieldName).schema())));
+    }
   }
 
   private SamzaSqlRelRecord convertToRelRecord(IndexedRecord avroRecord) {
     List<Object> fieldValues = new ArrayList<>();
     List<String> fieldNames = new ArrayList<>();
     if (avroRecord != null) {
-      fieldNames.addAll(avroRecord.getSchema().getFields()
-          .stream()
-          .map(Schema.Field::name)
-          .collect(Collectors.toList()));
-      fieldValues.addAll(avroRecord.getSchema().getFields()
-          .stream()
-          .map(f -> convertToJavaObject(avroRecord.get(avroRecord.getSchema().getField(f.name()).pos()),
-              getNonNullUnionSchema(avroRecord.getSchema().getField(f.name()).schema())))
-          .collect(Collectors.toList()));
+      for (Schema.Field field : avroRecord.getSchema().getFields()) {
+        fieldNames.add(field.name());
+        fieldValues.add(convertToJavaObject(avroRecord.get(field.pos()), getNonNullUnionSchema(field.schema())));
+      }
     } else {
       String msg = "Avro Record is null";
       LOG.error(msg);
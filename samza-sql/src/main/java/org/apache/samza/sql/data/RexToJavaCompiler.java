@@ -27,6 +27,8 @@ import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.lang.reflect.Type;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import org.apache.calcite.DataContext;
 import org.apache.calcite.adapter.enumerable.JavaRowFormat;
 import org.apache.calcite.adapter.enumerable.PhysType;
@@ -68,6 +70,7 @@ public class RexToJavaCompiler {
   private static final Logger log = LoggerFactory.getLogger(RexToJavaCompiler.class);
 
   private final RexBuilder rexBuilder;
+  private final Map<String, org.apache.samza.sql.data.Expression> expressions = new ConcurrentHashMap<>();
 
   public RexToJavaCompiler(RexBuilder rexBuilder) {
     this.rexBuilder = rexBuilder;
@@ -96,6 +99,22 @@ public class RexToJavaCompiler {
    * @return compiled expression of type {@link org.apache.samza.sql.data.Expression}
    */
   public org.apache.samza.sql.data.Expression compile(List<RelNode> inputs, List<RexNode> nodes) {
+    return compile(inputs, null, nodes);
+  }
+
+  /**
+   * Compiles a filter condition and the relational expressions of a projection on top of it to a single instance of
+   * {@link Expression}, so that a Filter followed by a Project is evaluated with one generated class.
+   *
+   * The first result of the expression is whether the row matches the condition. It is followed by the results of
+   * the relational expressions, which are only evaluated and set if the row matches.
+   *
+   * @param inputs Input relations/time-varying relations for the condition
+   * @param condition the filter condition
+   * @param nodes relational expressions on the rows that match the condition
+   * @return compiled expression of type {@link org.apache.samza.sql.data.Expression}
+   */
+  public org.apache.samza.sql.data.Expression compile(List<RelNode> inputs, RexNode condition, List<RexNode> nodes) {
     /*
      *  In case there are multiple input relations, we build a single input row type combining types of all the inputs.
      */
@@ -108,6 +127,9 @@ public class RexToJavaCompiler {
     for (RexNode node : nodes) {
       programBuilder.addProject(node, null);
     }
+    if (condition != null) {
+      programBuilder.addCondition(condition);
+    }
     final RexProgram program = programBuilder.getProgram();
 
     final BlockBuilder builder = new BlockBuilder();
@@ -123,14 +145,30 @@ public class RexToJavaCompiler {
             Expressions.variable(Object[].class, "inputValues"),
             PhysTypeImpl.of(javaTypeFactory, inputRowType, JavaRowFormat.ARRAY, false))));
 
+    if (condition == null) {
+      addProjects(program, javaTypeFactory, builder, inputGetter, outputValues, 0);
+    } else {
+      // outputValues[0] = matched; if (matched) { outputValues[1] = ...; }
+      final org.apache.calcite.linq4j.tree.Expression matched = builder.append("matched",
+          RexToLixTranslator.translateCondition(program, javaTypeFactory, builder, inputGetter, null));
+      builder.add(Expressions.statement(
+          Expressions.assign(Expressions.arrayIndex(outputValues, Expressions.constant(0)), matched)));
+      final BlockBuilder projectBuilder = new BlockBuilder(true, builder);
+      addProjects(program, javaTypeFactory, projectBuilder, inputGetter, outputValues, 1);
+      builder.add(Expressions.ifThen(matched, projectBuilder.toBlock()));
+    }
+    return createSamzaExpressionFromCalcite(executionContext, root, inputValues, outputValues, builder.toBlock());
+  }
+
+  private static void addProjects(RexProgram program, JavaTypeFactoryImpl javaTypeFactory, BlockBuilder builder,
+      RexToLixTranslator.InputGetter inputGetter, ParameterExpression outputValues, int firstOutput) {
     final List<org.apache.calcite.linq4j.tree.Expression> list =
         RexToLixTranslator.translateProjects(program, javaTypeFactory, builder, null, DataContext.ROOT, inputGetter,
             null);
     for (int i = 0; i < list.size(); i++) {
-      builder.add(Expressions.statement(
-          Expressions.assign(Expressions.arrayIndex(outputValues, Expressions.constant(i)), list.get(i))));
+      builder.add(Expressions.statement(Expressions.assign(
+          Expressions.arrayIndex(outputValues, Expressions.constant(firstOutput + i)), list.get(i))));
     }
-    return createSamzaExpressionFromCalcite(executionContext, root, inputValues, outputValues, builder.toBlock());
   }
 
   /**
@@ -157,8 +195,20 @@ public class RexToJavaCompiler {
    *    This method converts this statement block into an equivalent {@link Expression} object whose execute methods
    *    execute the above java statement block
    *
+   *    The block is only compiled with Janino if this compiler hasn't compiled the same code yet. The generated
+   *    classes are stateless, so the tasks of a container share the expressions of a query instead of each compiling
+   *    their own.
    */
-  static org.apache.samza.sql.data.Expression createSamzaExpressionFromCalcite(ParameterExpression executionContext,
+  org.apache.samza.sql.data.Expression createSamzaExpressionFromCalcite(ParameterExpression executionContext,
+      ParameterExpression dataContext, ParameterExpression inputValues, ParameterExpression outputValues,
+      BlockStatement block) {
+    final ClassDeclaration classDeclaration =
+        createClassDeclaration(executionContext, dataContext, inputValues, outputValues, block);
+    String s = Expressions.toString(classDeclaration.memberDeclarations, "\n", false);
+    return expressions.computeIfAbsent(s, code -> compileClass(classDeclaration, code));
+  }
+
+  private static ClassDeclaration createClassDeclaration(ParameterExpression executionContext,
       ParameterExpression dataContext, ParameterExpression inputValues, ParameterExpression outputValues,
       BlockStatement block) {
     final List<MemberDeclaration> declarations = Lists.newArrayList();
@@ -168,10 +218,11 @@ public class RexToJavaCompiler {
         Expressions.methodDecl(Modifier.PUBLIC, void.class, SamzaBuiltInMethod.EXPR_EXECUTE2.method.getName(),
             ImmutableList.of(executionContext, dataContext, inputValues, outputValues), block));
 
-    final ClassDeclaration classDeclaration = Expressions.classDecl(Modifier.PUBLIC, "SqlExpression", null,
+    return Expressions.classDecl(Modifier.PUBLIC, "SqlExpression", null,
         ImmutableList.<Type>of(org.apache.samza.sql.data.Expression.class), declarations);
-    String s = Expressions.toString(declarations, "\n", false);
+  }
 
+  private static org.apache.samza.sql.data.Expression compileClass(ClassDeclaration classDeclaration, String s) {
     log.info("Generated code for expression: {}", s);
 
     try {
@@ -21,8 +21,7 @@ package org.apache.samza.sql.impl;
 
 import org.apache.samza.SamzaException;
 import org.apache.samza.config.Config;
-import org.apache.samza.sql.serializers.SamzaSqlRelMessageSerdeFactory;
-import org.apache.samza.sql.serializers.SamzaSqlRelRecordSerdeFactory;
+import org.apache.samza.sql.serializers.SamzaSqlSerdes;
 import org.apache.samza.table.descriptors.TableDescriptor;
 import org.apache.samza.serializers.KVSerde;
 import org.apache.samza.sql.interfaces.SqlIOResolver;
@@ -32,6 +31,7 @@ import org.apache.samza.storage.kv.descriptors.RocksDbTableDescriptor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import static org.apache.samza.sql.runner.SamzaSqlApplicationConfig.CFG_BINARY_SERDE_ENABLED;
 import static org.apache.samza.sql.runner.SamzaSqlApplicationConfig.CFG_METADATA_TOPIC_PREFIX;
 import static org.apache.samza.sql.runner.SamzaSqlApplicationConfig.DEFAULT_METADATA_TOPIC_PREFIX;
 
@@ -50,16 +50,19 @@ public class ConfigBasedIOResolverFactory implements SqlIOResolverFactory {
 
   @Override
   public SqlIOResolver create(Config resolverConfig, Config fullConfig) {
-    return new ConfigBasedIOResolver(resolverConfig);
+    return new ConfigBasedIOResolver(resolverConfig,
+        fullConfig.getBoolean(CFG_BINARY_SERDE_ENABLED, false));
   }
 
   private class ConfigBasedIOResolver implements SqlIOResolver {
     private final String SAMZA_SQL_QUERY_TABLE_KEYWORD = "$table";
     private final Config config;
     private final String changeLogStorePrefix;
+    private final boolean binarySerdeEnabled;
 
-    public ConfigBasedIOResolver(Config config) {
+    public ConfigBasedIOResolver(Config config, boolean binarySerdeEnabled) {
       this.config = config;
+      this.binarySerdeEnabled = binarySerdeEnabled;
       String metadataTopicPrefix = config.get(CFG_METADATA_TOPIC_PREFIX, DEFAULT_METADATA_TOPIC_PREFIX);
       this.changeLogStorePrefix = metadataTopicPrefix + (metadataTopicPrefix.isEmpty() ? "" : "_");
     }
@@ -106,11 +109,9 @@ public class ConfigBasedIOResolverFactory implements SqlIOResolverFactory {
       TableDescriptor tableDescriptor = null;
       if (isTable) {
         String tableId = changeLogStorePrefix + "InputTable-" + name.replace(".", "-").replace("$", "-");
-        SamzaSqlRelRecordSerdeFactory.SamzaSqlRelRecordSerde keySerde =
-            (SamzaSqlRelRecordSerdeFactory.SamzaSqlRelRecordSerde) new SamzaSqlRelRecordSerdeFactory().getSerde(null, null);
-        SamzaSqlRelMessageSerdeFactory.SamzaSqlRelMessageSerde valueSerde =
-            (SamzaSqlRelMessageSerdeFactory.SamzaSqlRelMessageSerde) new SamzaSqlRelMessageSerdeFactory().getSerde(null, null);
-        tableDescriptor = new RocksDbTableDescriptor(tableId, KVSerde.of(keySerde, valueSerde))
+        tableDescriptor = new RocksDbTableDescriptor(tableId, KVSerde.of(
+            SamzaSqlSerdes.getRecordSerde(binarySerdeEnabled, null),
+            SamzaSqlSerdes.getMessageSerde(binarySerdeEnabled, null)))
             .withChangelogEnabled();
       }
 
@@ -19,6 +19,7 @@
 
 package org.apache.samza.sql.interfaces;
 
+import java.util.Set;
 import org.apache.samza.operators.KV;
 import org.apache.samza.sql.data.SamzaSqlRelMessage;
 
@@ -37,6 +38,18 @@ public interface SamzaRelConverter {
    */
   SamzaSqlRelMessage convertToRelMessage(KV<Object, Object> message);
 
+  /**
+   * Converts the object to relational message corresponding to the tableName with relational schema, when the query
+   * only uses some of the fields. The message still has all the fields of the relational schema, but converters may
+   * leave the values of the other fields null instead of converting them. By default, all the fields are converted.
+   * @param message samza message that needs to be converted.
+   * @param projectedFieldNames names of the fields the query uses.
+   * @return Relational message extracted from the object.
+   */
+  default SamzaSqlRelMessage convertToRelMessage(KV<Object, Object> message, Set<String> projectedFieldNames) {
+    return convertToRelMessage(message);
+  }
+
   /**
    * Convert the relational message to the output message.
    * @param relMessage relational message that needs to be converted.
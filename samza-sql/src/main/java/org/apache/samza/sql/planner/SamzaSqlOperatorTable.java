@@ -91,6 +91,9 @@ public class SamzaSqlOperatorTable extends ReflectiveSqlOperatorTable {
   public static final SqlAggFunction COUNT = SqlStdOperatorTable.COUNT;
   public static final SqlAggFunction SUM = SqlStdOperatorTable.SUM;
   public static final SqlAggFunction SUM0 = SqlStdOperatorTable.SUM0;
+  public static final SqlAggFunction MIN = SqlStdOperatorTable.MIN;
+  public static final SqlAggFunction MAX = SqlStdOperatorTable.MAX;
+  public static final SqlAggFunction AVG = SqlStdOperatorTable.AVG;
 
   public static final SqlFunction TUMBLE = SqlStdOperatorTable.TUMBLE;
   public static final SqlFunction TUMBLE_END = SqlStdOperatorTable.TUMBLE_END;
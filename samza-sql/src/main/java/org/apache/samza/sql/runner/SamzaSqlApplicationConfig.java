@@ -89,12 +89,15 @@ public class SamzaSqlApplicationConfig {
 
   public static final String CFG_METADATA_TOPIC_PREFIX = "samza.sql.metadataTopicPrefix";
   public static final String CFG_GROUPBY_WINDOW_DURATION_MS = "samza.sql.groupby.window.ms";
+  public static final String CFG_BINARY_SERDE_ENABLED = "samza.sql.serde.binary.enabled";
+  public static final String CFG_JOIN_ALLOWED_LATENESS_MS = "samza.sql.join.allowed.lateness.ms";
 
   public static final String SAMZA_SYSTEM_LOG = "log";
 
   public static final String DEFAULT_METADATA_TOPIC_PREFIX = "";
 
   private static final long DEFAULT_GROUPBY_WINDOW_DURATION_MS = 300000; // default groupby window duration is 5 mins.
+  private static final long DEFAULT_JOIN_ALLOWED_LATENESS_MS = 300000; // default join allowed lateness is 5 mins.
 
   private final Map<String, RelSchemaProvider> relSchemaProvidersBySource;
   private final Map<String, SamzaRelConverter> samzaRelConvertersBySource;
@@ -115,6 +118,8 @@ public class SamzaSqlApplicationConfig {
 
   private final String metadataTopicPrefix;
   private final long windowDurationMs;
+  private final boolean binarySerdeEnabled;
+  private final long joinAllowedLatenessMs;
 
   public SamzaSqlApplicationConfig(Config staticConfig, List<String> inputSystemStreams,
       List<String> outputSystemStreams) {
@@ -166,6 +171,8 @@ public class SamzaSqlApplicationConfig {
     metadataTopicPrefix =
         staticConfig.get(CFG_METADATA_TOPIC_PREFIX, DEFAULT_METADATA_TOPIC_PREFIX);
     windowDurationMs = staticConfig.getLong(CFG_GROUPBY_WINDOW_DURATION_MS, DEFAULT_GROUPBY_WINDOW_DURATION_MS);
+    binarySerdeEnabled = staticConfig.getBoolean(CFG_BINARY_SERDE_ENABLED, false);
+    joinAllowedLatenessMs = staticConfig.getLong(CFG_JOIN_ALLOWED_LATENESS_MS, DEFAULT_JOIN_ALLOWED_LATENESS_MS);
   }
 
   public static <T> T initializePlugin(String pluginName, String plugin, Config staticConfig,
@@ -324,4 +331,12 @@ public class SamzaSqlApplicationConfig {
   public long getWindowDurationMs() {
     return windowDurationMs;
   }
+
+  public boolean isBinarySerdeEnabled() {
+    return binarySerdeEnabled;
+  }
+
+  public long getJoinAllowedLatenessMs() {
+    return joinAllowedLatenessMs;
+  }
 }
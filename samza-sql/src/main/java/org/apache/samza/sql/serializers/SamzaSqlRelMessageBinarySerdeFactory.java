@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.samza.sql.serializers;
+
+import org.apache.calcite.rel.type.RelDataType;
+import org.apache.samza.config.Config;
+import org.apache.samza.serializers.Serde;
+import org.apache.samza.serializers.SerdeFactory;
+import org.apache.samza.sql.SamzaSqlRelRecord;
+import org.apache.samza.sql.data.SamzaSqlRelMessage;
+
+
+/**
+ * A binary serializer for {@link SamzaSqlRelMessage}. Given the row type of the messages, the field names
+ * are not serialized with every message. Messages serialized by {@link SamzaSqlRelMessageSerdeFactory} can
+ * be deserialized as well.
+ */
+public final class SamzaSqlRelMessageBinarySerdeFactory implements SerdeFactory<SamzaSqlRelMessage> {
+  public Serde<SamzaSqlRelMessage> getSerde(String name, Config config) {
+    return new SamzaSqlRelMessageBinarySerde();
+  }
+
+  public final static class SamzaSqlRelMessageBinarySerde implements Serde<SamzaSqlRelMessage> {
+    private final SamzaSqlRelRecordCodec codec;
+    private final SamzaSqlRelMessageSerdeFactory.SamzaSqlRelMessageSerde jsonSerde =
+        new SamzaSqlRelMessageSerdeFactory.SamzaSqlRelMessageSerde();
+
+    /**
+     * Creates a serde that serializes the field names with every message.
+     */
+    public SamzaSqlRelMessageBinarySerde() {
+      this.codec = new SamzaSqlRelRecordCodec(null);
+    }
+
+    /**
+     * Creates a serde for messages of the given row type.
+     * @param rowType the row type of the messages, including the {@link SamzaSqlRelMessage#KEY_NAME} field
+     */
+    public SamzaSqlRelMessageBinarySerde(RelDataType rowType) {
+      this.codec = new SamzaSqlRelRecordCodec(SamzaSqlRelRecordCodec.Schema.of(rowType));
+    }
+
+    @Override
+    public SamzaSqlRelMessage fromBytes(byte[] bytes) {
+      SamzaSqlRelRecord record = codec.decode(bytes);
+      return record != null ? new SamzaSqlRelMessage(record) : jsonSerde.fromBytes(bytes);
+    }
+
+    @Override
+    public byte[] toBytes(SamzaSqlRelMessage message) {
+      return codec.encode(message.getSamzaSqlRelRecord());
+    }
+  }
+}
@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.samza.sql.serializers;
+
+import java.util.List;
+import org.apache.calcite.rel.type.RelDataType;
+import org.apache.samza.config.Config;
+import org.apache.samza.serializers.Serde;
+import org.apache.samza.serializers.SerdeFactory;
+import org.apache.samza.sql.SamzaSqlRelRecord;
+
+
+/**
+ * A binary serializer for {@link SamzaSqlRelRecord}. Given the row type of the records, the field names
+ * are not serialized with every record. Records serialized by {@link SamzaSqlRelRecordSerdeFactory} can
+ * be deserialized as well.
+ */
+public final class SamzaSqlRelRecordBinarySerdeFactory implements SerdeFactory<SamzaSqlRelRecord> {
+  public Serde<SamzaSqlRelRecord> getSerde(String name, Config config) {
+    return new SamzaSqlRelRecordBinarySerde();
+  }
+
+  public final static class SamzaSqlRelRecordBinarySerde implements Serde<SamzaSqlRelRecord> {
+    private final SamzaSqlRelRecordCodec codec;
+    private final SamzaSqlRelRecordSerdeFactory.SamzaSqlRelRecordSerde jsonSerde =
+        new SamzaSqlRelRecordSerdeFactory.SamzaSqlRelRecordSerde();
+
+    /**
+     * Creates a serde that serializes the field names with every record.
+     */
+    public SamzaSqlRelRecordBinarySerde() {
+      this.codec = new SamzaSqlRelRecordCodec(null);
+    }
+
+    /**
+     * Creates a serde for records of the given row type.
+     * @param rowType the row type of the records
+     */
+    public SamzaSqlRelRecordBinarySerde(RelDataType rowType) {
+      this.codec = new SamzaSqlRelRecordCodec(SamzaSqlRelRecordCodec.Schema.of(rowType));
+    }
+
+    /**
+     * Creates a serde for records with the given field names, e.g. composite keys.
+     * @param fieldNames the field names of the records
+     */
+    public SamzaSqlRelRecordBinarySerde(List<String> fieldNames) {
+      this.codec = new SamzaSqlRelRecordCodec(SamzaSqlRelRecordCodec.Schema.of(fieldNames));
+    }
+
+    @Override
+    public SamzaSqlRelRecord fromBytes(byte[] bytes) {
+      SamzaSqlRelRecord record = codec.decode(bytes);
+      return record != null ? record : jsonSerde.fromBytes(bytes);
+    }
+
+    @Override
+    public byte[] toBytes(SamzaSqlRelRecord record) {
+      return codec.encode(record);
+    }
+  }
+}
@@ -0,0 +1,522 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.samza.sql.serializers;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.calcite.avatica.util.ByteString;
+import org.apache.calcite.rel.type.RelDataType;
+import org.apache.calcite.rel.type.RelDataTypeField;
+import org.apache.samza.SamzaException;
+import org.apache.samza.sql.SamzaSqlRelRecord;
+
+
+/**
+ * Binary encoding of {@link SamzaSqlRelRecord}s shared by {@link SamzaSqlRelRecordBinarySerdeFactory} and
+ * {@link SamzaSqlRelMessageBinarySerdeFactory}.
+ *
+ * Every value is written as a one byte type tag followed by the value. Records with the field names of the
+ * {@link Schema} they are written with only contain their field count, a fingerprint of their field names and
+ * their field values, in field order. Reading such a record with a schema that has different field names, e.g.
+ * after the query changed, fails instead of assigning the values to the wrong fields. Other records also
+ * contain their field names, so a record can always be read back regardless of the schema.
+ *
+ * Values written by the JSON serdes, i.e. {@link SamzaSqlRelRecordSerdeFactory} and
+ * {@link SamzaSqlRelMessageSerdeFactory}, are still readable. The bytes of a record differ between the two
+ * formats though, so switching a store or stream whose keys are records to the binary format loses its
+ * existing keys.
+ */
+final class SamzaSqlRelRecordCodec implements Serializable {
+
+  private static final byte FORMAT_VERSION = 2;
+  private static final byte JSON_OBJECT_START = '{';
+
+  private static final byte NULL = 0;
+  private static final byte TRUE = 1;
+  private static final byte FALSE = 2;
+  private static final byte INT = 3;
+  private static final byte LONG = 4;
+  private static final byte DOUBLE = 5;
+  private static final byte FLOAT = 6;
+  private static final byte STRING = 7;
+  private static final byte BYTE_STRING = 8;
+  private static final byte BYTE_ARRAY = 9;
+  private static final byte BYTE_BUFFER = 10;
+  private static final byte LIST = 11;
+  private static final byte MAP = 12;
+  private static final byte RECORD = 13;
+  private static final byte SCHEMA_RECORD = 14;
+  private static final byte SHORT = 15;
+  private static final byte BYTE = 16;
+  private static final byte BIG_DECIMAL = 17;
+  private static final byte TIMESTAMP = 18;
+  private static final byte DATE = 19;
+  private static final byte TIME = 20;
+
+  /**
+   * Buffers that grew larger than this while writing a record are not reused.
+   */
+  private static final int MAX_RETAINED_BUFFER_SIZE = 1024 * 1024;
+
+  private final Schema schema;
+  private transient ThreadLocal<Output> outputs;
+
+  /**
+   * @param schema the schema of the records, or null to write the field names of every record
+   */
+  SamzaSqlRelRecordCodec(Schema schema) {
+    this.schema = schema;
+  }
+
+  byte[] encode(SamzaSqlRelRecord record) {
+    if (outputs == null) {
+      outputs = ThreadLocal.withInitial(Output::new);
+    }
+    Output output = outputs.get();
+    try {
+      output.writeByte(FORMAT_VERSION);
+      writeValue(output, record, schema);
+      return output.toByteArray();
+    } finally {
+      output.reset();
+    }
+  }
+
+  /**
+   * @return the decoded record, or null if the bytes were written by a JSON serde
+   */
+  SamzaSqlRelRecord decode(byte[] bytes) {
+    if (bytes[0] == JSON_OBJECT_START) {
+      return null;
+    }
+    if (bytes[0] != FORMAT_VERSION) {
+      throw new SamzaException("Unknown format version " + bytes[0] + " of a serialized SamzaSqlRelRecord.");
+    }
+    Input input = new Input(bytes, 1);
+    return (SamzaSqlRelRecord) readValue(input, schema);
+  }
+
+  private static void writeValue(Output output, Object value, Schema schema) {
+    if (value == null) {
+      output.writeByte(NULL);
+    } else if (value instanceof String) {
+      output.writeByte(STRING);
+      output.writeString((String) value);
+    } else if (value instanceof Integer) {
+      output.writeByte(INT);
+      output.writeVarLong((Integer) value);
+    } else if (value instanceof Long) {
+      output.writeByte(LONG);
+      output.writeVarLong((Long) value);
+    } else if (value instanceof Double) {
+      output.writeByte(DOUBLE);
+      output.writeFixedLong(Double.doubleToRawLongBits((Double) value));
+    } else if (value instanceof Boolean) {
+      output.writeByte((Boolean) value ? TRUE : FALSE);
+    } else if (value instanceof SamzaSqlRelRecord) {
+      writeRecord(output, (SamzaSqlRelRecord) value, schema);
+    } else if (value instanceof List) {
+      List<?> list = (List<?>) value;
+      output.writeByte(LIST);
+      output.writeVarInt(list.size());
+      for (Object element : list) {
+        writeValue(output, element, schema);
+      }
+    } else if (value instanceof Map) {
+      Map<?, ?> map = (Map<?, ?>) value;
+      output.writeByte(MAP);
+      output.writeVarInt(map.size());
+      for (Map.Entry<?, ?> entry : map.entrySet()) {
+        writeValue(output, entry.getKey(), null);
+        writeValue(output, entry.getValue(), schema);
+      }
+    } else if (value instanceof ByteString) {
+      byte[] bytes = ((ByteString) value).getBytes();
+      output.writeByte(BYTE_STRING);
+      output.writeVarInt(bytes.length);
+      output.writeBytes(bytes, 0, bytes.length);
+    } else if (value instanceof byte[]) {
+      byte[] bytes = (byte[]) value;
+      output.writeByte(BYTE_ARRAY);
+      output.writeVarInt(bytes.length);
+      output.writeBytes(bytes, 0, bytes.length);
+    } else if (value instanceof ByteBuffer) {
+      ByteBuffer buffer = ((ByteBuffer) value).duplicate();
+      output.writeByte(BYTE_BUFFER);
+      output.writeVarInt(buffer.remaining());
+      output.ensureCapacity(buffer.remaining());
+      int length = buffer.remaining();
+      buffer.get(output.buf, output.size, length);
+      output.size += length;
+    } else if (value instanceof Float) {
+      output.writeByte(FLOAT);
+      output.writeFixedLong(Float.floatToRawIntBits((Float) value));
+    } else if (value instanceof Short) {
+      output.writeByte(SHORT);
+      output.writeVarLong((Short) value);
+    } else if (value instanceof Byte) {
+      output.writeByte(BYTE);
+      output.writeByte((Byte) value);
+    } else if (value instanceof BigDecimal) {
+      BigDecimal decimal = (BigDecimal) value;
+      byte[] unscaled = decimal.unscaledValue().toByteArray();
+      output.writeByte(BIG_DECIMAL);
+      output.writeVarLong(decimal.scale());
+      output.writeVarInt(unscaled.length);
+      output.writeBytes(unscaled, 0, unscaled.length);
+    } else if (value instanceof Timestamp) {
+      // getTime() only has millisecond precision, the nanos carry the rest
+      Timestamp timestamp = (Timestamp) value;
+      output.writeByte(TIMESTAMP);
+      output.writeVarLong(timestamp.getTime());
+      output.writeVarLong(timestamp.getNanos());
+    } else if (value instanceof Date) {
+      output.writeByte(DATE);
+      output.writeVarLong(((Date) value).getTime());
+    } else if (value instanceof Time) {
+      output.writeByte(TIME);
+      output.writeVarLong(((Time) value).getTime());
+    } else {
+      throw new SamzaException("Can't serialize value of type " + value.getClass().getName() + " in a SamzaSqlRelRecord.");
+    }
+  }
+
+  private static void writeRecord(Output output, SamzaSqlRelRecord record, Schema schema) {
+    List<String> fieldNames = record.getFieldNames();
+    List<Object> fieldValues = record.getFieldValues();
+    if (schema != null && schema.matches(fieldNames)) {
+      output.writeByte(SCHEMA_RECORD);
+      output.writeVarInt(fieldValues.size());
+      output.writeFixedInt(schema.fingerprint);
+      for (int i = 0; i < fieldValues.size(); i++) {
+        writeValue(output, fieldValues.get(i), schema.fieldSchemas[i]);
+      }
+    } else {
+      output.writeByte(RECORD);
+      output.writeVarInt(fieldNames.size());
+      for (int i = 0; i < fieldNames.size(); i++) {
+        output.writeString(fieldNames.get(i));
+        writeValue(output, fieldValues.get(i), null);
+      }
+    }
+  }
+
+  private static Object readValue(Input input, Schema schema) {
+    byte tag = input.readByte();
+    switch (tag) {
+      case NULL:
+        return null;
+      case TRUE:
+        return Boolean.TRUE;
+      case FALSE:
+        return Boolean.FALSE;
+      case INT:
+        return (int) input.readVarLong();
+      case LONG:
+        return input.readVarLong();
+      case DOUBLE:
+        return Double.longBitsToDouble(input.readFixedLong());
+      case FLOAT:
+        return Float.intBitsToFloat((int) input.readFixedLong());
+      case STRING:
+        return input.readString();
+      case BYTE_STRING:
+        return new ByteString(input.readBytes(input.readVarInt()));
+      case BYTE_ARRAY:
+        return input.readBytes(input.readVarInt());
+      case BYTE_BUFFER:
+        return ByteBuffer.wrap(input.readBytes(input.readVarInt()));
+      case LIST: {
+        int size = input.readVarInt();
+        List<Object> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+          list.add(readValue(input, schema));
+        }
+        return list;
+      }
+      case MAP: {
+        int size = input.readVarInt();
+        Map<Object, Object> map = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+          Object key = readValue(input, null);
+          map.put(key, readValue(input, schema));
+        }
+        return map;
+      }
+      case RECORD: {
+        int size = input.readVarInt();
+        List<String> fieldNames = new ArrayList<>(size);
+        List<Object> fieldValues = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+          fieldNames.add(input.readString());
+          fieldValues.add(readValue(input, null));
+        }
+        return new SamzaSqlRelRecord(fieldNames, fieldValues);
+      }
+      case SCHEMA_RECORD: {
+        if (schema == null) {
+          throw new SamzaException("Can't read a SamzaSqlRelRecord written with a schema without the schema.");
+        }
+        int fieldCount = input.readVarInt();
+        int fingerprint = input.readFixedInt();
+        if (fieldCount != schema.fieldNames.size() || fingerprint != schema.fingerprint) {
+          throw new SamzaException(String.format("Can't read a SamzaSqlRelRecord written with %d fields (fingerprint "
+              + "%08x) as a record with fields %s (fingerprint %08x). The query may have changed since it was written.",
+              fieldCount, fingerprint, schema.fieldNames, schema.fingerprint));
+        }
+        List<Object> fieldValues = new ArrayList<>(schema.fieldNames.size());
+        for (int i = 0; i < schema.fieldNames.size(); i++) {
+          fieldValues.add(readValue(input, schema.fieldSchemas[i]));
+        }
+        return new SamzaSqlRelRecord(schema.fieldNames, fieldValues);
+      }
+      case SHORT:
+        return (short) input.readVarLong();
+      case BYTE:
+        return input.readByte();
+      case BIG_DECIMAL: {
+        int scale = (int) input.readVarLong();
+        return new BigDecimal(new BigInteger(input.readBytes(input.readVarInt())), scale);
+      }
+      case TIMESTAMP: {
+        Timestamp timestamp = new Timestamp(input.readVarLong());
+        timestamp.setNanos((int) input.readVarLong());
+        return timestamp;
+      }
+      case DATE:
+        return new Date(input.readVarLong());
+      case TIME:
+        return new Time(input.readVarLong());
+      default:
+        throw new SamzaException("Unknown type tag " + tag + " in a serialized SamzaSqlRelRecord.");
+    }
+  }
+
+  /**
+   * The field names of a record type, along with the schemas of the records nested in its fields.
+   * A field's schema applies to a record in the field, and to the records in a list or map in the field.
+   */
+  static final class Schema implements Serializable {
+    private final List<String> fieldNames;
+    private final Schema[] fieldSchemas;
+    /**
+     * The hash code of the field names, which is the same on every JVM since it is defined by {@link List} and
+     * {@link String}.
+     */
+    private final int fingerprint;
+
+    private Schema(List<String> fieldNames, Schema[] fieldSchemas) {
+      this.fieldNames = Collections.unmodifiableList(new ArrayList<>(fieldNames));
+      this.fieldSchemas = fieldSchemas;
+      this.fingerprint = this.fieldNames.hashCode();
+    }
+
+    /**
+     * @param type the row type of the records
+     * @return the schema of the records, or null if the type doesn't contain any records
+     */
+    static Schema of(RelDataType type) {
+      if (type == null) {
+        return null;
+      }
+      if (type.isStruct()) {
+        List<RelDataTypeField> fields = type.getFieldList();
+        List<String> fieldNames = new ArrayList<>(fields.size());
+        Schema[] fieldSchemas = new Schema[fields.size()];
+        for (int i = 0; i < fields.size(); i++) {
+          fieldNames.add(fields.get(i).getName());
+          fieldSchemas[i] = of(fields.get(i).getType());
+        }
+        return new Schema(fieldNames, fieldSchemas);
+      }
+      if (type.getComponentType() != null) {
+        return of(type.getComponentType());
+      }
+      return of(type.getValueType());
+    }
+
+    /**
+     * @param fieldNames the field names of records without nested records
+     * @return the schema of the records
+     */
+    static Schema of(List<String> fieldNames) {
+      return new Schema(fieldNames, new Schema[fieldNames.size()]);
+    }
+
+    private boolean matches(List<String> names) {
+      return fieldNames.equals(names);
+    }
+  }
+
+  /**
+   * A growable buffer that is reused across records.
+   */
+  private static final class Output {
+    private byte[] buf = new byte[256];
+    private int size = 0;
+
+    private void ensureCapacity(int length) {
+      if (size + length > buf.length) {
+        buf = Arrays.copyOf(buf, Math.max(buf.length * 2, size + length));
+      }
+    }
+
+    private void writeByte(int b) {
+      ensureCapacity(1);
+      buf[size++] = (byte) b;
+    }
+
+    private void writeBytes(byte[] bytes, int offset, int length) {
+      ensureCapacity(length);
+      System.arraycopy(bytes, offset, buf, size, length);
+      size += length;
+    }
+
+    private void writeVarInt(int value) {
+      ensureCapacity(5);
+      while ((value & ~0x7F) != 0) {
+        buf[size++] = (byte) ((value & 0x7F) | 0x80);
+        value >>>= 7;
+      }
+      buf[size++] = (byte) value;
+    }
+
+    /**
+     * Writes a zigzag encoded variable length long, so small negative values are as short as small positive ones.
+     */
+    private void writeVarLong(long value) {
+      ensureCapacity(10);
+      long zigzag = (value << 1) ^ (value >> 63);
+      while ((zigzag & ~0x7FL) != 0) {
+        buf[size++] = (byte) ((zigzag & 0x7F) | 0x80);
+        zigzag >>>= 7;
+      }
+      buf[size++] = (byte) zigzag;
+    }
+
+    private void writeFixedInt(int value) {
+      ensureCapacity(4);
+      for (int shift = 24; shift >= 0; shift -= 8) {
+        buf[size++] = (byte) (value >>> shift);
+      }
+    }
+
+    private void writeFixedLong(long value) {
+      ensureCapacity(8);
+      for (int shift = 56; shift >= 0; shift -= 8) {
+        buf[size++] = (byte) (value >>> shift);
+      }
+    }
+
+    private void writeString(String value) {
+      byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+      writeVarInt(bytes.length);
+      writeBytes(bytes, 0, bytes.length);
+    }
+
+    private byte[] toByteArray() {
+      return Arrays.copyOf(buf, size);
+    }
+
+    private void reset() {
+      size = 0;
+      if (buf.length > MAX_RETAINED_BUFFER_SIZE) {
+        buf = new byte[256];
+      }
+    }
+  }
+
+  private static final class Input {
+    private final byte[] buf;
+    private int position;
+
+    private Input(byte[] buf, int position) {
+      this.buf = buf;
+      this.position = position;
+    }
+
+    private byte readByte() {
+      return buf[position++];
+    }
+
+    private byte[] readBytes(int length) {
+      byte[] bytes = Arrays.copyOfRange(buf, position, position + length);
+      position += length;
+      return bytes;
+    }
+
+    private int readVarInt() {
+      int value = 0;
+      for (int shift = 0; ; shift += 7) {
+        byte b = buf[position++];
+        value |= (b & 0x7F) << shift;
+        if ((b & 0x80) == 0) {
+          return value;
+        }
+      }
+    }
+
+    private long readVarLong() {
+      long zigzag = 0;
+      for (int shift = 0; ; shift += 7) {
+        byte b = buf[position++];
+        zigzag |= (long) (b & 0x7F) << shift;
+        if ((b & 0x80) == 0) {
+          return (zigzag >>> 1) ^ -(zigzag & 1);
+        }
+      }
+    }
+
+    private int readFixedInt() {
+      int value = 0;
+      for (int i = 0; i < 4; i++) {
+        value = (value << 8) | (buf[position++] & 0xFF);
+      }
+      return value;
+    }
+
+    private long readFixedLong() {
+      long value = 0;
+      for (int i = 0; i < 8; i++) {
+        value = (value << 8) | (buf[position++] & 0xFF);
+      }
+      return value;
+    }
+
+    private String readString() {
+      int length = readVarInt();
+      String value = new String(buf, position, length, StandardCharsets.UTF_8);
+      position += length;
+      return value;
+    }
+  }
+}
@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.samza.sql.serializers;
+
+import java.util.List;
+import org.apache.calcite.rel.type.RelDataType;
+import org.apache.samza.serializers.Serde;
+import org.apache.samza.sql.SamzaSqlRelRecord;
+import org.apache.samza.sql.data.SamzaSqlRelMessage;
+
+
+/**
+ * Creates the serdes of the {@link SamzaSqlRelRecord}s and {@link SamzaSqlRelMessage}s that queries keep in
+ * local tables, window and join stores, and intermediate streams.
+ *
+ * The JSON serdes are used unless the binary serdes are enabled with samza.sql.serde.binary.enabled. The binary
+ * serdes read values written by the JSON serdes, but write different bytes for the same key. Enabling them for a
+ * job with existing state or intermediate streams loses the keys in them and changes the partitions keys go to.
+ */
+public final class SamzaSqlSerdes {
+
+  private SamzaSqlSerdes() {
+  }
+
+  /**
+   * @param binary whether to use the binary serde
+   * @param fieldNames the field names of the records, or null if they are not known
+   * @return the serde of the records, e.g. composite keys
+   */
+  public static Serde<SamzaSqlRelRecord> getRecordSerde(boolean binary, List<String> fieldNames) {
+    if (!binary) {
+      return new SamzaSqlRelRecordSerdeFactory.SamzaSqlRelRecordSerde();
+    }
+    return fieldNames == null ? new SamzaSqlRelRecordBinarySerdeFactory.SamzaSqlRelRecordBinarySerde()
+        : new SamzaSqlRelRecordBinarySerdeFactory.SamzaSqlRelRecordBinarySerde(fieldNames);
+  }
+
+  /**
+   * @param binary whether to use the binary serde
+   * @param rowType the row type of the messages, or null if it is not known
+   * @return the serde of the messages
+   */
+  public static Serde<SamzaSqlRelMessage> getMessageSerde(boolean binary, RelDataType rowType) {
+    if (!binary) {
+      return new SamzaSqlRelMessageSerdeFactory.SamzaSqlRelMessageSerde();
+    }
+    return rowType == null ? new SamzaSqlRelMessageBinarySerdeFactory.SamzaSqlRelMessageBinarySerde()
+        : new SamzaSqlRelMessageBinarySerdeFactory.SamzaSqlRelMessageBinarySerde(rowType);
+  }
+}
@@ -49,6 +49,8 @@ class FilterTranslator {
     private transient Expression expr;
     private transient TranslatorContext context;
     private transient LogicalFilter filter;
+    private transient Object[] inputValues;
+    private transient Object[] result;
     private final int queryId;
 
     private final int filterId;
@@ -63,18 +65,22 @@ class FilterTranslator {
       this.context = ((SamzaSqlApplicationContext) context.getApplicationTaskContext()).getTranslatorContexts().get(queryId);
       this.filter = (LogicalFilter) this.context.getRelNode(filterId);
       this.expr = this.context.getExpressionCompiler().compile(filter.getInputs(), Collections.singletonList(filter.getCondition()));
+      this.inputValues = new Object[0];
+      this.result = new Object[1];
     }
 
     @Override
     public boolean apply(SamzaSqlRelMessage message) {
-      Object[] result = new Object[1];
-      expr.execute(context.getExecutionContext(), context.getDataContext(),
-          message.getSamzaSqlRelRecord().getFieldValues().toArray(), result);
+      inputValues = ProjectTranslator.toArray(message, inputValues);
+      result[0] = null;
+      expr.execute(context.getExecutionContext(), context.getDataContext(), inputValues, result);
       if (result.length > 0 && result[0] instanceof Boolean) {
         boolean retVal = (Boolean) result[0];
-        log.debug(
-            String.format("return value for input %s is %s",
-                Arrays.asList(message.getSamzaSqlRelRecord().getFieldValues()).toString(), retVal));
+        if (log.isDebugEnabled()) {
+          log.debug(
+              String.format("return value for input %s is %s",
+                  Arrays.asList(message.getSamzaSqlRelRecord().getFieldValues()).toString(), retVal));
+        }
         return retVal;
       } else {
         log.error("return value is not boolean");
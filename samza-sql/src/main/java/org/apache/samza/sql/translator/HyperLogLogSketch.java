@@ -0,0 +1,212 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.samza.sql.translator;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.apache.samza.SamzaException;
+
+
+/**
+ * A HyperLogLog sketch used to approximate COUNT(DISTINCT ...) in SQL aggregations.
+ *
+ * A sketch is a byte array so it can be kept in an aggregation's accumulator record as is. It has
+ * 2^{@link #PRECISION} registers, which gives a standard error of about 1.6%. Sketches of groups with few distinct
+ * values are sparse, i.e. they only contain the registers that are set, sorted by register index. A sparse sketch
+ * is converted to a dense array of all the registers once it would be as large as a quarter of it.
+ *
+ * Values are hashed by content rather than by {@link Object#hashCode()} where possible, so that the sketches in a
+ * store's changelog are still valid when they are restored by a different JVM.
+ */
+final class HyperLogLogSketch {
+
+  static final int PRECISION = 12;
+  private static final int NUM_REGISTERS = 1 << PRECISION;
+
+  /**
+   * Sparse sketches with more than this many registers are converted to dense ones.
+   */
+  private static final int MAX_SPARSE_REGISTERS = NUM_REGISTERS / 16;
+
+  private static final byte SPARSE = 1;
+  private static final byte DENSE = 2;
+  private static final int SPARSE_ENTRY_SIZE = 4;
+
+  private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+  private static final long FNV_PRIME = 0x100000001b3L;
+
+  private HyperLogLogSketch() {
+  }
+
+  /**
+   * @return an empty sketch
+   */
+  static byte[] empty() {
+    return new byte[] {SPARSE};
+  }
+
+  /**
+   * Adds a hashed value to a sketch.
+   *
+   * @param sketch the sketch to add the value to, which is not modified
+   * @param hash the 64 bit hash of the value, see {@link #hash(List)}
+   * @return the sketch with the value, which is the given sketch if the value doesn't change it
+   */
+  static byte[] add(byte[] sketch, long hash) {
+    int index = (int) (hash >>> (Long.SIZE - PRECISION));
+    byte rank = (byte) (Long.numberOfLeadingZeros((hash << PRECISION) | (1L << (PRECISION - 1))) + 1);
+
+    if (sketch[0] == DENSE) {
+      if (sketch[index + 1] >= rank) {
+        return sketch;
+      }
+      byte[] updated = sketch.clone();
+      updated[index + 1] = rank;
+      return updated;
+    }
+
+    ByteBuffer entries = ByteBuffer.wrap(sketch);
+    int numEntries = (sketch.length - 1) / SPARSE_ENTRY_SIZE;
+    int low = 0;
+    int high = numEntries - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      int entry = entries.getInt(1 + mid * SPARSE_ENTRY_SIZE);
+      int entryIndex = entry >>> 8;
+      if (entryIndex < index) {
+        low = mid + 1;
+      } else if (entryIndex > index) {
+        high = mid - 1;
+      } else {
+        if ((byte) entry >= rank) {
+          return sketch;
+        }
+        byte[] updated = sketch.clone();
+        ByteBuffer.wrap(updated).putInt(1 + mid * SPARSE_ENTRY_SIZE, (index << 8) | rank);
+        return updated;
+      }
+    }
+
+    if (numEntries + 1 > MAX_SPARSE_REGISTERS) {
+      byte[] dense = toDense(sketch);
+      dense[index + 1] = rank;
+      return dense;
+    }
+    byte[] updated = new byte[sketch.length + SPARSE_ENTRY_SIZE];
+    int insertAt = 1 + low * SPARSE_ENTRY_SIZE;
+    System.arraycopy(sketch, 0, updated, 0, insertAt);
+    ByteBuffer.wrap(updated).putInt(insertAt, (index << 8) | rank);
+    System.arraycopy(sketch, insertAt, updated, insertAt + SPARSE_ENTRY_SIZE, sketch.length - insertAt);
+    return updated;
+  }
+
+  /**
+   * @param sketch the sketch
+   * @return the estimated number of distinct values added to the sketch
+   */
+  static long estimate(byte[] sketch) {
+    byte[] registers = sketch[0] == DENSE ? sketch : toDense(sketch);
+    double sum = 0;
+    int zeros = 0;
+    for (int i = 1; i <= NUM_REGISTERS; i++) {
+      sum += 1.0 / (1L << registers[i]);
+      if (registers[i] == 0) {
+        zeros++;
+      }
+    }
+    double alpha = 0.7213 / (1 + 1.079 / NUM_REGISTERS);
+    double estimate = alpha * NUM_REGISTERS * NUM_REGISTERS / sum;
+    if (estimate <= 2.5 * NUM_REGISTERS && zeros > 0) {
+      // Linear counting is more accurate for small cardinalities
+      estimate = NUM_REGISTERS * Math.log((double) NUM_REGISTERS / zeros);
+    }
+    return Math.round(estimate);
+  }
+
+  /**
+   * Hashes the values of the arguments of a distinct aggregate call.
+   *
+   * @param values the values, none of which is null
+   * @return the 64 bit hash of the values
+   */
+  static long hash(List<?> values) {
+    long hash = 0;
+    for (Object value : values) {
+      hash = mix(hash * 31 + hashValue(value));
+    }
+    return hash;
+  }
+
+  private static long hashValue(Object value) {
+    if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+      return mix(((Number) value).longValue());
+    } else if (value instanceof Double || value instanceof Float) {
+      return mix(Double.doubleToLongBits(((Number) value).doubleValue()));
+    } else if (value instanceof CharSequence) {
+      return hashBytes(value.toString().getBytes(StandardCharsets.UTF_8));
+    } else if (value instanceof byte[]) {
+      return hashBytes((byte[]) value);
+    } else if (value instanceof Boolean) {
+      return mix((Boolean) value ? 1 : 0);
+    } else if (value instanceof List) {
+      return hash((List<?>) value);
+    }
+    return mix(value.hashCode());
+  }
+
+  /**
+   * FNV-1a, mixed so that short inputs are spread over all the bits.
+   */
+  private static long hashBytes(byte[] bytes) {
+    long hash = FNV_OFFSET_BASIS;
+    for (byte b : bytes) {
+      hash ^= b & 0xff;
+      hash *= FNV_PRIME;
+    }
+    return mix(hash);
+  }
+
+  /**
+   * The finalizer of MurmurHash3.
+   */
+  private static long mix(long hash) {
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    hash ^= hash >>> 33;
+    return hash;
+  }
+
+  private static byte[] toDense(byte[] sketch) {
+    if (sketch[0] != SPARSE) {
+      throw new SamzaException("Unknown format " + sketch[0] + " of a COUNT(DISTINCT) sketch.");
+    }
+    byte[] dense = new byte[NUM_REGISTERS + 1];
+    dense[0] = DENSE;
+    ByteBuffer entries = ByteBuffer.wrap(sketch);
+    for (int offset = 1; offset < sketch.length; offset += SPARSE_ENTRY_SIZE) {
+      int entry = entries.getInt(offset);
+      dense[(entry >>> 8) + 1] = (byte) entry;
+    }
+    return dense;
+  }
+}
@@ -19,23 +19,31 @@
 
 package org.apache.samza.sql.translator;
 
+import java.math.BigDecimal;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 
 import java.util.Objects;
 import org.apache.calcite.adapter.enumerable.EnumerableTableScan;
 import org.apache.calcite.plan.RelOptUtil;
 import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.core.JoinInfo;
 import org.apache.calcite.rel.core.JoinRelType;
 import org.apache.calcite.rel.logical.LogicalJoin;
 import org.apache.calcite.rel.logical.LogicalProject;
 import org.apache.calcite.rex.RexCall;
 import org.apache.calcite.rex.RexInputRef;
+import org.apache.calcite.rex.RexLiteral;
 import org.apache.calcite.rex.RexNode;
 import org.apache.calcite.sql.SqlExplainFormat;
 import org.apache.calcite.sql.SqlExplainLevel;
 import org.apache.calcite.sql.SqlKind;
+import org.apache.calcite.sql.type.SqlTypeFamily;
 import org.apache.calcite.sql.type.SqlTypeName;
 import org.apache.commons.lang.Validate;
 import org.apache.samza.SamzaException;
@@ -43,11 +51,11 @@ import org.apache.samza.operators.KV;
 import org.apache.samza.operators.MessageStream;
 import org.apache.samza.operators.functions.StreamTableJoinFunction;
 import org.apache.samza.serializers.KVSerde;
+import org.apache.samza.serializers.Serde;
 import org.apache.samza.sql.SamzaSqlRelRecord;
 import org.apache.samza.sql.data.SamzaSqlRelMessage;
 import org.apache.samza.sql.interfaces.SqlIOConfig;
-import org.apache.samza.sql.serializers.SamzaSqlRelMessageSerdeFactory;
-import org.apache.samza.sql.serializers.SamzaSqlRelRecordSerdeFactory;
+import org.apache.samza.sql.serializers.SamzaSqlSerdes;
 import org.apache.samza.table.Table;
 import org.apache.samza.table.descriptors.RemoteTableDescriptor;
 import org.slf4j.Logger;
@@ -61,15 +69,23 @@ import static org.apache.samza.sql.translator.SamzaSqlTableJoinFunction.*;
 /**
  * Translator to translate the LogicalJoin node in the relational graph to the corresponding StreamGraph
  * implementation.
- * Join is supported with the following caveats:
- *   1. Only stream-table joins are supported. No stream-stream joins.
- *   2. Only Equi-joins are supported. No theta-joins.
- *   3. Inner joins, Left and Right outer joins are supported. No cross joins, full outer joins or natural joins.
- *   4. Join condition with a constant is not supported.
- *   5. Compound join condition with only AND operator is supported. AND operator with a constant is not supported. No
+ * Stream-table join is supported with the following caveats:
+ *   1. Only Equi-joins are supported. No theta-joins.
+ *   2. Inner joins, Left and Right outer joins are supported. No cross joins, full outer joins or natural joins.
+ *   3. Join condition with a constant is not supported.
+ *   4. Compound join condition with only AND operator is supported. AND operator with a constant is not supported. No
  *      support for OR operator or any other operator in the join condition.
  * For local table, we always repartition both the stream to be joined and the stream denoted as table by the key(s)
  * specified in the join condition.
+ *
+ * Stream-stream join is a windowed inner join. Both streams are repartitioned by the key(s) in the equality conditions
+ * of the join, and each message is joined with the messages for its key from the other stream within the join window.
+ * The join condition must bound a TIMESTAMP or BIGINT time column of one stream to an interval around a time column of
+ * the other stream, e.g. {@code pv.time >= p.time - 60000 AND pv.time <= p.time + 60000}. The messages of each stream
+ * are retained by their processing time, for the larger bound of the interval plus the allowed lateness configured by
+ * {@link org.apache.samza.sql.runner.SamzaSqlApplicationConfig#CFG_JOIN_ALLOWED_LATENESS_MS}, so two messages match
+ * only if they arrive within that window of each other. The rest of the join condition, including the interval, is
+ * evaluated on the matched pairs.
  */
 class JoinTranslator {
 
@@ -88,6 +104,11 @@ class JoinTranslator {
     JoinInputNode.InputType inputTypeOnLeft = getInputType(join.getLeft(), context);
     JoinInputNode.InputType inputTypeOnRight = getInputType(join.getRight(), context);
 
+    if (inputTypeOnLeft == JoinInputNode.InputType.STREAM && inputTypeOnRight == JoinInputNode.InputType.STREAM) {
+      context.registerMessageStream(join.getId(), joinStreamWithStream(join, context));
+      return;
+    }
+
     // Do the validation of join query
     validateJoinQuery(join, inputTypeOnLeft, inputTypeOnRight);
 
@@ -144,23 +165,194 @@ class JoinTranslator {
 
     StreamTableJoinFunction joinFn = new SamzaSqlLocalTableJoinFunction(streamNode, tableNode, join.getJoinType());
 
-    SamzaSqlRelRecordSerdeFactory.SamzaSqlRelRecordSerde keySerde =
-        (SamzaSqlRelRecordSerdeFactory.SamzaSqlRelRecordSerde) new SamzaSqlRelRecordSerdeFactory().getSerde(null, null);
-    SamzaSqlRelMessageSerdeFactory.SamzaSqlRelMessageSerde valueSerde =
-        (SamzaSqlRelMessageSerdeFactory.SamzaSqlRelMessageSerde) new SamzaSqlRelMessageSerdeFactory().getSerde(null, null);
+    List<String> keyFieldNames = getSamzaSqlCompositeKeyFieldNames(tableFieldNames, tableKeyIds);
+    boolean binarySerde = context.getExecutionContext().getSamzaSqlApplicationConfig().isBinarySerdeEnabled();
+    Serde<SamzaSqlRelRecord> keySerde = SamzaSqlSerdes.getRecordSerde(binarySerde, keyFieldNames);
+    Serde<SamzaSqlRelMessage> valueSerde =
+        SamzaSqlSerdes.getMessageSerde(binarySerde, streamNode.getRelNode().getRowType());
 
     // Always re-partition the messages from the input stream by the composite key and then join the messages
     // with the table. For the composite key, provide the corresponding table names in the key instead of using
     // the names from the stream as the lookup needs to be done based on what is stored in the local table.
     return
         inputStream
-            .partitionBy(m -> createSamzaSqlCompositeKey(m, streamKeyIds,
-            getSamzaSqlCompositeKeyFieldNames(tableFieldNames, tableKeyIds)), m -> m, KVSerde.of(keySerde, valueSerde),
+            .partitionBy(m -> createSamzaSqlCompositeKey(m, streamKeyIds, keyFieldNames), m -> m,
+            KVSerde.of(keySerde, valueSerde),
             intermediateStreamPrefix + "stream_" + logicalOpId)
             .map(KV::getValue)
             .join(table, joinFn);
   }
 
+  private MessageStream<SamzaSqlRelMessage> joinStreamWithStream(LogicalJoin join, TranslatorContext context) {
+    JoinInfo joinInfo = join.analyzeCondition();
+    validateStreamStreamJoinQuery(join, joinInfo);
+
+    List<Integer> leftKeyIds = new ArrayList<>(joinInfo.leftKeys);
+    List<Integer> rightKeyIds = new ArrayList<>(joinInfo.rightKeys);
+    List<String> leftFieldNames = join.getLeft().getRowType().getFieldNames();
+    List<String> rightFieldNames = join.getRight().getRowType().getFieldNames();
+    log.info("Joining on the following Stream and Stream field(s): ");
+    for (int i = 0; i < leftKeyIds.size(); i++) {
+      log.info(leftFieldNames.get(leftKeyIds.get(i)) + " with " + rightFieldNames.get(rightKeyIds.get(i)));
+    }
+
+    List<String> keyFieldNames = getSamzaSqlCompositeKeyFieldNames(leftFieldNames, leftKeyIds);
+    List<String> outFieldNames = new ArrayList<>(leftFieldNames);
+    outFieldNames.addAll(rightFieldNames);
+    boolean binarySerde = context.getExecutionContext().getSamzaSqlApplicationConfig().isBinarySerdeEnabled();
+    Serde<SamzaSqlRelRecord> keySerde = SamzaSqlSerdes.getRecordSerde(binarySerde, keyFieldNames);
+    Serde<SamzaSqlRelMessage> leftSerde = SamzaSqlSerdes.getMessageSerde(binarySerde, join.getLeft().getRowType());
+    Serde<SamzaSqlRelMessage> rightSerde = SamzaSqlSerdes.getMessageSerde(binarySerde, join.getRight().getRowType());
+
+    // Both streams are re-partitioned by the composite key so that the messages with the same key are joined by the
+    // same task. The key of the right stream uses the names of the left keys, so that the keys are equal.
+    MessageStream<SamzaSqlRelMessage> leftInputStream = context.getMessageStream(join.getLeft().getId());
+    MessageStream<SamzaSqlRelMessage> rightInputStream = context.getMessageStream(join.getRight().getId());
+    MessageStream<SamzaSqlRelMessage> leftStream = leftInputStream
+        .partitionBy(m -> createSamzaSqlCompositeKey(m, leftKeyIds, keyFieldNames), m -> m,
+            KVSerde.of(keySerde, leftSerde), intermediateStreamPrefix + "left_" + logicalOpId)
+        .map(KV::getValue);
+    MessageStream<SamzaSqlRelMessage> rightStream = rightInputStream
+        .partitionBy(m -> createSamzaSqlCompositeKey(m, rightKeyIds, keyFieldNames), m -> m,
+            KVSerde.of(keySerde, rightSerde), intermediateStreamPrefix + "right_" + logicalOpId)
+        .map(KV::getValue);
+
+    // The join function and the remaining condition are compiled from the join node when the tasks start.
+    context.registerRelNode(join.getId(), join);
+    SamzaSqlStreamStreamJoinFunction joinFn =
+        new SamzaSqlStreamStreamJoinFunction(join.getId(), queryId, leftKeyIds, rightKeyIds, keyFieldNames,
+            outFieldNames);
+    // Messages are retained by their processing time, so the window also allows for the skew between the arrivals of
+    // two messages within the interval.
+    long allowedLatenessMs = context.getExecutionContext().getSamzaSqlApplicationConfig().getJoinAllowedLatenessMs();
+    Duration window = Duration.ofMillis(getStreamStreamJoinIntervalMs(join, joinInfo) + allowedLatenessMs);
+
+    // The join function returns null for the pairs that don't match the remaining condition.
+    return leftStream
+        .joinAll(rightStream, joinFn, keySerde, leftSerde, rightSerde, window,
+            intermediateStreamPrefix + "join_" + logicalOpId)
+        .filter(Objects::nonNull);
+  }
+
+  private void validateStreamStreamJoinQuery(LogicalJoin join, JoinInfo joinInfo) {
+    if (join.getJoinType().compareTo(JoinRelType.INNER) != 0) {
+      throw new SamzaException("Query with only INNER join is supported when both sides of the join are 'stream'. "
+          + dumpRelPlanForNode(join));
+    }
+
+    if (joinInfo.leftKeys.isEmpty()) {
+      throw new SamzaException("Invalid query for stream-stream join. The join condition should have at least one "
+          + "equality between fields of the two streams. " + dumpRelPlanForNode(join));
+    }
+
+    joinInfo.leftKeys.forEach(key -> validateJoinKeys(RexInputRef.of(key, join.getLeft().getRowType())));
+    joinInfo.rightKeys.forEach(key -> validateJoinKeys(RexInputRef.of(key, join.getRight().getRowType())));
+  }
+
+  /**
+   * Derives the interval of a stream-stream join from the interval conditions between a time column of each stream,
+   * i.e. comparisons of the form {@code left.col op right.col + c}, where the columns are TIMESTAMP or BIGINT
+   * milliseconds and c is a day-time interval or a numeric literal. A lower and an upper bound on the same pair of
+   * columns are required, and the interval is the larger of their distances in milliseconds.
+   */
+  private long getStreamStreamJoinIntervalMs(LogicalJoin join, JoinInfo joinInfo) {
+    int numLeftFields = join.getLeft().getRowType().getFieldCount();
+    // lower and upper bounds of (left column - right column), by the pair of columns
+    Map<List<Integer>, Long> lowerBounds = new HashMap<>();
+    Map<List<Integer>, Long> upperBounds = new HashMap<>();
+
+    RexNode remaining = joinInfo.getRemaining(join.getCluster().getRexBuilder());
+    for (RexNode conjunction : RelOptUtil.conjunctions(remaining)) {
+      if (!conjunction.isA(SqlKind.COMPARISON) || conjunction.isA(SqlKind.EQUALS)
+          || conjunction.isA(SqlKind.NOT_EQUALS)) {
+        continue;
+      }
+      List<RexNode> operands = ((RexCall) conjunction).getOperands();
+      ColumnOffset first = ColumnOffset.of(operands.get(0));
+      ColumnOffset second = ColumnOffset.of(operands.get(1));
+      if (first == null || second == null || (first.index < numLeftFields) == (second.index < numLeftFields)) {
+        continue;
+      }
+
+      // Rewrite "first + c1 op second + c2" as "left - right op c"
+      boolean isLowerBound = conjunction.isA(Arrays.asList(SqlKind.GREATER_THAN, SqlKind.GREATER_THAN_OR_EQUAL));
+      ColumnOffset left = first;
+      ColumnOffset right = second;
+      long bound = second.offset - first.offset;
+      if (first.index >= numLeftFields) {
+        left = second;
+        right = first;
+        bound = -bound;
+        isLowerBound = !isLowerBound;
+      }
+      List<Integer> columns = Arrays.asList(left.index, right.index);
+      if (isLowerBound) {
+        lowerBounds.merge(columns, bound, Math::max);
+      } else {
+        upperBounds.merge(columns, bound, Math::min);
+      }
+    }
+
+    return lowerBounds.keySet().stream()
+        .filter(upperBounds::containsKey)
+        .map(columns -> Math.max(Math.abs(lowerBounds.get(columns)), Math.abs(upperBounds.get(columns))))
+        .max(Long::compare)
+        .map(intervalMs -> Math.max(intervalMs, 1))
+        .orElseThrow(() -> new SamzaException("Invalid query for stream-stream join. The join condition should bound "
+            + "a TIMESTAMP or BIGINT time column of one stream to an interval around a time column of the other "
+            + "stream, e.g. "
+            + "'pv.time >= p.time - 60000 AND pv.time <= p.time + 60000', which bounds the state of the join. "
+            + dumpRelPlanForNode(join)));
+  }
+
+  /**
+   * A time column of the join inputs plus a constant offset, e.g. {@code p.time - INTERVAL '1' MINUTE}.
+   */
+  private static class ColumnOffset {
+    private final int index;
+    private final long offset;
+
+    private ColumnOffset(int index, long offset) {
+      this.index = index;
+      this.offset = offset;
+    }
+
+    /**
+     * @return the column and offset of the expression, or null if it isn't a time column plus or minus a literal
+     */
+    private static ColumnOffset of(RexNode node) {
+      if (node.isA(SqlKind.CAST)) {
+        return of(((RexCall) node).getOperands().get(0));
+      }
+      if (node instanceof RexInputRef) {
+        SqlTypeName type = node.getType().getSqlTypeName();
+        if (type != SqlTypeName.TIMESTAMP && type != SqlTypeName.BIGINT) {
+          return null;
+        }
+        return new ColumnOffset(((RexInputRef) node).getIndex(), 0);
+      }
+      if (node.isA(Arrays.asList(SqlKind.PLUS, SqlKind.MINUS))) {
+        List<RexNode> operands = ((RexCall) node).getOperands();
+        ColumnOffset column = of(operands.get(0));
+        if (column == null || column.offset != 0 || !(operands.get(1) instanceof RexLiteral)) {
+          return null;
+        }
+        RexLiteral literal = (RexLiteral) operands.get(1);
+        if (literal.getType().getSqlTypeName().getFamily() == SqlTypeFamily.INTERVAL_YEAR_MONTH) {
+          throw new SamzaException("Year-month intervals are not supported in the join condition of a stream-stream "
+              + "join, since their length in milliseconds varies. Use a day-time interval, e.g. INTERVAL '30' DAY.");
+        }
+        Object value = literal.getValue();
+        if (!(value instanceof BigDecimal)) {
+          return null;
+        }
+        long offset = ((BigDecimal) value).longValue();
+        return new ColumnOffset(column.index, node.isA(SqlKind.PLUS) ? offset : -offset);
+      }
+      return null;
+    }
+  }
+
   private void validateJoinQuery(LogicalJoin join, JoinInputNode.InputType inputTypeOnLeft,
       JoinInputNode.InputType inputTypeOnRight) {
     JoinRelType joinRelType = join.getJoinType();
@@ -173,11 +365,6 @@ class JoinTranslator {
     boolean isTablePosOnLeft = (inputTypeOnLeft != JoinInputNode.InputType.STREAM);
     boolean isTablePosOnRight = (inputTypeOnRight != JoinInputNode.InputType.STREAM);
 
-    if (!isTablePosOnLeft && !isTablePosOnRight) {
-      throw new SamzaException("Invalid query with both sides of join being denoted as 'stream'. "
-          + "Stream-stream join is not yet supported. " + dumpRelPlanForNode(join));
-    }
-
     if (isTablePosOnLeft && isTablePosOnRight) {
       throw new SamzaException("Invalid query with both sides of join being denoted as 'table'. " +
           dumpRelPlanForNode(join));
@@ -348,13 +535,14 @@ class JoinTranslator {
 
     MessageStream<SamzaSqlRelMessage> relOutputStream = context.getMessageStream(tableNode.getRelNode().getId());
 
-    SamzaSqlRelRecordSerdeFactory.SamzaSqlRelRecordSerde keySerde =
-        (SamzaSqlRelRecordSerdeFactory.SamzaSqlRelRecordSerde) new SamzaSqlRelRecordSerdeFactory().getSerde(null, null);
-    SamzaSqlRelMessageSerdeFactory.SamzaSqlRelMessageSerde valueSerde =
-        (SamzaSqlRelMessageSerdeFactory.SamzaSqlRelMessageSerde) new SamzaSqlRelMessageSerdeFactory().getSerde(null, null);
-
     List<Integer> tableKeyIds = tableNode.getKeyIds();
 
+    boolean binarySerde = context.getExecutionContext().getSamzaSqlApplicationConfig().isBinarySerdeEnabled();
+    Serde<SamzaSqlRelRecord> keySerde = SamzaSqlSerdes.getRecordSerde(binarySerde,
+        getSamzaSqlCompositeKeyFieldNames(tableNode.getFieldNames(), tableKeyIds));
+    Serde<SamzaSqlRelMessage> valueSerde =
+        SamzaSqlSerdes.getMessageSerde(binarySerde, tableNode.getRelNode().getRowType());
+
     // Let's always repartition by the join fields as key before sending the key and value to the table.
     // We need to repartition the stream denoted as table to ensure that both the stream and table that are joined
     // have the same partitioning scheme with the same partition key and number. Please note that bootstrap semantic is
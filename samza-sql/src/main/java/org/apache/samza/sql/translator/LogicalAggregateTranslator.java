@@ -20,19 +20,22 @@
 package org.apache.samza.sql.translator;
 
 import java.time.Duration;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.EnumSet;
+import java.util.Set;
+import org.apache.calcite.rel.core.Aggregate;
+import org.apache.calcite.rel.core.AggregateCall;
 import org.apache.calcite.rel.logical.LogicalAggregate;
 import org.apache.calcite.sql.SqlKind;
 import org.apache.samza.SamzaException;
 import org.apache.samza.operators.MessageStream;
 import org.apache.samza.operators.functions.FoldLeftFunction;
+import org.apache.samza.operators.functions.MapFunction;
 import org.apache.samza.operators.functions.SupplierFunction;
 import org.apache.samza.operators.windows.AccumulationMode;
 import org.apache.samza.operators.windows.Windows;
-import org.apache.samza.serializers.LongSerde;
+import org.apache.samza.sql.SamzaSqlRelRecord;
 import org.apache.samza.sql.data.SamzaSqlRelMessage;
-import org.apache.samza.sql.serializers.SamzaSqlRelMessageSerdeFactory;
+import org.apache.samza.sql.serializers.SamzaSqlSerdes;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -44,6 +47,8 @@ import org.slf4j.LoggerFactory;
 class LogicalAggregateTranslator {
 
   private static final Logger log = LoggerFactory.getLogger(JoinTranslator.class);
+  private static final Set<SqlKind> SUPPORTED_AGGREGATE_FUNCTIONS =
+      EnumSet.of(SqlKind.COUNT, SqlKind.SUM, SqlKind.SUM0, SqlKind.MIN, SqlKind.MAX, SqlKind.AVG);
   private String logicalOpId;
   private String changeLogStorePrefix;
 
@@ -57,49 +62,50 @@ class LogicalAggregateTranslator {
 
     MessageStream<SamzaSqlRelMessage> inputStream = context.getMessageStream(aggregate.getInput().getId());
 
-    // At this point, the assumption is that only count function is supported.
-    SupplierFunction<Long> initialValue = () -> (long) 0;
-    FoldLeftFunction<SamzaSqlRelMessage, Long> foldCountFn = (m, c) -> c + 1;
-
-    final ArrayList<String> aggFieldNames = getAggFieldNames(aggregate);
+    // Groups are keyed by their grouping columns and only keep the accumulators of their aggregate calls.
+    final SamzaSqlAggregator aggregator = SamzaSqlAggregator.of(aggregate);
+    MapFunction<SamzaSqlRelMessage, SamzaSqlRelRecord> keyFn = aggregator::getGroupKey;
+    SupplierFunction<SamzaSqlRelRecord> initialValue = aggregator::createAccumulator;
+    FoldLeftFunction<SamzaSqlRelMessage, SamzaSqlRelRecord> foldFn = aggregator::accumulate;
 
+    boolean binarySerde = context.getExecutionContext().getSamzaSqlApplicationConfig().isBinarySerdeEnabled();
     MessageStream<SamzaSqlRelMessage> outputStream =
         inputStream
-            .window(Windows.keyedTumblingWindow(m -> m,
+            .window(Windows.keyedTumblingWindow(keyFn,
                 Duration.ofMillis(context.getExecutionContext().getSamzaSqlApplicationConfig().getWindowDurationMs()),
                 initialValue,
-                foldCountFn,
-                new SamzaSqlRelMessageSerdeFactory.SamzaSqlRelMessageSerde(),
-                new LongSerde())
+                foldFn,
+                SamzaSqlSerdes.getRecordSerde(binarySerde, aggregator.getGroupFieldNames()),
+                SamzaSqlSerdes.getRecordSerde(binarySerde, aggregator.getAccumulatorFieldNames()))
                 .setAccumulationMode(
                     AccumulationMode.DISCARDING), changeLogStorePrefix + "_tumblingWindow_" + logicalOpId)
-            .map(windowPane -> {
-                List<String> fieldNames = windowPane.getKey().getKey().getSamzaSqlRelRecord().getFieldNames();
-                List<Object> fieldValues = windowPane.getKey().getKey().getSamzaSqlRelRecord().getFieldValues();
-                fieldNames.add(aggFieldNames.get(0));
-                fieldValues.add(windowPane.getMessage());
-                return new SamzaSqlRelMessage(fieldNames, fieldValues);
-              });
+            .map(windowPane -> aggregator.getResult(windowPane.getKey().getKey(), windowPane.getMessage()));
     context.registerMessageStream(aggregate.getId(), outputStream);
   }
 
-  private ArrayList<String> getAggFieldNames(LogicalAggregate aggregate) {
-    return aggregate.getAggCallList().stream().collect(ArrayList::new, (names, aggCall) -> names.add(aggCall.getName()),
-        (n1, n2) -> n1.addAll(n2));
-  }
-
   void validateAggregateFunctions(final LogicalAggregate aggregate) {
-    if (aggregate.getAggCallList().size() != 1) {
-      String errMsg = "Windowing is supported ONLY with one aggregate function but the number of given functions are " +
-          aggregate.getAggCallList().size();
+    if (aggregate.getGroupType() != Aggregate.Group.SIMPLE) {
+      String errMsg = "Windowing is supported ONLY with a simple GROUP BY, but the query uses " +
+          aggregate.getGroupType();
       log.error(errMsg);
       throw new SamzaException(errMsg);
     }
 
-    if (aggregate.getAggCallList().get(0).getAggregation().getKind() != SqlKind.COUNT) {
-      String errMsg = "Windowing is supported ONLY with COUNT aggregate function";
-      log.error(errMsg);
-      throw new SamzaException(errMsg);
+    for (AggregateCall aggCall : aggregate.getAggCallList()) {
+      SqlKind kind = aggCall.getAggregation().getKind();
+      if (!SUPPORTED_AGGREGATE_FUNCTIONS.contains(kind)) {
+        String errMsg = "Windowing is supported ONLY with " + SUPPORTED_AGGREGATE_FUNCTIONS +
+            " aggregate functions but the query uses " + kind;
+        log.error(errMsg);
+        throw new SamzaException(errMsg);
+      }
+
+      if (aggCall.isDistinct() && (kind == SqlKind.SUM || kind == SqlKind.SUM0 || kind == SqlKind.AVG)) {
+        String errMsg = "DISTINCT is supported ONLY with COUNT, MIN and MAX aggregate functions but the query uses " +
+            kind + "(DISTINCT)";
+        log.error(errMsg);
+        throw new SamzaException(errMsg);
+      }
     }
   }
 }
@@ -24,11 +24,12 @@ import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
 import org.apache.calcite.rel.core.Project;
-import org.apache.calcite.rel.type.RelDataType;
+import org.apache.calcite.rel.logical.LogicalFilter;
 import org.apache.calcite.rex.RexCall;
 import org.apache.calcite.rex.RexInputRef;
 import org.apache.calcite.rex.RexNode;
@@ -40,6 +41,7 @@ import org.apache.samza.metrics.Counter;
 import org.apache.samza.metrics.MetricsRegistry;
 import org.apache.samza.metrics.SamzaHistogram;
 import org.apache.samza.operators.MessageStream;
+import org.apache.samza.operators.functions.FlatMapFunction;
 import org.apache.samza.operators.functions.MapFunction;
 import org.apache.samza.sql.data.Expression;
 import org.apache.samza.sql.data.SamzaSqlRelMessage;
@@ -72,6 +74,9 @@ class ProjectTranslator {
     private transient MetricsRegistry metricsRegistry;
     private transient SamzaHistogram processingTime; // milli-seconds
     private transient Counter numEvents;
+    private transient List<String> names;
+    private transient Object[] inputValues;
+    private transient Object[] outputValues;
 
     private final int queryId;
     private final int projectId;
@@ -94,6 +99,9 @@ class ProjectTranslator {
       this.translatorContext = ((SamzaSqlApplicationContext) context.getApplicationTaskContext()).getTranslatorContexts().get(queryId);
       this.project = (Project) this.translatorContext.getRelNode(projectId);
       this.expr = this.translatorContext.getExpressionCompiler().compile(project.getInputs(), project.getProjects());
+      this.names = getProjectedFieldNames(project);
+      this.inputValues = new Object[0];
+      this.outputValues = new Object[project.getRowType().getFieldCount()];
       ContainerContext containerContext = context.getContainerContext();
       metricsRegistry = containerContext.getContainerMetricsRegistry();
       processingTime = new SamzaHistogram(metricsRegistry, logicalOpId, PROCESSING_TIME_NAME);
@@ -109,16 +117,12 @@ class ProjectTranslator {
     @Override
     public SamzaSqlRelMessage apply(SamzaSqlRelMessage message) {
       Instant arrivalTime = Instant.now();
-      RelDataType type = project.getRowType();
-      Object[] output = new Object[type.getFieldCount()];
-      expr.execute(translatorContext.getExecutionContext(), translatorContext.getDataContext(),
-          message.getSamzaSqlRelRecord().getFieldValues().toArray(), output);
-      List<String> names = new ArrayList<>();
-      for (int index = 0; index < output.length; index++) {
-        names.add(index, project.getNamedProjects().get(index).getValue());
-      }
+      inputValues = toArray(message, inputValues);
+      expr.execute(translatorContext.getExecutionContext(), translatorContext.getDataContext(), inputValues,
+          outputValues);
       updateMetrics(arrivalTime, Instant.now());
-      return new SamzaSqlRelMessage(names, Arrays.asList(output));
+      // The message copies the values, so the output array is reused for the next message
+      return new SamzaSqlRelMessage(names, Arrays.asList(outputValues));
     }
 
     /**
@@ -133,6 +137,88 @@ class ProjectTranslator {
 
   }
 
+  /**
+   * FilterProjectFunction implements FlatMapFunction to filter and project input SamzaSqlRelMessages, one at a time,
+   * for a Project whose input is a Filter. The condition and the projected fields are compiled to a single
+   * expression, and the projected fields are only computed for the messages that match the condition.
+   */
+  @VisibleForTesting
+  public static class FilterProjectFunction implements FlatMapFunction<SamzaSqlRelMessage, SamzaSqlRelMessage> {
+    private transient Project project;
+    private transient Expression expr;
+    private transient TranslatorContext translatorContext;
+    private transient SamzaHistogram processingTime; // milli-seconds
+    private transient Counter numEvents;
+    private transient List<String> names;
+    private transient Object[] inputValues;
+    private transient Object[] outputValues;
+
+    private final int queryId;
+    private final int filterId;
+    private final int projectId;
+    private final String logicalOpId;
+    private final String PROCESSING_TIME_NAME = "processingTime";
+    private final String NUM_EVENTS_NAME = "numEvents";
+
+    FilterProjectFunction(int filterId, int projectId, int queryId, String logicalOpId) {
+      this.filterId = filterId;
+      this.projectId = projectId;
+      this.queryId = queryId;
+      this.logicalOpId = logicalOpId;
+    }
+
+    @Override
+    public void init(Context context) {
+      this.translatorContext = ((SamzaSqlApplicationContext) context.getApplicationTaskContext()).getTranslatorContexts().get(queryId);
+      LogicalFilter filter = (LogicalFilter) this.translatorContext.getRelNode(filterId);
+      this.project = (Project) this.translatorContext.getRelNode(projectId);
+      this.expr = this.translatorContext.getExpressionCompiler()
+          .compile(filter.getInputs(), filter.getCondition(), project.getProjects());
+      this.names = getProjectedFieldNames(project);
+      this.inputValues = new Object[0];
+      this.outputValues = new Object[project.getRowType().getFieldCount() + 1];
+      MetricsRegistry metricsRegistry = context.getContainerContext().getContainerMetricsRegistry();
+      processingTime = new SamzaHistogram(metricsRegistry, logicalOpId, PROCESSING_TIME_NAME);
+      numEvents = metricsRegistry.newCounter(logicalOpId, NUM_EVENTS_NAME);
+      numEvents.clear();
+    }
+
+    @Override
+    public Collection<SamzaSqlRelMessage> apply(SamzaSqlRelMessage message) {
+      Instant arrivalTime = Instant.now();
+      inputValues = toArray(message, inputValues);
+      expr.execute(translatorContext.getExecutionContext(), translatorContext.getDataContext(), inputValues,
+          outputValues);
+      if (!Boolean.TRUE.equals(outputValues[0])) {
+        return Collections.emptyList();
+      }
+      numEvents.inc();
+      processingTime.update(Duration.between(arrivalTime, Instant.now()).toNanos() / 1000L);
+      return Collections.singletonList(
+          new SamzaSqlRelMessage(names, Arrays.asList(outputValues).subList(1, outputValues.length)));
+    }
+  }
+
+  private static List<String> getProjectedFieldNames(Project project) {
+    List<String> names = new ArrayList<>();
+    for (int index = 0; index < project.getRowType().getFieldCount(); index++) {
+      names.add(project.getNamedProjects().get(index).getValue());
+    }
+    return names;
+  }
+
+  /**
+   * Copies the field values of a message to an array, which is reused if it has the same size.
+   */
+  static Object[] toArray(SamzaSqlRelMessage message, Object[] values) {
+    List<Object> fieldValues = message.getSamzaSqlRelRecord().getFieldValues();
+    Object[] array = values.length == fieldValues.size() ? values : new Object[fieldValues.size()];
+    for (int index = 0; index < array.length; index++) {
+      array[index] = fieldValues.get(index);
+    }
+    return array;
+  }
+
   private MessageStream<SamzaSqlRelMessage> translateFlatten(Integer flattenIndex,
       MessageStream<SamzaSqlRelMessage> inputStream) {
     return inputStream.flatMap(message -> {
@@ -152,7 +238,14 @@ class ProjectTranslator {
     });
   }
 
-  private boolean isFlatten(RexNode rexNode) {
+  /**
+   * @return whether the project has a flatten, which can't be compiled together with the filter below it
+   */
+  static boolean hasFlatten(Project project) {
+    return project.getProjects().stream().anyMatch(ProjectTranslator::isFlatten);
+  }
+
+  private static boolean isFlatten(RexNode rexNode) {
     return rexNode instanceof RexCall && ((RexCall) rexNode).op instanceof SqlUserDefinedFunction
         && ((RexCall) rexNode).op.getName().equalsIgnoreCase("flatten");
   }
@@ -164,7 +257,8 @@ class ProjectTranslator {
   void translate(final Project project, final String logicalOpId, final TranslatorContext context) {
     MessageStream<SamzaSqlRelMessage> messageStream = context.getMessageStream(project.getInput().getId());
     List<Integer> flattenProjects =
-        project.getProjects().stream().filter(this::isFlatten).map(this::getProjectIndex).collect(Collectors.toList());
+        project.getProjects().stream().filter(ProjectTranslator::isFlatten).map(this::getProjectIndex)
+            .collect(Collectors.toList());
 
     if (flattenProjects.size() > 0) {
       if (flattenProjects.size() > 1) {
@@ -183,4 +277,18 @@ class ProjectTranslator {
     context.registerRelNode(project.getId(), project);
   }
 
+  /**
+   * Translates a Project and the Filter below it to a single operator, see {@link FilterProjectFunction}.
+   */
+  void translate(final Project project, final LogicalFilter filter, final String logicalOpId,
+      final TranslatorContext context) {
+    MessageStream<SamzaSqlRelMessage> messageStream = context.getMessageStream(filter.getInput().getId());
+
+    MessageStream<SamzaSqlRelMessage> outputStream =
+        messageStream.flatMap(new FilterProjectFunction(filter.getId(), project.getId(), queryId, logicalOpId));
+
+    context.registerMessageStream(project.getId(), outputStream);
+    context.registerRelNode(filter.getId(), filter);
+    context.registerRelNode(project.getId(), project);
+  }
 }
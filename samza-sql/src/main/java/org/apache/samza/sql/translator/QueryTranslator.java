@@ -21,6 +21,7 @@ package org.apache.samza.sql.translator;
 
 import com.google.common.annotations.VisibleForTesting;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import org.apache.calcite.rel.RelNode;
@@ -133,6 +134,7 @@ public class QueryTranslator {
 
     ScanTranslator scanTranslator =
         new ScanTranslator(sqlConfig.getSamzaRelConverters(), sqlConfig.getInputSystemStreamConfigBySource(), queryId);
+    final Map<Integer, List<String>> projectedFieldNames = ScanTranslator.findProjectedFieldNames(node);
 
     node.accept(new RelShuttleImpl() {
       int windowId = 0;
@@ -149,7 +151,8 @@ public class QueryTranslator {
       @Override
       public RelNode visit(TableScan scan) {
         RelNode node = super.visit(scan);
-        scanTranslator.translate(scan, translatorContext, systemDescriptors, inputMsgStreams);
+        scanTranslator.translate(scan, projectedFieldNames.get(scan.getId()), translatorContext, systemDescriptors,
+            inputMsgStreams);
         return node;
       }
 
@@ -162,6 +165,14 @@ public class QueryTranslator {
 
       @Override
       public RelNode visit(LogicalProject project) {
+        if (project.getInput() instanceof LogicalFilter && !ProjectTranslator.hasFlatten(project)) {
+          // Fuse the filter into the project, so that both are evaluated by one operator and one compiled expression
+          LogicalFilter filter = (LogicalFilter) project.getInput();
+          visitChild(filter, 0, filter.getInput());
+          String logicalOpId = "sql" + Integer.toString(queryId) + "_project" + Integer.toString(opId++);
+          new ProjectTranslator(queryId).translate(project, filter, logicalOpId, translatorContext);
+          return project;
+        }
         RelNode node = super.visit(project);
         String logicalOpId = "sql" + Integer.toString(queryId) + "_project" + Integer.toString(opId++);
         new ProjectTranslator(queryId).translate(project, logicalOpId, translatorContext);
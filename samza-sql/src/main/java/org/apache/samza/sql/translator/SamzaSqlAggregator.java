@@ -0,0 +1,320 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.samza.sql.translator;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.apache.calcite.rel.core.AggregateCall;
+import org.apache.calcite.rel.logical.LogicalAggregate;
+import org.apache.calcite.sql.SqlKind;
+import org.apache.calcite.sql.type.SqlTypeName;
+import org.apache.samza.sql.SamzaSqlRelRecord;
+import org.apache.samza.sql.data.SamzaSqlRelMessage;
+
+
+/**
+ * Incrementally computes the aggregate calls of a GROUP BY for the messages of a group.
+ *
+ * A group is keyed by a {@link SamzaSqlRelRecord} of its grouping columns only. The state of a group is an
+ * accumulator record with one or two compact values per aggregate call, i.e. a running count, sum, minimum or
+ * maximum, a sum and a count for AVG, or a {@link HyperLogLogSketch} for COUNT(DISTINCT ...), which is approximate.
+ * Accumulator records don't refer to the messages they were computed from, so the size of a group's state doesn't
+ * depend on the number or size of its messages.
+ *
+ * Supports COUNT, SUM, $SUM0, MIN, MAX and AVG, with DISTINCT for COUNT, MIN and MAX, and FILTER clauses. Null
+ * arguments are ignored as in standard SQL.
+ */
+class SamzaSqlAggregator implements Serializable {
+
+  /**
+   * An aggregate call, without the Calcite classes that can't be serialized with the operator spec graph.
+   */
+  static class Call implements Serializable {
+    private final SqlKind kind;
+    private final boolean distinct;
+    private final List<Integer> args;
+    private final int filterArg;
+    private final SqlTypeName resultType;
+
+    /**
+     * @param kind the aggregate function
+     * @param distinct whether the call aggregates distinct values
+     * @param args the indices of the arguments in the input messages
+     * @param filterArg the index of the boolean filter in the input messages, or -1 if there isn't one
+     * @param resultType the SQL type of the result
+     */
+    Call(SqlKind kind, boolean distinct, List<Integer> args, int filterArg, SqlTypeName resultType) {
+      this.kind = kind;
+      this.distinct = distinct;
+      this.args = new ArrayList<>(args);
+      this.filterArg = filterArg;
+      this.resultType = resultType;
+    }
+
+    private int getNumAccumulators() {
+      return kind == SqlKind.AVG ? 2 : 1;
+    }
+  }
+
+  private final List<Integer> groupFields;
+  private final List<String> groupFieldNames;
+  private final List<String> outputFieldNames;
+  private final List<Call> calls;
+  private final List<String> accumulatorFieldNames = new ArrayList<>();
+  private final int[] accumulatorOffsets;
+
+  /**
+   * @param groupFields the indices of the grouping columns in the input messages
+   * @param outputFieldNames the names of the grouping columns followed by the names of the aggregate calls
+   * @param calls the aggregate calls
+   */
+  SamzaSqlAggregator(List<Integer> groupFields, List<String> outputFieldNames, List<Call> calls) {
+    this.groupFields = new ArrayList<>(groupFields);
+    this.groupFieldNames = new ArrayList<>(outputFieldNames.subList(0, groupFields.size()));
+    this.outputFieldNames = new ArrayList<>(outputFieldNames);
+    this.calls = new ArrayList<>(calls);
+    this.accumulatorOffsets = new int[calls.size()];
+    for (int i = 0; i < calls.size(); i++) {
+      accumulatorOffsets[i] = accumulatorFieldNames.size();
+      for (int j = 0; j < calls.get(i).getNumAccumulators(); j++) {
+        accumulatorFieldNames.add("acc" + accumulatorFieldNames.size());
+      }
+    }
+  }
+
+  /**
+   * Creates the aggregator of a validated {@link LogicalAggregate}.
+   */
+  static SamzaSqlAggregator of(LogicalAggregate aggregate) {
+    List<Call> calls = new ArrayList<>();
+    for (AggregateCall aggCall : aggregate.getAggCallList()) {
+      calls.add(new Call(aggCall.getAggregation().getKind(), aggCall.isDistinct(), aggCall.getArgList(),
+          aggCall.filterArg, aggCall.getType().getSqlTypeName()));
+    }
+    return new SamzaSqlAggregator(aggregate.getGroupSet().asList(), aggregate.getRowType().getFieldNames(), calls);
+  }
+
+  List<String> getGroupFieldNames() {
+    return Collections.unmodifiableList(groupFieldNames);
+  }
+
+  List<String> getAccumulatorFieldNames() {
+    return Collections.unmodifiableList(accumulatorFieldNames);
+  }
+
+  /**
+   * @return the values of the grouping columns of the message
+   */
+  SamzaSqlRelRecord getGroupKey(SamzaSqlRelMessage message) {
+    List<Object> fieldValues = message.getSamzaSqlRelRecord().getFieldValues();
+    List<Object> groupValues = new ArrayList<>(groupFields.size());
+    for (int field : groupFields) {
+      groupValues.add(fieldValues.get(field));
+    }
+    return new SamzaSqlRelRecord(groupFieldNames, groupValues);
+  }
+
+  /**
+   * @return the accumulator of a group without any messages
+   */
+  SamzaSqlRelRecord createAccumulator() {
+    List<Object> accumulators = new ArrayList<>(accumulatorFieldNames.size());
+    for (Call call : calls) {
+      switch (call.kind) {
+        case COUNT:
+          accumulators.add(call.distinct ? HyperLogLogSketch.empty() : 0L);
+          break;
+        case AVG:
+          accumulators.add(null);
+          accumulators.add(0L);
+          break;
+        default:
+          accumulators.add(null);
+      }
+    }
+    return new SamzaSqlRelRecord(accumulatorFieldNames, accumulators);
+  }
+
+  /**
+   * Adds a message to the accumulator of its group.
+   *
+   * @param message the message
+   * @param accumulator the accumulator of the group, which is not modified
+   * @return the new accumulator of the group
+   */
+  SamzaSqlRelRecord accumulate(SamzaSqlRelMessage message, SamzaSqlRelRecord accumulator) {
+    List<Object> fieldValues = message.getSamzaSqlRelRecord().getFieldValues();
+    List<Object> accumulators = new ArrayList<>(accumulator.getFieldValues());
+    for (int i = 0; i < calls.size(); i++) {
+      Call call = calls.get(i);
+      if (call.filterArg >= 0 && !Boolean.TRUE.equals(fieldValues.get(call.filterArg))) {
+        continue;
+      }
+      List<Object> args = new ArrayList<>(call.args.size());
+      for (int arg : call.args) {
+        args.add(fieldValues.get(arg));
+      }
+      if (args.contains(null)) {
+        continue;
+      }
+
+      int offset = accumulatorOffsets[i];
+      Object current = accumulators.get(offset);
+      switch (call.kind) {
+        case COUNT:
+          accumulators.set(offset, call.distinct
+              ? HyperLogLogSketch.add((byte[]) current, HyperLogLogSketch.hash(args))
+              : (Long) current + 1);
+          break;
+        case SUM:
+        case SUM0:
+          accumulators.set(offset, add((Number) current, (Number) args.get(0)));
+          break;
+        case AVG:
+          accumulators.set(offset, add((Number) current, (Number) args.get(0)));
+          accumulators.set(offset + 1, (Long) accumulators.get(offset + 1) + 1);
+          break;
+        case MIN:
+          if (current == null || compare(args.get(0), current) < 0) {
+            accumulators.set(offset, args.get(0));
+          }
+          break;
+        case MAX:
+          if (current == null || compare(args.get(0), current) > 0) {
+            accumulators.set(offset, args.get(0));
+          }
+          break;
+        default:
+          throw new IllegalStateException("Unsupported aggregate function " + call.kind);
+      }
+    }
+    return new SamzaSqlRelRecord(accumulatorFieldNames, accumulators);
+  }
+
+  /**
+   * @param groupKey the values of the grouping columns of the group
+   * @param accumulator the accumulator of the group
+   * @return the output row of the group, i.e. the grouping columns followed by the results of the aggregate calls
+   */
+  SamzaSqlRelMessage getResult(SamzaSqlRelRecord groupKey, SamzaSqlRelRecord accumulator) {
+    List<Object> accumulators = accumulator.getFieldValues();
+    List<Object> outputValues = new ArrayList<>(groupKey.getFieldValues());
+    for (int i = 0; i < calls.size(); i++) {
+      Call call = calls.get(i);
+      Object value = accumulators.get(accumulatorOffsets[i]);
+      switch (call.kind) {
+        case COUNT:
+          outputValues.add(call.distinct ? HyperLogLogSketch.estimate((byte[]) value) : value);
+          break;
+        case SUM:
+          outputValues.add(value == null ? null : convert((Number) value, call.resultType));
+          break;
+        case SUM0:
+          outputValues.add(convert(value == null ? 0L : (Number) value, call.resultType));
+          break;
+        case AVG:
+          long count = (Long) accumulators.get(accumulatorOffsets[i] + 1);
+          outputValues.add(
+              count == 0 ? null : convert(divide((Number) value, count, call.resultType), call.resultType));
+          break;
+        default:
+          outputValues.add(value);
+      }
+    }
+    return new SamzaSqlRelMessage(outputFieldNames, outputValues);
+  }
+
+  private static Number add(Number sum, Number value) {
+    if (sum == null) {
+      return widen(value);
+    }
+    if (sum instanceof BigDecimal || value instanceof BigDecimal) {
+      return toBigDecimal(sum).add(toBigDecimal(value));
+    }
+    if (sum instanceof Double || value instanceof Double || value instanceof Float) {
+      return sum.doubleValue() + value.doubleValue();
+    }
+    return sum.longValue() + value.longValue();
+  }
+
+  /**
+   * Sums are kept as longs, doubles or big decimals, whatever the type of the values.
+   */
+  private static Number widen(Number value) {
+    if (value instanceof BigDecimal || value instanceof Double) {
+      return value;
+    }
+    if (value instanceof Float) {
+      return value.doubleValue();
+    }
+    return value.longValue();
+  }
+
+  private static Number divide(Number sum, long count, SqlTypeName resultType) {
+    if (sum instanceof BigDecimal) {
+      return ((BigDecimal) sum).divide(BigDecimal.valueOf(count), MathContext.DECIMAL128);
+    }
+    if (sum instanceof Double || !SqlTypeName.INT_TYPES.contains(resultType)) {
+      return sum.doubleValue() / count;
+    }
+    return sum.longValue() / count;
+  }
+
+  private static BigDecimal toBigDecimal(Number value) {
+    if (value instanceof BigDecimal) {
+      return (BigDecimal) value;
+    }
+    if (value instanceof Double || value instanceof Float) {
+      return BigDecimal.valueOf(value.doubleValue());
+    }
+    return BigDecimal.valueOf(value.longValue());
+  }
+
+  private static Object convert(Number value, SqlTypeName type) {
+    switch (type) {
+      case TINYINT:
+        return value.byteValue();
+      case SMALLINT:
+        return value.shortValue();
+      case INTEGER:
+        return value.intValue();
+      case BIGINT:
+        return value.longValue();
+      case REAL:
+        return value.floatValue();
+      case FLOAT:
+      case DOUBLE:
+        return value.doubleValue();
+      case DECIMAL:
+        return toBigDecimal(value);
+      default:
+        return value;
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static int compare(Object value, Object other) {
+    return ((Comparable<Object>) value).compareTo(other);
+  }
+}
@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.samza.sql.translator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.apache.calcite.rel.logical.LogicalJoin;
+import org.apache.calcite.rex.RexNode;
+import org.apache.samza.context.Context;
+import org.apache.samza.operators.functions.JoinFunction;
+import org.apache.samza.sql.SamzaSqlRelRecord;
+import org.apache.samza.sql.data.Expression;
+import org.apache.samza.sql.data.SamzaSqlRelMessage;
+import org.apache.samza.sql.runner.SamzaSqlApplicationContext;
+
+import static org.apache.samza.sql.data.SamzaSqlRelMessage.createSamzaSqlCompositeKey;
+
+
+/**
+ * This class joins {@link SamzaSqlRelMessage}s from two streams with the same join key. The messages are matched on
+ * the equality conditions of the join, and the rest of the join condition, e.g. an interval on a time column of each
+ * stream, is evaluated on each pair of matched messages. Pairs for which it isn't true are joined to null, which the
+ * translator filters out.
+ */
+public class SamzaSqlStreamStreamJoinFunction
+    implements JoinFunction<SamzaSqlRelRecord, SamzaSqlRelMessage, SamzaSqlRelMessage, SamzaSqlRelMessage> {
+
+  private transient TranslatorContext translatorContext;
+  // Null if the join condition only has equality conditions
+  private transient Expression remainingCondition;
+  private transient Object[] result;
+
+  private final int joinId;
+  private final int queryId;
+  private final ArrayList<Integer> leftKeyIds;
+  private final ArrayList<Integer> rightKeyIds;
+  // The field names of the left keys are used in the keys of both streams, so that they are equal
+  private final ArrayList<String> keyFieldNames;
+  private final ArrayList<String> outFieldNames;
+
+  SamzaSqlStreamStreamJoinFunction(int joinId, int queryId, List<Integer> leftKeyIds, List<Integer> rightKeyIds,
+      List<String> keyFieldNames, List<String> outFieldNames) {
+    this.joinId = joinId;
+    this.queryId = queryId;
+    this.leftKeyIds = new ArrayList<>(leftKeyIds);
+    this.rightKeyIds = new ArrayList<>(rightKeyIds);
+    this.keyFieldNames = new ArrayList<>(keyFieldNames);
+    this.outFieldNames = new ArrayList<>(outFieldNames);
+  }
+
+  @Override
+  public void init(Context context) {
+    this.translatorContext =
+        ((SamzaSqlApplicationContext) context.getApplicationTaskContext()).getTranslatorContexts().get(queryId);
+    LogicalJoin join = (LogicalJoin) translatorContext.getRelNode(joinId);
+    RexNode remaining = join.analyzeCondition().getRemaining(join.getCluster().getRexBuilder());
+    if (!remaining.isAlwaysTrue()) {
+      this.remainingCondition = translatorContext.getExpressionCompiler()
+          .compile(join.getInputs(), Collections.singletonList(remaining));
+      this.result = new Object[1];
+    }
+  }
+
+  @Override
+  public SamzaSqlRelMessage apply(SamzaSqlRelMessage message, SamzaSqlRelMessage otherMessage) {
+    // The resulting join output contains the fields of the left message followed by the fields of the right message.
+    List<Object> outFieldValues = new ArrayList<>(outFieldNames.size());
+    outFieldValues.addAll(message.getSamzaSqlRelRecord().getFieldValues());
+    outFieldValues.addAll(otherMessage.getSamzaSqlRelRecord().getFieldValues());
+
+    if (remainingCondition != null) {
+      result[0] = null;
+      remainingCondition.execute(translatorContext.getExecutionContext(), translatorContext.getDataContext(),
+          outFieldValues.toArray(), result);
+      if (!Boolean.TRUE.equals(result[0])) {
+        return null;
+      }
+    }
+
+    return new SamzaSqlRelMessage(outFieldNames, outFieldValues);
+  }
+
+  @Override
+  public SamzaSqlRelRecord getFirstKey(SamzaSqlRelMessage message) {
+    return createSamzaSqlCompositeKey(message, leftKeyIds, keyFieldNames);
+  }
+
+  @Override
+  public SamzaSqlRelRecord getSecondKey(SamzaSqlRelMessage message) {
+    return createSamzaSqlCompositeKey(message, rightKeyIds, keyFieldNames);
+  }
+
+  @Override
+  public void close() {
+  }
+}
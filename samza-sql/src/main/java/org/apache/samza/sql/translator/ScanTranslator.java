@@ -19,9 +19,18 @@
 
 package org.apache.samza.sql.translator;
 
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.apache.calcite.plan.RelOptUtil;
+import org.apache.calcite.rel.RelNode;
+import org.apache.calcite.rel.core.Filter;
+import org.apache.calcite.rel.core.Project;
 import org.apache.calcite.rel.core.TableScan;
+import org.apache.calcite.rex.RexNode;
 import org.apache.commons.lang.Validate;
 import org.apache.samza.application.descriptors.StreamApplicationDescriptor;
 import org.apache.samza.context.Context;
@@ -60,12 +69,16 @@ class ScanTranslator {
     // DAG. We do not want to serialize samzaMsgConverter as it can be fully constructed during stream operator
     // initialization.
     private transient SamzaRelConverter msgConverter;
+    private transient Set<String> projectedFieldNameSet;
     private final String streamName;
     private final int queryId;
+    // Null if the query uses all the fields of the stream
+    private final List<String> projectedFieldNames;
 
-    ScanMapFunction(String sourceStreamName, int queryId) {
+    ScanMapFunction(String sourceStreamName, int queryId, List<String> projectedFieldNames) {
       this.streamName = sourceStreamName;
       this.queryId = queryId;
+      this.projectedFieldNames = projectedFieldNames;
     }
 
     @Override
@@ -73,15 +86,54 @@ class ScanTranslator {
       TranslatorContext translatorContext =
           ((SamzaSqlApplicationContext) context.getApplicationTaskContext()).getTranslatorContexts().get(queryId);
       this.msgConverter = translatorContext.getMsgConverter(streamName);
+      this.projectedFieldNameSet = projectedFieldNames == null ? null : new HashSet<>(projectedFieldNames);
     }
 
     @Override
     public SamzaSqlRelMessage apply(KV<Object, Object> message) {
-      return this.msgConverter.convertToRelMessage(message);
+      if (projectedFieldNameSet == null) {
+        return this.msgConverter.convertToRelMessage(message);
+      }
+      return this.msgConverter.convertToRelMessage(message, projectedFieldNameSet);
     }
   }
 
-  void translate(final TableScan tableScan, final TranslatorContext context,
+  /**
+   * Finds the fields of the TableScans that the plan uses, so that the other fields don't have to be converted to
+   * relational values. Only the scans below a Project, or below a Filter below a Project, are pruned, since the
+   * other operators pass all the fields of their input on.
+   * @param root root of the plan
+   * @return the names of the fields used by the plan, keyed by the id of the TableScan. The scans that aren't in the
+   *         map use all their fields.
+   */
+  static Map<Integer, List<String>> findProjectedFieldNames(RelNode root) {
+    Map<Integer, List<String>> projectedFieldNames = new HashMap<>();
+    findProjectedFieldNames(root, projectedFieldNames);
+    return projectedFieldNames;
+  }
+
+  private static void findProjectedFieldNames(RelNode node, Map<Integer, List<String>> projectedFieldNames) {
+    if (node instanceof Project) {
+      Project project = (Project) node;
+      RelNode input = project.getInput();
+      RexNode condition = null;
+      if (input instanceof Filter) {
+        condition = ((Filter) input).getCondition();
+        input = ((Filter) input).getInput();
+      }
+      if (input instanceof TableScan) {
+        List<String> inputFieldNames = input.getRowType().getFieldNames();
+        projectedFieldNames.put(input.getId(), RelOptUtil.InputFinder.bits(project.getProjects(), condition)
+            .asList().stream().map(inputFieldNames::get).collect(Collectors.toList()));
+      }
+    }
+    node.getInputs().forEach(input -> findProjectedFieldNames(input, projectedFieldNames));
+  }
+
+  /**
+   * @param projectedFieldNames names of the fields of the scan that the query uses, or null if it uses all of them
+   */
+  void translate(final TableScan tableScan, final List<String> projectedFieldNames, final TranslatorContext context,
       Map<String, DelegatingSystemDescriptor> systemDescriptors, Map<String, MessageStream<KV<Object, Object>>> inputMsgStreams) {
     StreamApplicationDescriptor streamAppDesc = context.getStreamAppDescriptor();
     List<String> tableNameParts = tableScan.getTable().getQualifiedName();
@@ -110,7 +162,8 @@ class ScanTranslator {
     GenericInputDescriptor<KV<Object, Object>> isd = sd.getInputDescriptor(streamId, noOpKVSerde);
 
     MessageStream<KV<Object, Object>> inputStream = inputMsgStreams.computeIfAbsent(source, v -> streamAppDesc.getInputStream(isd));
-    MessageStream<SamzaSqlRelMessage> samzaSqlRelMessageStream = inputStream.map(new ScanMapFunction(sourceName, queryId));
+    MessageStream<SamzaSqlRelMessage> samzaSqlRelMessageStream = inputStream.map(
+        new ScanMapFunction(sourceName, queryId, projectedFieldNames));
     context.registerMessageStream(tableScan.getId(), samzaSqlRelMessageStream);
   }
 }
@@ -25,6 +25,7 @@ import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -48,6 +49,7 @@ import org.apache.calcite.rel.type.RelRecordType;
 import org.apache.calcite.sql.type.SqlTypeName;
 import org.apache.samza.config.MapConfig;
 import org.apache.samza.operators.KV;
+import org.apache.samza.sql.SamzaSqlRelRecord;
 import org.apache.samza.sql.avro.schemas.AddressRecord;
 import org.apache.samza.sql.avro.schemas.ComplexRecord;
 import org.apache.samza.sql.avro.schemas.Kind;
@@ -272,6 +274,33 @@ public class TestAvroRelConversion {
     }
   }
 
+  @Test
+  public void testProjectedRecordConversion() {
+    GenericData.Record record = new GenericData.Record(Profile.SCHEMA$);
+    record.put("id", 1);
+    record.put("name", "name1");
+    record.put("companyId", 0);
+    GenericData.Record addressRecord = new GenericData.Record(AddressRecord.SCHEMA$);
+    addressRecord.put("zip", 90000);
+    record.put("address", addressRecord);
+
+    SamzaSqlRelMessage relMessage = nestedRecordAvroRelConverter.convertToRelMessage(new KV<>("key", record),
+        new HashSet<>(Arrays.asList("id", "name")));
+
+    SamzaSqlRelRecord relRecord = relMessage.getSamzaSqlRelRecord();
+    Assert.assertEquals(Profile.SCHEMA$.getFields().size() + 1, relRecord.getFieldNames().size());
+    Assert.assertEquals("key", relMessage.getKey());
+    Assert.assertEquals(1, relRecord.getField("id").get());
+    Assert.assertEquals("name1", relRecord.getField("name").get());
+    // The fields that aren't projected, including the nested record, are not converted
+    Assert.assertFalse(relRecord.getField("companyId").isPresent());
+    Assert.assertFalse(relRecord.getField("address").isPresent());
+
+    Assert.assertEquals(nestedRecordAvroRelConverter.convertToRelMessage(new KV<>("key", record)),
+        nestedRecordAvroRelConverter.convertToRelMessage(new KV<>("key", record),
+            Profile.SCHEMA$.getFields().stream().map(Schema.Field::name).collect(Collectors.toSet())));
+  }
+
   @Test
   public void testRecordConversionWithNullPayload() throws IOException {
     GenericData.Record record = null;
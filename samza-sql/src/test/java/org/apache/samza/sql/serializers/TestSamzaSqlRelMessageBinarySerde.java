@@ -0,0 +1,201 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.samza.sql.serializers;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.apache.avro.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.calcite.avatica.util.ByteString;
+import org.apache.calcite.jdbc.JavaTypeFactoryImpl;
+import org.apache.calcite.rel.type.RelDataType;
+import org.apache.calcite.sql.type.SqlTypeName;
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.samza.SamzaException;
+import org.apache.samza.config.MapConfig;
+import org.apache.samza.operators.KV;
+import org.apache.samza.sql.SamzaSqlRelRecord;
+import org.apache.samza.sql.avro.AvroRelConverter;
+import org.apache.samza.sql.avro.AvroRelSchemaProvider;
+import org.apache.samza.sql.avro.ConfigBasedAvroRelSchemaProviderFactory;
+import org.apache.samza.sql.avro.schemas.Profile;
+import org.apache.samza.sql.data.SamzaSqlRelMessage;
+import org.apache.samza.system.SystemStream;
+import org.junit.Assert;
+import org.junit.Test;
+
+import static org.apache.samza.sql.serializers.SamzaSqlRelMessageBinarySerdeFactory.SamzaSqlRelMessageBinarySerde;
+import static org.apache.samza.sql.serializers.SamzaSqlRelRecordBinarySerdeFactory.SamzaSqlRelRecordBinarySerde;
+
+
+public class TestSamzaSqlRelMessageBinarySerde {
+
+  private List<Object> values = Arrays.asList("value1", 1, null);
+  private List<String> names = Arrays.asList("field1", "field2", "field3");
+
+  @Test
+  public void testWithDifferentFields() {
+    SamzaSqlRelMessage message = new SamzaSqlRelMessage(names, values);
+    SamzaSqlRelMessageBinarySerde serde =
+        (SamzaSqlRelMessageBinarySerde) new SamzaSqlRelMessageBinarySerdeFactory().getSerde(null, null);
+    SamzaSqlRelMessage resultMsg = serde.fromBytes(serde.toBytes(message));
+    Assert.assertEquals(names, resultMsg.getSamzaSqlRelRecord().getFieldNames());
+    Assert.assertEquals(values, resultMsg.getSamzaSqlRelRecord().getFieldValues());
+  }
+
+  @Test
+  public void testFieldNamesAreNotSerializedWithRowType() {
+    RelDataType rowType = new JavaTypeFactoryImpl().builder()
+        .add("field1", SqlTypeName.VARCHAR)
+        .add("field2", SqlTypeName.INTEGER)
+        .add("field3", SqlTypeName.VARCHAR)
+        .build();
+    SamzaSqlRelMessage message = new SamzaSqlRelMessage(names, values);
+    SamzaSqlRelMessageBinarySerde serde = new SamzaSqlRelMessageBinarySerde(rowType);
+
+    byte[] bytes = serde.toBytes(message);
+    Assert.assertFalse(new String(bytes, StandardCharsets.UTF_8).contains("field1"));
+    Assert.assertTrue(bytes.length < new SamzaSqlRelMessageBinarySerde().toBytes(message).length);
+    Assert.assertEquals(message, serde.fromBytes(bytes));
+
+    // Messages with other fields are serialized with their field names
+    SamzaSqlRelMessage otherMessage = new SamzaSqlRelMessage(Arrays.asList("other1", "other2"), Arrays.asList(1L, 2L));
+    Assert.assertEquals(otherMessage, serde.fromBytes(serde.toBytes(otherMessage)));
+  }
+
+  @Test
+  public void testReadingWithChangedFieldsFails() {
+    SamzaSqlRelRecord record = new SamzaSqlRelRecord(names, values);
+    byte[] bytes = new SamzaSqlRelRecordBinarySerde(names).toBytes(record);
+
+    List<List<String>> changedNames = Arrays.asList(
+        Arrays.asList("field1", "field3", "field2"),
+        Arrays.asList("field1", "field2"),
+        Arrays.asList("field1", "field2", "field3", "field4"));
+    for (List<String> otherNames : changedNames) {
+      try {
+        new SamzaSqlRelRecordBinarySerde(otherNames).fromBytes(bytes);
+        Assert.fail("Expected reading a record with fields " + names + " as " + otherNames + " to fail.");
+      } catch (SamzaException e) {
+        Assert.assertTrue(e.getMessage().contains(otherNames.toString()));
+      }
+    }
+  }
+
+  @Test
+  public void testValueTypes() {
+    Map<String, Object> map = new HashMap<>();
+    map.put("key1", 1.5);
+    map.put("key2", null);
+    List<Object> fieldValues = Arrays.asList(true, false, -1, Long.MIN_VALUE, Long.MAX_VALUE, 0.25, 1.5f,
+        (short) -3, (byte) 4, "été", new ByteString(new byte[]{1, 2, 3}), new BigDecimal("-12.345"),
+        Arrays.asList("a", null, 3L), map, Collections.singletonList(new SamzaSqlRelRecord(names, values)));
+    List<String> fieldNames = Arrays.asList("f1", "f2", "f3", "f4", "f5", "f6", "f7", "f8", "f9", "f10", "f11", "f12",
+        "f13", "f14", "f15");
+    SamzaSqlRelRecord record = new SamzaSqlRelRecord(fieldNames, fieldValues);
+    SamzaSqlRelRecordBinarySerde serde = new SamzaSqlRelRecordBinarySerde(fieldNames);
+
+    Assert.assertEquals(record, serde.fromBytes(serde.toBytes(record)));
+
+    SamzaSqlRelRecord bytesRecord = new SamzaSqlRelRecord(Arrays.asList("array", "buffer"),
+        Arrays.asList(new byte[]{5, 6}, ByteBuffer.wrap(new byte[]{7, 8})));
+    SamzaSqlRelRecord result = serde.fromBytes(serde.toBytes(bytesRecord));
+    Assert.assertArrayEquals(new byte[]{5, 6}, (byte[]) result.getFieldValues().get(0));
+    Assert.assertEquals(ByteBuffer.wrap(new byte[]{7, 8}), result.getFieldValues().get(1));
+  }
+
+  @Test
+  public void testDateAndTimeValues() {
+    Timestamp timestamp = new Timestamp(1500000000123L);
+    timestamp.setNanos(123456789);
+    List<Object> fieldValues = Arrays.asList(timestamp, new Date(1500000000000L), new Time(45296000L));
+    List<String> fieldNames = Arrays.asList("timestamp", "date", "time");
+    SamzaSqlRelRecord record = new SamzaSqlRelRecord(fieldNames, fieldValues);
+    SamzaSqlRelRecordBinarySerde serde = new SamzaSqlRelRecordBinarySerde(fieldNames);
+
+    List<Object> result = serde.fromBytes(serde.toBytes(record)).getFieldValues();
+    Assert.assertEquals(fieldValues, result);
+    Assert.assertEquals(Timestamp.class, result.get(0).getClass());
+    Assert.assertEquals(Date.class, result.get(1).getClass());
+    Assert.assertEquals(Time.class, result.get(2).getClass());
+    Assert.assertEquals(123456789, ((Timestamp) result.get(0)).getNanos());
+  }
+
+  @Test(expected = SamzaException.class)
+  public void testUnsupportedValueTypeFails() {
+    SamzaSqlRelRecord record = new SamzaSqlRelRecord(Collections.singletonList("field"),
+        Collections.singletonList(UUID.randomUUID()));
+    new SamzaSqlRelRecordBinarySerde().toBytes(record);
+  }
+
+  @Test
+  public void testNestedRecordConversion() {
+    Map<String, String> props = new HashMap<>();
+    SystemStream ss1 = new SystemStream("test", "nestedRecord");
+    props.put(
+        String.format(ConfigBasedAvroRelSchemaProviderFactory.CFG_SOURCE_SCHEMA, ss1.getSystem(), ss1.getStream()),
+        Profile.SCHEMA$.toString());
+    ConfigBasedAvroRelSchemaProviderFactory factory = new ConfigBasedAvroRelSchemaProviderFactory();
+    AvroRelSchemaProvider nestedRecordSchemaProvider = (AvroRelSchemaProvider) factory.create(ss1, new MapConfig(props));
+    AvroRelConverter nestedRecordAvroRelConverter = new AvroRelConverter(ss1, nestedRecordSchemaProvider, new MapConfig());
+
+    Pair<SamzaSqlRelMessage, GenericData.Record> messageRecordPair =
+        TestSamzaSqlRelMessageSerde.createNestedSamzaSqlRelMessage(nestedRecordAvroRelConverter);
+    RelDataType rowType = new JavaTypeFactoryImpl().builder()
+        .add(SamzaSqlRelMessage.KEY_NAME, SqlTypeName.ANY)
+        .addAll(nestedRecordSchemaProvider.getRelationalSchema().getFieldList())
+        .build();
+    SamzaSqlRelMessageBinarySerde serde = new SamzaSqlRelMessageBinarySerde(rowType);
+    byte[] bytes = serde.toBytes(messageRecordPair.getKey());
+    Assert.assertFalse(new String(bytes, StandardCharsets.UTF_8).contains("companyId"));
+
+    SamzaSqlRelMessage resultMsg = serde.fromBytes(bytes);
+    Assert.assertEquals(messageRecordPair.getKey(), resultMsg);
+    KV<Object, Object> samzaMessage = nestedRecordAvroRelConverter.convertToSamzaMessage(resultMsg);
+    GenericRecord recordPostConversion = (GenericRecord) samzaMessage.getValue();
+
+    for (Schema.Field field : Profile.SCHEMA$.getFields()) {
+      // equals() on GenericRecord does the nested record equality check as well.
+      Assert.assertEquals(messageRecordPair.getValue().get(field.name()), recordPostConversion.get(field.name()));
+    }
+  }
+
+  @Test
+  public void testReadsJsonSerializedMessages() {
+    SamzaSqlRelMessage message = new SamzaSqlRelMessage(names, values);
+    byte[] jsonBytes = new SamzaSqlRelMessageSerdeFactory.SamzaSqlRelMessageSerde().toBytes(message);
+    Assert.assertEquals(message, new SamzaSqlRelMessageBinarySerde().fromBytes(jsonBytes));
+
+    SamzaSqlRelRecord record = message.getSamzaSqlRelRecord();
+    byte[] jsonRecordBytes = new SamzaSqlRelRecordSerdeFactory.SamzaSqlRelRecordSerde().toBytes(record);
+    Assert.assertEquals(record, new SamzaSqlRelRecordBinarySerde(names).fromBytes(jsonRecordBytes));
+  }
+}
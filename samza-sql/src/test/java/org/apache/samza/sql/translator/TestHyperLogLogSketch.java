@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.samza.sql.translator;
+
+import java.util.Collections;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+
+public class TestHyperLogLogSketch {
+
+  @Test
+  public void testEmpty() {
+    assertEquals(0, HyperLogLogSketch.estimate(HyperLogLogSketch.empty()));
+  }
+
+  @Test
+  public void testDuplicatesDontChangeTheSketch() {
+    long hash = HyperLogLogSketch.hash(Collections.singletonList("a"));
+    byte[] sketch = HyperLogLogSketch.add(HyperLogLogSketch.empty(), hash);
+    assertSame(sketch, HyperLogLogSketch.add(sketch, hash));
+    assertEquals(1, HyperLogLogSketch.estimate(sketch));
+  }
+
+  @Test
+  public void testSmallCardinalitiesAreSparse() {
+    byte[] sketch = HyperLogLogSketch.empty();
+    for (int i = 0; i < 100; i++) {
+      sketch = HyperLogLogSketch.add(sketch, HyperLogLogSketch.hash(Collections.singletonList("member-" + i)));
+    }
+    assertEquals(100, HyperLogLogSketch.estimate(sketch), 2);
+    assertTrue(sketch.length <= 1 + 100 * 4);
+  }
+
+  @Test
+  public void testEstimateAccuracy() {
+    for (int cardinality : new int[] {1000, 10000, 1000000}) {
+      byte[] sketch = HyperLogLogSketch.empty();
+      for (long i = 0; i < cardinality; i++) {
+        sketch = HyperLogLogSketch.add(sketch, HyperLogLogSketch.hash(Collections.singletonList(i)));
+        sketch = HyperLogLogSketch.add(sketch, HyperLogLogSketch.hash(Collections.singletonList(i)));
+      }
+      assertEquals(cardinality, HyperLogLogSketch.estimate(sketch), cardinality * 0.05);
+      assertEquals(1 + (1 << HyperLogLogSketch.PRECISION), sketch.length);
+    }
+  }
+
+  @Test
+  public void testIntegralValuesHashAlike() {
+    assertEquals(HyperLogLogSketch.hash(Collections.singletonList(42)),
+        HyperLogLogSketch.hash(Collections.singletonList(42L)));
+  }
+}
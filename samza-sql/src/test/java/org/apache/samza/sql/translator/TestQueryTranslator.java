@@ -19,32 +19,46 @@
 
 package org.apache.samza.sql.translator;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
+import org.apache.calcite.rel.core.Project;
+import org.apache.calcite.rel.logical.LogicalFilter;
+import org.apache.commons.lang3.SerializationUtils;
 import org.apache.samza.SamzaException;
 import org.apache.samza.application.descriptors.StreamApplicationDescriptorImpl;
 import org.apache.samza.config.Config;
 import org.apache.samza.config.MapConfig;
 import org.apache.samza.config.StreamConfig;
+import org.apache.samza.context.ContainerContext;
+import org.apache.samza.context.Context;
 import org.apache.samza.operators.OperatorSpecGraph;
+import org.apache.samza.operators.spec.JoinOperatorSpec;
 import org.apache.samza.operators.spec.OperatorSpec;
+import org.apache.samza.operators.spec.StreamOperatorSpec;
+import org.apache.samza.sql.data.SamzaSqlRelMessage;
 import org.apache.samza.sql.impl.ConfigBasedIOResolverFactory;
 import org.apache.samza.sql.runner.SamzaSqlApplicationConfig;
 import org.apache.samza.sql.runner.SamzaSqlApplicationRunner;
 import org.apache.samza.sql.testutil.JsonUtil;
 import org.apache.samza.sql.testutil.SamzaSqlQueryParser;
 import org.apache.samza.sql.testutil.SamzaSqlTestConfig;
+import org.apache.samza.util.NoOpMetricsRegistry;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.internal.util.reflection.Whitebox;
 
 import static org.apache.samza.sql.dsl.SamzaSqlDslConverter.fetchQueryInfo;
 import static org.apache.samza.sql.dsl.SamzaSqlDslConverter.fetchSqlFromConfig;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 
 public class TestQueryTranslator {
@@ -93,6 +107,89 @@ public class TestQueryTranslator {
     Assert.assertEquals("SIMPLE1", inputPhysicalName);
   }
 
+  @Test
+  public void testTranslateFilterProjectIsFused() {
+    Map<String, String> config = SamzaSqlTestConfig.fetchStaticConfigsWithFactories(10);
+    config.put(SamzaSqlApplicationConfig.CFG_SQL_STMT,
+        "Insert into testavro.simpleOutputTopic select id, upper(name) as name from testavro.SIMPLE1 as s where s.id = 10");
+    Config samzaConfig = SamzaSqlApplicationRunner.computeSamzaConfigs(true, new MapConfig(config));
+
+    List<String> sqlStmts = fetchSqlFromConfig(config);
+    List<SamzaSqlQueryParser.QueryInfo> queryInfo = fetchQueryInfo(sqlStmts);
+    SamzaSqlApplicationConfig samzaSqlApplicationConfig = new SamzaSqlApplicationConfig(new MapConfig(config),
+        queryInfo.stream().map(SamzaSqlQueryParser.QueryInfo::getSources).flatMap(Collection::stream)
+            .collect(Collectors.toList()),
+        queryInfo.stream().map(SamzaSqlQueryParser.QueryInfo::getSink).collect(Collectors.toList()));
+
+    StreamApplicationDescriptorImpl appDesc = new StreamApplicationDescriptorImpl(streamApp -> { }, samzaConfig);
+    QueryTranslator translator = new QueryTranslator(appDesc, samzaSqlApplicationConfig);
+    translator.translate(queryInfo.get(0), appDesc, 0);
+    OperatorSpecGraph specGraph = appDesc.getOperatorSpecGraph();
+
+    // The filter and the project are one operator
+    Assert.assertFalse(specGraph.getAllOperatorSpecs().stream()
+        .anyMatch(op -> op.getOpCode() == OperatorSpec.OpCode.FILTER));
+    List<OperatorSpec> flatMaps = specGraph.getAllOperatorSpecs().stream()
+        .filter(op -> op.getOpCode() == OperatorSpec.OpCode.FLAT_MAP)
+        .collect(Collectors.toList());
+    Assert.assertEquals(1, flatMaps.size());
+
+    Context context = mock(Context.class);
+    ContainerContext containerContext = mock(ContainerContext.class);
+    when(context.getContainerContext()).thenReturn(containerContext);
+    when(containerContext.getContainerMetricsRegistry()).thenReturn(new NoOpMetricsRegistry());
+    when(context.getApplicationTaskContext()).thenReturn(
+        appDesc.getApplicationTaskContextFactory().get().create(null, null, null, null));
+    ProjectTranslator.FilterProjectFunction fn = (ProjectTranslator.FilterProjectFunction)
+        ((StreamOperatorSpec) flatMaps.get(0)).getTransformFn();
+    fn.init(context);
+
+    Project project = (Project) Whitebox.getInternalState(fn, "project");
+    List<String> inputFieldNames = ((LogicalFilter) project.getInput()).getInput().getRowType().getFieldNames();
+    List<Object> inputValues = new ArrayList<>(Collections.nCopies(inputFieldNames.size(), null));
+    inputValues.set(inputFieldNames.indexOf("id"), 10);
+    inputValues.set(inputFieldNames.indexOf("name"), "john");
+    Collection<SamzaSqlRelMessage> output = fn.apply(new SamzaSqlRelMessage(inputFieldNames, inputValues));
+    Assert.assertEquals(1, output.size());
+    Assert.assertEquals(Arrays.asList("id", "name"),
+        output.iterator().next().getSamzaSqlRelRecord().getFieldNames());
+    Assert.assertEquals(Arrays.asList(10, "JOHN"), output.iterator().next().getSamzaSqlRelRecord().getFieldValues());
+
+    inputValues.set(inputFieldNames.indexOf("id"), 11);
+    Assert.assertTrue(fn.apply(new SamzaSqlRelMessage(inputFieldNames, inputValues)).isEmpty());
+
+    // Other tasks get the expression compiled by the first one
+    ProjectTranslator.FilterProjectFunction otherFn = SerializationUtils.clone(fn);
+    otherFn.init(context);
+    Assert.assertSame(Whitebox.getInternalState(fn, "expr"), Whitebox.getInternalState(otherFn, "expr"));
+  }
+
+  @Test
+  public void testTranslateScanWithProjectedFields() {
+    Map<String, String> config = SamzaSqlTestConfig.fetchStaticConfigsWithFactories(10);
+    config.put(SamzaSqlApplicationConfig.CFG_SQL_STMT,
+        "Insert into testavro.outputTopic select upper(name) as name from testavro.SIMPLE1 as s where s.id = 10");
+    Config samzaConfig = SamzaSqlApplicationRunner.computeSamzaConfigs(true, new MapConfig(config));
+
+    List<String> sqlStmts = fetchSqlFromConfig(config);
+    List<SamzaSqlQueryParser.QueryInfo> queryInfo = fetchQueryInfo(sqlStmts);
+    SamzaSqlApplicationConfig samzaSqlApplicationConfig = new SamzaSqlApplicationConfig(new MapConfig(config),
+        queryInfo.stream().map(SamzaSqlQueryParser.QueryInfo::getSources).flatMap(Collection::stream)
+            .collect(Collectors.toList()),
+        queryInfo.stream().map(SamzaSqlQueryParser.QueryInfo::getSink).collect(Collectors.toList()));
+
+    StreamApplicationDescriptorImpl appDesc = new StreamApplicationDescriptorImpl(streamApp -> { }, samzaConfig);
+    QueryTranslator translator = new QueryTranslator(appDesc, samzaSqlApplicationConfig);
+    translator.translate(queryInfo.get(0), appDesc, 0);
+
+    // Only the fields used by the filter and the project are converted from the input messages
+    OperatorSpec scanSpec = appDesc.getOperatorSpecGraph().getInputOperators().values().iterator().next()
+        .getRegisteredOperatorSpecs().iterator().next();
+    Assert.assertEquals(OperatorSpec.OpCode.MAP, scanSpec.getOpCode());
+    Object scanFn = Whitebox.getInternalState(scanSpec, "mapFn");
+    Assert.assertEquals(Arrays.asList("id", "name"), Whitebox.getInternalState(scanFn, "projectedFieldNames"));
+  }
+
   @Test
   public void testTranslateFanIn() {
     Map<String, String> config = SamzaSqlTestConfig.fetchStaticConfigsWithFactories(10);
@@ -498,14 +595,161 @@ public class TestQueryTranslator {
     translator.translate(queryInfo.get(0), streamAppDesc, 0);
   }
 
-  @Test (expected = SamzaException.class)
+  @Test
   public void testTranslateStreamStreamJoin() {
+    Map<String, String> config = SamzaSqlTestConfig.fetchStaticConfigsWithFactories(configs, 1);
+    String sql =
+        "Insert into testavro.enrichedPageViewTopic(profileName, pageKey)"
+            + " select p.string_value as profileName, c.string_value as pageKey"
+            + " from testavro.COMPLEX1 as c"
+            + " join testavro.Profile as p"
+            + " on p.id = c.id"
+            + " and c.long_value >= p.long_value - 60000 and c.long_value <= p.long_value + 30000";
+    config.put(SamzaSqlApplicationConfig.CFG_SQL_STMT, sql);
+    config.put(SamzaSqlApplicationConfig.CFG_METADATA_TOPIC_PREFIX, "sampleAppv1");
+    Config samzaConfig = SamzaSqlApplicationRunner.computeSamzaConfigs(true, new MapConfig(config));
+
+    List<String> sqlStmts = fetchSqlFromConfig(config);
+    List<SamzaSqlQueryParser.QueryInfo> queryInfo = fetchQueryInfo(sqlStmts);
+    SamzaSqlApplicationConfig samzaSqlApplicationConfig = new SamzaSqlApplicationConfig(new MapConfig(config),
+        queryInfo.stream().map(SamzaSqlQueryParser.QueryInfo::getSources).flatMap(Collection::stream)
+            .collect(Collectors.toList()),
+        queryInfo.stream().map(SamzaSqlQueryParser.QueryInfo::getSink).collect(Collectors.toList()));
+
+    StreamApplicationDescriptorImpl streamAppDesc = new StreamApplicationDescriptorImpl(streamApp -> { }, samzaConfig);
+    QueryTranslator translator = new QueryTranslator(streamAppDesc, samzaSqlApplicationConfig);
+    translator.translate(queryInfo.get(0), streamAppDesc, 0);
+    OperatorSpecGraph specGraph = streamAppDesc.getOperatorSpecGraph();
+
+    // Both streams are repartitioned by the join key and joined with each other
+    StreamConfig streamConfig = new StreamConfig(samzaConfig);
+    List<String> outputPhysicalNames = specGraph.getOutputStreams().keySet().stream()
+        .map(streamConfig::getPhysicalName).collect(Collectors.toList());
+    Assert.assertEquals(Arrays.asList("sql-job-1-partition_by-sampleAppv1_left_sql0_join0",
+        "sql-job-1-partition_by-sampleAppv1_right_sql0_join0", "enrichedPageViewTopic"), outputPhysicalNames);
+    List<JoinOperatorSpec> joinSpecs = specGraph.getAllOperatorSpecs().stream()
+        .filter(op -> op.getOpCode() == OperatorSpec.OpCode.JOIN)
+        .map(op -> (JoinOperatorSpec) op)
+        .collect(Collectors.toList());
+    Assert.assertEquals(1, joinSpecs.size());
+    Assert.assertTrue(joinSpecs.get(0).isMultiMatch());
+    // The window is the interval in the join condition plus the default allowed lateness
+    Assert.assertEquals(60000 + 300000, joinSpecs.get(0).getTtlMs());
+  }
+
+  @Test
+  public void testTranslateStreamStreamJoinWithRemainingCondition() {
+    Map<String, String> config = SamzaSqlTestConfig.fetchStaticConfigsWithFactories(configs, 1);
+    String sql =
+        "Insert into testavro.enrichedPageViewTopic(profileName, pageKey)"
+            + " select p.string_value as profileName, c.string_value as pageKey"
+            + " from testavro.COMPLEX1 as c"
+            + " join testavro.Profile as p"
+            + " on p.id = c.id"
+            + " and p.long_value >= c.long_value - 10 and p.long_value <= c.long_value + 10";
+    config.put(SamzaSqlApplicationConfig.CFG_SQL_STMT, sql);
+    config.put(SamzaSqlApplicationConfig.CFG_JOIN_ALLOWED_LATENESS_MS, "1000");
+    Config samzaConfig = SamzaSqlApplicationRunner.computeSamzaConfigs(true, new MapConfig(config));
+
+    List<String> sqlStmts = fetchSqlFromConfig(config);
+    List<SamzaSqlQueryParser.QueryInfo> queryInfo = fetchQueryInfo(sqlStmts);
+    SamzaSqlApplicationConfig samzaSqlApplicationConfig = new SamzaSqlApplicationConfig(new MapConfig(config),
+        queryInfo.stream().map(SamzaSqlQueryParser.QueryInfo::getSources).flatMap(Collection::stream)
+            .collect(Collectors.toList()),
+        queryInfo.stream().map(SamzaSqlQueryParser.QueryInfo::getSink).collect(Collectors.toList()));
+
+    StreamApplicationDescriptorImpl streamAppDesc = new StreamApplicationDescriptorImpl(streamApp -> { }, samzaConfig);
+    QueryTranslator translator = new QueryTranslator(streamAppDesc, samzaSqlApplicationConfig);
+    translator.translate(queryInfo.get(0), streamAppDesc, 0);
+
+    JoinOperatorSpec joinSpec = (JoinOperatorSpec) streamAppDesc.getOperatorSpecGraph().getAllOperatorSpecs().stream()
+        .filter(op -> op.getOpCode() == OperatorSpec.OpCode.JOIN)
+        .findFirst().get();
+    Assert.assertEquals(10 + 1000, joinSpec.getTtlMs());
+
+    Context context = mock(Context.class);
+    when(context.getApplicationTaskContext()).thenReturn(
+        streamAppDesc.getApplicationTaskContextFactory().get().create(null, null, null, null));
+    SamzaSqlStreamStreamJoinFunction joinFn = (SamzaSqlStreamStreamJoinFunction) joinSpec.getJoinFn();
+    joinFn.init(context);
+
+    // Fields of both streams, in the order of the join inputs
+    List<String> fieldNames = Arrays.asList("id", "bool_value", "double_value", "float_value", "string_value",
+        "bytes_value", "long_value", "fixed_value", "array_values", "map_values", "enum_value", "array_records");
+    SamzaSqlRelMessage complex = new SamzaSqlRelMessage("c", fieldNames,
+        Arrays.asList(1, null, null, null, "page1", null, 100L, null, null, null, null, null));
+    SamzaSqlRelMessage profile = new SamzaSqlRelMessage("p", fieldNames,
+        Arrays.asList(1, null, null, null, "name1", null, 105L, null, null, null, null, null));
+    Assert.assertEquals(joinFn.getFirstKey(complex), joinFn.getSecondKey(profile));
+
+    SamzaSqlRelMessage joined = joinFn.apply(complex, profile);
+    Assert.assertEquals(Arrays.asList("c", 1, null, null, null, "page1", null, 100L, null, null, null, null, null,
+        "p", 1, null, null, null, "name1", null, 105L, null, null, null, null, null),
+        joined.getSamzaSqlRelRecord().getFieldValues());
+
+    profile = new SamzaSqlRelMessage("p", fieldNames,
+        Arrays.asList(1, null, null, null, "name1", null, 150L, null, null, null, null, null));
+    Assert.assertNull(joinFn.apply(complex, profile));
+  }
+
+  @Test (expected = SamzaException.class)
+  public void testTranslateStreamStreamJoinWithoutInterval() {
+    Map<String, String> config = SamzaSqlTestConfig.fetchStaticConfigsWithFactories(configs, 1);
+    String sql =
+        "Insert into testavro.enrichedPageViewTopic(profileName, pageKey)"
+            + " select p.name as profileName, pv.pageKey"
+            + " from testavro.PAGEVIEW as pv"
+            + " join testavro.PROFILE as p"
+            + " on p.id = pv.profileId"
+            + " and p.companyId >= pv.profileId - 10";
+    config.put(SamzaSqlApplicationConfig.CFG_SQL_STMT, sql);
+    Config samzaConfig = SamzaSqlApplicationRunner.computeSamzaConfigs(true, new MapConfig(config));
+
+    List<String> sqlStmts = fetchSqlFromConfig(config);
+    List<SamzaSqlQueryParser.QueryInfo> queryInfo = fetchQueryInfo(sqlStmts);
+    SamzaSqlApplicationConfig samzaSqlApplicationConfig = new SamzaSqlApplicationConfig(new MapConfig(config),
+        queryInfo.stream().map(SamzaSqlQueryParser.QueryInfo::getSources).flatMap(Collection::stream)
+            .collect(Collectors.toList()),
+        queryInfo.stream().map(SamzaSqlQueryParser.QueryInfo::getSink).collect(Collectors.toList()));
+
+    StreamApplicationDescriptorImpl streamAppDesc = new StreamApplicationDescriptorImpl(streamApp -> { }, samzaConfig);
+    QueryTranslator translator = new QueryTranslator(streamAppDesc, samzaSqlApplicationConfig);
+    translator.translate(queryInfo.get(0), streamAppDesc, 0);
+  }
+
+  @Test (expected = SamzaException.class)
+  public void testTranslateStreamStreamJoinWithIntervalOnNonTimeColumns() {
     Map<String, String> config = SamzaSqlTestConfig.fetchStaticConfigsWithFactories(configs, 1);
     String sql =
         "Insert into testavro.enrichedPageViewTopic(profileName, pageKey)"
             + " select p.name as profileName, pv.pageKey"
             + " from testavro.PAGEVIEW as pv"
             + " join testavro.PROFILE as p"
+            + " on p.id = pv.profileId"
+            + " and p.companyId >= pv.profileId - 10 and p.companyId <= pv.profileId + 10";
+    config.put(SamzaSqlApplicationConfig.CFG_SQL_STMT, sql);
+    Config samzaConfig = SamzaSqlApplicationRunner.computeSamzaConfigs(true, new MapConfig(config));
+
+    List<String> sqlStmts = fetchSqlFromConfig(config);
+    List<SamzaSqlQueryParser.QueryInfo> queryInfo = fetchQueryInfo(sqlStmts);
+    SamzaSqlApplicationConfig samzaSqlApplicationConfig = new SamzaSqlApplicationConfig(new MapConfig(config),
+        queryInfo.stream().map(SamzaSqlQueryParser.QueryInfo::getSources).flatMap(Collection::stream)
+            .collect(Collectors.toList()),
+        queryInfo.stream().map(SamzaSqlQueryParser.QueryInfo::getSink).collect(Collectors.toList()));
+
+    StreamApplicationDescriptorImpl streamAppDesc = new StreamApplicationDescriptorImpl(streamApp -> { }, samzaConfig);
+    QueryTranslator translator = new QueryTranslator(streamAppDesc, samzaSqlApplicationConfig);
+    translator.translate(queryInfo.get(0), streamAppDesc, 0);
+  }
+
+  @Test (expected = SamzaException.class)
+  public void testTranslateStreamStreamLeftJoin() {
+    Map<String, String> config = SamzaSqlTestConfig.fetchStaticConfigsWithFactories(configs, 1);
+    String sql =
+        "Insert into testavro.enrichedPageViewTopic(profileName, pageKey)"
+            + " select p.name as profileName, pv.pageKey"
+            + " from testavro.PAGEVIEW as pv"
+            + " left join testavro.PROFILE as p"
             + " on p.id = pv.profileId";
     config.put(SamzaSqlApplicationConfig.CFG_SQL_STMT, sql);
     Config samzaConfig = SamzaSqlApplicationRunner.computeSamzaConfigs(true, new MapConfig(config));
@@ -832,7 +1076,7 @@ public class TestQueryTranslator {
     Collection<OperatorSpec> operatorSpecs = specGraph.getAllOperatorSpecs();
   }
 
-  @Test (expected = SamzaException.class)
+  @Test
   public void testTranslateGroupByWithSumAggregator() {
     Map<String, String> config = SamzaSqlTestConfig.fetchStaticConfigsWithFactories(configs, 10);
     String sql =
@@ -840,6 +1084,41 @@ public class TestQueryTranslator {
             + " select 'SampleJob' as jobName, pv.pageKey, sum(pv.profileId) as `sum`"
             + " from testavro.PAGEVIEW as pv" + " where pv.pageKey = 'job' or pv.pageKey = 'inbox'"
             + " group by (pv.pageKey)";
+    OperatorSpecGraph specGraph = translateGroupBy(config, sql);
+
+    Assert.assertEquals(1, specGraph.getInputOperators().size());
+    Assert.assertEquals(1, specGraph.getOutputStreams().size());
+    assertTrue(specGraph.hasWindowOrJoins());
+  }
+
+  @Test
+  public void testTranslateGroupByWithMultipleAggregators() {
+    Map<String, String> config = SamzaSqlTestConfig.fetchStaticConfigsWithFactories(configs, 10);
+    String sql =
+        "Insert into testavro.pageViewCountTopic(jobName, pageKey, `count`)"
+            + " select 'SampleJob' as jobName, pv.pageKey, count(*) + count(distinct pv.profileId)"
+            + " + min(pv.profileId) + max(pv.profileId) + avg(pv.profileId) as `count`"
+            + " from testavro.PAGEVIEW as pv"
+            + " group by (pv.pageKey)";
+    OperatorSpecGraph specGraph = translateGroupBy(config, sql);
+
+    Assert.assertEquals(1, specGraph.getInputOperators().size());
+    Assert.assertEquals(1, specGraph.getOutputStreams().size());
+    assertTrue(specGraph.hasWindowOrJoins());
+  }
+
+  @Test (expected = SamzaException.class)
+  public void testTranslateGroupByWithSumDistinctAggregator() {
+    Map<String, String> config = SamzaSqlTestConfig.fetchStaticConfigsWithFactories(configs, 10);
+    String sql =
+        "Insert into testavro.pageViewCountTopic(jobName, pageKey, `sum`)"
+            + " select 'SampleJob' as jobName, pv.pageKey, sum(distinct pv.profileId) as `sum`"
+            + " from testavro.PAGEVIEW as pv"
+            + " group by (pv.pageKey)";
+    translateGroupBy(config, sql);
+  }
+
+  private OperatorSpecGraph translateGroupBy(Map<String, String> config, String sql) {
     config.put(SamzaSqlApplicationConfig.CFG_SQL_STMT, sql);
     Config samzaConfig = SamzaSqlApplicationRunner.computeSamzaConfigs(true, new MapConfig(config));
 
@@ -853,5 +1132,6 @@ public class TestQueryTranslator {
     StreamApplicationDescriptorImpl streamAppDesc = new StreamApplicationDescriptorImpl(streamApp -> { }, samzaConfig);
     QueryTranslator translator = new QueryTranslator(streamAppDesc, samzaSqlApplicationConfig);
     translator.translate(queryInfo.get(0), streamAppDesc, 0);
+    return streamAppDesc.getOperatorSpecGraph();
   }
 }
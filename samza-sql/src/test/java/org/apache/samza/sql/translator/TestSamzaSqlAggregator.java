@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.samza.sql.translator;
+
+import java.util.Arrays;
+import java.util.Collections;
+import org.apache.calcite.sql.SqlKind;
+import org.apache.calcite.sql.type.SqlTypeName;
+import org.apache.commons.lang3.SerializationUtils;
+import org.apache.samza.sql.SamzaSqlRelRecord;
+import org.apache.samza.sql.data.SamzaSqlRelMessage;
+import org.apache.samza.serializers.Serde;
+import org.apache.samza.sql.serializers.SamzaSqlRelRecordBinarySerdeFactory.SamzaSqlRelRecordBinarySerde;
+import org.apache.samza.sql.serializers.SamzaSqlRelRecordSerdeFactory;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+
+public class TestSamzaSqlAggregator {
+
+  // Input rows are (pageKey, profileId, score, isMember)
+  private static final SamzaSqlAggregator AGGREGATOR = new SamzaSqlAggregator(Collections.singletonList(0),
+      Arrays.asList("pageKey", "cnt", "cntId", "sumId", "minScore", "maxId", "avgId", "cntMembers", "cntDistinctId"),
+      Arrays.asList(
+          new SamzaSqlAggregator.Call(SqlKind.COUNT, false, Collections.emptyList(), -1, SqlTypeName.BIGINT),
+          new SamzaSqlAggregator.Call(SqlKind.COUNT, false, Collections.singletonList(1), -1, SqlTypeName.BIGINT),
+          new SamzaSqlAggregator.Call(SqlKind.SUM, false, Collections.singletonList(1), -1, SqlTypeName.INTEGER),
+          new SamzaSqlAggregator.Call(SqlKind.MIN, false, Collections.singletonList(2), -1, SqlTypeName.DOUBLE),
+          new SamzaSqlAggregator.Call(SqlKind.MAX, false, Collections.singletonList(1), -1, SqlTypeName.INTEGER),
+          new SamzaSqlAggregator.Call(SqlKind.AVG, false, Collections.singletonList(1), -1, SqlTypeName.INTEGER),
+          new SamzaSqlAggregator.Call(SqlKind.COUNT, false, Collections.emptyList(), 3, SqlTypeName.BIGINT),
+          new SamzaSqlAggregator.Call(SqlKind.COUNT, true, Collections.singletonList(1), -1, SqlTypeName.BIGINT)));
+
+  private static SamzaSqlRelMessage row(String pageKey, Integer profileId, Double score, boolean isMember) {
+    return new SamzaSqlRelMessage(Arrays.asList("pageKey", "profileId", "score", "isMember"),
+        Arrays.asList(pageKey, profileId, score, isMember));
+  }
+
+  @Test
+  public void testAggregate() {
+    SamzaSqlRelRecord accumulator = AGGREGATOR.createAccumulator();
+    accumulator = AGGREGATOR.accumulate(row("inbox", 1, 2.5, true), accumulator);
+    accumulator = AGGREGATOR.accumulate(row("inbox", 4, 0.5, false), accumulator);
+    accumulator = AGGREGATOR.accumulate(row("inbox", 4, null, true), accumulator);
+    accumulator = AGGREGATOR.accumulate(row("inbox", null, 1.0, false), accumulator);
+
+    SamzaSqlRelMessage result = AGGREGATOR.getResult(AGGREGATOR.getGroupKey(row("inbox", 1, 2.5, true)), accumulator);
+    assertEquals(Arrays.asList("pageKey", "cnt", "cntId", "sumId", "minScore", "maxId", "avgId", "cntMembers",
+        "cntDistinctId"), result.getSamzaSqlRelRecord().getFieldNames());
+    assertEquals(Arrays.asList("inbox", 4L, 3L, 9, 0.5, 4, 3, 2L, 2L), result.getSamzaSqlRelRecord().getFieldValues());
+  }
+
+  @Test
+  public void testEmptyGroup() {
+    SamzaSqlRelMessage result = AGGREGATOR.getResult(AGGREGATOR.getGroupKey(row("inbox", 1, 2.5, true)),
+        AGGREGATOR.createAccumulator());
+    assertEquals(Arrays.asList("inbox", 0L, 0L, null, null, null, null, 0L, 0L),
+        result.getSamzaSqlRelRecord().getFieldValues());
+  }
+
+  @Test
+  public void testGroupKeyOnlyContainsGroupingColumns() {
+    SamzaSqlRelRecord key = AGGREGATOR.getGroupKey(row("inbox", 1, 2.5, true));
+    assertEquals(Collections.singletonList("pageKey"), key.getFieldNames());
+    assertEquals(Collections.singletonList("inbox"), key.getFieldValues());
+  }
+
+  @Test
+  public void testAccumulatorRoundTrip() {
+    SamzaSqlRelRecordBinarySerde serde = new SamzaSqlRelRecordBinarySerde(AGGREGATOR.getAccumulatorFieldNames());
+    SamzaSqlRelRecord accumulator = accumulateWithRoundTrips(serde);
+    // The accumulators don't grow with the number of messages
+    assertTrue(serde.toBytes(accumulator).length < 128);
+  }
+
+  @Test
+  public void testAccumulatorJsonRoundTrip() {
+    // The JSON serde is the default for the window store
+    accumulateWithRoundTrips(new SamzaSqlRelRecordSerdeFactory.SamzaSqlRelRecordSerde());
+  }
+
+  private SamzaSqlRelRecord accumulateWithRoundTrips(Serde<SamzaSqlRelRecord> serde) {
+    SamzaSqlRelRecord accumulator = AGGREGATOR.createAccumulator();
+    for (int i = 0; i < 100; i++) {
+      accumulator = serde.fromBytes(serde.toBytes(AGGREGATOR.accumulate(row("inbox", i % 10, (double) i, true),
+          accumulator)));
+    }
+
+    SamzaSqlRelMessage result = AGGREGATOR.getResult(AGGREGATOR.getGroupKey(row("inbox", 1, 2.5, true)), accumulator);
+    assertEquals(Arrays.asList("inbox", 100L, 100L, 450, 0.0, 9, 4, 100L, 10L),
+        result.getSamzaSqlRelRecord().getFieldValues());
+    return accumulator;
+  }
+
+  @Test
+  public void testSerializable() {
+    SamzaSqlAggregator aggregator = SerializationUtils.clone(AGGREGATOR);
+    SamzaSqlRelRecord accumulator = aggregator.accumulate(row("inbox", 1, 2.5, true), aggregator.createAccumulator());
+    assertEquals(Arrays.asList("inbox", 1L, 1L, 1, 2.5, 1, 1, 1L, 1L),
+        aggregator.getResult(aggregator.getGroupKey(row("inbox", 1, 2.5, true)), accumulator)
+            .getSamzaSqlRelRecord().getFieldValues());
+  }
+}